@@ -46,13 +46,16 @@ import java.util.Set;
 public class AndroidState extends AndroidWidget implements State {
 	private static final long serialVersionUID = 6164678210625030830L;
 
+	// computed on first use, discarded whenever the widget tree changes
+	private transient WidgetTraversal traversal;
+
 	public AndroidState(AndroidRootElement root) {
 		super(null, null, root);
 		this.root = this;
 	}
 
 	public Iterator<Widget> iterator() {
-		Iterator<Widget> iterator = new WidgetIterator(this);
+		Iterator<Widget> iterator = traversal().iterator();
 		// If root element is null, disable iterating
 		if (this.element == null) {
 			iterator.next();
@@ -60,10 +63,20 @@ public class AndroidState extends AndroidWidget implements State {
 		return iterator;
 	}
 
+	public WidgetTraversal traversal() {
+		WidgetTraversal ret = traversal;
+		if (ret == null) {
+			ret = WidgetTraversal.of(this);
+			traversal = ret;
+		}
+		return ret;
+	}
+
 	public void remove(AndroidWidget w) {
 		Assert.isTrue(this != w, "You cannot remove the root!");
 		assert (w.parent != null);
 		w.parent.children.remove(w);
+		traversal = null;
 		invalidate(w);
 	}
 
@@ -90,6 +103,7 @@ public class AndroidState extends AndroidWidget implements State {
 		w.parent.children.remove(w);
 		webParent.children.add(idx, w);
 		w.parent = webParent;
+		traversal = null;
 	}
 
 	AndroidWidget addChild(AndroidWidget parent, AndroidElement element) {
@@ -99,6 +113,7 @@ public class AndroidState extends AndroidWidget implements State {
 
 	void connect(AndroidWidget parent, AndroidWidget child) {
 		parent.children.add(child);
+		traversal = null;
 	}
 
 	public <T> T get(AndroidWidget w, Tag<T> t) {
@@ -80,10 +80,11 @@ public class AndroidStateFetcher implements Callable<AndroidState> {
 		root.set(Tags.NotResponding, false);
 
 		// After create the widget tree, set widgets Path
-		for (Widget w : root) {
-		    w.set(Tags.Path, Util.indexString(w));
+		WidgetTraversal traversal = root.traversal();
+		traversal.forEachPreOrder((w, index, depth) -> {
+		    w.set(Tags.Path, traversal.indexString(index));
 		    w.set(AndroidTags.AndroidXpath, AndroidProtocolUtil.constructXpath(w));
-		}
+		});
 
 		return root;
 	}
@@ -0,0 +1,116 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testar.statemodel.AbstractAction;
+import org.testar.statemodel.AbstractState;
+import org.testar.statemodel.AbstractStateModel;
+import org.testar.statemodel.exceptions.StateModelException;
+
+/**
+ * Growing an abstract state model with a random walk over a fixed set of abstract states,
+ * so that later transitions mostly revisit known transitions like a long test run does.
+ * Each operation starts from an empty model with fresh states, created outside of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AbstractStateModelBenchmark {
+
+	@Param({"100", "1000"})
+	public int states;
+
+	@Param({"10"})
+	public int actionsPerState;
+
+	@Param({"10000"})
+	public int transitions;
+
+	private int[] walk;
+	private List<AbstractState> abstractStates;
+	private AbstractStateModel model;
+
+	@Setup(Level.Trial)
+	public void createWalk() {
+		Random random = new Random(11);
+		// pairs of (state, action) indices, the target of a step is the source of the next one
+		walk = new int[transitions * 2 + 1];
+		for (int i = 0; i < walk.length; i++) {
+			walk[i] = random.nextInt(i % 2 == 0 ? states : actionsPerState);
+		}
+	}
+
+	// the operations take milliseconds, so the per invocation setup does not disturb the measurement
+	@Setup(Level.Invocation)
+	public void createModel() {
+		abstractStates = new ArrayList<>(states);
+		for (int s = 0; s < states; s++) {
+			Set<AbstractAction> actions = new HashSet<>();
+			for (int a = 0; a < actionsPerState; a++) {
+				actions.add(new AbstractAction("AA" + s + "-" + a));
+			}
+			abstractStates.add(new AbstractState("AS" + s, actions));
+		}
+		model = new AbstractStateModel("benchmark", "benchmark", "1", new HashSet<>());
+	}
+
+	@Benchmark
+	public AbstractStateModel addTransition() throws StateModelException {
+		for (int i = 0; i + 2 < walk.length; i += 2) {
+			AbstractState source = abstractStates.get(walk[i]);
+			AbstractState target = abstractStates.get(walk[i + 2]);
+			model.addTransition(source, target, source.getAction("AA" + walk[i] + "-" + walk[i + 1]));
+		}
+		return model;
+	}
+}
@@ -0,0 +1,103 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.benchmarks;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Compares two JMH json results, for example of a branch and of the commit it is based on,
+ * and prints the relative change of the score of every benchmark that is in both.
+ * For the time based modes a positive change means the candidate is slower.
+ */
+public final class BenchmarkComparison {
+
+	private BenchmarkComparison() {}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.out.println("Usage: BenchmarkComparison <baseline.json> <candidate.json>");
+			return;
+		}
+		Map<String, double[]> baseline = readScores(new File(args[0]));
+		Map<String, double[]> candidate = readScores(new File(args[1]));
+
+		System.out.println(String.format("%-90s %14s %14s %9s", "Benchmark", "Baseline", "Candidate", "Change"));
+		for (Map.Entry<String, double[]> entry : new TreeMap<>(baseline).entrySet()) {
+			double[] candidateScore = candidate.get(entry.getKey());
+			if (candidateScore == null) {
+				continue;
+			}
+			double[] baselineScore = entry.getValue();
+			double change = (candidateScore[0] - baselineScore[0]) / baselineScore[0] * 100;
+			// a change within the error margins of both runs is not significant
+			boolean significant = Math.abs(candidateScore[0] - baselineScore[0]) > baselineScore[1] + candidateScore[1];
+			System.out.println(String.format("%-90s %14.3f %14.3f %+8.1f%%%s", entry.getKey(), baselineScore[0],
+					candidateScore[0], change, significant ? "" : " ~"));
+		}
+	}
+
+	/**
+	 * @param results
+	 * @return the score and score error of each benchmark, by name and parameters
+	 * @throws IOException
+	 */
+	static Map<String, double[]> readScores(File results) throws IOException {
+		Map<String, double[]> scores = new LinkedHashMap<>();
+		try (Reader reader = new FileReader(results)) {
+			JsonArray runs = new JsonParser().parse(reader).getAsJsonArray();
+			for (JsonElement element : runs) {
+				JsonObject run = element.getAsJsonObject();
+				StringBuilder name = new StringBuilder(run.get("benchmark").getAsString().replace("org.testar.benchmarks.", ""));
+				if (run.has("params")) {
+					for (Map.Entry<String, JsonElement> param : run.getAsJsonObject("params").entrySet()) {
+						name.append(' ').append(param.getKey()).append('=').append(param.getValue().getAsString());
+					}
+				}
+				JsonObject metric = run.getAsJsonObject("primaryMetric");
+				double error = metric.get("scoreError").isJsonPrimitive() && !metric.get("scoreError").getAsString().equals("NaN")
+						? metric.get("scoreError").getAsDouble() : 0;
+				scores.put(name.toString(), new double[] {metric.get("score").getAsDouble(), error});
+			}
+		}
+		return scores;
+	}
+}
@@ -0,0 +1,137 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testar.statemodel.AbstractAction;
+import org.testar.statemodel.AbstractState;
+import org.testar.statemodel.AbstractStateModel;
+import org.testar.statemodel.exceptions.StateModelException;
+import org.testar.statemodel.persistence.logstore.LogStoreManager;
+import org.testar.statemodel.util.EventHelper;
+
+/**
+ * Loading an abstract state model from the state model log when TESTAR starts.
+ * The log is written and compacted once, outside of the measurement.
+ * The target is to load 100k transitions in less than a second.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LogStoreBenchmark {
+
+	@Param({"10000"})
+	public int states;
+
+	@Param({"10"})
+	public int actionsPerState;
+
+	private File directory;
+	private LogStoreManager manager;
+
+	@Setup(Level.Trial)
+	public void writeLog() throws IOException, StateModelException {
+		directory = Files.createTempDirectory("logstore").toFile();
+		List<AbstractState> abstractStates = new ArrayList<>(states);
+		for (int s = 0; s < states; s++) {
+			Set<AbstractAction> actions = new HashSet<>();
+			for (int a = 0; a < actionsPerState; a++) {
+				actions.add(new AbstractAction("AA" + s + "-" + a));
+			}
+			abstractStates.add(new AbstractState("AS" + s, actions));
+		}
+
+		// every action of every state leads to another state, one transition each
+		LogStoreManager writer = new LogStoreManager(new EventHelper(), directory);
+		AbstractStateModel model = createModel(writer);
+		for (int s = 0; s < states; s++) {
+			AbstractState source = abstractStates.get(s);
+			for (int a = 0; a < actionsPerState; a++) {
+				AbstractState target = abstractStates.get((s * 31 + a * 7 + 1) % states);
+				model.addTransition(source, target, source.getAction("AA" + s + "-" + a));
+			}
+		}
+		writer.shutdown();
+
+		// the first load compacts the superseded state records away
+		LogStoreManager compaction = new LogStoreManager(new EventHelper(), directory);
+		createModel(compaction);
+		compaction.shutdown();
+	}
+
+	@TearDown(Level.Invocation)
+	public void closeLog() {
+		manager.shutdown();
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteLog() {
+		File[] files = directory.listFiles();
+		for (File file : files == null ? new File[0] : files) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Benchmark
+	public AbstractStateModel load() {
+		manager = new LogStoreManager(new EventHelper(), directory);
+		return createModel(manager);
+	}
+
+	private static AbstractStateModel createModel(LogStoreManager manager) {
+		return new AbstractStateModel("benchmark", "benchmark", "1", new HashSet<>(), manager);
+	}
+}
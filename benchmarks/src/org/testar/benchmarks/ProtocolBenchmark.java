@@ -0,0 +1,91 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.benchmarks;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.testar.monkey.ConfigTags;
+import org.testar.monkey.alayer.Widget;
+import org.testar.protocols.GenericUtilsProtocol;
+import org.testar.settings.Settings;
+import org.testar.settings.SettingsDefaults;
+
+/**
+ * The click filter and the oracles of a protocol, evaluated on every widget of every state.
+ * The benchmark extends the protocol to reach its protected methods, like the protocol tests do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProtocolBenchmark extends GenericUtilsProtocol {
+
+	@Setup(Level.Trial)
+	public void createSettings() {
+		settings = new Settings(SettingsDefaults.getSettingsDefaults(), new Properties());
+		settings.set(ConfigTags.ClickFilter, ".*[cC]lose.*|.*[eE]xit.*|.*[pP]rint.*|.*[sS]ettings.*");
+		settings.set(ConfigTags.SuspiciousTags, ".*[eE]rror.*|.*[eE]xcep[ct]ion.*");
+		settings.set(ConfigTags.TagsToFilter, Arrays.asList("Title", "Desc"));
+		settings.set(ConfigTags.TagsForSuspiciousOracle, Arrays.asList("Title", "Desc"));
+	}
+
+	@Benchmark
+	public void isUnfiltered(StateFixture fixture, Blackhole blackhole) {
+		for (org.testar.monkey.alayer.State state : fixture.states()) {
+			for (Widget w : state) {
+				blackhole.consume(isUnfiltered(w));
+			}
+		}
+	}
+
+	@Benchmark
+	public void getVerdict(StateFixture fixture, Blackhole blackhole) {
+		for (org.testar.monkey.alayer.State state : fixture.states()) {
+			blackhole.consume(getVerdict(state));
+		}
+	}
+}
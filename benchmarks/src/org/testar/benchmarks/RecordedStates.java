@@ -0,0 +1,110 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.benchmarks;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import org.testar.monkey.alayer.Action;
+import org.testar.monkey.alayer.State;
+import org.testar.monkey.alayer.Taggable;
+import org.testar.monkey.alayer.Tags;
+
+/**
+ * Reads the states of a recorded TESTAR sequence (a .testar file of the output/sequences folders),
+ * so that the benchmarks can run on the widget trees of real WebDriver or UIA sessions.
+ * The fragments of a sequence hold the state in which each action was executed, together with the derived actions.
+ * Reading UIA or WebDriver states requires the windows or webdriver module on the class path.
+ */
+public final class RecordedStates {
+
+	private RecordedStates() {}
+
+	/**
+	 * A recorded state with the actions that were derived in it.
+	 */
+	public static final class Recording {
+		private final State state;
+		private final Set<Action> actions;
+
+		Recording(State state, Set<Action> actions) {
+			this.state = state;
+			this.actions = actions;
+		}
+
+		public State getState() {
+			return state;
+		}
+
+		public Set<Action> getActions() {
+			return actions;
+		}
+	}
+
+	/**
+	 * Reads all the states of a sequence file.
+	 * @param sequenceFile
+	 * @return the recorded states in the order of the sequence
+	 * @throws IOException
+	 */
+	public static List<Recording> load(File sequenceFile) throws IOException {
+		List<Recording> recordings = new ArrayList<>();
+		try (ObjectInputStream ois = new ObjectInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(sequenceFile))))) {
+			while (true) {
+				Taggable fragment;
+				try {
+					fragment = (Taggable) ois.readObject();
+				} catch (EOFException e) {
+					break;
+				} catch (ClassNotFoundException e) {
+					throw new IOException("Unable to read " + sequenceFile + ", is the platform module on the class path?", e);
+				}
+				State state = fragment.get(Tags.SystemState, null);
+				if (state != null) {
+					recordings.add(new Recording(state, fragment.get(Tags.ActionSet, Collections.<Action>emptySet())));
+				}
+			}
+		}
+		if (recordings.isEmpty()) {
+			throw new IOException("No states were recorded in " + sequenceFile);
+		}
+		return recordings;
+	}
+}
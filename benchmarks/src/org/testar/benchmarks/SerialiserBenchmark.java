@@ -0,0 +1,116 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.testar.monkey.alayer.Action;
+import org.testar.monkey.alayer.TaggableBase;
+import org.testar.monkey.alayer.Tags;
+
+/**
+ * Writing and reading the fragments of a replayable sequence, in the format of the <code>TestSerialiser</code>:
+ * java serialisation of a fragment per executed action over a gzip stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerialiserBenchmark {
+
+	private List<TaggableBase> fragments;
+	private byte[] sequence;
+
+	@Setup(Level.Trial)
+	public void createFragments(StateFixture fixture) throws IOException {
+		fragments = new ArrayList<>();
+		for (int i = 0; i < fixture.states().size(); i++) {
+			TaggableBase fragment = new TaggableBase();
+			Action action = fixture.actions().get(i).isEmpty() ? null : fixture.actions().get(i).iterator().next();
+			if (action != null) {
+				fragment.set(Tags.ExecutedAction, action);
+			}
+			fragment.set(Tags.ActionSet, fixture.actions().get(i));
+			fragment.set(Tags.SystemState, fixture.states().get(i));
+			fragments.add(fragment);
+		}
+		sequence = write();
+	}
+
+	@Benchmark
+	public byte[] writeSequence() throws IOException {
+		return write();
+	}
+
+	@Benchmark
+	public void readSequence(Blackhole blackhole) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream ois = new ObjectInputStream(new GZIPInputStream(new ByteArrayInputStream(sequence)))) {
+			for (int i = 0; i < fragments.size(); i++) {
+				blackhole.consume(ois.readObject());
+			}
+		}
+	}
+
+	private byte[] write() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(new GZIPOutputStream(bytes))) {
+			for (TaggableBase fragment : fragments) {
+				oos.writeObject(fragment);
+				// like the TestSerialiser, the fragments do not share references
+				oos.reset();
+			}
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,129 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.testar.CodingManager;
+import org.testar.monkey.alayer.Action;
+import org.testar.monkey.alayer.Roles;
+import org.testar.monkey.alayer.State;
+import org.testar.monkey.alayer.Tag;
+import org.testar.monkey.alayer.Tags;
+import org.testar.monkey.alayer.Widget;
+import org.testar.monkey.alayer.actions.AnnotatingActionCompiler;
+import org.testar.monkey.alayer.actions.StdActionCompiler;
+
+/**
+ * The states the benchmarks run on, selected with the <code>state</code> parameter:
+ * <ul>
+ * <li>widgets x depth x fanOut x tags, a synthetic state, see {@link SyntheticStates#generate(String, long)}</li>
+ * <li>recorded:&lt;file&gt;, all the states of a recorded TESTAR sequence, see {@link RecordedStates}</li>
+ * </ul>
+ * Every benchmark operation processes all the states of the fixture.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+public class StateFixture {
+
+	public static final String RECORDED = "recorded:";
+
+	@Param({"200x6x4x5", "2000x8x6x10", "20000x12x8x20"})
+	public String state;
+
+	private List<State> states;
+	private List<Set<Action>> actions;
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		CodingManager.setCustomTagsForConcreteId(new Tag<?>[] {Tags.Role, Tags.Title, Tags.Path, Tags.Enabled});
+		CodingManager.setCustomTagsForAbstractId(new Tag<?>[] {Tags.Role, Tags.Title});
+
+		states = new ArrayList<>();
+		actions = new ArrayList<>();
+		if (state.startsWith(RECORDED)) {
+			for (RecordedStates.Recording recording : RecordedStates.load(new File(state.substring(RECORDED.length())))) {
+				states.add(recording.getState());
+				actions.add(recording.getActions());
+			}
+		} else {
+			SyntheticState syntheticState = SyntheticStates.generate(state, 42);
+			CodingManager.buildIDs(syntheticState);
+			states.add(syntheticState);
+			actions.add(deriveActions(syntheticState));
+		}
+		for (int i = 0; i < states.size(); i++) {
+			CodingManager.buildIDs(states.get(i));
+			CodingManager.buildIDs(states.get(i), actions.get(i));
+		}
+	}
+
+	/**
+	 * Derives a left click for each enabled leaf widget, like a simple desktop protocol would.
+	 */
+	private static Set<Action> deriveActions(State state) {
+		StdActionCompiler ac = new AnnotatingActionCompiler();
+		Set<Action> actions = new HashSet<>();
+		for (Widget w : state) {
+			if (w.childCount() == 0 && w.get(Tags.Enabled, false) && w.get(Tags.Role, Roles.Widget) != Roles.Decoration) {
+				actions.add(ac.leftClickAt(w));
+			}
+		}
+		return actions;
+	}
+
+	public List<State> states() {
+		return states;
+	}
+
+	public List<Set<Action>> actions() {
+		return actions;
+	}
+
+	/**
+	 * @return the number of widgets over all the states
+	 */
+	public int widgetCount() {
+		int count = 0;
+		for (State s : states) {
+			count += s.traversal().size();
+		}
+		return count;
+	}
+}
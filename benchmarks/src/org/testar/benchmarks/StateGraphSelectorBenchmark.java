@@ -0,0 +1,148 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testar.IActionSelector;
+import org.testar.monkey.alayer.Action;
+import org.testar.monkey.alayer.Tags;
+import org.testar.monkey.alayer.actions.NOP;
+import org.testar.simplestategraph.GuiStateGraphWithVisitedActions;
+import org.testar.simplestategraph.QLearningActionSelector;
+
+/**
+ * The simple state graph action selectors walking a simulated SUT: a fixed random graph of abstract states,
+ * in which every action leads to the same target state. Every operation is a complete run with a new selector,
+ * restarting from the first state every sequenceLength steps. The selectors keep up with long runs if the time
+ * per operation grows linearly with the steps.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StateGraphSelectorBenchmark {
+
+	@Param({"GuiStateGraphWithVisitedActions", "QLearningActionSelector"})
+	public String selector;
+
+	@Param({"5000", "50000"})
+	public int steps;
+
+	@Param({"2000"})
+	public int states;
+
+	@Param({"200"})
+	public int sequenceLength;
+
+	private final List<SyntheticState> abstractStates = new ArrayList<>();
+	private final List<Set<Action>> actionsOfStates = new ArrayList<>();
+	private final Map<String, Integer> targetOfActions = new HashMap<>();
+	private PrintStream out;
+	private IActionSelector actionSelector;
+
+	@Setup(Level.Trial)
+	public void createGraph() {
+		Random random = new Random(42);
+		for (int i = 0; i < states; i++) {
+			SyntheticState state = new SyntheticState();
+			state.set(Tags.AbstractID, "state" + i);
+			abstractStates.add(state);
+
+			Set<Action> actions = new HashSet<>();
+			int nrOfActions = 5 + random.nextInt(11);
+			for (int j = 0; j < nrOfActions; j++) {
+				NOP action = new NOP();
+				String actionId = "state" + i + "action" + j;
+				action.set(Tags.AbstractID, actionId);
+				action.set(Tags.Desc, actionId);
+				actions.add(action);
+				targetOfActions.put(actionId, random.nextInt(states));
+			}
+			actionsOfStates.add(actions);
+		}
+		// the selectors log every step
+		out = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+	}
+
+	@TearDown(Level.Trial)
+	public void restoreOut() {
+		System.setOut(out);
+	}
+
+	@Setup(Level.Invocation)
+	public void createSelector() {
+		actionSelector = selector.equals("QLearningActionSelector")
+				? new QLearningActionSelector(99, 0.5)
+				: new GuiStateGraphWithVisitedActions();
+	}
+
+	@Benchmark
+	public int walk() {
+		int current = 0;
+		for (int step = 0; step < steps; step++) {
+			if (step % sequenceLength == 0) {
+				current = 0;
+				if (actionSelector instanceof QLearningActionSelector) {
+					((QLearningActionSelector) actionSelector).resetGraphForNewTestSequence();
+				}
+			}
+			Action action = actionSelector.selectAction(abstractStates.get(current), actionsOfStates.get(current));
+			current = targetOfActions.get(action.get(Tags.AbstractID));
+		}
+		return current;
+	}
+}
@@ -0,0 +1,71 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.benchmarks;
+
+import java.util.Iterator;
+
+import org.testar.monkey.alayer.State;
+import org.testar.monkey.alayer.Widget;
+import org.testar.monkey.alayer.WidgetTraversal;
+
+/**
+ * The root of a synthetic widget tree. Like the platform states it caches its traversal,
+ * so the tree must not change once it has been iterated.
+ */
+public class SyntheticState extends SyntheticWidget implements State {
+	private static final long serialVersionUID = -6140276329907744118L;
+
+	private transient WidgetTraversal traversal;
+
+	SyntheticState() {
+		super(null, null);
+	}
+
+	@Override
+	public State root() {
+		return this;
+	}
+
+	@Override
+	public Iterator<Widget> iterator() {
+		return traversal().iterator();
+	}
+
+	@Override
+	public WidgetTraversal traversal() {
+		WidgetTraversal ret = traversal;
+		if (ret == null) {
+			ret = WidgetTraversal.of(this);
+			traversal = ret;
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,149 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.benchmarks;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+import org.testar.monkey.alayer.Rect;
+import org.testar.monkey.alayer.Role;
+import org.testar.monkey.alayer.Roles;
+import org.testar.monkey.alayer.Tag;
+import org.testar.monkey.alayer.Tags;
+
+/**
+ * Generates synthetic states with a configurable shape: the number of widgets, the maximum depth
+ * and fan-out of the widget tree, and the number of additional string tags of each widget (the tag richness).
+ * The children of a widget tile the area of their parent, like the panels and controls of a real GUI,
+ * and the states are deterministic for a given seed so that runs can be compared.
+ */
+public final class SyntheticStates {
+
+	public static final double SCREEN_WIDTH = 1920;
+	public static final double SCREEN_HEIGHT = 1080;
+
+	private static final Role[] ROLES = {Roles.Button, Roles.Text, Roles.Item, Roles.ItemContainer, Roles.Slider, Roles.Decoration};
+	private static final String[] WORDS = {"File", "Edit", "View", "Save", "Open", "Close", "Cancel", "Settings", "Help", "Search", "Error", "Name"};
+
+	private SyntheticStates() {}
+
+	/**
+	 * Generates a state from a specification of the form widgets x depth x fanOut x tags, for example 1000x8x6x10.
+	 * @param specification
+	 * @param seed
+	 * @return the state
+	 */
+	public static SyntheticState generate(String specification, long seed) {
+		String[] parts = specification.split("x");
+		if (parts.length != 4) {
+			throw new IllegalArgumentException("Expected widgets x depth x fanOut x tags, got " + specification);
+		}
+		return generate(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+				Integer.parseInt(parts[3]), seed);
+	}
+
+	/**
+	 * Generates a state breadth first, until it contains the given number of widgets or the tree is complete.
+	 * @param widgets the maximum number of widgets, the state included
+	 * @param depth the maximum depth of the widget tree
+	 * @param fanOut the number of children of each widget that is not a leaf
+	 * @param tags the number of additional string tags of each widget
+	 * @param seed
+	 * @return the state
+	 */
+	public static SyntheticState generate(int widgets, int depth, int fanOut, int tags, long seed) {
+		if (widgets < 1 || depth < 0 || fanOut < 1 || tags < 0) {
+			throw new IllegalArgumentException("Invalid synthetic state shape");
+		}
+		Random random = new Random(seed);
+		Tag<String>[] stateTags = richTags(tags);
+
+		SyntheticState state = new SyntheticState();
+		describe(state, Roles.Process, "Synthetic SUT", Rect.from(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT), "0", 0, stateTags, random);
+		state.set(Tags.IsRunning, true);
+		state.set(Tags.NotResponding, false);
+
+		int count = 1;
+		Deque<SyntheticWidget> queue = new ArrayDeque<>();
+		queue.add(state);
+		while (!queue.isEmpty() && count < widgets) {
+			SyntheticWidget parent = queue.remove();
+			int level = parent.get(Tags.ZIndex).intValue();
+			if (level >= depth) {
+				continue;
+			}
+			Rect area = (Rect) parent.get(Tags.Shape);
+			// the children split the area of their parent, alternating between rows and columns
+			boolean columns = level % 2 == 0;
+			for (int i = 0; i < fanOut && count < widgets; i++, count++) {
+				Rect shape = columns
+						? Rect.from(area.x() + i * area.width() / fanOut, area.y(), area.width() / fanOut, area.height())
+						: Rect.from(area.x(), area.y() + i * area.height() / fanOut, area.width(), area.height() / fanOut);
+				SyntheticWidget child = parent.addChild();
+				String title = WORDS[random.nextInt(WORDS.length)] + " " + count;
+				describe(child, ROLES[random.nextInt(ROLES.length)], title, shape, parent.get(Tags.Path) + "," + i,
+						level + 1, stateTags, random);
+				queue.add(child);
+			}
+		}
+		return state;
+	}
+
+	private static void describe(SyntheticWidget widget, Role role, String title, Rect shape, String path,
+			int level, Tag<String>[] tags, Random random) {
+		widget.set(Tags.Role, role);
+		widget.set(Tags.Title, title);
+		widget.set(Tags.Desc, title);
+		widget.set(Tags.Shape, shape);
+		widget.set(Tags.Path, path);
+		widget.set(Tags.ZIndex, (double) level);
+		widget.set(Tags.Enabled, random.nextInt(10) > 0);
+		widget.set(Tags.Blocked, false);
+		widget.set(Tags.HitTester, new SyntheticHitTester(shape));
+		for (int i = 0; i < tags.length; i++) {
+			widget.set(tags[i], "value " + random.nextInt(1000));
+		}
+	}
+
+	/**
+	 * @param count
+	 * @return the first count additional tags of the synthetic states
+	 */
+	@SuppressWarnings("unchecked")
+	public static Tag<String>[] richTags(int count) {
+		Tag<String>[] tags = new Tag[count];
+		for (int i = 0; i < count; i++) {
+			tags[i] = Tag.from("SyntheticTag" + i, String.class);
+		}
+		return tags;
+	}
+}
@@ -0,0 +1,109 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testar.monkey.Drag;
+import org.testar.monkey.Util;
+import org.testar.monkey.alayer.State;
+import org.testar.monkey.alayer.Tag;
+import org.testar.monkey.alayer.TaggableBase;
+import org.testar.monkey.alayer.Widget;
+
+/**
+ * A widget of a synthetic state, see <code>SyntheticStates</code>.
+ */
+public class SyntheticWidget extends TaggableBase implements Widget {
+	private static final long serialVersionUID = 4412371021986316213L;
+
+	private final SyntheticState root;
+	private final SyntheticWidget parent;
+	private final List<Widget> children = new ArrayList<>();
+
+	SyntheticWidget(SyntheticState root, SyntheticWidget parent) {
+		this.root = root;
+		this.parent = parent;
+	}
+
+	@Override
+	public State root() {
+		return root;
+	}
+
+	@Override
+	public Widget parent() {
+		return parent;
+	}
+
+	@Override
+	public Widget child(int i) {
+		return children.get(i);
+	}
+
+	@Override
+	public int childCount() {
+		return children.size();
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void moveTo(Widget p, int idx) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public SyntheticWidget addChild() {
+		SyntheticWidget child = new SyntheticWidget((SyntheticState) root(), this);
+		children.add(child);
+		return child;
+	}
+
+	@Override
+	public Drag[] scrollDrags(double scrollArrowSize, double scrollThick) {
+		return null;
+	}
+
+	@Override
+	public String getRepresentation(String tab) {
+		return tab + "WIDGET = " + toString();
+	}
+
+	@Override
+	public String toString(Tag<?>... tags) {
+		return Util.widgetDesc(this, tags);
+	}
+}
@@ -0,0 +1,132 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.testar.monkey.alayer.State;
+import org.testar.monkey.alayer.Tag;
+import org.testar.monkey.alayer.Tags;
+import org.testar.monkey.alayer.Widget;
+
+/**
+ * Tag access on all the widgets of the states, for tags that are set and for a tag that no widget has.
+ * The HashMap variants measure the same lookups on the former map based tag storage, as a reference.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaggableBaseBenchmark {
+
+	private static final Tag<String> MissingTag = Tag.from("BenchmarkMissingTag", String.class);
+
+	private static final Tag<?>[] SetTags = {Tags.Role, Tags.Title, Tags.Shape, Tags.Path};
+
+	/**
+	 * The tag values of all the widgets of the fixture, stored in a HashMap per widget like TaggableBase used to.
+	 */
+	@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+	public static class MapWidgets {
+
+		private List<Map<Tag<?>, Object>> widgets;
+
+		@Setup(Level.Trial)
+		public void copy(StateFixture fixture) {
+			widgets = new ArrayList<>();
+			for (State state : fixture.states()) {
+				for (Widget w : state) {
+					Map<Tag<?>, Object> tagValues = new HashMap<>();
+					for (Tag<?> tag : SetTags) {
+						Object value = w.get(tag, null);
+						if (value != null) {
+							tagValues.put(tag, value);
+						}
+					}
+					widgets.add(tagValues);
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public void getSetTags(StateFixture fixture, Blackhole blackhole) {
+		for (State state : fixture.states()) {
+			for (Widget w : state) {
+				blackhole.consume(w.get(Tags.Role, null));
+				blackhole.consume(w.get(Tags.Title, null));
+				blackhole.consume(w.get(Tags.Shape, null));
+				blackhole.consume(w.get(Tags.Path, null));
+			}
+		}
+	}
+
+	@Benchmark
+	public void getMissingTag(StateFixture fixture, Blackhole blackhole) {
+		for (State state : fixture.states()) {
+			for (Widget w : state) {
+				blackhole.consume(w.get(MissingTag, null));
+			}
+		}
+	}
+
+	@Benchmark
+	public void getSetTagsHashMap(MapWidgets mapWidgets, Blackhole blackhole) {
+		for (Map<Tag<?>, Object> tagValues : mapWidgets.widgets) {
+			for (Tag<?> tag : SetTags) {
+				blackhole.consume(tagValues.get(tag));
+			}
+		}
+	}
+
+	@Benchmark
+	public void getMissingTagHashMap(MapWidgets mapWidgets, Blackhole blackhole) {
+		for (Map<Tag<?>, Object> tagValues : mapWidgets.widgets) {
+			blackhole.consume(tagValues.get(MissingTag));
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testar.monkey.alayer.Tags;
+import org.testar.statemodel.AbstractState;
+import org.testar.statemodel.ConcreteState;
+import org.testar.statemodel.Widget;
+import org.testar.statemodel.persistence.orientdb.OrientDBManager;
+import org.testar.statemodel.persistence.orientdb.entity.Config;
+import org.testar.statemodel.persistence.orientdb.entity.EntityManager;
+import org.testar.statemodel.util.EventHelper;
+
+import com.orientechnologies.orient.core.db.ODatabaseType;
+import com.orientechnologies.orient.core.db.OrientDB;
+import com.orientechnologies.orient.core.db.OrientDBConfig;
+
+/**
+ * Storing the widget trees of concrete states in an embedded OrientDB database, where consecutive states
+ * only differ in a few widgets like they do in a test run. Every operation stores one concrete state.
+ * The storage is reported by the widgets counters: the widget vertices written and the widgets that only
+ * needed an edge to a vertex of an earlier state.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WidgetTreePersistenceBenchmark {
+
+	// the number of children of every widget above the leaves
+	@Param({"5"})
+	public int branching;
+
+	@Param({"3"})
+	public int depth;
+
+	// the number of leaves that have a different title in every state
+	@Param({"2"})
+	public int changedWidgets;
+
+	private File directory;
+	private OrientDBManager manager;
+	private AbstractState abstractState;
+	private ConcreteState concreteState;
+	private int stateNr;
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Widgets {
+		public long stored;
+		public long referenced;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			stored = 0;
+			referenced = 0;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void createDatabase() throws IOException {
+		directory = Files.createTempDirectory("orientdb").toFile();
+		OrientDB orientDB = new OrientDB("plocal:" + directory.getAbsolutePath(), OrientDBConfig.defaultConfig());
+		orientDB.create("benchmark", ODatabaseType.PLOCAL);
+		orientDB.close();
+
+		Config config = new Config();
+		config.setConnectionType(Config.CONNECTION_TYPE_LOCAL);
+		config.setDatabaseDirectory(directory.getAbsolutePath());
+		config.setDatabase("benchmark");
+		config.setUser("admin");
+		config.setPassword("admin");
+		config.setResetDataStore(false);
+		manager = new OrientDBManager(new EventHelper(), new EntityManager(config));
+
+		abstractState = new AbstractState("AS", Collections.emptySet());
+		abstractState.setModelIdentifier("benchmark");
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteDatabase() throws IOException {
+		manager.shutdown();
+		Files.walk(directory.toPath())
+				.sorted(Collections.reverseOrder())
+				.map(Path::toFile)
+				.forEach(File::delete);
+	}
+
+	// the same tree for every state, except for the titles of the first leaves
+	@Setup(Level.Invocation)
+	public void createState() {
+		stateNr++;
+		concreteState = new ConcreteState("CS" + stateNr, new HashSet<>(), abstractState);
+		int[] leafNr = {0};
+		addChildren(concreteState, "W", 1, leafNr);
+	}
+
+	private void addChildren(Widget parent, String parentId, int level, int[] leafNr) {
+		for (int i = 0; i < branching; i++) {
+			Widget widget = new Widget(parentId + "-" + i);
+			widget.setRootWidget(concreteState);
+			if (level == depth) {
+				boolean changed = leafNr[0]++ < changedWidgets;
+				widget.addAttribute(Tags.Title, changed ? "leaf " + stateNr : "leaf");
+			}
+			else {
+				widget.addAttribute(Tags.Title, "container");
+				addChildren(widget, widget.getId(), level + 1, leafNr);
+			}
+			parent.addChild(widget);
+		}
+	}
+
+	@Benchmark
+	public void persistConcreteState(Widgets widgets) {
+		long stored = manager.getNrOfStoredWidgets();
+		long referenced = manager.getNrOfReferencedWidgets();
+		manager.persistConcreteState(concreteState);
+		widgets.stored += manager.getNrOfStoredWidgets() - stored;
+		widgets.referenced += manager.getNrOfReferencedWidgets() - referenced;
+	}
+}
@@ -0,0 +1,99 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.testar.monkey.Util;
+import org.testar.monkey.alayer.Rect;
+import org.testar.monkey.alayer.Shape;
+import org.testar.monkey.alayer.Tags;
+import org.testar.monkey.alayer.WidgetTraversal;
+
+/**
+ * Hit testing of points on the screen, as done for every click action and the visualization.
+ * The points are spread over the area of the root widget of each state.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WidgetsFromPointBenchmark {
+
+	private static final int POINTS = 256;
+
+	private double[][] points;
+
+	@Setup(Level.Trial)
+	public void createPoints(StateFixture fixture) {
+		Random random = new Random(7);
+		points = new double[fixture.states().size()][POINTS * 2];
+		for (int s = 0; s < points.length; s++) {
+			Shape area = fixture.states().get(s).get(Tags.Shape, Rect.from(0, 0, SyntheticStates.SCREEN_WIDTH, SyntheticStates.SCREEN_HEIGHT));
+			for (int p = 0; p < POINTS; p++) {
+				points[s][2 * p] = area.x() + random.nextDouble() * area.width();
+				points[s][2 * p + 1] = area.y() + random.nextDouble() * area.height();
+			}
+		}
+	}
+
+	@Benchmark
+	public void widgetsFromPoint(StateFixture fixture, Blackhole blackhole) {
+		for (int s = 0; s < points.length; s++) {
+			org.testar.monkey.alayer.State state = fixture.states().get(s);
+			for (int p = 0; p < POINTS; p++) {
+				blackhole.consume(Util.widgetsFromPoint(state, points[s][2 * p], points[s][2 * p + 1]));
+			}
+		}
+	}
+
+	@Benchmark
+	public void buildSpatialIndex(StateFixture fixture, Blackhole blackhole) {
+		for (org.testar.monkey.alayer.State state : fixture.states()) {
+			blackhole.consume(WidgetTraversal.of(state).spatialIndex());
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.StringTokenizer;
+
+/**
+ * Remembers which version of a protocol was compiled to the protocol compile directory, so that the protocol
+ * is only compiled again when something that affects the compiled classes has changed.
+ * The fingerprint of a protocol covers its source files, the entries of the class path it is compiled against
+ * and the version of the JDK. It is stored in a stamp file next to the compiled classes.
+ */
+public final class ProtocolCompileCache {
+
+	private static final String STAMP_EXTENSION = ".compile-stamp";
+
+	private ProtocolCompileCache() {}
+
+	/**
+	 * Calculates the fingerprint of a protocol.
+	 * Class path files are identified by their path, size and modification time, class path directories by their path.
+	 * @param protocolDir the directory with the sources of the protocol
+	 * @param classPath the class path that the protocol is compiled against
+	 * @return a hex encoded SHA-256 hash
+	 * @throws IOException
+	 */
+	public static String fingerprint(File protocolDir, String classPath) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		update(digest, System.getProperty("java.vm.vendor") + " " + System.getProperty("java.vm.version"));
+
+		// the sources, in a fixed order
+		List<File> sources = Util.getAllFiles(protocolDir, ".java");
+		sources.sort((a, b) -> a.getPath().compareTo(b.getPath()));
+		String base = protocolDir.getPath();
+		for (File source : sources) {
+			update(digest, source.getPath().substring(base.length()));
+			digest.update(Files.readAllBytes(source.toPath()));
+		}
+
+		// the class path
+		StringTokenizer entries = new StringTokenizer(classPath == null ? "" : classPath, File.pathSeparator);
+		while (entries.hasMoreTokens()) {
+			File entry = new File(entries.nextToken());
+			update(digest, entry.getAbsolutePath());
+			if (entry.isFile()) {
+				update(digest, entry.length() + ":" + entry.lastModified());
+			}
+		}
+
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * Checks whether the classes of a protocol in the compile directory were compiled from the same fingerprint.
+	 * @param protocolDir the directory with the sources of the protocol
+	 * @param protocolClass the protocol class setting, for example desktop_generic/Protocol_desktop_generic
+	 * @param compileDir the directory with the compiled classes
+	 * @param fingerprint the current fingerprint of the protocol
+	 * @return true if the compiled protocol can be used without compiling it again
+	 */
+	public static boolean isUpToDate(File protocolDir, String protocolClass, File compileDir, String fingerprint) {
+		String className = protocolClass.substring(protocolClass.lastIndexOf('/') + 1);
+		if (!new File(compileDir, className.replace('.', File.separatorChar) + ".class").isFile()) {
+			return false;
+		}
+		File stamp = getStampFile(protocolDir, compileDir);
+		try {
+			return stamp.isFile() && fingerprint.equals(new String(Files.readAllBytes(stamp.toPath()), StandardCharsets.UTF_8).trim());
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Records the fingerprint of a protocol that was compiled successfully.
+	 * @param protocolDir
+	 * @param compileDir
+	 * @param fingerprint
+	 * @throws IOException
+	 */
+	public static void update(File protocolDir, File compileDir, String fingerprint) throws IOException {
+		Files.write(getStampFile(protocolDir, compileDir).toPath(), fingerprint.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Forgets the fingerprint of a protocol, for example because its compilation failed.
+	 * @param protocolDir
+	 * @param compileDir
+	 */
+	public static void invalidate(File protocolDir, File compileDir) {
+		getStampFile(protocolDir, compileDir).delete();
+	}
+
+	private static File getStampFile(File protocolDir, File compileDir) {
+		return new File(compileDir, "." + protocolDir.getName() + STAMP_EXTENSION);
+	}
+
+	private static void update(MessageDigest digest, String text) {
+		digest.update(text.getBytes(StandardCharsets.UTF_8));
+		// separate the values, so that moving characters between two of them changes the hash
+		digest.update((byte) 0);
+	}
+}
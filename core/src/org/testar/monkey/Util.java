@@ -416,8 +416,8 @@ public final class Util {
 	public static String treeDesc(Widget root, int indent, Tag<?>... tags) {
 		Assert.notNull(root, tags);
 		StringBuilder sb = new StringBuilder();
-		for (Widget w : makeIterable(new WidgetIterator(root, new DFNavigator()))) {
-			for (int i = 0; i < depth(w) * indent; i++) {
+		WidgetTraversal.of(root).forEachPreOrder((w, index, depth) -> {
+			for (int i = 0; i < depth * indent; i++) {
 				sb.append(' ');
 			}
 
@@ -426,7 +426,7 @@ public final class Util {
 			}
 
 			sb.append(Util.lineSep());
-		}
+		});
 		return sb.toString();
 	}
 
@@ -476,31 +476,21 @@ public final class Util {
 		return candidates.get(0);
 	}
 
+	/**
+	 * Returns the widgets that can be hit at the given point, topmost first.
+	 * Uses the spatial index of the state's traversal, which is built on the first query.
+	 */
 	public static Set<Widget> widgetsFromPoint(State state, double x, double y) {
-		Set<Widget> ret = new HashSet<Widget>();
-		for (Widget w : Assert.notNull(state)) {
-			if (w.get(Tags.HitTester, Util.FalseTester).apply(x, y)) {
-				ret.add(w);
-			}
-		}
-		return ret;
+		return new LinkedHashSet<Widget>(Assert.notNull(state).traversal().spatialIndex().widgetsAt(x, y));
 	}
 
+	/**
+	 * Returns the widgets whose shape intersects <code>area</code>, widgets without a shape are ignored.
+	 * Uses the spatial index of the state's traversal, which is built on the first query.
+	 */
 	public static Set<Widget> widgetsFromArea(State state, Rect area) {
-		Assert.notNull(state);
-		Set<Widget> ret = new HashSet<Widget>();
-		Shape shape;
-		Rect rect;
-		for (Widget w : state) {
-			shape = w.get(Tags.Shape);
-			if (shape != null) {
-				rect = Rect.from(shape.x(), shape.y(), shape.width(), shape.height());
-				if (Rect.intersect(rect, area)) {
-					ret.add(w);
-				}
-			}
-		}
-		return ret;
+		Assert.notNull(state, area);
+		return new LinkedHashSet<Widget>(state.traversal().spatialIndex().widgetsIn(area));
 	}
 
 	public static boolean isAncestorOf(Widget ancestor, Widget of) {
@@ -786,6 +776,20 @@ public final class Util {
 		List<File> dir = Collections.singletonList(compileDir);
 		System.out.println("Used directory compileProtocol settingsDir = " + settingsDir + " compileDir = " + compileDir.getAbsolutePath());
 
+		// skip the compilation when the classes of the same sources, class path and JDK are already there
+		File outputDir = new File(tmpCompileDir);
+		String fingerprint = null;
+		try {
+			fingerprint = ProtocolCompileCache.fingerprint(compileDir, System.getProperty("java.class.path"));
+			if (ProtocolCompileCache.isUpToDate(compileDir, protocolClass, outputDir, fingerprint)) {
+				System.out.println("Protocol " + compileDir.getName() + " has not changed, using the classes in " + outputDir.getAbsolutePath());
+				return;
+			}
+		} catch (IOException e) {
+			System.out.println("Unable to check whether protocol " + compileDir.getName() + " has changed: " + e.getMessage());
+		}
+		ProtocolCompileCache.invalidate(compileDir, outputDir);
+
 		try {
 			JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
 			if (compiler == null) {
@@ -817,6 +821,9 @@ public final class Util {
 					}
 					throw new RuntimeException("compile errors");
 				}
+				if (fingerprint != null) {
+					ProtocolCompileCache.update(compileDir, outputDir, fingerprint);
+				}
 			} finally {
 				fileManager.close();
 			}
@@ -45,7 +45,6 @@ import java.awt.font.TextLayout;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferInt;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
@@ -410,33 +409,11 @@ public class AWTCanvas implements Image, Canvas {
 	/**
 	 * @return Similarity percentage as 0.0 (different) .. 1.0 (equal).
 	 * @author urueda
+	 * @see ImageSimilarity#similarity(BufferedImage, BufferedImage)
 	 */
 	public float compareImage(AWTCanvas img) {
-		//long now = System.currentTimeMillis();		
-		DataBuffer dbThis = this.img.getData().getDataBuffer(),
-				   dbImg = img.img.getData().getDataBuffer();
-		int sizeThis = dbThis.getSize(),
-			sizeImg = dbImg.getSize();
-		if (sizeThis == 0 || sizeImg == 0)
-			return 0f;
-		float sizeSimilarity;
-		if (sizeThis == sizeImg)
-			sizeSimilarity = 1.0f;
-		else if (sizeThis < sizeImg)
-			sizeSimilarity = sizeThis / sizeImg;
-		else // sizeThis > sizeImg
-			sizeSimilarity = sizeImg / sizeThis;
-		int equalPixels = 0, i = 0;
-		while (i < sizeThis && i < sizeImg){
-			if (dbThis.getElem(i) == dbImg.getElem(i))
-				equalPixels++;
-			i++;
-		}
-		float meanSize = (sizeThis + sizeImg) / 2;
-		float percent = sizeSimilarity - (1.0f - (equalPixels / meanSize));
-		//System.out.println("Image comparison took : " + (System.currentTimeMillis() - now) + " ms");
-		return (percent < 0f ? 0f : (percent > 1f ? 1f : percent));
-	}	
+		return ImageSimilarity.similarity(this.img, img.img);
+	}
 
 	public void release() {}
 	
@@ -0,0 +1,337 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.testar.monkey.Assert;
+import org.testar.monkey.Pair;
+import org.testar.monkey.Util;
+
+/**
+ * A canvas that records the drawing operations instead of painting them, so that a frame can be compared
+ * with the frame that is on the screen and only the regions that changed are painted again.
+ * The size, the text metrics and the default pen are those of the target canvas.
+ * Every operation keeps a bounding box that includes the stroke width, text uses a generous estimate.
+ */
+public final class DisplayList implements Canvas {
+
+	private static final int LINE = 0, TEXT = 1, CLEAR = 2, TRIANGLE = 3, IMAGE = 4, ELLIPSE = 5, RECT = 6;
+
+	/** When the dirty regions cover more than this part of the canvas, the whole canvas is painted again. */
+	static final double MAX_DIRTY_PART = 0.5;
+
+	private static final class Op {
+		final int kind;
+		final double[] args;
+		final Pen pen;
+		final String text;
+		final int[] image;
+		final Rect bounds;
+
+		Op(int kind, double[] args, Pen pen, String text, int[] image, Rect bounds) {
+			this.kind = kind;
+			this.args = args;
+			this.pen = pen;
+			this.text = text;
+			this.image = image;
+			this.bounds = bounds;
+		}
+
+		void paint(Canvas canvas) {
+			double[] a = args;
+			switch (kind) {
+			case LINE: canvas.line(pen, a[0], a[1], a[2], a[3]); break;
+			case TEXT: canvas.text(pen, a[0], a[1], a[2], text); break;
+			case CLEAR: canvas.clear(a[0], a[1], a[2], a[3]); break;
+			case TRIANGLE: canvas.triangle(pen, a[0], a[1], a[2], a[3], a[4], a[5]); break;
+			case IMAGE: canvas.image(pen, a[0], a[1], a[2], a[3], image, (int) a[4], (int) a[5]); break;
+			case ELLIPSE: canvas.ellipse(pen, a[0], a[1], a[2], a[3]); break;
+			default: canvas.rect(pen, a[0], a[1], a[2], a[3]);
+			}
+		}
+
+		// pens do not implement equals, two pens are the same if they paint the same
+		private static boolean samePen(Pen p1, Pen p2) {
+			if (p1 == p2)
+				return true;
+			if (p1 == null || p2 == null)
+				return false;
+			return Objects.equals(p1.color(), p2.color()) && Objects.equals(p1.strokeWidth(), p2.strokeWidth()) &&
+					Objects.equals(p1.fontSize(), p2.fontSize()) && Objects.equals(p1.font(), p2.font()) &&
+					p1.strokePattern() == p2.strokePattern() && p1.fillPattern() == p2.fillPattern() &&
+					p1.strokeCaps() == p2.strokeCaps();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (!(o instanceof Op))
+				return false;
+			Op other = (Op) o;
+			return kind == other.kind && Arrays.equals(args, other.args) && Objects.equals(text, other.text) &&
+					image == other.image && samePen(pen, other.pen);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * kind + Arrays.hashCode(args)) + Objects.hashCode(text);
+		}
+	}
+
+	private final Canvas canvas;
+	private final List<Op> ops = new ArrayList<>();
+
+	/**
+	 * @param canvas the canvas on which the list will be painted
+	 */
+	public DisplayList(Canvas canvas) {
+		this.canvas = Assert.notNull(canvas);
+	}
+
+	public double width() { return canvas.width(); }
+	public double height() { return canvas.height(); }
+	public double x() { return canvas.x(); }
+	public double y() { return canvas.y(); }
+	public void begin() {}
+	public void end() {}
+	public Pen defaultPen() { return canvas.defaultPen(); }
+	public void release() {}
+
+	public Pair<Double, Double> textMetrics(Pen pen, String text) {
+		return canvas.textMetrics(pen, text);
+	}
+
+	public void line(Pen pen, double x1, double y1, double x2, double y2) {
+		add(LINE, new double[]{ x1, y1, x2, y2 }, pen, null, null,
+				stroked(pen, Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1), Math.abs(y2 - y1)));
+	}
+
+	public void text(Pen pen, double x, double y, double angle, String text) {
+		Pair<Double, Double> metrics = canvas.textMetrics(pen, text);
+		double fontSize = fontSize(pen);
+		double width = Math.max(metrics.left(), text.length() * fontSize);
+		double height = Math.max(metrics.right(), 2 * fontSize);
+		Rect bounds = angle == 0 ? Rect.from(x - 2, y - fontSize, width + 4, height + fontSize)
+				: Rect.from(x - width - height, y - width - height, 2 * (width + height), 2 * (width + height));
+		add(TEXT, new double[]{ x, y, angle }, pen, text, null, bounds);
+	}
+
+	public void clear(double x, double y, double width, double height) {
+		add(CLEAR, new double[]{ x, y, width, height }, null, null, null, box(x, y, width, height, 0));
+	}
+
+	public void triangle(Pen pen, double x1, double y1, double x2, double y2, double x3, double y3) {
+		double minX = Math.min(x1, Math.min(x2, x3)), minY = Math.min(y1, Math.min(y2, y3));
+		double maxX = Math.max(x1, Math.max(x2, x3)), maxY = Math.max(y1, Math.max(y2, y3));
+		add(TRIANGLE, new double[]{ x1, y1, x2, y2, x3, y3 }, pen, null, null, stroked(pen, minX, minY, maxX - minX, maxY - minY));
+	}
+
+	public void image(Pen pen, double x, double y, double width, double height, int[] image, int imageWidth, int imageHeight) {
+		add(IMAGE, new double[]{ x, y, width, height, imageWidth, imageHeight }, pen, null, image, box(x, y, width, height, 1));
+	}
+
+	public void ellipse(Pen pen, double x, double y, double width, double height) {
+		add(ELLIPSE, new double[]{ x, y, width, height }, pen, null, null, stroked(pen, x, y, width, height));
+	}
+
+	public void rect(Pen pen, double x, double y, double width, double height) {
+		add(RECT, new double[]{ x, y, width, height }, pen, null, null, stroked(pen, x, y, width, height));
+	}
+
+	private void add(int kind, double[] args, Pen pen, String text, int[] image, Rect bounds) {
+		ops.add(new Op(kind, args, pen, text, image, bounds));
+	}
+
+	private double fontSize(Pen pen) {
+		Double size = pen == null ? null : pen.fontSize();
+		if (size == null && canvas.defaultPen() != null)
+			size = canvas.defaultPen().fontSize();
+		return size == null ? 12 : size;
+	}
+
+	private Rect stroked(Pen pen, double x, double y, double width, double height) {
+		Double strokeWidth = pen == null ? null : pen.strokeWidth();
+		if (strokeWidth == null && canvas.defaultPen() != null)
+			strokeWidth = canvas.defaultPen().strokeWidth();
+		return box(x, y, width, height, (strokeWidth == null ? 1 : strokeWidth) / 2 + 1);
+	}
+
+	private static Rect box(double x, double y, double width, double height, double margin) {
+		if (width < 0) {
+			x += width;
+			width = -width;
+		}
+		if (height < 0) {
+			y += height;
+			height = -height;
+		}
+		return Rect.from(x - margin, y - margin, width + 2 * margin, height + 2 * margin);
+	}
+
+	public int size() {
+		return ops.size();
+	}
+
+	/**
+	 * @return the bounding boxes of the recorded operations
+	 */
+	public List<Rect> bounds() {
+		List<Rect> bounds = new ArrayList<>(ops.size());
+		for (Op op : ops)
+			bounds.add(op.bounds);
+		return bounds;
+	}
+
+	/**
+	 * Paints the whole list on the target canvas, after clearing it.
+	 */
+	public void paint() {
+		canvas.begin();
+		Util.clear(canvas);
+		for (Op op : ops)
+			op.paint(canvas);
+		canvas.end();
+	}
+
+	/**
+	 * Paints the list on the target canvas, on which <code>previous</code> was painted.
+	 * Only the regions of the operations that were added or removed are cleared and painted again.
+	 * Nothing is painted if the lists are equal.
+	 * @param previous the list that is on the canvas, or null to paint everything
+	 * @return true if something was painted
+	 */
+	public boolean paint(DisplayList previous) {
+		if (previous == null) {
+			paint();
+			return true;
+		}
+		List<Rect> dirty = dirtyRegions(previous);
+		if (dirty.isEmpty())
+			return false;
+
+		// an operation that is painted again must be cleared completely, or translucent pens would paint twice
+		boolean grown = true;
+		while (grown) {
+			grown = false;
+			for (Op op : ops) {
+				if (intersectsAny(op.bounds, dirty) && !containedInAny(op.bounds, dirty)) {
+					addRegion(dirty, op.bounds);
+					grown = true;
+				}
+			}
+		}
+
+		double dirtyArea = 0;
+		for (Rect region : dirty)
+			dirtyArea += Rect.area(region);
+		if (dirtyArea > MAX_DIRTY_PART * canvas.width() * canvas.height()) {
+			paint();
+			return true;
+		}
+
+		canvas.begin();
+		for (Rect region : dirty)
+			canvas.clear(region.x(), region.y(), region.width(), region.height());
+		for (Op op : ops) {
+			if (intersectsAny(op.bounds, dirty))
+				op.paint(canvas);
+		}
+		canvas.end();
+		return true;
+	}
+
+	/**
+	 * @return the merged bounding boxes of the operations that are only in one of both lists
+	 */
+	List<Rect> dirtyRegions(DisplayList previous) {
+		Map<Op, Integer> remaining = new HashMap<>();
+		for (Op op : previous.ops)
+			remaining.merge(op, 1, Integer::sum);
+		List<Rect> dirty = new ArrayList<>();
+		for (Op op : ops) {
+			Integer count = remaining.get(op);
+			if (count == null) {
+				addRegion(dirty, op.bounds);
+			} else if (count == 1) {
+				remaining.remove(op);
+			} else {
+				remaining.put(op, count - 1);
+			}
+		}
+		for (Op op : remaining.keySet())
+			addRegion(dirty, op.bounds);
+		return dirty;
+	}
+
+	// adds a region, merging it with the regions it overlaps so that no area is cleared twice
+	private static void addRegion(List<Rect> regions, Rect region) {
+		boolean merged = true;
+		while (merged) {
+			merged = false;
+			for (int i = 0; i < regions.size(); i++) {
+				Rect other = regions.get(i);
+				if (Rect.intersect(other, region)) {
+					double x1 = Math.min(other.x(), region.x()), y1 = Math.min(other.y(), region.y());
+					double x2 = Math.max(other.x() + other.width(), region.x() + region.width());
+					double y2 = Math.max(other.y() + other.height(), region.y() + region.height());
+					region = Rect.fromCoordinates(x1, y1, x2, y2);
+					regions.remove(i);
+					merged = true;
+					break;
+				}
+			}
+		}
+		regions.add(region);
+	}
+
+	private static boolean intersectsAny(Rect bounds, List<Rect> regions) {
+		for (Rect region : regions) {
+			if (Rect.intersect(region, bounds))
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean containedInAny(Rect bounds, List<Rect> regions) {
+		for (Rect region : regions) {
+			if (Rect.contains(region, bounds))
+				return true;
+		}
+		return false;
+	}
+}
@@ -40,5 +40,13 @@ public interface HitTester extends Serializable {
 	boolean apply(double x, double y);
 	
 	boolean apply(double x, double y, boolean obscuredByChildFeature); // by urueda
+
+	/**
+	 * Returns a rectangle outside of which this tester never reports a hit, or <code>null</code>
+	 * if there is no such bound. <code>WidgetSpatialIndex</code> uses it to skip widgets that
+	 * cannot be hit at a given point.
+	 * @return the bounds of the hit area or <code>null</code>
+	 */
+	default Rect bounds() { return null; }
 	
 }
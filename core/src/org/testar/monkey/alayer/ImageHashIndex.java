@@ -0,0 +1,100 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds images by the Hamming distance of their perceptual hashes, see <code>ImageSimilarity.dHash()</code> and
+ * <code>ImageSimilarity.pHash()</code>. The hashes are kept in a plain <code>long[]</code> and scanned with
+ * <code>Long.bitCount</code>, which takes about a nanosecond per image.
+ * @param <V> the type of the values stored with the hashes, for example screenshot paths
+ */
+public final class ImageHashIndex<V> {
+
+	private long[] hashes = new long[16];
+	private Object[] values = new Object[16];
+	private int size;
+
+	public void add(long hash, V value) {
+		if (size == hashes.length) {
+			hashes = Arrays.copyOf(hashes, size * 2);
+			values = Arrays.copyOf(values, size * 2);
+		}
+		hashes[size] = hash;
+		values[size] = value;
+		size++;
+	}
+
+	/**
+	 * @param hash
+	 * @param maxDistance the maximum number of different bits
+	 * @return the value of the closest hash within the distance (the first one added on a tie), or null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public V nearest(long hash, int maxDistance) {
+		int best = -1, bestDistance = maxDistance + 1;
+		for (int i = 0; i < size && bestDistance > 0; i++) {
+			int distance = Long.bitCount(hashes[i] ^ hash);
+			if (distance < bestDistance) {
+				best = i;
+				bestDistance = distance;
+			}
+		}
+		return best < 0 ? null : (V) values[best];
+	}
+
+	/**
+	 * @param hash
+	 * @param maxDistance the maximum number of different bits
+	 * @return the values of all the hashes within the distance, in the order in which they were added
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> within(long hash, int maxDistance) {
+		List<V> result = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			if (Long.bitCount(hashes[i] ^ hash) <= maxDistance)
+				result.add((V) values[i]);
+		}
+		return result;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+	}
+}
@@ -0,0 +1,300 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Arrays;
+
+import org.testar.monkey.Assert;
+
+/**
+ * Image comparison primitives that work on the ARGB <code>int[]</code> pixel arrays of images:
+ * exact similarity, sampled similarity, the bounding box of the changed region and perceptual hashes
+ * (dHash and pHash) that can be compared by their Hamming distance, see <code>ImageHashIndex</code>.
+ * Exact comparisons run on <code>Arrays.mismatch</code>, which the JVM implements with vector instructions.
+ */
+public final class ImageSimilarity {
+
+	/** The width and height of the grayscale image from which a pHash is computed. */
+	private static final int PHASH_SIZE = 32;
+	private static final double[][] PHASH_COSINES = new double[9][PHASH_SIZE];
+
+	static {
+		for (int u = 0; u < 9; u++) {
+			for (int x = 0; x < PHASH_SIZE; x++) {
+				PHASH_COSINES[u][x] = Math.cos((2 * x + 1) * u * Math.PI / (2 * PHASH_SIZE));
+			}
+		}
+	}
+
+	private ImageSimilarity() {}
+
+	/**
+	 * @param image
+	 * @return the ARGB pixels of the image, row by row. This is the backing array of <code>TYPE_INT_ARGB</code>
+	 * images (do not modify it), other images are copied.
+	 */
+	public static int[] pixels(BufferedImage image) {
+		Assert.notNull(image);
+		int width = image.getWidth(), height = image.getHeight();
+		if (image.getType() == BufferedImage.TYPE_INT_ARGB
+				&& image.getRaster().getDataBuffer() instanceof DataBufferInt
+				&& image.getRaster().getSampleModel() instanceof SinglePixelPackedSampleModel
+				&& ((SinglePixelPackedSampleModel) image.getRaster().getSampleModel()).getScanlineStride() == width
+				&& image.getRaster().getSampleModelTranslateX() == 0 && image.getRaster().getSampleModelTranslateY() == 0) {
+			DataBufferInt buffer = (DataBufferInt) image.getRaster().getDataBuffer();
+			if (buffer.getNumBanks() == 1 && buffer.getOffset() == 0 && buffer.getData().length == width * height) {
+				return buffer.getData();
+			}
+		}
+		return image.getRGB(0, 0, width, height, null, 0, width);
+	}
+
+	/**
+	 * Compares two images pixel by pixel. Images of different sizes are compared on their overlapping
+	 * top left area and lose the ratio of their sizes.
+	 * @param a
+	 * @param b
+	 * @return Similarity percentage as 0.0 (different) .. 1.0 (equal).
+	 */
+	public static float similarity(BufferedImage a, BufferedImage b) {
+		Assert.notNull(a, b);
+		int widthA = a.getWidth(), heightA = a.getHeight(), widthB = b.getWidth(), heightB = b.getHeight();
+		long sizeA = (long) widthA * heightA, sizeB = (long) widthB * heightB;
+		if (sizeA == 0 || sizeB == 0)
+			return 0f;
+		float sizeSimilarity = (float) Math.min(sizeA, sizeB) / Math.max(sizeA, sizeB);
+
+		int[] pixelsA = pixels(a), pixelsB = pixels(b);
+		long equalPixels;
+		if (widthA == widthB) {
+			equalPixels = countEqual(pixelsA, 0, pixelsB, 0, widthA * Math.min(heightA, heightB));
+		} else {
+			int width = Math.min(widthA, widthB);
+			equalPixels = 0;
+			for (int y = 0; y < Math.min(heightA, heightB); y++)
+				equalPixels += countEqual(pixelsA, y * widthA, pixelsB, y * widthB, width);
+		}
+		float meanSize = (sizeA + sizeB) / 2f;
+		float percent = sizeSimilarity - (1.0f - (equalPixels / meanSize));
+		return percent < 0f ? 0f : (percent > 1f ? 1f : percent);
+	}
+
+	/**
+	 * @param a
+	 * @param b
+	 * @return whether the images have the same size and the same pixels
+	 */
+	public static boolean equal(BufferedImage a, BufferedImage b) {
+		Assert.notNull(a, b);
+		return a.getWidth() == b.getWidth() && a.getHeight() == b.getHeight() && Arrays.equals(pixels(a), pixels(b));
+	}
+
+	/**
+	 * Compares every <code>step</code>-th pixel of every <code>step</code>-th row of two images of the same size.
+	 * This estimates <code>similarity()</code> at a fraction of the cost, images of different sizes are compared exactly.
+	 * @param a
+	 * @param b
+	 * @param step a positive number
+	 * @return Similarity percentage as 0.0 (different) .. 1.0 (equal).
+	 */
+	public static float sampledSimilarity(BufferedImage a, BufferedImage b, int step) {
+		Assert.notNull(a, b);
+		Assert.isTrue(step > 0);
+		int width = a.getWidth(), height = a.getHeight();
+		if (width != b.getWidth() || height != b.getHeight() || step == 1)
+			return similarity(a, b);
+		if (width == 0 || height == 0)
+			return 0f;
+		int[] pixelsA = pixels(a), pixelsB = pixels(b);
+		long samples = 0, equalSamples = 0;
+		for (int y = 0; y < height; y += step) {
+			for (int i = y * width, end = i + width; i < end; i += step) {
+				if (pixelsA[i] == pixelsB[i])
+					equalSamples++;
+				samples++;
+			}
+		}
+		return (float) equalSamples / samples;
+	}
+
+	/**
+	 * @param a
+	 * @param b
+	 * @return the smallest rectangle, in image coordinates, that contains all the pixels that differ,
+	 * or null if the images are equal. Images of different sizes differ in the union of both images.
+	 */
+	public static Rect changedRegion(BufferedImage a, BufferedImage b) {
+		Assert.notNull(a, b);
+		int width = a.getWidth(), height = a.getHeight();
+		if (width != b.getWidth() || height != b.getHeight())
+			return Rect.from(0, 0, Math.max(width, b.getWidth()), Math.max(height, b.getHeight()));
+		int[] pixelsA = pixels(a), pixelsB = pixels(b);
+
+		int first = Arrays.mismatch(pixelsA, 0, width * height, pixelsB, 0, width * height);
+		if (first < 0)
+			return null;
+		int top = first / width, bottom = top, left = first % width, right = left;
+		for (int y = top; y < height; y++) {
+			int row = y * width;
+			int mismatch = Arrays.mismatch(pixelsA, row, row + width, pixelsB, row, row + width);
+			if (mismatch < 0)
+				continue;
+			bottom = y;
+			left = Math.min(left, mismatch);
+			// the right edge is searched from the end of the row
+			int x = width - 1;
+			while (x > right && pixelsA[row + x] == pixelsB[row + x])
+				x--;
+			right = Math.max(right, x);
+		}
+		return Rect.from(left, top, right - left + 1, bottom - top + 1);
+	}
+
+	/**
+	 * Computes the difference hash of an image: the image is reduced to 9x8 grayscale cells and every bit
+	 * tells whether a cell is brighter than its right neighbour. It is robust against scaling and small changes in colour.
+	 * @param image
+	 * @return the 64 bit hash
+	 */
+	public static long dHash(BufferedImage image) {
+		Assert.notNull(image);
+		double[] cells = grayscale(pixels(image), image.getWidth(), image.getHeight(), 9, 8);
+		long hash = 0;
+		for (int y = 0; y < 8; y++) {
+			for (int x = 0; x < 8; x++) {
+				hash <<= 1;
+				if (cells[y * 9 + x] > cells[y * 9 + x + 1])
+					hash |= 1;
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Computes the perceptual hash of an image: the discrete cosine transform of a 32x32 grayscale reduction
+	 * of the image, of which the 8x8 lowest frequencies (without the constant ones) are compared with their median.
+	 * It is more robust than <code>dHash</code> against gamma and contrast changes, but more expensive.
+	 * @param image
+	 * @return the 64 bit hash
+	 */
+	public static long pHash(BufferedImage image) {
+		Assert.notNull(image);
+		double[] cells = grayscale(pixels(image), image.getWidth(), image.getHeight(), PHASH_SIZE, PHASH_SIZE);
+
+		// separable DCT, only of the frequencies that are used
+		double[] rows = new double[PHASH_SIZE * 9];
+		for (int y = 0; y < PHASH_SIZE; y++) {
+			for (int u = 0; u < 9; u++) {
+				double sum = 0;
+				for (int x = 0; x < PHASH_SIZE; x++)
+					sum += cells[y * PHASH_SIZE + x] * PHASH_COSINES[u][x];
+				rows[y * 9 + u] = sum;
+			}
+		}
+		double[] coefficients = new double[64];
+		for (int v = 1; v < 9; v++) {
+			for (int u = 1; u < 9; u++) {
+				double sum = 0;
+				for (int y = 0; y < PHASH_SIZE; y++)
+					sum += rows[y * 9 + u] * PHASH_COSINES[v][y];
+				coefficients[(v - 1) * 8 + u - 1] = sum;
+			}
+		}
+
+		double[] sorted = coefficients.clone();
+		Arrays.sort(sorted);
+		double median = (sorted[31] + sorted[32]) / 2;
+		long hash = 0;
+		for (double coefficient : coefficients) {
+			hash <<= 1;
+			if (coefficient > median)
+				hash |= 1;
+		}
+		return hash;
+	}
+
+	/**
+	 * @param hashA
+	 * @param hashB
+	 * @return the number of bits in which two hashes differ, from 0 (equal) to 64
+	 */
+	public static int hammingDistance(long hashA, long hashB) {
+		return Long.bitCount(hashA ^ hashB);
+	}
+
+	private static long countEqual(int[] a, int fromA, int[] b, int fromB, int length) {
+		// jump from mismatch to mismatch, the runs of equal pixels in between are compared with vector instructions
+		long equal = 0;
+		int i = 0;
+		while (i < length) {
+			int mismatch = Arrays.mismatch(a, fromA + i, fromA + length, b, fromB + i, fromB + length);
+			if (mismatch < 0)
+				return equal + length - i;
+			equal += mismatch;
+			i += mismatch + 1;
+		}
+		return equal;
+	}
+
+	/**
+	 * Reduces an image to the mean luminance of each cell of a columns x rows grid.
+	 */
+	private static double[] grayscale(int[] pixels, int width, int height, int columns, int rows) {
+		double[] sums = new double[columns * rows];
+		int[] counts = new int[columns * rows];
+		if (width == 0 || height == 0)
+			return sums;
+		int[] columnOf = new int[width];
+		for (int x = 0; x < width; x++)
+			columnOf[x] = (int) ((long) x * columns / width);
+		for (int y = 0; y < height; y++) {
+			int row = (int) ((long) y * rows / height) * columns;
+			for (int x = 0, i = y * width; x < width; x++, i++) {
+				int argb = pixels[i];
+				sums[row + columnOf[x]] += 0.299 * ((argb >> 16) & 0xFF) + 0.587 * ((argb >> 8) & 0xFF) + 0.114 * (argb & 0xFF);
+				counts[row + columnOf[x]]++;
+			}
+		}
+		for (int i = 0; i < sums.length; i++) {
+			if (counts[i] > 0)
+				sums[i] /= counts[i];
+		}
+		// images smaller than the grid leave cells without pixels, they take the value of their upper left neighbour
+		for (int i = 1; i < sums.length; i++) {
+			if (counts[i] == 0)
+				sums[i] = i % columns > 0 ? sums[i - 1] : sums[i - columns];
+		}
+		return sums;
+	}
+}
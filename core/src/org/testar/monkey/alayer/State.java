@@ -44,4 +44,13 @@ package org.testar.monkey.alayer;
  * the system itself. For example
  *
  */
-public interface State extends Widget, Iterable<Widget>{ }
+public interface State extends Widget, Iterable<Widget>{
+
+	/**
+	 * Returns the array backed traversal of this state's widget tree. Implementations
+	 * compute it once and return the same instance until the widget tree is modified,
+	 * so that all consumers iterating the state share it.
+	 * @return the traversal of the widget tree
+	 */
+	default WidgetTraversal traversal() { return WidgetTraversal.of(this); }
+}
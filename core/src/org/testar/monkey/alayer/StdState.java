@@ -37,5 +37,16 @@ import java.util.Iterator;
 
 public class StdState extends StdWidget implements State {
 	private static final long serialVersionUID = -1577816791038977163L;
-	public Iterator<Widget> iterator() { return new WidgetIterator(this); }
+	private transient WidgetTraversal traversal;
+
+	public Iterator<Widget> iterator() { return traversal().iterator(); }
+
+	public WidgetTraversal traversal() {
+		WidgetTraversal ret = traversal;
+		if(ret == null){
+			ret = WidgetTraversal.of(this);
+			traversal = ret;
+		}
+		return ret;
+	}
 }
@@ -34,6 +34,9 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.testar.monkey.Assert;
@@ -62,6 +65,49 @@ public final class Tag<T> implements Serializable{
 		return ret;
 	}
 
+	/**
+	 * Returns all tags created so far that are identified by <code>name</code>.
+	 * Tags of different value types may share a name (e.g. a platform tag and a settings tag), so the result
+	 * can contain several tags. They are sorted by the name of their value type, so that the order does not depend
+	 * on the order in which the tags were created. Callers that need exactly one tag should use
+	 * {@link #fromName(String, Class)}.
+	 * @param name The name of the tags
+	 * @return The tags with that name, possibly none.
+	 */
+	public static List<Tag<?>> fromName(String name){
+		Assert.notNull(name);
+		List<Tag<?>> ret = new ArrayList<Tag<?>>(1);
+		for(Tag<?> tag : existingTags.keySet()){
+			if(tag.name.equals(name))
+				ret.add(tag);
+		}
+		if(ret.size() > 1)
+			ret.sort(Comparator.comparing((Tag<?> tag) -> tag.clazz.getName()));
+		return ret;
+	}
+
+	/**
+	 * Returns the tag created so far that is identified by <code>name</code> and <code>valueType</code>.
+	 * Unlike {@link #from(String, Class)} this does not create the tag.
+	 * @param name The name of the tag
+	 * @param valueType The type of the values that are associated with the tag.
+	 * @return The tag, or <code>null</code> if it has not been created.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Tag<T> fromName(String name, Class<T> valueType){
+		Assert.notNull(name, valueType);
+		return (Tag<T>)existingTags.get(new Tag<T>(name, valueType));
+	}
+
+	/**
+	 * The number of distinct tags created so far. Allows caches of name lookups
+	 * (see <code>TagNameLookup</code>) to notice that new tags have been created.
+	 * @return number of tags
+	 */
+	public static int createdCount(){
+		return existingTags.size();
+	}
+
 	public static <T> Tag<T> from(String name, Class<T> valueType, String description){
 		Tag<T> ret = from(name, valueType);
 		ret.description = description;
@@ -73,6 +119,8 @@ public final class Tag<T> implements Serializable{
 	private final String name;
 	private int hashcode;
 	private String description = "";
+	// ordinal + 1 as assigned by the TagRegistry, 0 if not yet looked up
+	private transient int ordinal;
 
 	private Tag(String name, Class<T> clazz){
 		this.clazz = clazz;
@@ -90,6 +138,20 @@ public final class Tag<T> implements Serializable{
 	 * @return value type
 	 */
 	public Class<T> type() { return clazz; }
+
+	/**
+	 * The dense ordinal of this tag, as assigned by the <code>TagRegistry</code>.
+	 * Ordinals are only valid within the running JVM and must not be persisted.
+	 * @return ordinal of the tag
+	 */
+	public int ordinal() {
+		int ret = ordinal;
+		if(ret == 0){
+			ret = TagRegistry.ordinal(this) + 1;
+			ordinal = ret;
+		}
+		return ret - 1;
+	}
 	public String toString(){ return name; }
 
 	public int hashCode(){
@@ -0,0 +1,109 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testar.monkey.Assert;
+
+/**
+ * Resolves a list of tag names, as configured in the settings (e.g. <code>TagsToFilter</code>),
+ * to the corresponding <code>Tag</code> objects once. Widgets can then be queried with direct
+ * <code>get(tag, null)</code> calls, instead of iterating <code>tags()</code>, which fetches every
+ * tag of the widget.
+ *
+ * A lookup remembers the list it was resolved from and the number of tags that existed at that
+ * time, see {@link #isFor(List)}: tags of a platform are only created once its classes are loaded.
+ */
+public final class TagNameLookup {
+
+	private final List<String> names;
+	private final int createdTags;
+	// per configured name, the tags with that name (empty for unknown or blank names)
+	private final Tag<?>[][] tagsByName;
+
+	private TagNameLookup(List<String> names){
+		this.names = names;
+		this.createdTags = Tag.createdCount();
+		this.tagsByName = new Tag<?>[names.size()][];
+		for(int i = 0; i < names.size(); i++){
+			String name = names.get(i);
+			List<Tag<?>> tags = name == null || name.isEmpty() ? new ArrayList<Tag<?>>(0) : Tag.fromName(name);
+			tagsByName[i] = tags.toArray(new Tag<?>[tags.size()]);
+		}
+	}
+
+	/**
+	 * Resolves <code>names</code> to the tags that exist so far.
+	 * @param names configured tag names
+	 * @return the lookup
+	 */
+	public static TagNameLookup of(List<String> names){
+		return new TagNameLookup(Assert.notNull(names));
+	}
+
+	/**
+	 * Whether this lookup was resolved from (the same instance of) <code>names</code>
+	 * and no tags have been created since.
+	 * @param names configured tag names
+	 * @return true if this lookup can be reused for <code>names</code>
+	 */
+	public boolean isFor(List<String> names){
+		return this.names == names && createdTags == Tag.createdCount();
+	}
+
+	/** @return the number of configured names */
+	public int size(){ return tagsByName.length; }
+
+	/**
+	 * @param i index of a configured name
+	 * @return the configured name
+	 */
+	public String name(int i){ return names.get(i); }
+
+	/**
+	 * Returns the first non-null value of the tags named by the <code>i</code>-th configured name,
+	 * as string, or <code>null</code> if <code>taggable</code> has none of them.
+	 * Tags that share a name are queried in the order of {@link Tag#fromName(String)}.
+	 * @param taggable the widget (or other taggable) to query
+	 * @param i index of a configured name
+	 * @return the string representation of the value or <code>null</code>
+	 */
+	public String valueString(Taggable taggable, int i){
+		for(Tag<?> tag : tagsByName[i]){
+			Object value = taggable.get(tag, null);
+			if(value != null)
+				return value.toString();
+		}
+		return null;
+	}
+}
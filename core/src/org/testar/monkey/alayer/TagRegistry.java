@@ -0,0 +1,94 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.testar.monkey.Assert;
+
+/**
+ * Assigns every distinct <code>Tag</code> a dense, stable ordinal (0, 1, 2, ...) for the lifetime of the JVM.
+ * Ordinals are not serialized: they are re-assigned on demand, so they must never be persisted.
+ * <code>TaggableBase</code> uses them to store its values in compact arrays instead of hash maps.
+ */
+public final class TagRegistry {
+
+	private static final ConcurrentHashMap<Tag<?>, Integer> ordinals = new ConcurrentHashMap<Tag<?>, Integer>();
+	private static volatile Tag<?>[] byOrdinal = new Tag<?>[256];
+	private static int size;
+
+	private TagRegistry(){}
+
+	/**
+	 * Returns the ordinal of <code>tag</code>, registering it if necessary.
+	 * Equal tags always obtain the same ordinal.
+	 * @param tag the tag
+	 * @return the ordinal of the tag (&gt;= 0)
+	 */
+	public static int ordinal(Tag<?> tag){
+		Assert.notNull(tag);
+		Integer ret = ordinals.get(tag);
+		return ret != null ? ret : register(tag);
+	}
+
+	private static synchronized int register(Tag<?> tag){
+		Integer ret = ordinals.get(tag);
+		if(ret != null)
+			return ret;
+		int ordinal = size;
+		Tag<?>[] tags = byOrdinal;
+		if(ordinal == tags.length)
+			tags = Arrays.copyOf(tags, tags.length * 2);
+		tags[ordinal] = tag;
+		byOrdinal = tags;
+		size = ordinal + 1;
+		ordinals.put(tag, ordinal);
+		return ordinal;
+	}
+
+	/**
+	 * Returns the tag that has been assigned <code>ordinal</code>.
+	 * @param ordinal an ordinal previously returned by {@link #ordinal(Tag)}
+	 * @return the registered tag
+	 */
+	public static Tag<?> tag(int ordinal){
+		Tag<?>[] tags = byOrdinal;
+		if(ordinal < 0 || ordinal >= tags.length || tags[ordinal] == null)
+			throw new IllegalArgumentException("Unknown tag ordinal: " + ordinal);
+		return tags[ordinal];
+	}
+
+	/**
+	 * @return the number of tags registered so far
+	 */
+	public static synchronized int size(){ return size; }
+}
@@ -33,9 +33,14 @@
  */
 package org.testar.monkey.alayer;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -43,11 +48,29 @@ import org.testar.monkey.Assert;
 import org.testar.monkey.Util;
 import org.testar.monkey.alayer.exceptions.NoSuchTagException;
 
+/**
+ * Base implementation of <code>Taggable</code>.
+ * Tag values are stored in a small open addressing table keyed by the dense tag ordinals of the
+ * <code>TagRegistry</code>, which is considerably more compact than a <code>HashMap</code> for the
+ * few dozen tags a widget usually carries.
+ * A slot holding <code>null</code> marks a tag that has been fetched without result (or removed), so that
+ * the <code>fetch()</code> method is only called once for each tag.
+ * The serialized form is the same as the one of the former map based implementation.
+ */
 public class TaggableBase implements Taggable, Serializable {
 	private static final long serialVersionUID = 3941511707954247582L;
-	private Map<Tag<?>, Object> tagValues = Util.newHashMap();
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("tagValues", Map.class),
+		new ObjectStreamField("allFetched", boolean.class)
+	};
+	private static final int[] NO_KEYS = new int[0];
+	private static final Object[] NO_VALUES = new Object[0];
+
+	// keys hold ordinal + 1, 0 marks a free slot (slots are never freed, removing a tag nulls its value)
+	private transient int[] keys = NO_KEYS;
+	private transient Object[] values = NO_VALUES;
+	private transient int size;
 	// flag used to track whether all tags have been fetched or not
-	// optimize tag retrieval, ensuring that the fetch() method is only called once for each tag
 	boolean allFetched;
 	
 	public final <T> T get(Tag<T> tag) throws NoSuchTagException {
@@ -60,26 +83,30 @@ public class TaggableBase implements Taggable, Serializable {
 	@SuppressWarnings("unchecked")
 	public final <T> T get(Tag<T> tag, T defaultValue) {
 		Assert.notNull(tag);
-		T ret = (T) tagValues.get(tag);
-		if(ret == null && !allFetched && !tagValues.containsKey(tag)){
-			ret = fetch(tag);
-			tagValues.put(tag, ret);
+		int ordinal = tag.ordinal();
+		int slot = slotOf(ordinal);
+		if(slot >= 0){
+			T ret = (T) values[slot];
+			return ret == null ? defaultValue : ret;
 		}
+		if(allFetched)
+			return defaultValue;
+		T ret = fetch(tag);
+		put(ordinal, ret);
 		return ret == null ? defaultValue : ret;
 	}
 
 	public final Iterable<Tag<?>> tags() {
-		Set<Tag<?>> ret =new HashSet<Tag<?>>();
-		
 		if(!allFetched){
 			for(Tag<?> t : tagDomain())
 				get(t, null);
 			allFetched = true;
 		}
-		
-		for(Tag<?> t : tagValues.keySet()){
-			if(tagValues.get(t) != null)
-				ret.add(t);
+
+		List<Tag<?>> ret = new ArrayList<Tag<?>>(size);
+		for(int i = 0; i < keys.length; i++){
+			if(values[i] != null)
+				ret.add(TagRegistry.tag(keys[i] - 1));
 		}
 		return ret;
 	}
@@ -90,8 +117,82 @@ public class TaggableBase implements Taggable, Serializable {
 	public <T> void set(Tag<T> tag, T value) {
 		Assert.notNull(tag, value);
 		Assert.isTrue(tag.type().isInstance(value), "Value not of type required by this tag!");
-		tagValues.put(tag, value);
+		put(tag.ordinal(), value);
+	}
+
+	public void remove(Tag<?> tag) { put(Assert.notNull(tag).ordinal(), null); }
+
+	private int slotOf(int ordinal){
+		int[] k = keys;
+		int mask = k.length - 1;
+		if(mask < 0)
+			return -1;
+		int key = ordinal + 1;
+		for(int i = ordinal & mask; ; i = (i + 1) & mask){
+			int current = k[i];
+			if(current == key)
+				return i;
+			if(current == 0)
+				return -1;
+		}
+	}
+
+	private void put(int ordinal, Object value){
+		int slot = slotOf(ordinal);
+		if(slot >= 0){
+			values[slot] = value;
+			return;
+		}
+		if((size + 1) * 4 > keys.length * 3)
+			resize(Math.max(8, keys.length * 2));
+		insert(ordinal, value);
+		size++;
+	}
+
+	private void insert(int ordinal, Object value){
+		int mask = keys.length - 1;
+		int i = ordinal & mask;
+		while(keys[i] != 0)
+			i = (i + 1) & mask;
+		keys[i] = ordinal + 1;
+		values[i] = value;
+	}
+
+	private void resize(int capacity){
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new int[capacity];
+		values = new Object[capacity];
+		for(int i = 0; i < oldKeys.length; i++){
+			if(oldKeys[i] != 0)
+				insert(oldKeys[i] - 1, oldValues[i]);
+		}
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException{
+		Map<Tag<?>, Object> tagValues = Util.newHashMap();
+		for(int i = 0; i < keys.length; i++){
+			if(keys[i] != 0)
+				tagValues.put(TagRegistry.tag(keys[i] - 1), values[i]);
+		}
+
+		ObjectOutputStream.PutField fields = oos.putFields();
+		fields.put("tagValues", tagValues);
+		fields.put("allFetched", allFetched);
+		oos.writeFields();
 	}
 
-	public void remove(Tag<?> tag) { tagValues.put(Assert.notNull(tag), null); }
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException{
+		ObjectInputStream.GetField fields = ois.readFields();
+		Map<Tag<?>, Object> tagValues = (Map<Tag<?>, Object>) fields.get("tagValues", null);
+		allFetched = fields.get("allFetched", false);
+
+		keys = NO_KEYS;
+		values = NO_VALUES;
+		if(tagValues != null){
+			for(Map.Entry<Tag<?>, Object> entry : tagValues.entrySet())
+				put(entry.getKey().ordinal(), entry.getValue());
+		}
+	}
 }
@@ -38,6 +38,11 @@ import java.util.LinkedList;
 
 import org.testar.monkey.Assert;
 
+/**
+ * Iterates a widget tree by means of a <code>Navigator</code>.
+ * For iterating whole states prefer {@link State#traversal()}, which is computed once per state
+ * and does not allocate per visited widget.
+ */
 public final class WidgetIterator implements Iterator<Widget> {
 
 	private final LinkedList<Widget> buffer;
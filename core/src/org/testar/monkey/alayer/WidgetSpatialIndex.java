@@ -0,0 +1,272 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import org.testar.monkey.Assert;
+
+/**
+ * Spatial index over the widgets of a <code>WidgetTraversal</code>, answering point and rectangle
+ * queries in logarithmic time instead of scanning the whole state.
+ *
+ * Point queries are indexed by the bounds of each widget's <code>HitTester</code> (see
+ * {@link HitTester#bounds()}) and confirmed by the hit tester itself; widgets whose tester reports
+ * no bounds are always tested. Rectangle queries are indexed by the bounding boxes of the widgets'
+ * shapes. Both indexes are static packed R-trees, built on first use.
+ *
+ * Obtain the index of a state through <code>state.traversal().spatialIndex()</code>, so that it
+ * is built only once per state.
+ */
+public final class WidgetSpatialIndex {
+
+	private final WidgetTraversal traversal;
+	private PackedRTree hitIndex;
+	private int[] unboundedHitTesters;
+	private HitTester[] hitTesters;
+	private PackedRTree shapeIndex;
+
+	WidgetSpatialIndex(WidgetTraversal traversal){
+		this.traversal = Assert.notNull(traversal);
+	}
+
+	/**
+	 * Returns the widgets that can be hit at the given point, i.e. whose <code>HitTester</code> applies,
+	 * ordered from top to bottom: by descending <code>ZIndex</code>, then from the last to the first
+	 * widget in pre-order.
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @return the widgets at the given point, topmost first
+	 */
+	public List<Widget> widgetsAt(double x, double y){
+		buildHitIndex();
+		IntList candidates = new IntList();
+		hitIndex.query(x, y, x, y, candidates);
+		for(int i : unboundedHitTesters)
+			candidates.add(i);
+
+		IntList hits = new IntList();
+		for(int c = 0; c < candidates.size; c++){
+			int i = candidates.values[c];
+			if(hitTesters[i].apply(x, y))
+				hits.add(i);
+		}
+		return topmostFirst(hits);
+	}
+
+	/**
+	 * Returns the widgets whose shape's bounding box intersects <code>area</code>, in pre-order.
+	 * Widgets without a shape are ignored.
+	 * @param area the area
+	 * @return the widgets within or overlapping the area
+	 */
+	public List<Widget> widgetsIn(Rect area){
+		Assert.notNull(area);
+		buildShapeIndex();
+		IntList hits = new IntList();
+		shapeIndex.query(area.x(), area.y(), area.x() + area.width(), area.y() + area.height(), hits);
+		hits.sort();
+		List<Widget> ret = new ArrayList<Widget>(hits.size);
+		for(int h = 0; h < hits.size; h++)
+			ret.add(traversal.widget(hits.values[h]));
+		return ret;
+	}
+
+	private List<Widget> topmostFirst(IntList hits){
+		if(hits.size == 0)
+			return Collections.emptyList();
+		hits.sort();
+		double[] z = new double[hits.size];
+		List<Integer> order = new ArrayList<Integer>(hits.size);
+		for(int h = hits.size - 1; h >= 0; h--){
+			z[h] = traversal.widget(hits.values[h]).get(Tags.ZIndex, 0.0);
+			order.add(h);
+		}
+		// stable sort: equal z-indices keep the reverse pre-order
+		order.sort((a, b) -> Double.compare(z[b], z[a]));
+		List<Widget> ret = new ArrayList<Widget>(hits.size);
+		for(int h : order)
+			ret.add(traversal.widget(hits.values[h]));
+		return ret;
+	}
+
+	private synchronized void buildHitIndex(){
+		if(hitIndex != null)
+			return;
+		int size = traversal.size();
+		HitTester[] testers = new HitTester[size];
+		IntList bounded = new IntList();
+		IntList unbounded = new IntList();
+		double[] boxes = new double[size * 4];
+		for(int i = 0; i < size; i++){
+			HitTester tester = traversal.widget(i).get(Tags.HitTester, null);
+			if(tester == null)
+				continue; // no hit tester, the widget cannot be hit
+			testers[i] = tester;
+			Rect bounds = tester.bounds();
+			if(bounds == null){
+				unbounded.add(i);
+			}else{
+				setBox(boxes, bounded.size, bounds);
+				bounded.add(i);
+			}
+		}
+		hitTesters = testers;
+		unboundedHitTesters = unbounded.toArray();
+		hitIndex = new PackedRTree(bounded.toArray(), boxes);
+	}
+
+	private synchronized void buildShapeIndex(){
+		if(shapeIndex != null)
+			return;
+		int size = traversal.size();
+		IntList ids = new IntList();
+		double[] boxes = new double[size * 4];
+		for(int i = 0; i < size; i++){
+			Shape shape = traversal.widget(i).get(Tags.Shape, null);
+			if(shape != null){
+				setBox(boxes, ids.size, Rect.from(shape.x(), shape.y(), shape.width(), shape.height()));
+				ids.add(i);
+			}
+		}
+		shapeIndex = new PackedRTree(ids.toArray(), boxes);
+	}
+
+	private static void setBox(double[] boxes, int entry, Rect r){
+		boxes[entry * 4] = r.x();
+		boxes[entry * 4 + 1] = r.y();
+		boxes[entry * 4 + 2] = r.x() + r.width();
+		boxes[entry * 4 + 3] = r.y() + r.height();
+	}
+
+	/**
+	 * Growable int array.
+	 */
+	private static final class IntList implements IntConsumer {
+		int[] values = new int[16];
+		int size;
+
+		public void accept(int value){ add(value); }
+
+		void add(int value){
+			if(size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		void sort(){ Arrays.sort(values, 0, size); }
+
+		int[] toArray(){ return Arrays.copyOf(values, size); }
+	}
+
+	/**
+	 * Static R-tree, bulk loaded with the Sort-Tile-Recursive algorithm. Level 0 holds the entries,
+	 * every node of a higher level covers <code>NODE_SIZE</code> consecutive boxes of the level below.
+	 * Boxes are stored as (minX, minY, maxX, maxY) quadruples; bounds are inclusive like in <code>Rect</code>.
+	 */
+	static final class PackedRTree {
+		private static final int NODE_SIZE = 16;
+
+		private final int[] ids;
+		private final double[][] levels;
+
+		PackedRTree(int[] ids, double[] boxes){
+			int n = ids.length;
+			Integer[] order = new Integer[n];
+			for(int i = 0; i < n; i++)
+				order[i] = i;
+
+			// sort by center x, then sort vertical slices by center y
+			Arrays.sort(order, (a, b) -> Double.compare(boxes[a * 4] + boxes[a * 4 + 2], boxes[b * 4] + boxes[b * 4 + 2]));
+			int leaves = (n + NODE_SIZE - 1) / NODE_SIZE;
+			int sliceSize = NODE_SIZE * (int) Math.ceil(Math.sqrt(leaves));
+			for(int from = 0; from < n; from += sliceSize)
+				Arrays.sort(order, from, Math.min(n, from + sliceSize),
+						(a, b) -> Double.compare(boxes[a * 4 + 1] + boxes[a * 4 + 3], boxes[b * 4 + 1] + boxes[b * 4 + 3]));
+
+			this.ids = new int[n];
+			double[] level = new double[n * 4];
+			for(int i = 0; i < n; i++){
+				this.ids[i] = ids[order[i]];
+				System.arraycopy(boxes, order[i] * 4, level, i * 4, 4);
+			}
+
+			List<double[]> levels = new ArrayList<double[]>();
+			levels.add(level);
+			while(level.length > NODE_SIZE * 4){
+				int count = level.length / 4;
+				int parents = (count + NODE_SIZE - 1) / NODE_SIZE;
+				double[] parent = new double[parents * 4];
+				for(int p = 0; p < parents; p++){
+					double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+					double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+					for(int c = p * NODE_SIZE; c < Math.min(count, (p + 1) * NODE_SIZE); c++){
+						minX = Math.min(minX, level[c * 4]);
+						minY = Math.min(minY, level[c * 4 + 1]);
+						maxX = Math.max(maxX, level[c * 4 + 2]);
+						maxY = Math.max(maxY, level[c * 4 + 3]);
+					}
+					parent[p * 4] = minX;
+					parent[p * 4 + 1] = minY;
+					parent[p * 4 + 2] = maxX;
+					parent[p * 4 + 3] = maxY;
+				}
+				levels.add(parent);
+				level = parent;
+			}
+			this.levels = levels.toArray(new double[levels.size()][]);
+		}
+
+		/**
+		 * Passes the ids of all entries intersecting the query box to <code>consumer</code>.
+		 */
+		void query(double minX, double minY, double maxX, double maxY, IntConsumer consumer){
+			queryLevel(levels.length - 1, 0, levels[levels.length - 1].length / 4, minX, minY, maxX, maxY, consumer);
+		}
+
+		private void queryLevel(int l, int from, int to, double minX, double minY, double maxX, double maxY, IntConsumer consumer){
+			double[] level = levels[l];
+			for(int i = from; i < to; i++){
+				if(level[i * 4 + 2] < minX || level[i * 4 + 3] < minY || maxX < level[i * 4] || maxY < level[i * 4 + 1])
+					continue;
+				if(l == 0)
+					consumer.accept(ids[i]);
+				else
+					queryLevel(l - 1, i * NODE_SIZE, Math.min(levels[l - 1].length / 4, (i + 1) * NODE_SIZE),
+							minX, minY, maxX, maxY, consumer);
+			}
+		}
+	}
+}
@@ -0,0 +1,325 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.testar.monkey.Assert;
+
+/**
+ * An immutable, array backed snapshot of a widget tree. The tree is walked once (without recursion) and
+ * every widget is given its depth-first pre-order index. Parent, depth, child index and subtree extent
+ * are kept in <code>int</code> arrays indexed by that pre-order index, and the breadth-first order is
+ * derived from it. Iterating, visiting and streaming a traversal does not allocate per widget.
+ *
+ * <code>State</code>'s compute their traversal once (see {@link State#traversal()}) so that all consumers
+ * which iterate a state share it. If the widget tree is modified afterwards, a new traversal has to be
+ * computed.
+ */
+public final class WidgetTraversal implements Iterable<Widget> {
+
+	/**
+	 * Visitor that receives each widget together with its pre-order index and its depth.
+	 */
+	@FunctionalInterface
+	public interface Visitor {
+		void visit(Widget widget, int index, int depth);
+	}
+
+	private static final int SPLITERATOR_CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED |
+			Spliterator.SUBSIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+
+	private final int size;
+	private final Widget[] preOrder;
+	private final int[] parents;
+	private final int[] depths;
+	private final int[] childIndices;
+	private final int[] subtreeEnds;
+	private final int[] breadthFirst;
+	private final Widget[] breadthFirstWidgets;
+	private volatile WidgetSpatialIndex spatialIndex;
+
+	private WidgetTraversal(int size, Widget[] preOrder, int[] parents, int[] depths, int[] childIndices, int[] subtreeEnds){
+		this.size = size;
+		this.preOrder = preOrder;
+		this.parents = parents;
+		this.depths = depths;
+		this.childIndices = childIndices;
+		this.subtreeEnds = subtreeEnds;
+
+		// widgets of the same depth appear in the same relative order in pre-order and in breadth-first
+		// order, so a counting sort by depth yields the breadth-first order
+		int maxDepth = 0;
+		for(int i = 0; i < size; i++)
+			maxDepth = Math.max(maxDepth, depths[i]);
+		int[] offsets = new int[maxDepth + 2];
+		for(int i = 0; i < size; i++)
+			offsets[depths[i] + 1]++;
+		for(int d = 1; d < offsets.length; d++)
+			offsets[d] += offsets[d - 1];
+		this.breadthFirst = new int[size];
+		this.breadthFirstWidgets = new Widget[size];
+		for(int i = 0; i < size; i++){
+			int position = offsets[depths[i]]++;
+			breadthFirst[position] = i;
+			breadthFirstWidgets[position] = preOrder[i];
+		}
+	}
+
+	/**
+	 * Computes the traversal of the widget tree rooted at <code>root</code>.
+	 * @param root the root of the (sub)tree
+	 * @return the traversal
+	 */
+	public static WidgetTraversal of(Widget root){
+		Assert.notNull(root);
+		int capacity = 64;
+		Widget[] preOrder = new Widget[capacity];
+		int[] parents = new int[capacity];
+		int[] depths = new int[capacity];
+		int[] childIndices = new int[capacity];
+		int[] subtreeEnds = new int[capacity];
+
+		// explicit stack of (pre-order index, next child to visit)
+		int[] stackIndex = new int[16];
+		int[] stackChild = new int[16];
+		int sp = 0;
+
+		preOrder[0] = root;
+		parents[0] = -1;
+		int size = 1;
+		stackIndex[sp++] = 0;
+
+		while(sp > 0){
+			int top = stackIndex[sp - 1];
+			Widget w = preOrder[top];
+			int c = stackChild[sp - 1];
+			if(c < w.childCount()){
+				stackChild[sp - 1] = c + 1;
+				if(size == capacity){
+					capacity *= 2;
+					preOrder = Arrays.copyOf(preOrder, capacity);
+					parents = Arrays.copyOf(parents, capacity);
+					depths = Arrays.copyOf(depths, capacity);
+					childIndices = Arrays.copyOf(childIndices, capacity);
+					subtreeEnds = Arrays.copyOf(subtreeEnds, capacity);
+				}
+				preOrder[size] = w.child(c);
+				parents[size] = top;
+				depths[size] = depths[top] + 1;
+				childIndices[size] = c;
+				if(sp == stackIndex.length){
+					stackIndex = Arrays.copyOf(stackIndex, sp * 2);
+					stackChild = Arrays.copyOf(stackChild, sp * 2);
+				}
+				stackIndex[sp] = size;
+				stackChild[sp] = 0;
+				sp++;
+				size++;
+			}else{
+				subtreeEnds[top] = size;
+				sp--;
+			}
+		}
+
+		return new WidgetTraversal(size, preOrder, parents, depths, childIndices, subtreeEnds);
+	}
+
+	/** @return the number of widgets in the tree */
+	public int size(){ return size; }
+
+	/** @return the root of the tree */
+	public Widget root(){ return preOrder[0]; }
+
+	/**
+	 * @param index pre-order index
+	 * @return the widget with the given pre-order index
+	 */
+	public Widget widget(int index){
+		checkIndex(index);
+		return preOrder[index];
+	}
+
+	/**
+	 * @param index pre-order index
+	 * @return the pre-order index of the widget's parent or -1 for the root
+	 */
+	public int parent(int index){
+		checkIndex(index);
+		return parents[index];
+	}
+
+	/**
+	 * @param index pre-order index
+	 * @return the depth of the widget (0 for the root)
+	 */
+	public int depth(int index){
+		checkIndex(index);
+		return depths[index];
+	}
+
+	/**
+	 * @param index pre-order index
+	 * @return the position of the widget among the children of its parent (0 for the root)
+	 */
+	public int childIndex(int index){
+		checkIndex(index);
+		return childIndices[index];
+	}
+
+	/**
+	 * The descendants of a widget occupy the pre-order indices <code>index + 1</code> up to (excluding)
+	 * <code>subtreeEnd(index)</code>.
+	 * @param index pre-order index
+	 * @return the exclusive end of the widget's subtree
+	 */
+	public int subtreeEnd(int index){
+		checkIndex(index);
+		return subtreeEnds[index];
+	}
+
+	/**
+	 * @param position position in breadth-first order
+	 * @return the pre-order index of the widget at that position
+	 */
+	public int breadthFirst(int position){
+		checkIndex(position);
+		return breadthFirst[position];
+	}
+
+	/**
+	 * Same as <code>Util.indexPath()</code>, without walking up the tree.
+	 * @param index pre-order index
+	 * @return the child indices on the path from the root to the widget
+	 */
+	public int[] indexPath(int index){
+		checkIndex(index);
+		int[] ret = new int[depths[index]];
+		for(int i = ret.length - 1; i >= 0; i--){
+			ret[i] = childIndices[index];
+			index = parents[index];
+		}
+		return ret;
+	}
+
+	/**
+	 * Same as <code>Util.indexString()</code>, without walking up the tree.
+	 * @param index pre-order index
+	 * @return the string representation of the widget's index path
+	 */
+	public String indexString(int index){
+		return Arrays.toString(indexPath(index));
+	}
+
+	/**
+	 * Returns the spatial index over the widgets of this traversal. It is created on first use and
+	 * builds its R-trees lazily on the first query.
+	 * @return the spatial index
+	 */
+	public WidgetSpatialIndex spatialIndex(){
+		WidgetSpatialIndex ret = spatialIndex;
+		if(ret == null){
+			synchronized(this){
+				ret = spatialIndex;
+				if(ret == null){
+					ret = new WidgetSpatialIndex(this);
+					spatialIndex = ret;
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Visits all widgets in depth-first pre-order.
+	 * @param visitor the visitor
+	 */
+	public void forEachPreOrder(Visitor visitor){
+		Assert.notNull(visitor);
+		for(int i = 0; i < size; i++)
+			visitor.visit(preOrder[i], i, depths[i]);
+	}
+
+	/**
+	 * Visits all widgets in breadth-first order, which is the order of {@link #iterator()}.
+	 * @param visitor the visitor
+	 */
+	public void forEachBreadthFirst(Visitor visitor){
+		Assert.notNull(visitor);
+		for(int p = 0; p < size; p++){
+			int i = breadthFirst[p];
+			visitor.visit(preOrder[i], i, depths[i]);
+		}
+	}
+
+	/**
+	 * Iterates the widgets in breadth-first order, like <code>WidgetIterator</code> does.
+	 */
+	@Override
+	public Iterator<Widget> iterator(){
+		return new Iterator<Widget>() {
+			int position;
+
+			public boolean hasNext(){ return position < size; }
+
+			public Widget next(){
+				if(position >= size)
+					throw new NoSuchElementException();
+				return breadthFirstWidgets[position++];
+			}
+		};
+	}
+
+	/**
+	 * A breadth-first ordered spliterator that splits evenly, suitable for parallel streams.
+	 */
+	@Override
+	public Spliterator<Widget> spliterator(){
+		return Spliterators.spliterator(breadthFirstWidgets, 0, size, SPLITERATOR_CHARACTERISTICS);
+	}
+
+	/** @return a sequential stream over the widgets in breadth-first order */
+	public Stream<Widget> stream(){ return StreamSupport.stream(spliterator(), false); }
+
+	/** @return a parallel stream over the widgets */
+	public Stream<Widget> parallelStream(){ return StreamSupport.stream(spliterator(), true); }
+
+	private void checkIndex(int index){
+		if(index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+}
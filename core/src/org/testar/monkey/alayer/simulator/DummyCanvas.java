@@ -0,0 +1,66 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer.simulator;
+
+import org.testar.monkey.Pair;
+import org.testar.monkey.alayer.Canvas;
+import org.testar.monkey.alayer.Pen;
+
+/**
+ * Canvas for headless environments, nothing is painted.
+ */
+public class DummyCanvas implements Canvas {
+
+	private final Pen defaultPen;
+
+	public DummyCanvas(Pen defaultPen) {
+		this.defaultPen = defaultPen;
+	}
+
+	public double width() { return 0; }
+	public double height() { return 0; }
+	public double x() { return 0; }
+	public double y() { return 0; }
+	public void begin() {}
+	public void end() {}
+	public void line(Pen pen, double x1, double y1, double x2, double y2) {}
+	public void text(Pen pen, double x, double y, double angle, String text) {}
+	public Pair<Double, Double> textMetrics(Pen pen, String text) { return Pair.from(0.0, 0.0); }
+	public void clear(double x, double y, double width, double height) {}
+	public void triangle(Pen pen, double x1, double y1, double x2, double y2, double x3, double y3) {}
+	public void image(Pen pen, double x, double y, double width, double height, int[] image, int imageWidth, int imageHeight) {}
+	public void ellipse(Pen pen, double x, double y, double width, double height) {}
+	public void rect(Pen pen, double x, double y, double width, double height) {}
+	public Pen defaultPen() { return defaultPen; }
+	public void release() {}
+
+	public String toString() { return "Dummy Canvas"; }
+}
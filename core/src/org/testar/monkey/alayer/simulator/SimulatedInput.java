@@ -0,0 +1,179 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testar.monkey.Util;
+import org.testar.monkey.alayer.Point;
+import org.testar.monkey.alayer.State;
+import org.testar.monkey.alayer.Tags;
+import org.testar.monkey.alayer.Widget;
+import org.testar.monkey.alayer.devices.KBKeys;
+import org.testar.monkey.alayer.devices.Keyboard;
+import org.testar.monkey.alayer.devices.Mouse;
+import org.testar.monkey.alayer.devices.MouseButtons;
+
+/**
+ * Mouse and keyboard of a simulated SUT.
+ * The devices do not send anything to the screen, they record the input of an action so that
+ * it can be reduced to a signature: the widget that received the pointer input and the kind of input.
+ * The signature ignores the exact text that was typed, so that random text inputs lead to the same transition.
+ */
+public class SimulatedInput implements Mouse, Keyboard {
+
+	/** The number of key presses that still count as a shortcut (ALT+F4) instead of typing. */
+	static final int MAX_SHORTCUT_KEYS = 4;
+
+	private static final class Press {
+		final MouseButtons button;
+		final double x, y;
+		double releaseX, releaseY;
+
+		Press(MouseButtons button, double x, double y) {
+			this.button = button;
+			this.x = releaseX = x;
+			this.y = releaseY = y;
+		}
+	}
+
+	private final List<Press> presses = new ArrayList<>();
+	private final List<String> keys = new ArrayList<>();
+	private double x, y;
+
+	@Override
+	public synchronized void press(MouseButtons k) {
+		presses.add(new Press(k, x, y));
+	}
+
+	@Override
+	public synchronized void release(MouseButtons k) {
+		for (int i = presses.size() - 1; i >= 0; i--) {
+			Press press = presses.get(i);
+			if (press.button == k) {
+				press.releaseX = x;
+				press.releaseY = y;
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void isPressed(MouseButtons k) {}
+
+	@Override
+	public synchronized void setCursor(double x, double y) {
+		this.x = x;
+		this.y = y;
+	}
+
+	@Override
+	public synchronized Point cursor() {
+		return Point.from(x, y);
+	}
+
+	@Override
+	public void setCursorDisplayScale(double displayScale) {}
+
+	@Override
+	public synchronized void press(KBKeys k) {
+		keys.add(k.name());
+	}
+
+	@Override
+	public void release(KBKeys k) {}
+
+	@Override
+	public void isPressed(KBKeys k) {}
+
+	@Override
+	public synchronized void paste() {
+		keys.add("paste");
+	}
+
+	/**
+	 * @return true if input was received since the last call to <code>clear()</code>
+	 */
+	public synchronized boolean hasInput() {
+		return !presses.isEmpty() || !keys.isEmpty();
+	}
+
+	public synchronized void clear() {
+		presses.clear();
+		keys.clear();
+	}
+
+	/**
+	 * Reduces the input received since the last call to <code>clear()</code> to a signature.
+	 * The pointer part is the first pressed button and the topmost widget of <code>state</code> at the press position,
+	 * with the number of presses (double clicks) and whether the pointer was dragged.
+	 * Keys pressed after a pointer input count as typing. Without pointer input a few keys are a shortcut,
+	 * identified by the keys themselves, and more keys are typing.
+	 * @param state the state in which the input was received
+	 * @return the signature, or "none" if no input was received
+	 */
+	public synchronized String signature(State state) {
+		StringBuilder sb = new StringBuilder();
+		if (!presses.isEmpty()) {
+			Press first = presses.get(0);
+			int count = 0;
+			for (Press press : presses) {
+				if (press.button == first.button)
+					count++;
+			}
+			sb.append(first.button.name()).append('@').append(widgetKey(state, first.x, first.y));
+			if (count > 1)
+				sb.append('x').append(count);
+			if (Math.abs(first.releaseX - first.x) > 1 || Math.abs(first.releaseY - first.y) > 1)
+				sb.append(">drag");
+			if (!keys.isEmpty())
+				sb.append("+type");
+		} else if (!keys.isEmpty()) {
+			sb.append(keys.size() <= MAX_SHORTCUT_KEYS ? "key:" + String.join("+", keys) : "type");
+		} else {
+			sb.append("none");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Identifies the topmost widget at a position by its concrete id, or by its index path if the ids were not built.
+	 */
+	static String widgetKey(State state, double x, double y) {
+		for (Widget widget : Util.widgetsFromPoint(state, x, y)) {
+			return widget.get(Tags.ConcreteID, Util.indexString(widget));
+		}
+		return "screen";
+	}
+
+	public String toString() { return "Simulated Input"; }
+}
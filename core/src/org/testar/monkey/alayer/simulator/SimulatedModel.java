@@ -0,0 +1,272 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer.simulator;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.testar.monkey.Assert;
+import org.testar.monkey.alayer.Action;
+import org.testar.monkey.alayer.SUTBase;
+import org.testar.monkey.alayer.State;
+import org.testar.monkey.alayer.Tag;
+import org.testar.monkey.alayer.Taggable;
+import org.testar.monkey.alayer.Tags;
+
+/**
+ * A graph of recorded states that a <code>SimulatedSUT</code> walks through.
+ * The states are identified by their concrete id. A transition connects a state and an input signature
+ * (see <code>SimulatedInput</code>) to the state that the input led to during the recording.
+ * The transitions are deterministic: if the recording shows different outcomes for the same input, the first one is kept.
+ */
+public class SimulatedModel {
+
+	/**
+	 * What happens to an input for which no transition was recorded.
+	 */
+	public enum Fallback {
+		/** The input has no effect, the SUT stays in its state. */
+		STAY,
+		/** The SUT moves to a state chosen by a hash of the state and the input, so that the whole graph is reachable. */
+		HASH
+	}
+
+	private final Map<String, State> states = new LinkedHashMap<>();
+	private final Map<String, Map<String, String>> transitions = new HashMap<>();
+	private final Map<String, byte[]> snapshots = new HashMap<>();
+	private final List<String> stateIds = new ArrayList<>();
+	private String initialStateId;
+
+	/**
+	 * Loads the states of recorded TESTAR sequences (the .testar files of the output/sequences folders).
+	 * Consecutive fragments of a sequence make up a transition: the executed action of a fragment led from its
+	 * state to the state of the next fragment. The first state of the first sequence is the initial state.
+	 * Reading UIA or WebDriver states requires the windows or webdriver module on the class path.
+	 * @param recording a .testar file or a folder with .testar files
+	 * @return the model
+	 * @throws IOException if a sequence cannot be read or no states were recorded
+	 */
+	public static SimulatedModel load(File recording) throws IOException {
+		File[] files = recording.isDirectory() ? recording.listFiles((dir, name) -> name.endsWith(".testar")) : new File[]{ recording };
+		if (files == null || files.length == 0) {
+			throw new IOException("No recorded sequences found in " + recording);
+		}
+		Arrays.sort(files);
+		SimulatedModel model = new SimulatedModel();
+		for (File file : files) {
+			model.addSequence(file);
+		}
+		if (model.size() == 0) {
+			throw new IOException("No states were recorded in " + recording);
+		}
+		return model;
+	}
+
+	private void addSequence(File sequenceFile) throws IOException {
+		try (ObjectInputStream ois = new ObjectInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(sequenceFile))))) {
+			String previousStateId = null;
+			String previousInput = null;
+			while (true) {
+				Taggable fragment;
+				try {
+					fragment = (Taggable) ois.readObject();
+				} catch (EOFException e) {
+					break;
+				} catch (ClassNotFoundException e) {
+					throw new IOException("Unable to read " + sequenceFile + ", is the platform module on the class path?", e);
+				}
+				State state = fragment.get(Tags.SystemState, null);
+				String stateId = state == null ? null : state.get(Tags.ConcreteID, null);
+				if (stateId == null) {
+					previousStateId = null;
+					continue;
+				}
+				addState(stateId, state);
+				if (previousStateId != null && previousInput != null) {
+					addTransition(previousStateId, previousInput, stateId);
+				}
+				Action action = fragment.get(Tags.ExecutedAction, null);
+				previousStateId = stateId;
+				previousInput = action == null ? null : inputOf(state, action);
+			}
+		}
+	}
+
+	/**
+	 * Adds a state, the first state added is the initial state. A state that is already known is not replaced.
+	 * @param stateId
+	 * @param state
+	 */
+	public synchronized void addState(String stateId, State state) {
+		Assert.notNull(stateId, state);
+		if (states.putIfAbsent(stateId, state) == null) {
+			stateIds.add(stateId);
+			if (initialStateId == null) {
+				initialStateId = stateId;
+			}
+		}
+	}
+
+	/**
+	 * Adds a transition between two known states, unless a transition for the same input was already added.
+	 * @param sourceStateId
+	 * @param input the signature of the input, see <code>SimulatedInput.signature</code>
+	 * @param targetStateId
+	 */
+	public synchronized void addTransition(String sourceStateId, String input, String targetStateId) {
+		Assert.notNull(input);
+		Assert.isTrue(states.containsKey(sourceStateId) && states.containsKey(targetStateId), "Unknown state");
+		transitions.computeIfAbsent(sourceStateId, id -> new HashMap<>()).putIfAbsent(input, targetStateId);
+	}
+
+	public synchronized String getInitialStateId() {
+		return initialStateId;
+	}
+
+	public synchronized int size() {
+		return states.size();
+	}
+
+	/**
+	 * @return the recorded state, which is shared and should not be changed
+	 */
+	public synchronized State getState(String stateId) {
+		return states.get(stateId);
+	}
+
+	/**
+	 * @return the state that the input leads to, or null if no transition was recorded
+	 */
+	public synchronized String getTarget(String stateId, String input) {
+		Map<String, String> outgoing = transitions.get(stateId);
+		return outgoing == null ? null : outgoing.get(input);
+	}
+
+	/**
+	 * @return the state that the input leads to, applying the fallback if no transition was recorded
+	 */
+	public synchronized String next(String stateId, String input, Fallback fallback) {
+		String target = getTarget(stateId, input);
+		if (target != null) {
+			return target;
+		}
+		if (fallback == Fallback.HASH) {
+			// String.hashCode is specified, so the choice is the same in every run
+			return stateIds.get(Math.floorMod((stateId + '|' + input).hashCode(), stateIds.size()));
+		}
+		return stateId;
+	}
+
+	/**
+	 * Returns a copy of a recorded state, so that every state fetch delivers a fresh widget tree like a real state builder.
+	 * The serialized form of each state is kept, copying costs a deserialization.
+	 * @param stateId
+	 * @return the copy
+	 */
+	public State snapshot(String stateId) {
+		byte[] bytes;
+		synchronized (this) {
+			bytes = snapshots.get(stateId);
+			if (bytes == null) {
+				bytes = serialize(Assert.notNull(states.get(stateId)));
+				snapshots.put(stateId, bytes);
+			}
+		}
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return (State) ois.readObject();
+		} catch (IOException | ClassNotFoundException e) {
+			throw new IllegalStateException("Unable to copy state " + stateId, e);
+		}
+	}
+
+	private static byte[] serialize(State state) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+			oos.writeObject(state);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to copy state " + state.get(Tags.ConcreteID, ""), e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Runs a recorded action on a probe SUT to find the input signature that the action produces in a state.
+	 * @return the signature, or null if the action cannot run outside of its platform or produces no input
+	 */
+	static String inputOf(State state, Action action) {
+		SimulatedInput input = new SimulatedInput();
+		try {
+			action.run(new ProbeSUT(input), state, 0);
+		} catch (RuntimeException e) {
+			return null;
+		}
+		return input.hasInput() ? input.signature(state) : null;
+	}
+
+	/**
+	 * A SUT that only offers the simulated devices, used to record the input of actions.
+	 */
+	private static final class ProbeSUT extends SUTBase {
+		private final SimulatedInput input;
+
+		ProbeSUT(SimulatedInput input) {
+			this.input = input;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		protected <T> T fetch(Tag<T> tag) {
+			if (tag.equals(Tags.StandardMouse) || tag.equals(Tags.StandardKeyboard)) {
+				return (T) input;
+			}
+			return null;
+		}
+
+		public void stop() {}
+		public boolean isRunning() { return true; }
+		public String getStatus() { return "Probe"; }
+		public void setNativeAutomationCache() {}
+	}
+}
@@ -0,0 +1,121 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer.simulator;
+
+import org.testar.monkey.Assert;
+import org.testar.monkey.Util;
+import org.testar.monkey.alayer.SUTBase;
+import org.testar.monkey.alayer.State;
+import org.testar.monkey.alayer.Tag;
+import org.testar.monkey.alayer.Tags;
+import org.testar.monkey.alayer.simulator.SimulatedModel.Fallback;
+
+/**
+ * A SUT that replays a recorded state model instead of running an application, so that TESTAR
+ * can run without a display (benchmarks, CI).
+ * Actions run on the simulated mouse and keyboard. The input of an action takes effect when the next state is fetched:
+ * it is reduced to a signature and the SUT follows the recorded transition of the current state for that signature.
+ * Fetching states without input in between does not change the state.
+ */
+public class SimulatedSUT extends SUTBase {
+
+	private final SimulatedModel model;
+	private final SimulatedInput input = new SimulatedInput();
+	private final long actionLatency;
+	private final Fallback fallback;
+	private String currentStateId;
+	private boolean running = true;
+
+	/**
+	 * @param model the recorded states
+	 * @param actionLatency the time in ms it takes the SUT to process the input of an action
+	 * @param fallback what to do with inputs for which no transition was recorded
+	 */
+	public SimulatedSUT(SimulatedModel model, long actionLatency, Fallback fallback) {
+		Assert.notNull(model, fallback);
+		Assert.isTrue(model.size() > 0, "The model has no states");
+		this.model = model;
+		this.actionLatency = actionLatency;
+		this.fallback = fallback;
+		this.currentStateId = model.getInitialStateId();
+	}
+
+	/**
+	 * Applies the input received since the last fetch and returns a copy of the state the SUT is in.
+	 * @return the current state
+	 */
+	public synchronized State fetchState() {
+		if (input.hasInput()) {
+			String signature = input.signature(model.getState(currentStateId));
+			input.clear();
+			Util.pauseMs(actionLatency);
+			currentStateId = model.next(currentStateId, signature, fallback);
+		}
+		return model.snapshot(currentStateId);
+	}
+
+	public synchronized String getCurrentStateId() {
+		return currentStateId;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	protected <T> T fetch(Tag<T> tag) {
+		if (tag.equals(Tags.StandardMouse) || tag.equals(Tags.StandardKeyboard)) {
+			return (T) input;
+		} else if (tag.equals(Tags.PID)) {
+			return (T) (Long) (long) -1;
+		} else if (tag.equals(Tags.Desc)) {
+			return (T) "Simulated SUT";
+		}
+		return null;
+	}
+
+	@Override
+	public synchronized void stop() {
+		running = false;
+	}
+
+	@Override
+	public synchronized boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public synchronized String getStatus() {
+		return "Simulated SUT in state " + currentStateId;
+	}
+
+	@Override
+	public void setNativeAutomationCache() {}
+
+	public String toString() { return getStatus(); }
+}
@@ -0,0 +1,67 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer.simulator;
+
+import org.testar.monkey.Util;
+import org.testar.monkey.alayer.SUT;
+import org.testar.monkey.alayer.State;
+import org.testar.monkey.alayer.StateBuilder;
+import org.testar.monkey.alayer.Tags;
+import org.testar.monkey.alayer.exceptions.StateBuildException;
+
+/**
+ * Fetches the states of a <code>SimulatedSUT</code>, with a configurable latency that stands in for
+ * the time a platform needs to walk the accessibility tree.
+ */
+public class SimulatedStateBuilder implements StateBuilder {
+	private static final long serialVersionUID = -4718356052867135541L;
+
+	private final long stateLatency;
+
+	/**
+	 * @param stateLatency the time in ms a state fetch takes
+	 */
+	public SimulatedStateBuilder(long stateLatency) {
+		this.stateLatency = stateLatency;
+	}
+
+	@Override
+	public State apply(SUT system) throws StateBuildException {
+		if (!(system instanceof SimulatedSUT)) {
+			throw new StateBuildException("The simulated state builder requires a simulated SUT, not " + system);
+		}
+		Util.pauseMs(stateLatency);
+		State state = ((SimulatedSUT) system).fetchState();
+		state.set(Tags.IsRunning, system.isRunning());
+		state.set(Tags.TimeStamp, System.currentTimeMillis());
+		return state;
+	}
+}
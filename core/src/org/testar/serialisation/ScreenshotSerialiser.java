@@ -37,6 +37,8 @@ import java.util.LinkedList;
 
 import org.testar.monkey.Assert;
 import org.testar.monkey.alayer.AWTCanvas;
+import org.testar.monkey.alayer.ImageHashIndex;
+import org.testar.monkey.alayer.ImageSimilarity;
 
 /**
  * SUT screenshots serialiser
@@ -52,6 +54,8 @@ public class ScreenshotSerialiser extends Thread {
 	private static ScreenshotSerialiser singletonScreenshotSerialiser;
 	private static boolean alive;
 	private static boolean queueBoost;
+	// the dHash of the stateshots of the current test sequence, by path
+	private static final ImageHashIndex<String> stateshotHashes = new ImageHashIndex<String>();
 
 	private static class ScrshotRecord{
 		String scrshotPath;
@@ -70,6 +74,9 @@ public class ScreenshotSerialiser extends Thread {
 		Assert.isTrue(!alive);
 		Assert.isTrue(scrshotSavingQueue.isEmpty());
 		alive = true; queueBoost = false;
+		synchronized(stateshotHashes){
+			stateshotHashes.clear();
+		}
 		singletonScreenshotSerialiser = new ScreenshotSerialiser(outputFolder, testSequenceFolder);
 		singletonScreenshotSerialiser.setPriority(Thread.MIN_PRIORITY);
 		singletonScreenshotSerialiser.start();
@@ -118,13 +125,49 @@ public class ScreenshotSerialiser extends Thread {
 		}
 	}
 
+	/**
+	 * Saves the screenshot of a state, unless a screenshot of another state of the test sequence has the same pixels.
+	 * Equal screenshots are found by their dHash and compared pixel by pixel before the other path is returned.
+	 * @param stateID
+	 * @param stateshot
+	 * @return the path of the saved screenshot, or of the equal screenshot of another state
+	 */
 	public static String saveStateshot(String stateID, AWTCanvas stateshot){
 		String statePath = scrshotOutputFolder + File.separator + testSequenceFolder + File.separator + stateID + ".png";
-		if (!new File(statePath).exists())
-			savethis(statePath,stateshot);
+		if (new File(statePath).exists())
+			return statePath;
+		long hash = ImageSimilarity.dHash(stateshot.image());
+		synchronized(stateshotHashes){
+			for (String path : stateshotHashes.within(hash, 0)){
+				if (path.equals(statePath) || isEqualStateshot(path, stateshot))
+					return path;
+			}
+			stateshotHashes.add(hash, statePath);
+		}
+		savethis(statePath,stateshot);
 		return statePath;
 	}
 
+	// compares with the screenshot that is still queued, or otherwise with the saved file
+	private static boolean isEqualStateshot(String path, AWTCanvas stateshot){
+		AWTCanvas other = null;
+		synchronized(scrshotSavingQueue){
+			for (ScrshotRecord r : scrshotSavingQueue){
+				if (r.scrshotPath.equals(path)){
+					other = r.scrshot;
+					break;
+				}
+			}
+		}
+		try {
+			if (other == null)
+				other = AWTCanvas.fromFile(path);
+		} catch (IOException e) {
+			return false;
+		}
+		return ImageSimilarity.equal(stateshot.image(), other.image());
+	}
+
 	public static String saveActionshot(String stateID, String actionID, final AWTCanvas actionshot){
 		String actionPath = scrshotOutputFolder + File.separator + testSequenceFolder + File.separator + stateID + "_" + actionID + ".png";
 		if (!new File(actionPath).exists())
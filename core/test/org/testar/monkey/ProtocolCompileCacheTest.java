@@ -0,0 +1,103 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class ProtocolCompileCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File protocolDir;
+	private File compileDir;
+	private File library;
+	private String classPath;
+
+	@Before
+	public void createProtocol() throws IOException {
+		protocolDir = folder.newFolder("settings", "desktop_generic");
+		compileDir = folder.newFolder("compiled");
+		write(new File(protocolDir, "Protocol_desktop_generic.java"), "public class Protocol_desktop_generic {}");
+		library = folder.newFile("library.jar");
+		classPath = library.getAbsolutePath() + File.pathSeparator + folder.getRoot().getAbsolutePath();
+	}
+
+	@Test
+	public void testFingerprintIsStable() throws IOException {
+		assertEquals(ProtocolCompileCache.fingerprint(protocolDir, classPath), ProtocolCompileCache.fingerprint(protocolDir, classPath));
+	}
+
+	@Test
+	public void testFingerprintFollowsSourcesAndClassPath() throws IOException {
+		String fingerprint = ProtocolCompileCache.fingerprint(protocolDir, classPath);
+
+		write(new File(protocolDir, "Protocol_desktop_generic.java"), "public class Protocol_desktop_generic { }");
+		String changedSource = ProtocolCompileCache.fingerprint(protocolDir, classPath);
+		assertNotEquals(fingerprint, changedSource);
+
+		write(library, "a newer version of the library");
+		assertNotEquals(changedSource, ProtocolCompileCache.fingerprint(protocolDir, classPath));
+		assertNotEquals(changedSource, ProtocolCompileCache.fingerprint(protocolDir, folder.getRoot().getAbsolutePath()));
+	}
+
+	@Test
+	public void testCompiledProtocolIsReused() throws IOException {
+		String fingerprint = ProtocolCompileCache.fingerprint(protocolDir, classPath);
+		String protocolClass = "desktop_generic/Protocol_desktop_generic";
+		assertFalse(ProtocolCompileCache.isUpToDate(protocolDir, protocolClass, compileDir, fingerprint));
+
+		// a stamp without classes is not enough
+		ProtocolCompileCache.update(protocolDir, compileDir, fingerprint);
+		assertFalse(ProtocolCompileCache.isUpToDate(protocolDir, protocolClass, compileDir, fingerprint));
+
+		write(new File(compileDir, "Protocol_desktop_generic.class"), "compiled");
+		assertTrue(ProtocolCompileCache.isUpToDate(protocolDir, protocolClass, compileDir, fingerprint));
+		assertFalse(ProtocolCompileCache.isUpToDate(protocolDir, protocolClass, compileDir, "another fingerprint"));
+
+		ProtocolCompileCache.invalidate(protocolDir, compileDir);
+		assertFalse(ProtocolCompileCache.isUpToDate(protocolDir, protocolClass, compileDir, fingerprint));
+	}
+
+	private static void write(File file, String content) throws IOException {
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+}
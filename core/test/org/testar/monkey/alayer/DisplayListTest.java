@@ -0,0 +1,139 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.testar.monkey.Pair;
+
+public class DisplayListTest {
+
+	/** Logs the calls that reach the screen. */
+	private static class LogCanvas implements Canvas {
+		final List<String> calls = new ArrayList<>();
+
+		public double width() { return 1000; }
+		public double height() { return 1000; }
+		public double x() { return 0; }
+		public double y() { return 0; }
+		public void begin() { calls.add("begin"); }
+		public void end() { calls.add("end"); }
+		public void line(Pen pen, double x1, double y1, double x2, double y2) { calls.add("line"); }
+		public void text(Pen pen, double x, double y, double angle, String text) { calls.add("text " + text); }
+		public Pair<Double, Double> textMetrics(Pen pen, String text) { return Pair.from(text.length() * 8.0, 20.0); }
+		public void clear(double x, double y, double width, double height) { calls.add("clear " + Rect.from(x, y, width, height)); }
+		public void triangle(Pen pen, double x1, double y1, double x2, double y2, double x3, double y3) { calls.add("triangle"); }
+		public void image(Pen pen, double x, double y, double width, double height, int[] image, int imageWidth, int imageHeight) { calls.add("image"); }
+		public void ellipse(Pen pen, double x, double y, double width, double height) { calls.add("ellipse " + x + "," + y); }
+		public void rect(Pen pen, double x, double y, double width, double height) { calls.add("rect " + x + "," + y); }
+		public Pen defaultPen() { return Pen.PEN_DEFAULT; }
+		public void release() {}
+	}
+
+	private static Pen dotPen() {
+		return Pen.newPen().setColor(Color.from(0, 255, 0, 96)).setFillPattern(FillPattern.Solid).setStrokeWidth(2).build();
+	}
+
+	private static DisplayList frame(LogCanvas canvas, double cursorX) {
+		DisplayList list = new DisplayList(canvas);
+		list.ellipse(dotPen(), 100, 100, 10, 10);
+		list.ellipse(dotPen(), 800, 800, 10, 10);
+		list.rect(Pen.PEN_BLACK, cursorX, 500, 100, 40);
+		list.text(Pen.PEN_BLUE, cursorX, 500, 0, "Title");
+		return list;
+	}
+
+	@Test
+	public void testEqualFramesPaintNothing() {
+		LogCanvas canvas = new LogCanvas();
+		DisplayList first = frame(canvas, 300);
+		first.paint();
+		canvas.calls.clear();
+
+		// new pens with the same attributes are the same
+		assertFalse(frame(canvas, 300).paint(first));
+		assertTrue(canvas.calls.isEmpty());
+	}
+
+	@Test
+	public void testOnlyChangedRegionsArePainted() {
+		LogCanvas canvas = new LogCanvas();
+		DisplayList first = frame(canvas, 300);
+		first.paint();
+		canvas.calls.clear();
+
+		assertTrue(frame(canvas, 320).paint(first));
+		assertEquals("begin", canvas.calls.get(0));
+		assertEquals("end", canvas.calls.get(canvas.calls.size() - 1));
+		assertTrue(canvas.calls.contains("rect 320.0,500.0"));
+		assertTrue(canvas.calls.contains("text Title"));
+		// the dots are far from the moved panel and stay on the screen
+		assertFalse(canvas.calls.contains("ellipse 100.0,100.0"));
+		assertFalse(canvas.calls.contains("ellipse 800.0,800.0"));
+		// the old and the new panel overlap, a single region is cleared
+		assertEquals(1, canvas.calls.stream().filter(call -> call.startsWith("clear")).count());
+	}
+
+	@Test
+	public void testOverlappingOperationsArePaintedCompletely() {
+		LogCanvas canvas = new LogCanvas();
+		DisplayList first = new DisplayList(canvas);
+		first.ellipse(dotPen(), 290, 490, 20, 20);
+		first.rect(Pen.PEN_BLACK, 300, 500, 100, 40);
+
+		DisplayList second = new DisplayList(canvas);
+		second.ellipse(dotPen(), 290, 490, 20, 20);
+		second.rect(Pen.PEN_BLACK, 305, 500, 100, 40);
+		first.paint();
+		canvas.calls.clear();
+
+		assertTrue(second.paint(first));
+		// the unchanged dot overlaps the panel: the cleared region grows to cover the whole dot, which is painted again
+		assertEquals(1, canvas.calls.stream().filter(call -> call.startsWith("clear")).count());
+		assertTrue(canvas.calls.indexOf("ellipse 290.0,490.0") > canvas.calls.indexOf("clear " + Rect.fromCoordinates(288, 488, 406.5, 541.5)));
+	}
+
+	@Test
+	public void testLargeChangesRepaintEverything() {
+		LogCanvas canvas = new LogCanvas();
+		DisplayList first = new DisplayList(canvas);
+		first.rect(Pen.PEN_BLACK, 0, 0, 900, 900);
+		DisplayList second = new DisplayList(canvas);
+		second.rect(Pen.PEN_BLACK, 10, 10, 900, 900);
+
+		assertTrue(second.paint(first));
+		assertEquals("clear " + Rect.from(0, 0, 1000, 1000), canvas.calls.get(1));
+	}
+}
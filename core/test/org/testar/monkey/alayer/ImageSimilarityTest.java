@@ -0,0 +1,134 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class ImageSimilarityTest {
+
+	@Test
+	public void testEqualImagesAreSimilar() {
+		BufferedImage a = gradient(64, 48), b = gradient(64, 48);
+		assertTrue(ImageSimilarity.equal(a, b));
+		assertEquals(1f, ImageSimilarity.similarity(a, b), 0f);
+		assertEquals(1f, ImageSimilarity.sampledSimilarity(a, b, 4), 0f);
+		assertNull(ImageSimilarity.changedRegion(a, b));
+		assertEquals(ImageSimilarity.dHash(a), ImageSimilarity.dHash(b));
+		assertEquals(ImageSimilarity.pHash(a), ImageSimilarity.pHash(b));
+	}
+
+	@Test
+	public void testSimilarityCountsChangedPixels() {
+		BufferedImage a = gradient(100, 100), b = gradient(100, 100);
+		fill(b, 10, 20, 10, 10, 0xFF00FF00);
+		assertFalse(ImageSimilarity.equal(a, b));
+		assertEquals(0.99f, ImageSimilarity.similarity(a, b), 1e-6f);
+		assertEquals(0.99f, new AWTCanvas(0, 0, a, AWTCanvas.StorageFormat.PNG, 1).compareImage(
+				new AWTCanvas(0, 0, b, AWTCanvas.StorageFormat.PNG, 1)), 1e-6f);
+	}
+
+	@Test
+	public void testSizeSimilarityIsNotTruncated() {
+		// half of the pixels are missing, the other half is equal
+		BufferedImage a = gradient(100, 100), b = a.getSubimage(0, 0, 100, 50);
+		assertEquals(0.5f - (1f - 5000f / 7500f), ImageSimilarity.similarity(a, b), 1e-6f);
+		assertEquals(0.5f - (1f - 5000f / 7500f), ImageSimilarity.similarity(b, a), 1e-6f);
+	}
+
+	@Test
+	public void testChangedRegionBoundsAllChanges() {
+		BufferedImage a = gradient(80, 60), b = gradient(80, 60);
+		fill(b, 5, 40, 3, 2, 0xFFFFFFFF);
+		fill(b, 70, 10, 4, 4, 0xFF000000);
+		assertEquals(Rect.from(5, 10, 69, 32), ImageSimilarity.changedRegion(a, b));
+		assertEquals(Rect.from(0, 0, 80, 70), ImageSimilarity.changedRegion(a, gradient(40, 70)));
+	}
+
+	@Test
+	public void testPerceptualHashesSurviveScaling() {
+		BufferedImage a = window(160, 120), b = window(320, 240), c = checkerboard(160, 120);
+		assertTrue(ImageSimilarity.hammingDistance(ImageSimilarity.dHash(a), ImageSimilarity.dHash(b)) <= 8);
+		assertTrue(ImageSimilarity.hammingDistance(ImageSimilarity.pHash(a), ImageSimilarity.pHash(b)) <= 8);
+		assertTrue(ImageSimilarity.hammingDistance(ImageSimilarity.pHash(a), ImageSimilarity.pHash(c)) > 16);
+	}
+
+	@Test
+	public void testHashIndexFindsNearest() {
+		ImageHashIndex<String> index = new ImageHashIndex<>();
+		for (int i = 0; i < 40; i++)
+			index.add(~0L << i, "shift" + i);
+		assertEquals("shift3", index.nearest((~0L << 3) ^ 1L << 40, 2));
+		assertNull(index.nearest(0x5555555555555555L, 2));
+		assertEquals(3, index.within(~0L << 20, 1).size());
+		assertEquals(40, index.size());
+		index.clear();
+		assertEquals(0, index.size());
+	}
+
+	private static BufferedImage gradient(int width, int height) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int r = x * 255 / width, g = y * 255 / height, b = (x + y) * 127 / (width + height);
+				image.setRGB(x, y, 0xFF000000 | r << 16 | g << 8 | b);
+			}
+		}
+		return image;
+	}
+
+	private static BufferedImage window(int width, int height) {
+		BufferedImage image = gradient(width, height);
+		fill(image, 0, 0, width, height / 8, 0xFF202060);
+		fill(image, width / 10, height / 4, width / 3, height / 2, 0xFFF0F0F0);
+		fill(image, width * 6 / 10, height * 6 / 10, width / 4, height / 6, 0xFF3070C0);
+		return image;
+	}
+
+	private static BufferedImage checkerboard(int width, int height) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++)
+				image.setRGB(x, y, ((x / 20 + y / 20) % 2 == 0) ? 0xFFFFFFFF : 0xFF000000);
+		}
+		return image;
+	}
+
+	private static void fill(BufferedImage image, int x, int y, int width, int height, int argb) {
+		for (int j = y; j < y + height; j++) {
+			for (int i = x; i < x + width; i++)
+				image.setRGB(i, j, argb);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.testar.stub.WidgetStub;
+
+public class TagNameLookupTest {
+
+	private static final Tag<String> Label = Tag.from("TagNameLookupTestLabel", String.class);
+	private static final Tag<Integer> Count = Tag.from("TagNameLookupTestCount", Integer.class);
+
+	@Test
+	public void testResolvesConfiguredNames() {
+		WidgetStub widget = new WidgetStub();
+		widget.set(Label, "OK");
+		widget.set(Count, 3);
+
+		TagNameLookup lookup = TagNameLookup.of(Arrays.asList("TagNameLookupTestCount", "Unknown", "", "TagNameLookupTestLabel"));
+		assertEquals(4, lookup.size());
+		assertEquals("3", lookup.valueString(widget, 0));
+		assertNull(lookup.valueString(widget, 1));
+		assertNull(lookup.valueString(widget, 2));
+		assertEquals("OK", lookup.valueString(widget, 3));
+		assertEquals("TagNameLookupTestLabel", lookup.name(3));
+		assertNull(lookup.valueString(new WidgetStub(), 3));
+	}
+
+	@Test
+	public void testReusedUntilNamesOrTagsChange() {
+		List<String> names = Arrays.asList("TagNameLookupTestLate");
+		TagNameLookup lookup = TagNameLookup.of(names);
+		assertTrue(lookup.isFor(names));
+		assertFalse(lookup.isFor(Arrays.asList("TagNameLookupTestLate")));
+
+		WidgetStub widget = new WidgetStub();
+		assertNull(lookup.valueString(widget, 0));
+
+		// a tag created after the lookup, e.g. by a platform loaded later
+		Tag<String> late = Tag.from("TagNameLookupTestLate", String.class);
+		widget.set(late, "late");
+		assertFalse(lookup.isFor(names));
+		assertEquals("late", TagNameLookup.of(names).valueString(widget, 0));
+	}
+}
@@ -117,4 +117,15 @@ public class TagTest {
 
    }
 
+   @Test
+   public void fromNameIsSortedByType() {
+      Tag<String> stringTag = Tag.from("TagTestShared", String.class);
+      Tag<Boolean> booleanTag = Tag.from("TagTestShared", Boolean.class);
+
+      assertEquals("Tags sharing a name shall be sorted by value type",
+         java.util.Arrays.asList(booleanTag, stringTag), Tag.fromName("TagTestShared"));
+      assertEquals(stringTag, Tag.fromName("TagTestShared", String.class));
+      assertNull("fromName shall not create tags", Tag.fromName("TagTestShared", Integer.class));
+   }
+
 }
@@ -0,0 +1,153 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class TaggableBaseTest {
+
+	private static final Tag<String> First = Tag.from("TaggableBaseTestFirst", String.class);
+	private static final Tag<String> Second = Tag.from("TaggableBaseTestSecond", String.class);
+	private static final Tag<Double> Missing = Tag.from("TaggableBaseTestMissing", Double.class);
+
+	private static class CountingTaggable extends TaggableBase {
+		private static final long serialVersionUID = 1L;
+		transient int fetches;
+
+		@Override
+		@SuppressWarnings("unchecked")
+		protected <T> T fetch(Tag<T> tag) {
+			fetches++;
+			return tag.equals(First) ? (T) "fetched" : null;
+		}
+
+		@Override
+		protected Set<Tag<?>> tagDomain() {
+			Set<Tag<?>> domain = new HashSet<Tag<?>>();
+			domain.add(First);
+			domain.add(Missing);
+			return domain;
+		}
+	}
+
+	@Test
+	public void testSetGetRemove() {
+		TaggableBase taggable = new TaggableBase();
+		taggable.set(Second, "second");
+		taggable.set(First, "first");
+
+		assertEquals("first", taggable.get(First));
+		assertEquals("second", taggable.get(Second, "default"));
+		assertEquals(1.0, taggable.get(Missing, 1.0), 0);
+
+		taggable.remove(First);
+		assertEquals("default", taggable.get(First, "default"));
+		taggable.set(First, "again");
+		assertEquals("again", taggable.get(First));
+	}
+
+	@Test
+	public void testFetchIsOnlyCalledOnce() {
+		CountingTaggable taggable = new CountingTaggable();
+		assertEquals("fetched", taggable.get(First));
+		assertEquals("fetched", taggable.get(First));
+		assertNull(taggable.get(Missing, null));
+		assertNull("A fetched null value shall be remembered", taggable.get(Missing, null));
+		assertEquals(2, taggable.fetches);
+	}
+
+	@Test
+	public void testTags() {
+		CountingTaggable taggable = new CountingTaggable();
+		taggable.set(Second, "second");
+
+		Set<Tag<?>> tags = new HashSet<Tag<?>>();
+		for(Tag<?> t : taggable.tags())
+			tags.add(t);
+		assertEquals(2, tags.size());
+		assertTrue(tags.contains(First));
+		assertTrue(tags.contains(Second));
+
+		taggable.tags();
+		assertEquals("The tag domain shall only be fetched once", 2, taggable.fetches);
+		assertNull("No fetching after all tags have been fetched", taggable.get(Tag.from("TaggableBaseTestOther", String.class), null));
+		assertEquals(2, taggable.fetches);
+	}
+
+	@Test
+	public void testManyTags() {
+		TaggableBase taggable = new TaggableBase();
+		for(int i = 200; i >= 0; i--)
+			taggable.set(Tag.from("TaggableBaseTestTag" + i, Integer.class), i);
+		for(int i = 0; i <= 200; i++)
+			assertEquals(Integer.valueOf(i), taggable.get(Tag.from("TaggableBaseTestTag" + i, Integer.class)));
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		CountingTaggable taggable = new CountingTaggable();
+		taggable.set(Second, "second");
+		taggable.get(Missing, null);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+			oos.writeObject(taggable);
+		}
+		CountingTaggable copy;
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			copy = (CountingTaggable) ois.readObject();
+		}
+
+		assertEquals("second", copy.get(Second));
+		assertNull(copy.get(Missing, null));
+		assertEquals("Fetched null values shall survive serialization", 0, copy.fetches);
+		assertEquals("fetched", copy.get(First));
+	}
+
+	@Test
+	public void testSerializedFormIsUnchanged() {
+		ObjectStreamClass osc = ObjectStreamClass.lookup(TaggableBase.class);
+		assertEquals(3941511707954247582L, osc.getSerialVersionUID());
+		assertEquals(2, osc.getFields().length);
+		assertNotNull(osc.getField("tagValues"));
+		assertNotNull(osc.getField("allFetched"));
+	}
+}
@@ -0,0 +1,139 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.testar.monkey.Util;
+import org.testar.stub.StateStub;
+import org.testar.stub.WidgetStub;
+
+public class WidgetSpatialIndexTest {
+
+	private static class RectHitTester implements HitTester {
+		private static final long serialVersionUID = 1L;
+		private final Rect rect;
+		private final boolean bounded;
+
+		RectHitTester(Rect rect, boolean bounded) {
+			this.rect = rect;
+			this.bounded = bounded;
+		}
+
+		public boolean apply(double x, double y) { return rect.contains(x, y); }
+		public boolean apply(double x, double y, boolean obscuredByChildFeature) { return apply(x, y); }
+		public Rect bounds() { return bounded ? rect : null; }
+	}
+
+	private static StateStub randomState(Random rnd, int widgets) {
+		StateStub root = new StateStub();
+		List<WidgetStub> all = new ArrayList<WidgetStub>();
+		all.add(root);
+		for (int i = 0; i < widgets; i++) {
+			WidgetStub parent = all.get(rnd.nextInt(all.size()));
+			WidgetStub w = new WidgetStub();
+			w.setParent(parent);
+			parent.addChild(w);
+			all.add(w);
+			if (i % 10 == 9)
+				continue; // no shape, no hit tester
+			Rect r = Rect.from(rnd.nextInt(1000), rnd.nextInt(1000), rnd.nextInt(200), rnd.nextInt(200));
+			w.set(Tags.Shape, r);
+			w.set(Tags.HitTester, new RectHitTester(r, i % 7 != 0));
+			w.set(Tags.ZIndex, (double) rnd.nextInt(5));
+		}
+		return root;
+	}
+
+	@Test
+	public void testPointQueriesMatchFullScan() {
+		Random rnd = new Random(42);
+		StateStub state = randomState(rnd, 2000);
+		WidgetSpatialIndex index = WidgetTraversal.of(state).spatialIndex();
+		for (int q = 0; q < 200; q++) {
+			double x = rnd.nextInt(1200), y = rnd.nextInt(1200);
+			Set<Widget> expected = new HashSet<Widget>();
+			for (Widget w : state) {
+				if (w.get(Tags.HitTester, Util.FalseTester).apply(x, y))
+					expected.add(w);
+			}
+			List<Widget> hits = index.widgetsAt(x, y);
+			assertEquals(expected, new HashSet<Widget>(hits));
+			for (int i = 1; i < hits.size(); i++)
+				assertTrue("Hits shall be ordered topmost first",
+						hits.get(i - 1).get(Tags.ZIndex) >= hits.get(i).get(Tags.ZIndex));
+		}
+	}
+
+	@Test
+	public void testAreaQueriesMatchFullScan() {
+		Random rnd = new Random(7);
+		StateStub state = randomState(rnd, 2000);
+		WidgetSpatialIndex index = WidgetTraversal.of(state).spatialIndex();
+		for (int q = 0; q < 200; q++) {
+			Rect area = Rect.from(rnd.nextInt(1200), rnd.nextInt(1200), rnd.nextInt(100), rnd.nextInt(100));
+			Set<Widget> expected = new HashSet<Widget>();
+			for (Widget w : state) {
+				Shape s = w.get(Tags.Shape, null);
+				if (s != null && Rect.intersect(Rect.from(s.x(), s.y(), s.width(), s.height()), area))
+					expected.add(w);
+			}
+			assertEquals(expected, new HashSet<Widget>(index.widgetsIn(area)));
+		}
+	}
+
+	@Test
+	public void testWidgetFromPointPrefersSmallestArea() {
+		StateStub state = new StateStub();
+		WidgetStub big = new WidgetStub(), small = new WidgetStub();
+		for (WidgetStub w : new WidgetStub[] { big, small }) {
+			w.setParent(state);
+			state.addChild(w);
+		}
+		Rect bigRect = Rect.from(0, 0, 100, 100), smallRect = Rect.from(10, 10, 10, 10);
+		big.set(Tags.Shape, bigRect);
+		big.set(Tags.HitTester, new RectHitTester(bigRect, true));
+		small.set(Tags.Shape, smallRect);
+		small.set(Tags.HitTester, new RectHitTester(smallRect, true));
+
+		assertSame(small, Util.widgetFromPoint(state, 15, 15, null));
+		assertSame(big, Util.widgetFromPoint(state, 50, 50, null));
+		assertNull(Util.widgetFromPoint(state, 500, 500, null));
+		assertEquals(2, Util.widgetsFromArea(state, Rect.from(0, 0, 12, 12)).size());
+	}
+}
@@ -0,0 +1,137 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.testar.monkey.Util;
+import org.testar.stub.StateStub;
+import org.testar.stub.WidgetStub;
+
+public class WidgetTraversalTest {
+
+	private static final Tag<String> Name = Tag.from("WidgetTraversalTestName", String.class);
+
+	private static WidgetStub widget(WidgetStub parent, String name) {
+		WidgetStub w = new WidgetStub();
+		w.set(Name, name);
+		w.setParent(parent);
+		parent.addChild(w);
+		return w;
+	}
+
+	//        root
+	//      /   |   \
+	//     a    b    c
+	//    / \       /
+	//  aa   ab   ca
+	//   |
+	//  aaa
+	private static StateStub tree() {
+		StateStub root = new StateStub();
+		root.set(Name, "root");
+		WidgetStub a = widget(root, "a");
+		widget(root, "b");
+		WidgetStub c = widget(root, "c");
+		WidgetStub aa = widget(a, "aa");
+		widget(a, "ab");
+		widget(c, "ca");
+		widget(aa, "aaa");
+		return root;
+	}
+
+	private static List<String> names(Iterator<Widget> it) {
+		List<String> ret = new ArrayList<String>();
+		while (it.hasNext())
+			ret.add(it.next().get(Name));
+		return ret;
+	}
+
+	@Test
+	public void testIterationOrderMatchesWidgetIterator() {
+		StateStub root = tree();
+		WidgetTraversal traversal = WidgetTraversal.of(root);
+		assertEquals(8, traversal.size());
+		assertEquals(names(new WidgetIterator(root)), names(traversal.iterator()));
+
+		List<String> preOrder = new ArrayList<String>();
+		traversal.forEachPreOrder((w, index, depth) -> preOrder.add(w.get(Name)));
+		assertEquals(names(new WidgetIterator(root, new DFNavigator())), preOrder);
+
+		List<String> breadthFirst = new ArrayList<String>();
+		traversal.forEachBreadthFirst((w, index, depth) -> breadthFirst.add(w.get(Name)));
+		assertEquals(names(traversal.iterator()), breadthFirst);
+	}
+
+	@Test
+	public void testStructure() {
+		StateStub root = tree();
+		WidgetTraversal traversal = WidgetTraversal.of(root);
+		for (int i = 0; i < traversal.size(); i++) {
+			Widget w = traversal.widget(i);
+			assertEquals(Util.depth(w), traversal.depth(i));
+			assertEquals(Util.indexString(w), traversal.indexString(i));
+			int parent = traversal.parent(i);
+			assertSame(w.parent(), parent < 0 ? null : traversal.widget(parent));
+			for (int d = i + 1; d < traversal.subtreeEnd(i); d++)
+				assertTrue(Util.isAncestorOf(w, traversal.widget(d)));
+		}
+		// "a" has the subtree a, aa, aaa, ab
+		assertEquals("a", traversal.widget(1).get(Name));
+		assertEquals(5, traversal.subtreeEnd(1));
+		assertEquals("[0, 0, 0]", traversal.indexString(3));
+	}
+
+	@Test
+	public void testParallelStream() {
+		StateStub root = tree();
+		WidgetTraversal traversal = WidgetTraversal.of(root);
+		assertEquals(names(traversal.iterator()),
+				traversal.parallelStream().map(w -> w.get(Name)).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testDeepTreeDoesNotRecurse() {
+		StateStub root = new StateStub();
+		WidgetStub parent = root;
+		for (int i = 0; i < 100000; i++)
+			parent = widget(parent, "w" + i);
+		WidgetTraversal traversal = WidgetTraversal.of(root);
+		assertEquals(100001, traversal.size());
+		assertEquals(100000, traversal.depth(100000));
+	}
+}
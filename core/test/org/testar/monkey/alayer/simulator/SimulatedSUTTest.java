@@ -0,0 +1,203 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey.alayer.simulator;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.testar.monkey.alayer.AbsolutePosition;
+import org.testar.monkey.alayer.Action;
+import org.testar.monkey.alayer.HitTester;
+import org.testar.monkey.alayer.Rect;
+import org.testar.monkey.alayer.State;
+import org.testar.monkey.alayer.StateBuilder;
+import org.testar.monkey.alayer.TaggableBase;
+import org.testar.monkey.alayer.Tags;
+import org.testar.monkey.alayer.actions.AnnotatingActionCompiler;
+import org.testar.monkey.alayer.actions.NOP;
+import org.testar.monkey.alayer.actions.StdActionCompiler;
+import org.testar.monkey.alayer.devices.KBKeys;
+import org.testar.monkey.alayer.simulator.SimulatedModel.Fallback;
+import org.testar.stub.StateStub;
+import org.testar.stub.WidgetStub;
+
+public class SimulatedSUTTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final StdActionCompiler ac = new AnnotatingActionCompiler();
+
+	private static class RectHitTester implements HitTester {
+		private static final long serialVersionUID = 1L;
+		private final Rect rect;
+
+		RectHitTester(Rect rect) { this.rect = rect; }
+
+		public boolean apply(double x, double y) { return rect.contains(x, y); }
+		public boolean apply(double x, double y, boolean obscuredByChildFeature) { return apply(x, y); }
+		public Rect bounds() { return rect; }
+	}
+
+	// every state has an "ok" button at (0, 0) and a "next" button at (20, 0)
+	private static State state(String id) {
+		StateStub state = new StateStub();
+		state.set(Tags.ConcreteID, id);
+		state.set(Tags.Shape, Rect.from(0, 0, 100, 100));
+		button(state, "ok", Rect.from(0, 0, 10, 10));
+		button(state, "next", Rect.from(20, 0, 10, 10));
+		return state;
+	}
+
+	private static void button(StateStub state, String id, Rect rect) {
+		WidgetStub button = new WidgetStub();
+		button.setParent(state);
+		state.addChild(button);
+		button.set(Tags.ConcreteID, id);
+		button.set(Tags.Shape, rect);
+		button.set(Tags.HitTester, new RectHitTester(rect));
+	}
+
+	private static SimulatedModel model() {
+		SimulatedModel model = new SimulatedModel();
+		model.addState("A", state("A"));
+		model.addState("B", state("B"));
+		model.addState("C", state("C"));
+		model.addTransition("A", "BUTTON1@next", "B");
+		model.addTransition("B", "BUTTON1@next", "C");
+		model.addTransition("C", "BUTTON1@ok", "A");
+		return model;
+	}
+
+	private static final Action clickOk = ac.leftClickAt(5, 5);
+	private static final Action clickNext = ac.leftClickAt(25, 5);
+
+	@Test
+	public void testRecordedTransitions() {
+		SimulatedSUT sut = new SimulatedSUT(model(), 0, Fallback.STAY);
+		StateBuilder builder = new SimulatedStateBuilder(0);
+
+		State state = builder.apply(sut);
+		assertEquals("A", state.get(Tags.ConcreteID));
+		assertTrue(state.get(Tags.IsRunning));
+
+		clickNext.run(sut, state, 0);
+		state = builder.apply(sut);
+		assertEquals("B", state.get(Tags.ConcreteID));
+
+		clickNext.run(sut, state, 0);
+		state = builder.apply(sut);
+		assertEquals("C", state.get(Tags.ConcreteID));
+
+		clickOk.run(sut, state, 0);
+		assertEquals("A", builder.apply(sut).get(Tags.ConcreteID));
+	}
+
+	@Test
+	public void testFetchWithoutInputKeepsState() {
+		SimulatedSUT sut = new SimulatedSUT(model(), 0, Fallback.HASH);
+		StateBuilder builder = new SimulatedStateBuilder(0);
+		for (int i = 0; i < 5; i++) {
+			assertEquals("A", builder.apply(sut).get(Tags.ConcreteID));
+		}
+	}
+
+	@Test
+	public void testUnrecordedInput() {
+		SimulatedSUT staying = new SimulatedSUT(model(), 0, Fallback.STAY);
+		clickOk.run(staying, staying.fetchState(), 0);
+		assertEquals("A", staying.fetchState().get(Tags.ConcreteID));
+
+		// the hash fallback picks the same state in every run
+		SimulatedModel model = model();
+		String expected = model.next("A", "BUTTON1@ok", Fallback.HASH);
+		for (int i = 0; i < 3; i++) {
+			SimulatedSUT sut = new SimulatedSUT(model, 0, Fallback.HASH);
+			clickOk.run(sut, sut.fetchState(), 0);
+			assertEquals(expected, sut.fetchState().get(Tags.ConcreteID));
+		}
+	}
+
+	@Test
+	public void testStatesAreCopies() {
+		SimulatedSUT sut = new SimulatedSUT(model(), 0, Fallback.STAY);
+		State first = sut.fetchState();
+		first.set(Tags.Title, "changed");
+		State second = sut.fetchState();
+		assertNotSame(first, second);
+		assertNull(second.get(Tags.Title, null));
+	}
+
+	@Test
+	public void testSignatures() {
+		State state = state("A");
+		assertEquals("BUTTON1@next", SimulatedModel.inputOf(state, clickNext));
+		assertEquals("BUTTON1@screen", SimulatedModel.inputOf(state, ac.leftClickAt(50, 50)));
+		// the typed text does not matter
+		assertEquals("BUTTON1@ok+type", SimulatedModel.inputOf(state, ac.clickAndReplaceText(new AbsolutePosition(5, 5), "abc")));
+		assertEquals("BUTTON1@ok+type", SimulatedModel.inputOf(state, ac.clickAndReplaceText(new AbsolutePosition(5, 5), "other text")));
+		assertEquals("key:VK_ESCAPE", SimulatedModel.inputOf(state, ac.hitKey(KBKeys.VK_ESCAPE)));
+		assertNull(SimulatedModel.inputOf(state, new NOP()));
+	}
+
+	@Test
+	public void testLoadRecordedSequence() throws IOException {
+		File sequence = folder.newFile("sequence_1.testar");
+		try (ObjectOutputStream oos = new ObjectOutputStream(new GZIPOutputStream(new FileOutputStream(sequence)))) {
+			oos.writeObject(fragment(state("A"), clickNext));
+			oos.writeObject(fragment(state("B"), clickNext));
+			oos.writeObject(fragment(state("C"), clickOk));
+		}
+
+		SimulatedModel model = SimulatedModel.load(folder.getRoot());
+		assertEquals(3, model.size());
+		assertEquals("A", model.getInitialStateId());
+		assertEquals("B", model.getTarget("A", "BUTTON1@next"));
+		assertEquals("C", model.getTarget("B", "BUTTON1@next"));
+		// the last action has no recorded outcome
+		assertNull(model.getTarget("C", "BUTTON1@ok"));
+	}
+
+	private static TaggableBase fragment(State state, Action action) {
+		TaggableBase fragment = new TaggableBase();
+		fragment.set(Tags.SystemState, state);
+		fragment.set(Tags.ExecutedAction, action);
+		return fragment;
+	}
+}
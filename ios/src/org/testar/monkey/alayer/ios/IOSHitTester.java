@@ -31,6 +31,7 @@
 package org.testar.monkey.alayer.ios;
 
 import org.testar.monkey.alayer.HitTester;
+import org.testar.monkey.alayer.Rect;
 
 public class IOSHitTester implements HitTester {
 	private static final long serialVersionUID = -5963729249658717638L;
@@ -51,4 +52,9 @@ public class IOSHitTester implements HitTester {
 		return element.root.visibleAt(element, x, y, obscuredByChildFeature);
 	}
 
+	@Override
+	public Rect bounds() {
+		return element.rect;
+	}
+
 }
@@ -46,13 +46,16 @@ import java.util.Set;
 public class IOSState extends IOSWidget implements State {
 	private static final long serialVersionUID = 6164678210625030830L;
 
+	// computed on first use, discarded whenever the widget tree changes
+	private transient WidgetTraversal traversal;
+
 	public IOSState(IOSRootElement root) {
 		super(null, null, root);
 		this.root = this;
 	}
 
 	public Iterator<Widget> iterator() {
-		Iterator<Widget> iterator = new WidgetIterator(this);
+		Iterator<Widget> iterator = traversal().iterator();
 		// If root element is null, disable iterating
 		if (this.element == null) {
 			iterator.next();
@@ -60,10 +63,20 @@ public class IOSState extends IOSWidget implements State {
 		return iterator;
 	}
 
+	public WidgetTraversal traversal() {
+		WidgetTraversal ret = traversal;
+		if (ret == null) {
+			ret = WidgetTraversal.of(this);
+			traversal = ret;
+		}
+		return ret;
+	}
+
 	public void remove(IOSWidget w) {
 		Assert.isTrue(this != w, "You cannot remove the root!");
 		assert (w.parent != null);
 		w.parent.children.remove(w);
+		traversal = null;
 		invalidate(w);
 	}
 
@@ -90,6 +103,7 @@ public class IOSState extends IOSWidget implements State {
 		w.parent.children.remove(w);
 		webParent.children.add(idx, w);
 		w.parent = webParent;
+		traversal = null;
 	}
 
 	IOSWidget addChild(IOSWidget parent, IOSElement element) {
@@ -99,6 +113,7 @@ public class IOSState extends IOSWidget implements State {
 
 	void connect(IOSWidget parent, IOSWidget child) {
 		parent.children.add(child);
+		traversal = null;
 	}
 
 	public <T> T get(IOSWidget w, Tag<T> t) {
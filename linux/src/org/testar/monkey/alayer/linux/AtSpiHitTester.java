@@ -32,6 +32,7 @@ package org.testar.monkey.alayer.linux;
 
 
 import org.testar.monkey.alayer.HitTester;
+import org.testar.monkey.alayer.Rect;
 
 
 /**
@@ -97,6 +98,16 @@ public class AtSpiHitTester implements HitTester {
     }
 
 
+    /**
+     * Gets the area outside of which the element can never be hit.
+     * @return The bounding box of the element on the screen.
+     */
+    @Override
+    public Rect bounds() {
+        return _element.boundingBoxOnScreen;
+    }
+
+
     //endregion
 
 
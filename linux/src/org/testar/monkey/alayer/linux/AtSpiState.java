@@ -35,7 +35,7 @@ import org.testar.monkey.Util;
 import org.testar.monkey.alayer.State;
 import org.testar.monkey.alayer.Tags;
 import org.testar.monkey.alayer.Widget;
-import org.testar.monkey.alayer.WidgetIterator;
+import org.testar.monkey.alayer.WidgetTraversal;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
@@ -50,6 +50,10 @@ import java.util.Iterator;
 public class AtSpiState extends AtSpiWidget implements State {
 
 
+    // Computed on first use, discarded by AtSpiWidget whenever the widget tree changes.
+    transient WidgetTraversal traversal;
+
+
     //region Constructors
 
 
@@ -75,7 +79,22 @@ public class AtSpiState extends AtSpiWidget implements State {
      */
     @Override
     public Iterator<Widget> iterator() {
-        return new WidgetIterator(this);
+        return traversal().iterator();
+    }
+
+
+    /**
+     * Gets the traversal of the widget tree, which is computed once and shared by all iterators.
+     * @return The traversal of the widget tree.
+     */
+    @Override
+    public WidgetTraversal traversal() {
+        WidgetTraversal ret = traversal;
+        if (ret == null) {
+            ret = WidgetTraversal.of(this);
+            traversal = ret;
+        }
+        return ret;
     }
 
 
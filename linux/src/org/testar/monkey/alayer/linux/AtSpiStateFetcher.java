@@ -31,7 +31,6 @@
 package org.testar.monkey.alayer.linux;
 
 
-import org.testar.monkey.Util;
 import org.testar.monkey.alayer.linux.atspi.enums.AtSpiRoles;
 import org.testar.monkey.alayer.linux.enums.AtSpiElementOrientations;
 import org.testar.monkey.alayer.linux.util.GdkHelper;
@@ -101,8 +100,8 @@ public class AtSpiStateFetcher implements Callable<AtSpiState> {
 
 
         // Give each widget in the tree a tag describing the path to find it.
-        for (Widget w : widgetTree)
-            w.set(Tags.Path, Util.indexString(w));
+        WidgetTraversal traversal = widgetTree.traversal();
+        traversal.forEachPreOrder((w, index, depth) -> w.set(Tags.Path, traversal.indexString(index)));
 
 
         return widgetTree;
@@ -91,6 +91,7 @@ public class AtSpiWidget implements Widget, Serializable {
 
         if(parent != null) {
             parent.children.add(this);
+            root.traversal = null;
         }
 
 
@@ -179,6 +180,7 @@ public class AtSpiWidget implements Widget, Serializable {
         Assert.isTrue(this != root, "You cannot remove the root!");
         assert(parent != null);
         parent.children.remove(this);
+        root.traversal = null;
 
         invalidate(this);
 
@@ -208,6 +210,7 @@ public class AtSpiWidget implements Widget, Serializable {
         parent.children.remove(this);
         atSpiParent.children.add(idx, this);
         parent = atSpiParent;
+        root.traversal = null;
 
     }
 
@@ -32,25 +32,47 @@
 package org.testar;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.util.regex.Matcher;
+import java.io.Writer;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 import java.util.regex.Pattern;
 
-import org.testar.monkey.Util;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import org.testar.monkey.alayer.SUT;
 import org.testar.monkey.alayer.Tags;
 import org.testar.monkey.alayer.Verdict;
 import org.testar.monkey.ConfigTags;
+import org.testar.oracles.MultiPatternMatcher;
 import org.testar.monkey.DefaultProtocol;
 import org.testar.settings.Settings;
 import org.testar.monkey.RuntimeControlsProtocol.Modes;
 
 public class ProcessListener{
 
+	private static final Logger logger = LogManager.getLogger();
+
+	// Lines that can wait for the matching worker per stream, before the oldest ones are dropped
+	static final int BUFFER_LINES = 1 << 16;
+	// Maximum number of lines the worker matches and writes at once
+	static final int BATCH_LINES = 4096;
+	// Maximum time (ms) the worker sleeps when there is no output
+	static final long IDLE_WAIT_MILLIS = 50;
+	private static final int READ_BUFFER_CHARS = 1 << 20;
+
+	private volatile Capture capture;
+
 	/**
 	 * Check the settings parameters to see if the conditions to activate the process listener are correct
 	 * 
@@ -90,174 +112,195 @@ public class ProcessListener{
 
 	/**
 	 * If SUT process is invoked through COMMAND_LINE,
-	 * this method create threads to work with oracles at the process level. 
-	 * 
+	 * this method create threads to work with oracles at the process level.
+	 *
+	 * A dedicated reader thread per stream drains the pipe of the SUT into a ring buffer,
+	 * so the SUT never blocks on a full pipe. A single worker thread matches the buffered lines
+	 * in batches with the oracles, and appends the reported lines to the log files in batches.
+	 *
 	 * @param system
 	 * @param settings
 	 */
 	public synchronized void startListeners(SUT system, Settings settings) {
-		final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
-
 		//Process Oracles use SuspiciousProcessOutput regular expression from test settings file
 		Pattern processOracles = Pattern.compile(settings.get(ConfigTags.SuspiciousProcessOutput), Pattern.UNICODE_CHARACTER_CLASS);
 		//Process Logs use ProcessLogs regular expression from test settings file
 		Pattern processLogs= Pattern.compile(settings.get(ConfigTags.ProcessLogs), Pattern.UNICODE_CHARACTER_CLASS);
+		//Both are matched in one pass over every line, the Oracles have priority
+		MultiPatternMatcher processMatcher = new MultiPatternMatcher(processOracles, processLogs);
 
 		String logProcessListenerName = OutputStructure.processListenerDir
 				+ File.separator + OutputStructure.startInnerLoopDateString + "_"
 				+ OutputStructure.executedSUTname + "_sequence_" + OutputStructure.sequenceInnerLoopCount;
 
-		//Prepare runnable to read Error buffer
-		Runnable readErrors = new Runnable() {
-			public void run() {
-				try {
-
-					PrintWriter writerError;
-
-					//Get process buffer of the SUT
-					BufferedReader input = new BufferedReader(new InputStreamReader(system.get(Tags.StdErr)));
-
-					String actionId = "unknown";
-					String ch;
-					Matcher matcherOracles, matcherLogs;
-
-					while (system.isRunning() && (ch = input.readLine()) != null)
-					{	
-						matcherOracles = processOracles.matcher(ch);
-						matcherLogs= processLogs.matcher(ch);
-
-						//if the process buffer information matches with the Oracles
-						if(processOracles!=null && matcherOracles.matches()) {		
-
-							//Prepare Verdict report
-							if(DefaultProtocol.lastExecutedAction!=null)
-								actionId=DefaultProtocol.lastExecutedAction.get(Tags.ConcreteID);
-
-							Verdict verdict = new Verdict(Verdict.SEVERITY_SUSPICIOUS_TAG,
-									"Process Listener suspicious tag: '" + ch + ", on Action:	'"+actionId+".");
-
-							//Set that we found an error
-							DefaultProtocol.processVerdict = verdict;
-
-							DefaultProtocol.faultySequence = true;
-
-							//Prepare Log report
-							String DateString = Util.dateString(DATE_FORMAT);
-							System.out.println("SUT StdErr:	" +ch);
-
-							writerError = new PrintWriter(new FileWriter(logProcessListenerName + "_StdErr.log", true));
-
-							writerError.println(DateString+"	on Action:	"+actionId+"	SUT StdErr:	" +ch);
-							writerError.flush();
-							writerError.close();
-
-						}
+		Capture capture = new Capture(processMatcher,
+				new StreamCapture("StdErr", system.get(Tags.StdErr), logProcessListenerName + "_StdErr.log"),
+				new StreamCapture("StdOut", system.get(Tags.StdOut), logProcessListenerName + "_StdOut.log"));
+		this.capture = capture;
+		capture.start();
+	}
 
-						//read all the process buffer information (Previous Oracle has priority)
-						else if(processLogs!=null && matcherLogs.matches()) {
-							//Prepare Log report
-							String DateString = Util.dateString(DATE_FORMAT);
-							System.out.println("SUT Log StdErr:	" +ch);
+	/**
+	 * @return the capture metrics of the latest started listeners, or an empty string if none were started
+	 */
+	public String statistics() {
+		Capture capture = this.capture;
+		return capture == null ? "" : capture.statistics();
+	}
 
-							writerError = new PrintWriter(new FileWriter(logProcessListenerName + "_StdErr.log", true));
+	/**
+	 * The capture of one SUT stream: its reader thread, buffer and log file.
+	 */
+	private static final class StreamCapture {
+		final String name;
+		final InputStream stream;
+		final String logFile;
+		final ProcessOutputBuffer buffer = new ProcessOutputBuffer(BUFFER_LINES);
+		volatile boolean finished;
+		Writer writer;
+
+		StreamCapture(String name, InputStream stream, String logFile) {
+			this.name = name;
+			this.stream = stream;
+			this.logFile = logFile;
+		}
 
-							if(DefaultProtocol.lastExecutedAction!=null)
-								actionId=DefaultProtocol.lastExecutedAction.get(Tags.ConcreteID);
+		/**
+		 * Read lines until the SUT closes the stream, never waiting for the worker.
+		 */
+		void read(Thread worker) {
+			try (BufferedReader input = new BufferedReader(new InputStreamReader(stream), READ_BUFFER_CHARS)) {
+				String line;
+				while ((line = input.readLine()) != null) {
+					if (buffer.add(line, System.currentTimeMillis(), DefaultProtocol.lastExecutedActionId))
+						LockSupport.unpark(worker);
+				}
+			} catch (IOException e) {
+				logger.trace("Process Listener stopped reading " + name + ": " + e.getMessage());
+			} finally {
+				finished = true;
+				LockSupport.unpark(worker);
+			}
+		}
 
-							writerError.println(DateString+"	on Action:	"+actionId+"	SUT StdErr:	" +ch);
-							writerError.flush();
-							writerError.close();
-						}
-					}
+		void write(String text) throws IOException {
+			if (writer == null)
+				writer = new BufferedWriter(new FileWriter(logFile, true));
+			writer.write(text);
+		}
 
-					input.close();
+		void flush() throws IOException {
+			if (writer != null)
+				writer.flush();
+		}
 
+		void close() {
+			if (writer != null) {
+				try {
+					writer.close();
 				} catch (IOException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
+					logger.warn("Process Listener could not close " + logFile + ": " + e.getMessage());
 				}
+				writer = null;
 			}
-		};
-
-		//Prepare runnable to read Output buffer
-		Runnable readOutput = new Runnable() {
-			public void run() {
-				try {
-
-					PrintWriter writerOut;
-
-					//Get process buffer of the SUT
-					BufferedReader input = new BufferedReader(new InputStreamReader(system.get(Tags.StdOut)));
-
-					String actionId = "unknown";
-					String ch;
-					Matcher matcherOracles, matcherLogs;
-
-					while (system.isRunning() && (ch = input.readLine()) != null)
-					{	
-						matcherOracles = processOracles.matcher(ch);
-						matcherLogs = processLogs.matcher(ch);
-
-						//if the process buffer information matches with the Oracles
-						if(processOracles!=null && matcherOracles.matches()) {	
-
-							//Prepare Verdict report
-							if(DefaultProtocol.lastExecutedAction!=null)
-								actionId=DefaultProtocol.lastExecutedAction.get(Tags.ConcreteID);
-
-							Verdict verdict = new Verdict(Verdict.SEVERITY_SUSPICIOUS_TAG,
-									"Process Listener suspicious tag: '" + ch + ", on Action:	'"+actionId+".");
-
-							//Set that we found an error
-							DefaultProtocol.processVerdict = verdict;
-
-							DefaultProtocol.faultySequence = true;
-
-							//Prepare Log report
-							String DateString = Util.dateString(DATE_FORMAT);
-							System.out.println("SUT StdOut:	" +ch);
-
-							writerOut = new PrintWriter(new FileWriter(logProcessListenerName + "_StdOut.log", true));
-
-							writerOut.println(DateString+"	on Action:	"+ actionId+"	SUT StdOut:	" +ch);
-							writerOut.flush();
-							writerOut.close();
-						}
-
-						//read all the process buffer information (Previous Oracle has priority)
-						else if(processLogs!=null && matcherLogs.matches()) {
-							//Prepare Log report
-							String DateString = Util.dateString(DATE_FORMAT);
-							System.out.println("SUT Log StdOut:	" +ch);
+		}
+	}
 
-							writerOut = new PrintWriter(new FileWriter(logProcessListenerName + "_StdOut.log", true));
+	/**
+	 * The readers of both streams and the worker that matches and reports their lines.
+	 */
+	private static final class Capture implements Runnable {
+		final MultiPatternMatcher matcher;
+		final StreamCapture[] streams;
+		final DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+		Thread worker;
+
+		Capture(MultiPatternMatcher matcher, StreamCapture... streams) {
+			this.matcher = matcher;
+			this.streams = streams;
+		}
 
-							if(DefaultProtocol.lastExecutedAction!=null)
-								actionId=DefaultProtocol.lastExecutedAction.get(Tags.ConcreteID);
+		void start() {
+			worker = new Thread(this, "ProcessListener worker");
+			worker.setDaemon(true);
+			worker.start();
+			for (StreamCapture stream : streams) {
+				Thread reader = new Thread(() -> stream.read(worker), "ProcessListener " + stream.name);
+				reader.setDaemon(true);
+				reader.start();
+			}
+		}
 
-							writerOut.println(DateString+"	on Action:	"+ actionId+"	SUT StdOut:	" +ch);
-							writerOut.flush();
-							writerOut.close();
+		@Override
+		public void run() {
+			List<String> lines = new ArrayList<>(BATCH_LINES);
+			List<Long> times = new ArrayList<>(BATCH_LINES);
+			List<String> actions = new ArrayList<>(BATCH_LINES);
+			try {
+				while (true) {
+					boolean finished = true;
+					int processed = 0;
+					for (StreamCapture stream : streams) {
+						// read the flag before draining, so no line added before it was set is missed
+						finished &= stream.finished;
+						lines.clear();
+						times.clear();
+						actions.clear();
+						if (stream.buffer.drainTo(lines, times, actions, BATCH_LINES, System.currentTimeMillis()) > 0) {
+							processed += lines.size();
+							process(stream, lines, times, actions);
 						}
 					}
-
-					input.close();
-
-				} catch (IOException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
+					if (processed == 0) {
+						if (finished)
+							break;
+						LockSupport.parkNanos(IDLE_WAIT_MILLIS * 1000000L);
+					}
 				}
+			} catch (IOException e) {
+				logger.error("Process Listener could not write the process logs: " + e.getMessage());
+			} finally {
+				for (StreamCapture stream : streams)
+					stream.close();
+				logger.info("Process Listener finished: " + statistics());
 			}
-		};  
-		//TODO: When a Thread ends its code, it still existing in our TESTAR VM like Thread.State.TERMINATED
-		//JVM GC should optimize the memory, but maybe we should implement a different way to create this Threads
-		//ThreadPool? ExecutorService processListenerPool = Executors.newFixedThreadPool(2); ?
+		}
 
-		new Thread(readErrors).start();
-		new Thread(readOutput).start();
+		private void process(StreamCapture stream, List<String> lines, List<Long> times, List<String> actions) throws IOException {
+			int[] matches = matcher.firstMatches(lines);
+			StringBuilder console = new StringBuilder();
+			for (int i = 0; i < matches.length; i++) {
+				if (matches[i] < 0)
+					continue;
+
+				String line = lines.get(i);
+				//if the process buffer information matches with the Oracles
+				if (matches[i] == 0) {
+					//Set that we found an error
+					DefaultProtocol.processVerdict = new Verdict(Verdict.SEVERITY_SUSPICIOUS_TAG,
+							"Process Listener suspicious tag: '" + line + ", on Action:	'" + actions.get(i) + ".");
+					DefaultProtocol.faultySequence = true;
+					console.append("SUT ").append(stream.name).append(":	").append(line).append(System.lineSeparator());
+				}
+				//read all the process buffer information (Previous Oracle has priority)
+				else {
+					console.append("SUT Log ").append(stream.name).append(":	").append(line).append(System.lineSeparator());
+				}
+				stream.write(dateFormat.format(new Date(times.get(i))) + "	on Action:	" + actions.get(i)
+						+ "	SUT " + stream.name + ":	" + line + System.lineSeparator());
+			}
+			stream.flush();
+			if (console.length() > 0)
+				System.out.print(console);
+		}
 
-		/*int nbThreads =  Thread.getAllStackTraces().keySet().size();
-				System.out.println("Number of Threads running on VM: "+nbThreads);*/
+		String statistics() {
+			StringBuilder sb = new StringBuilder();
+			for (StreamCapture stream : streams) {
+				sb.append(String.format("%s lines=%d dropped=%d backlog=%d maxLagMs=%d; ", stream.name,
+						stream.buffer.added(), stream.buffer.dropped(), stream.buffer.size(), stream.buffer.maxLagMillis()));
+			}
+			return sb.append(matcher).toString();
+		}
 	}
-
 }
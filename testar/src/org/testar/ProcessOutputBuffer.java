@@ -0,0 +1,122 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar;
+
+import java.util.List;
+
+/**
+ * Bounded ring buffer of the lines a SUT printed on one of its streams, filled by a single reader
+ * thread and emptied by a single worker thread. The reader never waits for the worker: if the buffer
+ * is full the oldest line is overwritten and counted as dropped, so the pipe of the SUT is always drained.
+ */
+class ProcessOutputBuffer {
+
+	private final String[] lines;
+	private final long[] times;
+	private final String[] actions;
+	private int head; // index of the oldest line
+	private int size;
+
+	private long added;
+	private long dropped;
+	private long maxLagMillis;
+
+	ProcessOutputBuffer(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		lines = new String[capacity];
+		times = new long[capacity];
+		actions = new String[capacity];
+	}
+
+	/**
+	 * Add a captured line.
+	 * @param line the line
+	 * @param time the time the line was read (ms)
+	 * @param action the concrete id of the last executed action when the line was read
+	 * @return true if the buffer was empty, so the worker may need to be woken up
+	 */
+	synchronized boolean add(String line, long time, String action) {
+		int index;
+		if (size == lines.length) {
+			index = head;
+			head = (head + 1) % lines.length;
+			dropped++;
+		} else {
+			index = (head + size) % lines.length;
+			size++;
+		}
+		lines[index] = line;
+		times[index] = time;
+		actions[index] = action;
+		added++;
+		return size == 1;
+	}
+
+	/**
+	 * Move at most <code>max</code> of the oldest lines to the given lists.
+	 * @param now the current time (ms), to compute the lag of the worker
+	 * @return the number of moved lines
+	 */
+	synchronized int drainTo(List<String> lines, List<Long> times, List<String> actions, int max, long now) {
+		int n = Math.min(max, size);
+		for (int i = 0; i < n; i++) {
+			int index = (head + i) % this.lines.length;
+			lines.add(this.lines[index]);
+			times.add(this.times[index]);
+			actions.add(this.actions[index]);
+			this.lines[index] = null;
+			this.actions[index] = null;
+		}
+		if (n > 0)
+			maxLagMillis = Math.max(maxLagMillis, now - this.times[head]);
+		head = (head + n) % this.lines.length;
+		size -= n;
+		return n;
+	}
+
+	synchronized int size() {
+		return size;
+	}
+
+	synchronized long added() {
+		return added;
+	}
+
+	synchronized long dropped() {
+		return dropped;
+	}
+
+	/** @return the longest time (ms) a line waited in the buffer before the worker took it */
+	synchronized long maxLagMillis() {
+		return maxLagMillis;
+	}
+}
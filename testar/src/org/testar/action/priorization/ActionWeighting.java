@@ -0,0 +1,87 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.action.priorization;
+
+import java.util.Set;
+
+import org.testar.monkey.alayer.Action;
+import org.testar.monkey.alayer.State;
+
+/**
+ * A strategy that gives the actions of a state a weight for the {@link WeightedActionSelector},
+ * for example based on similarity, novelty or Q-values.
+ */
+public interface ActionWeighting {
+
+    /**
+     * Called once per state, before the actions of the state are weighted.
+     *
+     * @param state
+     * @param actions
+     */
+    default void prepare(State state, Set<Action> actions) {
+    }
+
+    /**
+     * @param action
+     * @return a finite non-negative weight, actions with weight 0 are not selected
+     */
+    double getWeight(Action action);
+
+    /**
+     * Lets the {@link WeightedActionSelector} keep the weights of the actions of a state it selected from before,
+     * instead of asking for all of them again. A weighting that returns true must call the listener for every
+     * action of which {@link #getWeight(Action)} changed since the previous selection, including changes made in
+     * {@link #prepare(State, Set)}.
+     *
+     * @param listener
+     * @return true if the weighting reports its changes, false (the default) to have all weights asked for again
+     */
+    default boolean setWeightListener(WeightListener listener) {
+        return false;
+    }
+
+    /**
+     * Called when the selected action was executed.
+     *
+     * @param action
+     */
+    default void executeAction(Action action) {
+    }
+
+    /**
+     * Receives the actions of which the weight changed, see {@link ActionWeighting#setWeightListener(WeightListener)}.
+     */
+    interface WeightListener {
+
+        void weightChanged(Action action);
+    }
+}
@@ -30,14 +30,18 @@
 
 package org.testar.action.priorization;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.testar.IActionExecutor;
 import org.testar.IActionSelector;
-import org.testar.RandomActionSelector;
 import org.testar.monkey.alayer.Action;
 import org.testar.monkey.alayer.State;
 import org.testar.monkey.alayer.Tags;
+import org.testar.monkey.alayer.Widget;
 
 /**
  * Sample class that tries to detect similar Actions between previous and current State,
@@ -51,10 +55,17 @@ import org.testar.monkey.alayer.Tags;
  * or if some Action.OriginWidget was executed previously,
  * increase a numeric similarity weight that will reduce the % to be selected
  */
-public class SimilarityDetection implements IActionSelector, IActionExecutor {
+public class SimilarityDetection implements IActionSelector, IActionExecutor, ActionWeighting {
 
-	private Set<Action> similarityActions;
+	private static final Logger logger = LogManager.getLogger();
+
+	// similarity value of the previous actions by OriginWidget AbstractID
+	private Map<String, Integer> similarityValues;
+	// similarity value the previous actions were weighted with, not increased by executeAction
+	private Map<String, Integer> weightedValues = new HashMap<>();
 	private int maxValue;
+	private WeightListener weightListener;
+	private final WeightedActionSelector weightedSelector = new WeightedActionSelector(this);
 
 	/**
 	 * Utility Class to check Action similarity between two concurrent States.
@@ -64,126 +75,125 @@ public class SimilarityDetection implements IActionSelector, IActionExecutor {
 	 * @param maxValue
 	 */
 	public SimilarityDetection(Set<Action> initialActions, int maxValue) {
-		this.similarityActions = initialActions;
+		this.similarityValues = new HashMap<>();
 		this.maxValue = maxValue;
-		for(Action a : this.similarityActions) {
+		for(Action a : initialActions) {
 			// Initially to 0 because will be increased to 1
 			a.set(ActionTags.SimilarityValue, 0);
+			String abstractID = originWidgetAbstractId(a);
+			if(abstractID != null) {
+				similarityValues.putIfAbsent(abstractID, 0);
+			}
 		}
 	}
 
 
 	@Override
 	public Action selectAction(State state, Set<Action> actions) {
+		// The similarity values are determined in prepare and turned into selection weights
+		return weightedSelector.selectAction(state, actions);
+	}
+
+	@Override
+	public void prepare(State state, Set<Action> actions) {
 		// Given the current set of Actions of the State take the OriginWidget AbstractID,
 		// and compare with the previous existing Actions/OriginWidget to increase the similarity value.
 		// Minimal similarity value 1, Maximal similarity is given in the constructor. 
 		// Higher similarity value means that Action/OriginWidget remains more time static in the State.
-		actions = modifySimilarActions(actions);
+		modifySimilarActions(actions);
 
-		System.out.println("--------------------- DEBUG SIMILARITY VALUES ---------------------");
-		for(Action a : actions) {
-			System.out.println("Widget : " + a.get(Tags.OriginWidget).get(Tags.Desc, "") +
-					" with similarity : " + a.get(ActionTags.SimilarityValue, 0));
+		if(logger.isDebugEnabled()) {
+			for(Action a : actions) {
+				logger.debug("Widget : {} with similarity : {}", originWidgetDesc(a), a.get(ActionTags.SimilarityValue, 0));
+			}
 		}
+	}
+
+	@Override
+	public boolean setWeightListener(WeightListener listener) {
+		this.weightListener = listener;
+		return true;
+	}
 
-		return reduceProbabilityBySimilarity(state, actions);
+	/**
+	 * The probability of an action to be selected is inversely proportional to its similarity value.
+	 */
+	@Override
+	public double getWeight(Action action) {
+		return 1.0 / Math.max(1, action.get(ActionTags.SimilarityValue, 1));
 	}
 
 	/**
 	 * Given the current set of Actions of the State take the OriginWidget AbstractID,
-	 * and compare with the previous existing Actions/OriginWidget to increase the similarity value.
+	 * and look up the similarity value of the previous existing Actions/OriginWidget to increase it.
 	 * Minimal similarity value 1, Maximal similarity is given in the constructor.
 	 * 
 	 * Higher similarity value means that Action/OriginWidget remains more time static in the State.
 	 * 
-	 * @param previousActions
 	 * @param newActions
 	 * @return actions with similarity value modified
 	 */
 	private Set<Action> modifySimilarActions(Set<Action> newActions){
+		Map<String, Integer> newSimilarityValues = new HashMap<>();
 		for(Action newAction : newActions) {
-			for (Action oldAction : similarityActions) {
+			String abstractID = originWidgetAbstractId(newAction);
+			Integer oldValue = abstractID == null ? null : similarityValues.get(abstractID);
 
-				// If we detect a coincidence determine and increase new similarity value
-				if(originWidgetAbstractIdCoincidence(newAction, oldAction)) {
-					newAction.set(ActionTags.SimilarityValue, increaseSimilarityValue(oldAction));
-					// Stop comparing this newAction and go to the next one
-					break;
-				}
+			// If we detect a coincidence determine and increase new similarity value
+			if(oldValue != null) {
+				newAction.set(ActionTags.SimilarityValue, increaseSimilarityValue(oldValue));
 			}
-
 			// We didn't find any coincidence this means, set default similarity value
-			if(newAction.get(ActionTags.SimilarityValue, null) == null) {
+			else if(newAction.get(ActionTags.SimilarityValue, null) == null) {
 				// Minimal similarity value is 1
 				newAction.set(ActionTags.SimilarityValue, 1);
 			}
+
+			if(abstractID != null) {
+				Integer newValue = newAction.get(ActionTags.SimilarityValue);
+				newSimilarityValues.putIfAbsent(abstractID, newValue);
+				// Actions without OriginWidget AbstractID keep their default weight
+				if(weightListener != null && !newValue.equals(weightedValues.get(abstractID))) {
+					weightListener.weightChanged(newAction);
+				}
+			}
 		}
 
 		// Update the saved actions with the new Actions
-		similarityActions = newActions;
+		similarityValues = newSimilarityValues;
+		weightedValues = new HashMap<>(newSimilarityValues);
 
 		return newActions;
 	}
 
 	/**
-	 * Given two Actions, compare the AbstractID of the OriginWidget,
-	 * and determine if the OriginWidget is the same from the Abstract point of view.
-	 * 
-	 * @param newAction
-	 * @param oldAction
-	 * @return true or false
+	 * @param action
+	 * @return the AbstractID of the OriginWidget of the action, or null if the action has none
 	 */
-	private boolean originWidgetAbstractIdCoincidence(Action newAction, Action oldAction) {
-		// Compare OriginWidget AbstractID to check coincidences
-		String newAbstractID = newAction.get(Tags.OriginWidget).get(Tags.AbstractID, "NopeNew");
-		String oldAbstractID = oldAction.get(Tags.OriginWidget).get(Tags.AbstractID, "NopeOld");
-		return newAbstractID.equals(oldAbstractID);
+	private static String originWidgetAbstractId(Action action) {
+		Widget originWidget = action.get(Tags.OriginWidget, null);
+		return originWidget == null ? null : originWidget.get(Tags.AbstractID, null);
+	}
+
+	private static String originWidgetDesc(Action action) {
+		Widget originWidget = action.get(Tags.OriginWidget, null);
+		return originWidget == null ? "" : originWidget.get(Tags.Desc, "");
 	}
 
 	/**
-	 * Increase and return the similarity value of one action by 1.
+	 * Increase and return a similarity value by 1.
 	 * Maximum similarity value is given in the constructor.
 	 * 
-	 * @param oldAction
+	 * @param similarityValue
 	 * @return (number) similarity value
 	 */
-	private int increaseSimilarityValue(Action oldAction) {
-		// Update Similarity Value Tag
-		int similarityValue = oldAction.get(ActionTags.SimilarityValue);
+	private int increaseSimilarityValue(int similarityValue) {
 		similarityValue = similarityValue + 1;
 		// Maximal similarity value
 		if(similarityValue > maxValue) {similarityValue = maxValue;}
 		return similarityValue;
 	}
 
-	private Action reduceProbabilityBySimilarity(State state, Set<Action> actions) {
-		// Check the totalWeight
-		double totalWeight = 0;
-		for(Action a : actions) {
-			totalWeight = totalWeight + (1.0 / a.get(ActionTags.SimilarityValue));
-		}
-
-		// Just in case, if something wrong return purely random
-		if(totalWeight == 0) {
-			return RandomActionSelector.selectRandomAction(actions);
-		}
-
-		System.out.println("******************* DEBUG SIMILARITY PROBABILITY ******************");
-
-		// Create a percentage weight of each action based on the totalWeight
-		WeightedAction actionProbability = new WeightedAction();
-		for(Action a : actions) {
-			double actionWeight = (1.0 / a.get(ActionTags.SimilarityValue)) / totalWeight * 100;
-			actionProbability.addEntry(a, actionWeight);
-
-			System.out.println("Widget : " + a.get(Tags.OriginWidget).get(Tags.Desc, "") + " with similarity : " + actionWeight);
-		}
-
-		return actionProbability.getRandom();
-	}
-
-
 	@Override
 	public void executeAction(Action action) {
 		increaseSpecificExecutedAction(action);
@@ -195,19 +205,14 @@ public class SimilarityDetection implements IActionSelector, IActionExecutor {
 	 * @param executedAction
 	 */
 	private void increaseSpecificExecutedAction(Action executedAction) {
-		String executedID = executedAction.get(Tags.OriginWidget).get(Tags.AbstractID, "NopeExecuted");
-
-		System.out.println("====================== DEBUG EXECUTED ACTION ======================");
-
-		for(Action savedAction : similarityActions) {
-			String savedID = savedAction.get(Tags.OriginWidget).get(Tags.AbstractID, "NopeSaved");
+		String executedID = originWidgetAbstractId(executedAction);
+		if(executedID == null) {
+			return;
+		}
 
-			if(savedID.equals(executedID)) {
-				savedAction.set(ActionTags.SimilarityValue, increaseSimilarityValue(savedAction));
-				System.out.println("Increase executed Widget : " + savedAction.get(Tags.OriginWidget).get(Tags.Desc, "") + 
-						" to : " + savedAction.get(ActionTags.SimilarityValue, -1));
-				return;
-			}
+		Integer similarityValue = similarityValues.computeIfPresent(executedID, (id, value) -> increaseSimilarityValue(value));
+		if(similarityValue != null) {
+			logger.debug("Increase executed Widget : {} to : {}", originWidgetDesc(executedAction), similarityValue);
 		}
 	}
 }
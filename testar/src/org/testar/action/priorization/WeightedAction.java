@@ -30,41 +30,24 @@
 
 package org.testar.action.priorization;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
 
 import org.testar.monkey.alayer.Action;
 
 
-// https://gamedev.stackexchange.com/questions/162976
+/**
+ * Weighted random selection of actions, see {@link WeightedSampler}.
+ */
 public class WeightedAction {
 
-    private class Entry {
-        double accumulatedWeight;
-        Action action;
-    }
-
-    private List<Entry> entries = new ArrayList<>();
-    private double accumulatedWeight;
+    private final WeightedSampler<Action> entries = new WeightedSampler<>();
     private Random rand = new Random();
 
     public void addEntry(Action action, double weight) {
-        accumulatedWeight += weight;
-        Entry e = new Entry();
-        e.action = action;
-        e.accumulatedWeight = accumulatedWeight;
-        entries.add(e);
+        entries.add(action, weight);
     }
 
     public Action getRandom() {
-        double r = rand.nextDouble() * accumulatedWeight;
-
-        for (Entry entry: entries) {
-            if (entry.accumulatedWeight >= r) {
-                return entry.action;
-            }
-        }
-        return null; //should only happen when there are no entries
+        return entries.sample(rand); //null should only happen when there are no entries
     }
 }
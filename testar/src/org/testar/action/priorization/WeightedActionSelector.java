@@ -0,0 +1,155 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.action.priorization;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.testar.IActionExecutor;
+import org.testar.IActionSelector;
+import org.testar.RandomActionSelector;
+import org.testar.monkey.alayer.Action;
+import org.testar.monkey.alayer.State;
+import org.testar.monkey.alayer.Tags;
+
+/**
+ * Selects an action with a probability proportional to the weight given by an {@link ActionWeighting}.
+ * Can be used on its own or through an {@link org.testar.ActionSelectorProxy}.
+ *
+ * The sampler of the last state is kept. When the same state, by ConcreteID and with the same action ConcreteIDs,
+ * is selected from again, only the weights that changed are updated: the ones the weighting reported through its
+ * {@link ActionWeighting.WeightListener}, or all of them for weightings that do not report their changes.
+ * Mapping the new action objects onto the sampler is still linear in the number of actions,
+ * but the weights are neither asked for nor summed again.
+ */
+public class WeightedActionSelector implements IActionSelector, IActionExecutor {
+
+    private final ActionWeighting weighting;
+    private final Random random;
+    private final WeightedSampler<Action> sampler = new WeightedSampler<>();
+    private final boolean reportsChanges;
+
+    // the state the sampler holds the actions of, null if the sampler can not be reused
+    private String samplerStateId;
+    // sampler index by action ConcreteID
+    private final Map<String, Integer> indices = new HashMap<>();
+    // ConcreteIDs of the actions of which the weighting reported a changed weight since the last selection
+    private final Set<String> changed = new HashSet<>();
+    // the weighting reported a change of an action without ConcreteID
+    private boolean unknownChanged;
+
+    public WeightedActionSelector(ActionWeighting weighting) {
+        this(weighting, new Random());
+    }
+
+    public WeightedActionSelector(ActionWeighting weighting, Random random) {
+        this.weighting = weighting;
+        this.random = random;
+        this.reportsChanges = weighting.setWeightListener(this::weightChanged);
+    }
+
+    private void weightChanged(Action action) {
+        String actionId = action.get(Tags.ConcreteID, null);
+        if (actionId == null) {
+            unknownChanged = true;
+        } else {
+            changed.add(actionId);
+        }
+    }
+
+    @Override
+    public Action selectAction(State state, Set<Action> actions) {
+        if (actions.isEmpty()) {
+            return null;
+        }
+        weighting.prepare(state, actions);
+        String stateId = state.get(Tags.ConcreteID, null);
+        if (!update(stateId, actions)) {
+            rebuild(stateId, actions);
+        }
+        changed.clear();
+        unknownChanged = false;
+
+        Action selected = sampler.sample(random);
+        // no action has a positive weight, fall back to purely random
+        return selected != null ? selected : RandomActionSelector.selectRandomAction(actions);
+    }
+
+    /**
+     * Reuses the sampler if it holds the actions of the same state.
+     *
+     * @return false if the sampler has to be rebuilt
+     */
+    private boolean update(String stateId, Set<Action> actions) {
+        if (stateId == null || !stateId.equals(samplerStateId) || actions.size() != sampler.size()) {
+            return false;
+        }
+        boolean all = !reportsChanges || unknownChanged;
+        for (Action action : actions) {
+            String actionId = action.get(Tags.ConcreteID, null);
+            Integer index = actionId == null ? null : indices.get(actionId);
+            if (index == null) {
+                return false;
+            }
+            // the derived actions are new objects every step
+            sampler.set(index, action);
+            if (all || changed.contains(actionId)) {
+                double weight = weighting.getWeight(action);
+                if (weight != sampler.getWeight(index)) {
+                    sampler.setWeight(index, weight);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void rebuild(String stateId, Set<Action> actions) {
+        sampler.clear();
+        indices.clear();
+        for (Action action : actions) {
+            int index = sampler.add(action, weighting.getWeight(action));
+            String actionId = action.get(Tags.ConcreteID, null);
+            if (actionId != null) {
+                indices.put(actionId, index);
+            }
+        }
+        // actions without or with duplicate ConcreteIDs can not be found back
+        samplerStateId = indices.size() == actions.size() ? stateId : null;
+    }
+
+    @Override
+    public void executeAction(Action action) {
+        weighting.executeAction(action);
+    }
+}
@@ -0,0 +1,183 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.action.priorization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Weighted random sampling over a growing list of items, backed by a Fenwick (binary indexed) tree
+ * of the weights. Adding an item, changing its weight and drawing a sample are all O(log n),
+ * so weights can be updated incrementally instead of rebuilding a cumulative list.
+ *
+ * @param <T> the type of the sampled items
+ */
+public class WeightedSampler<T> {
+
+    private final List<T> items = new ArrayList<>();
+    private double[] weights = new double[16];
+    // tree[i] holds the sum of the weights of the items (i - lowbit(i), i], the tree is 1-based
+    private double[] tree = new double[17];
+    private double totalWeight;
+
+    /**
+     * Adds an item to the sampler.
+     *
+     * @param item
+     * @param weight a non-negative weight, items with weight 0 are never sampled
+     * @return the index of the item, to change its weight later on
+     */
+    public int add(T item, double weight) {
+        checkWeight(weight);
+        int index = items.size();
+        if (index == weights.length) {
+            grow();
+        }
+        items.add(item);
+        weights[index] = 0;
+        setWeight(index, weight);
+        return index;
+    }
+
+    /**
+     * Changes the weight of an item.
+     *
+     * @param index the index returned when the item was added
+     * @param weight a non-negative weight
+     */
+    public void setWeight(int index, double weight) {
+        checkWeight(weight);
+        if (index < 0 || index >= items.size()) {
+            throw new IndexOutOfBoundsException("No item with index " + index);
+        }
+        double delta = weight - weights[index];
+        weights[index] = weight;
+        totalWeight += delta;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    public double getWeight(int index) {
+        if (index < 0 || index >= items.size()) {
+            throw new IndexOutOfBoundsException("No item with index " + index);
+        }
+        return weights[index];
+    }
+
+    public T get(int index) {
+        return items.get(index);
+    }
+
+    /**
+     * Replaces an item and keeps its weight.
+     *
+     * @param index the index returned when the item was added
+     * @param item
+     */
+    public void set(int index, T item) {
+        items.set(index, item);
+    }
+
+    public double getTotalWeight() {
+        return Math.max(totalWeight, 0);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public void clear() {
+        items.clear();
+        Arrays.fill(weights, 0);
+        Arrays.fill(tree, 0);
+        totalWeight = 0;
+    }
+
+    /**
+     * Draws an item with a probability proportional to its weight.
+     *
+     * @param random
+     * @return the sampled item, or null if there are no items with a positive weight
+     */
+    public T sample(Random random) {
+        int index = sampleIndex(random);
+        return index < 0 ? null : items.get(index);
+    }
+
+    /**
+     * @param random
+     * @return the index of the sampled item, or -1 if there are no items with a positive weight
+     */
+    public int sampleIndex(Random random) {
+        if (getTotalWeight() <= 0) {
+            return -1;
+        }
+        double target = random.nextDouble() * totalWeight;
+        // descend the tree to the first item of which the cumulative weight exceeds the target
+        int position = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] <= target) {
+                position = next;
+                target -= tree[next];
+            }
+        }
+        // position is the number of items before the sampled one, skip items that rounding made land on weight 0
+        for (int index = Math.min(position, items.size() - 1); index >= 0; index--) {
+            if (weights[index] > 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private void grow() {
+        weights = Arrays.copyOf(weights, weights.length * 2);
+        // rebuild the tree in O(n) for the new capacity
+        tree = new double[weights.length + 1];
+        for (int i = 1; i <= items.size(); i++) {
+            tree[i] += weights[i - 1];
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private static void checkWeight(double weight) {
+        if (!(weight >= 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("Weight must be a finite non-negative number: " + weight);
+        }
+    }
+}
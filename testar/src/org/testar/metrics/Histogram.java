@@ -0,0 +1,144 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.metrics;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative long values, such as durations in nanoseconds, with a fixed memory footprint.
+ * Like an HDR histogram the buckets are log-linear: every power of two is split into 32 equal buckets, so a
+ * recorded value is known within about 3%, whatever its magnitude. Recording a value is a few shifts and an
+ * array increment.
+ */
+public class Histogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// values up to 2 * SUB_BUCKETS have a bucket of their own, every next power of two adds SUB_BUCKETS buckets
+	private static final int NR_OF_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final long[] counts = new long[NR_OF_BUCKETS];
+	private long count;
+	private long sum;
+	private long min = Long.MAX_VALUE;
+	private long max;
+
+	/**
+	 * Records a value. Negative values are recorded as 0.
+	 * @param value
+	 */
+	public synchronized void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts[bucketOf(value)]++;
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	public synchronized long getCount() {
+		return count;
+	}
+
+	public synchronized long getSum() {
+		return sum;
+	}
+
+	public synchronized long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	public synchronized long getMax() {
+		return max;
+	}
+
+	public synchronized double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * Returns the value below which the given fraction of the recorded values falls.
+	 * @param quantile a fraction between 0 and 1, for example 0.99
+	 * @return the middle of the bucket that contains the quantile, or 0 if nothing was recorded
+	 */
+	public synchronized long getValueAtQuantile(double quantile) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(Math.min(1.0, Math.max(0.0, quantile)) * count));
+		long seen = 0;
+		for (int bucket = 0; bucket < NR_OF_BUCKETS; bucket++) {
+			seen += counts[bucket];
+			if (seen >= rank) {
+				long lowest = lowestValueOf(bucket);
+				long highest = lowest + bucketWidthOf(bucket) - 1;
+				return Math.max(min, Math.min(max, lowest + (highest - lowest) / 2));
+			}
+		}
+		return max;
+	}
+
+	public synchronized void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		sum = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	static int bucketOf(long value) {
+		if (value < 2 * SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		// the SUB_BUCKET_BITS + 1 highest bits of the value, between SUB_BUCKETS and 2 * SUB_BUCKETS - 1
+		int subBucket = (int) (value >>> shift);
+		return shift * SUB_BUCKETS + subBucket;
+	}
+
+	static long lowestValueOf(int bucket) {
+		if (bucket < 2 * SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long subBucket = bucket - shift * SUB_BUCKETS;
+		return subBucket << shift;
+	}
+
+	static long bucketWidthOf(int bucket) {
+		if (bucket < 2 * SUB_BUCKETS) {
+			return 1;
+		}
+		return 1L << (bucket / SUB_BUCKETS - 1);
+	}
+}
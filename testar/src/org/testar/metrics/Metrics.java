@@ -0,0 +1,173 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Entry point for the instrumentation of the TESTAR loop. When metrics are disabled, which is the default,
+ * every method returns immediately, so the instrumentation can stay in the code.
+ *
+ * A phase is timed with:
+ * <pre>
+ * long start = Metrics.start();
+ * ...
+ * Metrics.stop(Metrics.DERIVE_ACTIONS, start);
+ * </pre>
+ * Phases can be nested, for example the verdict is part of getting the state.
+ */
+public final class Metrics {
+
+	public static final String GET_STATE = "get_state";
+	public static final String BUILD_STATE = "build_state";
+	public static final String BUILD_STATE_IDENTIFIERS = "build_state_identifiers";
+	public static final String VERDICT = "verdict";
+	public static final String SCREENSHOT = "screenshot";
+	public static final String DERIVE_ACTIONS = "derive_actions";
+	public static final String BUILD_ACTION_IDENTIFIERS = "build_action_identifiers";
+	public static final String STATE_MODEL = "state_model";
+	public static final String SELECT_ACTION = "select_action";
+	public static final String EXECUTE_ACTION = "execute_action";
+	public static final String ACTION_RUN = "action_run";
+	public static final String ACTION_WAIT = "action_wait";
+	public static final String REPORTING = "reporting";
+
+	public static final String ACTIONS_EXECUTED = "actions_executed";
+	public static final String STATES = "states";
+
+	public static final String WIDGETS_PER_STATE = "widgets_per_state";
+	public static final String ACTIONS_PER_STATE = "actions_per_state";
+	public static final String WAIT_CYCLES = "wait_cycles";
+	public static final String PERSISTENCE_QUEUE_DEPTH = "persistence_queue_depth";
+	public static final String ABSTRACT_STATES = "abstract_states";
+	public static final String UNVISITED_ACTIONS = "unvisited_actions";
+
+	private static final MetricsRegistry registry = new MetricsRegistry();
+
+	private static volatile boolean enabled = false;
+
+	private static MetricsServer server;
+
+	private Metrics() {}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		Metrics.enabled = enabled;
+	}
+
+	public static MetricsRegistry getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * @return the start time of a phase, to pass to stop
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Records the duration of a phase that started at the given time.
+	 * @param phase
+	 * @param start
+	 */
+	public static void stop(String phase, long start) {
+		if (enabled) {
+			registry.recordPhase(phase, System.nanoTime() - start);
+		}
+	}
+
+	public static void increment(String counter) {
+		if (enabled) {
+			registry.increment(counter, 1);
+		}
+	}
+
+	public static void gauge(String gauge, long value) {
+		if (enabled) {
+			registry.gauge(gauge, value);
+		}
+	}
+
+	/**
+	 * Starts the metrics of a new sequence.
+	 */
+	public static void startSequence() {
+		if (enabled) {
+			registry.startSequence();
+		}
+	}
+
+	/**
+	 * Writes the metrics of the current sequence to a json file.
+	 * @param file
+	 */
+	public static void writeSequenceMetrics(File file) {
+		if (!enabled) {
+			return;
+		}
+		try (OutputStream outputStream = new FileOutputStream(file)) {
+			registry.writeSequenceJson(outputStream);
+		} catch (IOException e) {
+			System.out.println("Unable to write the sequence metrics to " + file.getAbsolutePath() + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Serves the metrics of the run in the Prometheus text format on http://host:port/metrics.
+	 * @param port
+	 */
+	public static synchronized void startServer(int port) {
+		if (server != null) {
+			return;
+		}
+		try {
+			server = new MetricsServer(registry);
+			server.start(port);
+		} catch (Exception e) { // the plain Exception is coming from 3rd party code
+			System.out.println("Unable to serve the metrics on port " + port + ": " + e.getMessage());
+			server = null;
+		}
+	}
+
+	public static synchronized void stopServer() {
+		if (server != null) {
+			server.stop();
+			server = null;
+		}
+	}
+}
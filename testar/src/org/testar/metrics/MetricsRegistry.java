@@ -0,0 +1,220 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.metrics;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Holds the phase timers, counters and gauges of a TESTAR run.
+ * Every metric is kept twice: for the current sequence, which is written to the metrics file of the sequence,
+ * and for the whole run, which is served to Prometheus.
+ */
+public class MetricsRegistry {
+
+	private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+	private final Metric<Histogram> phases = new Metric<>(Histogram::new);
+	private final Metric<AtomicLong> counters = new Metric<>(AtomicLong::new);
+	private final Metric<Histogram> gauges = new Metric<>(Histogram::new);
+	private final ConcurrentMap<String, AtomicLong> lastGaugeValues = new ConcurrentHashMap<>();
+
+	private volatile long sequenceStart = System.currentTimeMillis();
+
+	/**
+	 * Records the duration of a phase.
+	 * @param phase
+	 * @param nanos
+	 */
+	public void recordPhase(String phase, long nanos) {
+		phases.sequence(phase).record(nanos);
+		phases.total(phase).record(nanos);
+	}
+
+	public void increment(String counter, long delta) {
+		counters.sequence(counter).addAndGet(delta);
+		counters.total(counter).addAndGet(delta);
+	}
+
+	/**
+	 * Sets the current value of a gauge. The distribution of the values is kept as well.
+	 * @param gauge
+	 * @param value
+	 */
+	public void gauge(String gauge, long value) {
+		lastGaugeValues.computeIfAbsent(gauge, name -> new AtomicLong()).set(value);
+		gauges.sequence(gauge).record(value);
+		gauges.total(gauge).record(value);
+	}
+
+	/**
+	 * Clears the metrics of the sequence. The metrics of the run are kept.
+	 */
+	public void startSequence() {
+		phases.sequence.clear();
+		counters.sequence.clear();
+		gauges.sequence.clear();
+		sequenceStart = System.currentTimeMillis();
+	}
+
+	public Histogram getSequencePhase(String phase) {
+		return phases.sequence.get(phase);
+	}
+
+	public long getSequenceCounter(String counter) {
+		AtomicLong value = counters.sequence.get(counter);
+		return value == null ? 0 : value.get();
+	}
+
+	public Histogram getSequenceGauge(String gauge) {
+		return gauges.sequence.get(gauge);
+	}
+
+	/**
+	 * Writes the metrics of the current sequence as json. Durations are in milliseconds.
+	 * @param outputStream
+	 * @throws IOException
+	 */
+	public void writeSequenceJson(OutputStream outputStream) throws IOException {
+		try (JsonGenerator generator = new ObjectMapper().getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+			generator.useDefaultPrettyPrinter();
+			generator.writeStartObject();
+			generator.writeNumberField("startTime", sequenceStart);
+			generator.writeNumberField("durationMs", System.currentTimeMillis() - sequenceStart);
+
+			generator.writeObjectFieldStart("phases");
+			for (Map.Entry<String, Histogram> phase : new TreeMap<>(phases.sequence).entrySet()) {
+				writeHistogram(generator, phase.getKey(), phase.getValue(), 1e-6, "Ms");
+			}
+			generator.writeEndObject();
+
+			generator.writeObjectFieldStart("counters");
+			for (Map.Entry<String, AtomicLong> counter : new TreeMap<>(counters.sequence).entrySet()) {
+				generator.writeNumberField(counter.getKey(), counter.getValue().get());
+			}
+			generator.writeEndObject();
+
+			generator.writeObjectFieldStart("gauges");
+			for (Map.Entry<String, Histogram> gauge : new TreeMap<>(gauges.sequence).entrySet()) {
+				writeHistogram(generator, gauge.getKey(), gauge.getValue(), 1, "");
+			}
+			generator.writeEndObject();
+			generator.writeEndObject();
+		}
+	}
+
+	private static void writeHistogram(JsonGenerator generator, String name, Histogram histogram, double scale, String unit) throws IOException {
+		generator.writeObjectFieldStart(name);
+		generator.writeNumberField("count", histogram.getCount());
+		generator.writeNumberField("total" + unit, round(histogram.getSum() * scale));
+		generator.writeNumberField("mean" + unit, round(histogram.getMean() * scale));
+		generator.writeNumberField("min" + unit, round(histogram.getMin() * scale));
+		for (double quantile : QUANTILES) {
+			generator.writeNumberField("p" + Math.round(quantile * 100) + unit, round(histogram.getValueAtQuantile(quantile) * scale));
+		}
+		generator.writeNumberField("max" + unit, round(histogram.getMax() * scale));
+		generator.writeEndObject();
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 1000) / 1000.0;
+	}
+
+	/**
+	 * Writes the metrics of the run in the Prometheus text format.
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void writePrometheus(Writer writer) throws IOException {
+		writer.write("# HELP testar_phase_duration_seconds Duration of the phases of the TESTAR loop\n");
+		writer.write("# TYPE testar_phase_duration_seconds summary\n");
+		for (Map.Entry<String, Histogram> phase : new TreeMap<>(phases.total).entrySet()) {
+			Histogram histogram = phase.getValue();
+			String label = "phase=\"" + phase.getKey() + "\"";
+			for (double quantile : QUANTILES) {
+				writeSample(writer, "testar_phase_duration_seconds{" + label + ",quantile=\"" + quantile + "\"}", histogram.getValueAtQuantile(quantile) / 1e9);
+			}
+			writeSample(writer, "testar_phase_duration_seconds_sum{" + label + "}", histogram.getSum() / 1e9);
+			writeSample(writer, "testar_phase_duration_seconds_count{" + label + "}", histogram.getCount());
+		}
+		for (Map.Entry<String, AtomicLong> counter : new TreeMap<>(counters.total).entrySet()) {
+			String name = "testar_" + counter.getKey() + "_total";
+			writer.write("# TYPE " + name + " counter\n");
+			writeSample(writer, name, counter.getValue().get());
+		}
+		for (Map.Entry<String, AtomicLong> gauge : new TreeMap<>(lastGaugeValues).entrySet()) {
+			String name = "testar_" + gauge.getKey();
+			writer.write("# TYPE " + name + " gauge\n");
+			writeSample(writer, name, gauge.getValue().get());
+		}
+	}
+
+	private static void writeSample(Writer writer, String name, double value) throws IOException {
+		writer.write(name + " " + value + "\n");
+	}
+
+	private static void writeSample(Writer writer, String name, long value) throws IOException {
+		writer.write(name + " " + value + "\n");
+	}
+
+	/**
+	 * A metric of some kind for the sequence and for the run, by name.
+	 */
+	private static class Metric<T> {
+
+		private final Supplier<T> factory;
+		private final ConcurrentMap<String, T> sequence = new ConcurrentHashMap<>();
+		private final ConcurrentMap<String, T> total = new ConcurrentHashMap<>();
+
+		Metric(Supplier<T> factory) {
+			this.factory = factory;
+		}
+
+		T sequence(String name) {
+			return sequence.computeIfAbsent(name, key -> factory.get());
+		}
+
+		T total(String name) {
+			return total.computeIfAbsent(name, key -> factory.get());
+		}
+	}
+}
@@ -86,6 +86,9 @@ public final class ConfigTags {
 	public static final Tag<List<String>> LogOracleFiles = Tag.from("LogOracleFiles", (Class<List<String>>) (Class<?>) List.class, 
 			"A list of paths of log files to monitor");
 
+	public static final Tag<Boolean> LogOracleWatchFiles = Tag.from("LogOracleWatchFiles", Boolean.class, 
+			"Only examine the log files of the LogOracle after the file system reported a change");
+
 	public static final Tag<String> ClickFilter = Tag.from("ClickFilter", String.class, 
 			"Regular expressions to FILTER GUI widgets");
 
@@ -93,6 +96,9 @@ public final class ConfigTags {
 	public static final Tag<List<String>> TagsToFilter = Tag.from("TagsToFilter", (Class<List<String>>) (Class<?>) List.class, 
 			"The Tags to apply the ClickFilter regex expressions");
 
+	public static final Tag<Integer> PatternMatchCacheSize = Tag.from("PatternMatchCacheSize", Integer.class, 
+			"Maximum number of cached ClickFilter, SuspiciousTags and web console regex match results");
+
 	public static final Tag<String> ProcessesToKillDuringTest = Tag.from("ProcessesToKillDuringTest", String.class, 
 			"Regular expressions to kill processes that can start up and interfere when testing the SUT");
 
@@ -113,7 +119,7 @@ public final class ConfigTags {
 			"Enable or disable the State Model feature");
 
 	public static final Tag<String> DataStore = Tag.from("DataStore", String.class, 
-			"The graph database we use to store the State Model: OrientDB");
+			"The store we use for the State Model: OrientDB, or LogStore for an embedded append-only log in the DataStoreDirectory");
 
 	public static final Tag<String> DataStoreType = Tag.from("DataStoreType", String.class, 
 			"The mode we use to connect to the database: remote or plocal");
@@ -145,6 +151,12 @@ public final class ConfigTags {
 	public static final Tag<Boolean> ResetDataStore = Tag.from("ResetDataStore", Boolean.class, 
 			"WARNING: Delete all existing State Models from the selected database before creating a new one");
 
+	public static final Tag<String> SharedStateModelDirectory = Tag.from("SharedStateModelDirectory", String.class, 
+			"Directory that several TESTAR workers share to merge their State Models while testing the same application. Leave empty to test alone");
+
+	public static final Tag<Integer> SharedStateModelInterval = Tag.from("SharedStateModelInterval", Integer.class, 
+			"Minimum number of seconds between two synchronizations of the shared State Model");
+
 	@SuppressWarnings("unchecked")
 	public static final Tag<List<String>> AbstractStateAttributes = Tag.from("AbstractStateAttributes", (Class<List<String>>) (Class<?>) List.class, 
 			"Specify the widget attributes that you wish to use in constructing the widget and state hash strings. Use a comma separated list.");
@@ -268,7 +280,7 @@ public final class ConfigTags {
 			"The sequence to REPLAY is the one indicated in this parameter");
 
 	public static final Tag<Double> RefreshSpyCanvas = Tag.from("RefreshSpyCanvas", Double.class, 
-			"Time in milliseconds that indicates the frequency of refreshing the screen in SPY mode");
+			"Time in seconds that indicates how often SPY mode checks the SUT for changes and builds the state again");
 
 	public static final Tag<Boolean> AlwaysCompile = Tag.from("AlwaysCompile", Boolean.class, 
 			"Compile the protocol before launching the selected TESTAR mode");
@@ -292,9 +304,33 @@ public final class ConfigTags {
 	public static final Tag<String> ProtocolCompileDirectory = Tag.from("ProtocolCompileDirectory", String.class, 
 			"The relative path on which compile the TESTAR protocols and create the class files");
 
+	public static final Tag<String> ProtocolJar = Tag.from("ProtocolJar", String.class, 
+			"A jar with the prebuilt TESTAR protocols, such as settings/protocols.jar of the distribution. When set, the protocol is not compiled");
+
 	public static final Tag<String> OutputDir = Tag.from("OutputDir", String.class, 
 			"The relative path to save TESTAR output results");
 
+	public static final Tag<Boolean> MetricsEnabled = Tag.from("MetricsEnabled", Boolean.class, 
+			"Measure the duration of the phases of each TESTAR step and write the metrics of each sequence to a json file next to its report");
+
+	public static final Tag<Integer> MetricsPort = Tag.from("MetricsPort", Integer.class, 
+			"Port on which the metrics are served to Prometheus on /metrics when MetricsEnabled is true. Use 0 to not serve them");
+
+	public static final Tag<Boolean> SimulateSUT = Tag.from("SimulateSUT", Boolean.class, 
+			"Replay the states of the recorded sequences of SimulatorRecording instead of starting the SUT, to run TESTAR without a display");
+
+	public static final Tag<String> SimulatorRecording = Tag.from("SimulatorRecording", String.class, 
+			"A recorded .testar sequence, or a folder with .testar sequences, from which the simulated SUT serves its states");
+
+	public static final Tag<Integer> SimulatorStateLatency = Tag.from("SimulatorStateLatency", Integer.class, 
+			"The time in milliseconds it takes the simulated SUT to deliver a state");
+
+	public static final Tag<Integer> SimulatorActionLatency = Tag.from("SimulatorActionLatency", Integer.class, 
+			"The time in milliseconds it takes the simulated SUT to process the input of an action");
+
+	public static final Tag<String> SimulatorFallback = Tag.from("SimulatorFallback", String.class, 
+			"What the simulated SUT does with an action that was not recorded: STAY in the state or go to a HASH chosen state");
+
 	public static final Tag<String> TempDir = Tag.from("TempDir", String.class, 
 			"The relative path to temporarily  save TESTAR files");
 	
@@ -304,6 +340,9 @@ public final class ConfigTags {
 	public static final Tag<Boolean> ReportInPlainText = Tag.from("ReportInPlainText", Boolean.class,
 			 "Sets whether to create a plain text report");
 
+	public static final Tag<Boolean> ReportCompactActions = Tag.from("ReportCompactActions", Boolean.class,
+			 "Sets whether the HTML report collapses the derived actions of each state into a block that is expanded on click");
+
 	/**
 	 * Other settings
 	 */
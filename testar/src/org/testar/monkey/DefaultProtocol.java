@@ -35,6 +35,7 @@ import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.SessionNotCreatedException;
 import org.testar.*;
 import org.testar.managers.NativeHookManager;
+import org.testar.metrics.Metrics;
 import org.testar.monkey.alayer.Action;
 import org.testar.monkey.alayer.Canvas;
 import org.testar.monkey.alayer.Color;
@@ -52,9 +53,12 @@ import org.testar.monkey.alayer.devices.Mouse;
 import org.testar.monkey.alayer.exceptions.*;
 import org.testar.monkey.alayer.ios.IOSProtocolUtil;
 import org.testar.monkey.alayer.visualizers.ShapeVisualizer;
+import org.testar.monkey.alayer.simulator.SimulatedModel;
 import org.testar.monkey.alayer.webdriver.WdProtocolUtil;
 import org.testar.monkey.alayer.windows.WinApiException;
 import org.testar.oracles.Oracle;
+import org.testar.oracles.OracleRegistry;
+import org.testar.oracles.PatternMatchCache;
 import org.testar.oracles.log.LogOracle;
 import org.testar.plugin.NativeLinker;
 import org.testar.plugin.OperatingSystems;
@@ -71,7 +75,6 @@ import java.awt.*;
 import java.io.*;
 import java.util.List;
 import java.util.*;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 
@@ -148,13 +151,17 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 
 	protected State latestState;
 	public static Action lastExecutedAction = null;
+	// the concrete id of the last executed action, for the threads that capture the output of the SUT
+	public static volatile String lastExecutedActionId = "unknown";
 
 	protected EventHandler eventHandler;
 	protected Canvas               cv;
 	protected Pattern              clickFilterPattern      = null;
-	protected Map<String, Matcher> clickFilterMatchers     = new WeakHashMap<String, Matcher>();
 	protected Pattern              suspiciousTitlesPattern = null;
-	protected Map<String, Matcher> suspiciousTitlesMatchers = new WeakHashMap<String, Matcher>();
+	private PatternMatchCache      patternMatchCache       = null;
+	private OracleRegistry oracleRegistry = null;
+	private TagNameLookup tagsToFilterLookup = null;
+	private TagNameLookup tagsForSuspiciousOracleLookup = null;
 	private StateBuilder builder;
 
 	protected int escAttempts = 0;
@@ -165,6 +172,14 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 	// Creating a logger with log4j library:
 	private static Logger logger = LogManager.getLogger();
 
+	/**
+	 * Remember the executed action. Its concrete id is published separately, because the capture threads
+	 * must not read the tags of the action while the main thread changes them.
+	 */
+	static void setLastExecutedAction(Action action) {
+		lastExecutedAction = action;
+		lastExecutedActionId = action == null ? "unknown" : action.get(Tags.ConcreteID, "unknown");
+	}
 
 	/**
 	 * This is the abstract flow of TESTAR (generate mode):
@@ -313,6 +328,29 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 		this.settings = settings;
 		mode = settings.get(ConfigTags.Mode);
 
+		if (settings.get(ConfigTags.SimulateSUT, false)) {
+			String recording = settings.get(ConfigTags.SimulatorRecording, "");
+			String fallbackName = settings.get(ConfigTags.SimulatorFallback, "STAY");
+			SimulatedModel.Fallback fallback;
+			try {
+				fallback = SimulatedModel.Fallback.valueOf(fallbackName.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				String msg = "Unknown SimulatorFallback: " + fallbackName + ", expected one of " + Arrays.toString(SimulatedModel.Fallback.values());
+				popupMessage(msg);
+				throw new SystemStartException(msg, e);
+			}
+			try {
+				NativeLinker.addSimulatorOS(recording,
+						settings.get(ConfigTags.SimulatorStateLatency, 0),
+						settings.get(ConfigTags.SimulatorActionLatency, 0),
+						fallback);
+			} catch (IOException e) {
+				String msg = "Unable to load the recording of the simulated SUT: " + recording;
+				popupMessage(msg);
+				throw new SystemStartException(msg, e);
+			}
+		}
+
 		builder = NativeLinker.getNativeStateBuilder(
 				settings.get(ConfigTags.TimeToFreeze),
 				settings.get(ConfigTags.AccessBridgeEnabled),
@@ -321,6 +359,11 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 
 		logOracleEnabled = settings.get(ConfigTags.LogOracleEnabled, false);
 
+		Metrics.setEnabled(settings.get(ConfigTags.MetricsEnabled, false));
+		if (Metrics.isEnabled() && settings.get(ConfigTags.MetricsPort, 0) > 0) {
+			Metrics.startServer(settings.get(ConfigTags.MetricsPort, 0));
+		}
+
 		if ( mode() == Modes.Generate || /*mode() == Modes.Record ||*/ mode() == Modes.Replay ) {
 			//Create the output folders
 			OutputStructure.calculateOuterLoopDateString();
@@ -689,11 +732,15 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 	 */
 	@Override
 	protected void preSequencePreparations() {
+		Metrics.startSequence();
 		if(settings.get(ConfigTags.Mode) != Modes.Spy)
 			reportManager = new ReportManager((mode() == Modes.Replay), settings());
 		if (logOracleEnabled) {
+			if (logOracle != null)
+				logOracle.close();
 			logOracle = createLogOracle(settings);
 			logOracle.initialize();
+			oracleRegistry().register("LogOracle", logOracle);
 		}
 	}
 
@@ -731,6 +778,10 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 		}catch(IOException ioe){
 			throw new SystemStartException(ioe);
 		}
+		if (NativeLinker.getPLATFORM_OS().contains(OperatingSystems.SIMULATOR)) {
+			// the simulated SUT replays a recording, there is no application to start or connect to
+			return NativeLinker.getNativeSUT(settings().get(ConfigTags.SimulatorRecording), false, "");
+		}
 		String sutConnectorType = settings().get(ConfigTags.SUTConnector);
 
 		// WindowsTitle, ProcessName, and CommandLine must have a SUTConnectorValue:
@@ -777,9 +828,13 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 	@Override
 	protected State getState(SUT system) throws StateBuildException {
 		Assert.notNull(system);
+		long start = Metrics.start();
 		State state = builder.apply(system);
+		Metrics.stop(Metrics.BUILD_STATE, start);
 
+		long phaseStart = Metrics.start();
 		buildStateIdentifiers(state);
+		Metrics.stop(Metrics.BUILD_STATE_IDENTIFIERS, phaseStart);
 		state = ProtocolUtil.calculateZIndices(state);
 
 		setStateForClickFilterLayerProtocol(state);
@@ -787,10 +842,14 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 		if(settings.get(ConfigTags.Mode) == Modes.Spy)
 			return state;
 
+		phaseStart = Metrics.start();
 		Verdict verdict = getVerdict(state);
+		Metrics.stop(Metrics.VERDICT, phaseStart);
 		state.set(Tags.OracleVerdict, verdict);
 
+		phaseStart = Metrics.start();
 		setStateScreenshot(state);
+		Metrics.stop(Metrics.SCREENSHOT, phaseStart);
 
 		if(mode() != Modes.Spy && verdict.severity() >= settings().get(ConfigTags.FaultThreshold))
 		{
@@ -813,6 +872,12 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 		reportManager.addState(state);
 		latestState = state;
 
+		if (Metrics.isEnabled()) {
+			Metrics.gauge(Metrics.WIDGETS_PER_STATE, state.traversal().size());
+			Metrics.increment(Metrics.STATES);
+		}
+		Metrics.stop(Metrics.GET_STATE, start);
+
 		return state;
 	}
 
@@ -822,7 +887,10 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 	private void setStateScreenshot(State state) {
 		Shape viewPort = state.get(Tags.Shape, null);
 		if(viewPort != null){
-			if(NativeLinker.getPLATFORM_OS().contains(OperatingSystems.WEBDRIVER)){
+			if(NativeLinker.getPLATFORM_OS().contains(OperatingSystems.SIMULATOR)){
+				// a simulated SUT has no screen, the state keeps the screenshot of the recording
+			}
+			else if(NativeLinker.getPLATFORM_OS().contains(OperatingSystems.WEBDRIVER)){
 				state.set(Tags.ScreenshotPath, WdProtocolUtil.getStateshot(state));
 			}
 			else if (NativeLinker.getPLATFORM_OS().contains(OperatingSystems.ANDROID)) {
@@ -859,70 +927,120 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 
 		if (this.suspiciousTitlesPattern == null)
 			this.suspiciousTitlesPattern = Pattern.compile(settings().get(ConfigTags.SuspiciousTags), Pattern.UNICODE_CHARACTER_CLASS);
+		// created before the oracles are evaluated concurrently, which share it
+		patternMatchCache();
+
+		// the suspicious tag oracle, the log oracle and other registered oracles are evaluated concurrently,
+		// the verdict with the highest severity is returned (Verdict.OK if everything was OK)
+		Verdict verdict = oracleRegistry().getVerdict(state);
+		logger.trace(oracleRegistry);
+		return verdict;
+	}
 
-		// search all widgets for suspicious String Values
-		Verdict suspiciousValueVerdict = Verdict.OK;
-		for(Widget w : state) {
-			suspiciousValueVerdict = suspiciousStringValueMatcher(w);
-			if(suspiciousValueVerdict.severity() == Verdict.SEVERITY_SUSPICIOUS_TAG) {
-				return suspiciousValueVerdict;
-			}
-		}
+	/**
+	 * The registry of the oracles evaluated by getVerdict, after the checks whether the SUT crashed
+	 * or does not respond. Initially it contains the suspicious tag oracle, and the log oracle if enabled.
+	 * Protocols can register additional independent oracles.
+	 * @return the oracle registry
+	 */
+	protected OracleRegistry oracleRegistry() {
+		if (oracleRegistry == null) {
+			oracleRegistry = new OracleRegistry();
+			// search all widgets for suspicious String Values
+			oracleRegistry.register("SuspiciousTags", new Oracle() {
+				@Override
+				public void initialize() {
+				}
 
-		if ( logOracleEnabled ) {
-			Verdict logVerdict = logOracle.getVerdict(state);
-			if ( logVerdict.severity() == Verdict.SEVERITY_SUSPICIOUS_LOG ) {
-				return logVerdict;
-			}
+				@Override
+				public Verdict getVerdict(State state) {
+					// resolved once on the calling thread, the widget checks only read them
+					TagNameLookup tagsForSuspiciousOracle = tagsForSuspiciousOracle();
+					PatternMatchCache patternMatchCache = patternMatchCache();
+					Pattern suspiciousTitlesPattern = DefaultProtocol.this.suspiciousTitlesPattern;
+					return OracleRegistry.scanWidgets(state,
+							w -> suspiciousStringValueMatcher(w, tagsForSuspiciousOracle, patternMatchCache, suspiciousTitlesPattern),
+							widgetTagsMaterialised());
+				}
+			});
 		}
+		return oracleRegistry;
+	}
 
-		// if everything was OK ...
-		return Verdict.OK;
+	/**
+	 * Whether the tag values of the widgets of a state are computed when the state is built,
+	 * so that the widgets can be queried from several threads. Platforms that fetch tag values
+	 * lazily from the SUT (UIA, WebDriver, AT-SPI, Appium) are queried from the calling thread only.
+	 * @return true if the widgets of large states may be checked in parallel
+	 */
+	protected boolean widgetTagsMaterialised() {
+		return NativeLinker.getPLATFORM_OS().contains(OperatingSystems.SIMULATOR);
 	}
 
-	private Verdict suspiciousStringValueMatcher(Widget w) {
-		Matcher m;
-
-		for(String tagForSuspiciousOracle : settings.get(ConfigTags.TagsForSuspiciousOracle)){
-			String tagValue = "";
-			// First finding the Tag that matches the TagsToFilter string, then getting the value of that Tag:
-			for(Tag<?> tag : w.tags()){
-				if(w.get(tag, null) != null && tag.name().equals(tagForSuspiciousOracle)){
-					// Force the replacement of new line characters to avoid the usage of (?s) regex in the regular expression
-					tagValue = w.get(tag).toString().replace("\n", " ").replace("\r", " ");
-					break;
-					//System.out.println("DEBUG: tag found, "+tagToFilter+"="+tagValue);
-				}
-			}
+	private static Verdict suspiciousStringValueMatcher(Widget w, TagNameLookup tagsForSuspiciousOracle,
+			PatternMatchCache patternMatchCache, Pattern suspiciousTitlesPattern) {
+		for(int i = 0; i < tagsForSuspiciousOracle.size(); i++){
+			String tagValue = tagsForSuspiciousOracle.valueString(w, i);
 
 			//Check whether the Tag value is empty or null
 			if (tagValue == null || tagValue.isEmpty())
 				continue; //no action
 
+			// Force the replacement of new line characters to avoid the usage of (?s) regex in the regular expression
+			tagValue = tagValue.replace("\n", " ").replace("\r", " ");
+
 			//Ignore value ValuePattern for UIAEdit widgets
 			if(tagValue.equals("ValuePattern") && w.get(Tags.Role, Roles.Widget).toString().equalsIgnoreCase("UIAEdit")) {
 				continue;
 			}
 
-			m = this.suspiciousTitlesMatchers.get(tagValue);
-			if (m == null){
-				m = this.suspiciousTitlesPattern.matcher(tagValue);
-				this.suspiciousTitlesMatchers.put(tagValue, m);
-			}
-
-			if (m.matches()){
+			if (patternMatchCache.matches(suspiciousTitlesPattern, tagValue)){
 				Visualizer visualizer = Util.NullVisualizer;
 				Pen RedPen = Pen.newPen().setColor(Color.Red).setFillPattern(FillPattern.None).setStrokePattern(StrokePattern.Solid).build();
 				// visualize the problematic widget, by marking it with a red box
 				if(w.get(Tags.Shape, null) != null)
 					visualizer = new ShapeVisualizer(RedPen, w.get(Tags.Shape), "Suspicious Tag", 0.5, 0.5);
 				return new Verdict(Verdict.SEVERITY_SUSPICIOUS_TAG,
-						"Discovered suspicious widget '" + tagForSuspiciousOracle + "' : '" + tagValue + "'.", visualizer);
+						"Discovered suspicious widget '" + tagsForSuspiciousOracle.name(i) + "' : '" + tagValue + "'.", visualizer);
 			}
 		}
 		return Verdict.OK;
 	}
 
+	/**
+	 * The bounded cache of regular expression match results, shared by the click filter,
+	 * the suspicious tag oracle and the web console oracles.
+	 * @return the cache, sized by the PatternMatchCacheSize setting
+	 */
+	protected PatternMatchCache patternMatchCache() {
+		if (patternMatchCache == null)
+			patternMatchCache = new PatternMatchCache(settings.get(ConfigTags.PatternMatchCacheSize, PatternMatchCache.DEFAULT_MAXIMUM_SIZE));
+		return patternMatchCache;
+	}
+
+	/**
+	 * The tags named by the TagsToFilter setting, resolved once instead of searching
+	 * the tags of every widget. Resolved again when the setting or the set of known tags changes.
+	 * @return the resolved TagsToFilter
+	 */
+	protected TagNameLookup tagsToFilter() {
+		List<String> names = settings.get(ConfigTags.TagsToFilter);
+		if (tagsToFilterLookup == null || !tagsToFilterLookup.isFor(names))
+			tagsToFilterLookup = TagNameLookup.of(names);
+		return tagsToFilterLookup;
+	}
+
+	/**
+	 * The tags named by the TagsForSuspiciousOracle setting, see {@link #tagsToFilter()}.
+	 * @return the resolved TagsForSuspiciousOracle
+	 */
+	protected TagNameLookup tagsForSuspiciousOracle() {
+		List<String> names = settings.get(ConfigTags.TagsForSuspiciousOracle);
+		if (tagsForSuspiciousOracleLookup == null || !tagsForSuspiciousOracleLookup.isFor(names))
+			tagsForSuspiciousOracleLookup = TagNameLookup.of(names);
+		return tagsForSuspiciousOracleLookup;
+	}
+
 	/**
 	 * This methods prepares for deriving actions, but does not really derive them yet. This is left for lower
 	 * level protocols. Here the parameters are set in case unwanted processes need to be killed or the SUT needs to be brought back
@@ -1022,7 +1140,9 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 		// adding the action that is going to be executed into report:
 		reportManager.addSelectedAction(state, action);
 
-		if(NativeLinker.getPLATFORM_OS().contains(OperatingSystems.WEBDRIVER)){
+		if(NativeLinker.getPLATFORM_OS().contains(OperatingSystems.SIMULATOR)){
+			// a simulated SUT has no screen to take the action shot from
+		}else if(NativeLinker.getPLATFORM_OS().contains(OperatingSystems.WEBDRIVER)){
 			//System.out.println("DEBUG: Using WebDriver specific action shot.");
 			WdProtocolUtil.getActionshot(state,action);
 		}else{
@@ -1035,8 +1155,12 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 		try{
 			double halfWait = waitTime == 0 ? 0.01 : waitTime / 2.0; // seconds
 			Util.pause(halfWait); // help for a better match of the state' actions visualization
+			long start = Metrics.start();
 			action.run(system, state, settings.get(ConfigTags.ActionDuration));
-			int waitCycles = (int) (MAX_ACTION_WAIT_FRAME / halfWait);
+			Metrics.stop(Metrics.ACTION_RUN, start);
+			start = Metrics.start();
+			int maxWaitCycles = (int) (MAX_ACTION_WAIT_FRAME / halfWait);
+			int waitCycles = maxWaitCycles;
 			long actionCPU;
 			do {
 				long CPU1[] = NativeLinker.getCPUsage(system);
@@ -1045,6 +1169,8 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 				actionCPU = ( CPU2[0] + CPU2[1] - CPU1[0] - CPU1[1] );
 				waitCycles--;
 			} while (actionCPU > 0 && waitCycles > 0);
+			Metrics.stop(Metrics.ACTION_WAIT, start);
+			Metrics.gauge(Metrics.WAIT_CYCLES, maxWaitCycles - waitCycles);
 
 			//Save the executed action information into the logs
 			saveActionInfoInLogs(state, action, "ExecutedAction");
@@ -1061,7 +1187,9 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 	    reportManager.addSelectedAction(state, action);
 
 	    // Get an action screenshot based on the NativeLinker platform
-	    if(NativeLinker.getPLATFORM_OS().contains(OperatingSystems.WEBDRIVER)) {
+	    if(NativeLinker.getPLATFORM_OS().contains(OperatingSystems.SIMULATOR)) {
+	        // a simulated SUT has no screen to take the action shot from
+	    } else if(NativeLinker.getPLATFORM_OS().contains(OperatingSystems.WEBDRIVER)) {
 	        WdProtocolUtil.getActionshot(state,action);
 	    } else {
 	        ProtocolUtil.getActionshot(state,action);
@@ -1192,13 +1320,26 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 					  + " " + sequencesPath
 					  + " " + status + " \"" + statusInfo + "\"" );
 
+		if (stateModelManager != null) {
+			logger.debug("State model: " + stateModelManager.getStatistics());
+		}
+
 		reportManager.finishReport();
+		Metrics.writeSequenceMetrics(new File(reportManager.getReportFileName() + "_metrics.json"));
 	}
 
 	/**
 	 * method for closing the internal TESTAR test session
 	 */
 	private void closeTestarTestSession(){
+		Metrics.stopServer();
+		NativeLinker.cleanSimulatorOS();
+		if (logOracle != null)
+			logOracle.close();
+		if (patternMatchCache != null)
+			logger.debug(patternMatchCache);
+		if (oracleRegistry != null)
+			logger.debug(oracleRegistry);
 		// Cleaning the JNativeHook native listeners started in initialize()
 		NativeHookManager.unregisterNativeListener(eventHandler);
 	}
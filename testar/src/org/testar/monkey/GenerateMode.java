@@ -37,7 +37,9 @@ import org.testar.monkey.alayer.Action;
 import org.testar.monkey.alayer.SUT;
 import org.testar.monkey.alayer.State;
 import org.testar.monkey.alayer.Verdict;
+import org.testar.metrics.Metrics;
 import org.testar.serialisation.LogSerialiser;
+import org.testar.statemodel.StateModelStatistics;
 
 import java.util.Arrays;
 import java.util.Set;
@@ -187,14 +189,26 @@ public class GenerateMode {
 			Util.clear(protocol.cv);
 
 			//Deriving actions from the state:
+			long start = Metrics.start();
 			Set<Action> actions = protocol.deriveActions(system, state);
+			Metrics.stop(Metrics.DERIVE_ACTIONS, start);
+			start = Metrics.start();
 			protocol.buildStateActionsIdentifiers(state, actions);
+			Metrics.stop(Metrics.BUILD_ACTION_IDENTIFIERS, start);
 
 			// First check if we have some pre select action to execute (retryDeriveAction or ESC)
 			actions = protocol.preSelectAction(system, state, actions);
+			Metrics.gauge(Metrics.ACTIONS_PER_STATE, actions.size());
 
 			// notify to state model the current state
+			start = Metrics.start();
 			protocol.stateModelManager.notifyNewStateReached(state, actions);
+			Metrics.stop(Metrics.STATE_MODEL, start);
+			if (Metrics.isEnabled()) {
+				StateModelStatistics statistics = protocol.stateModelManager.getStatistics();
+				Metrics.gauge(Metrics.ABSTRACT_STATES, statistics.getNrOfStates());
+				Metrics.gauge(Metrics.UNVISITED_ACTIONS, statistics.getNrOfUnvisitedActions());
+			}
 
 			//Showing the green dots if visualization is on:
 			if(protocol.visualizationOn) {
@@ -202,7 +216,9 @@ public class GenerateMode {
 			}
 
 			//Selecting one of the available actions:
+			start = Metrics.start();
 			Action action = protocol.selectAction(state, actions);
+			Metrics.stop(Metrics.SELECT_ACTION, start);
 
 			//Showing the red dot if visualization is on:
 			if(protocol.visualizationOn) {
@@ -213,8 +229,11 @@ public class GenerateMode {
 			protocol.stateModelManager.notifyActionExecution(action);
 
 			//Executing the selected action:
+			start = Metrics.start();
 			protocol.executeAction(system, state, action);
-			DefaultProtocol.lastExecutedAction = action;
+			Metrics.stop(Metrics.EXECUTE_ACTION, start);
+			Metrics.increment(Metrics.ACTIONS_EXECUTED);
+			DefaultProtocol.setLastExecutedAction(action);
 			protocol.actionCount++;
 
 			// Resetting the visualization:
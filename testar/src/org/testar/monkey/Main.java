@@ -329,8 +329,12 @@ public class Main {
 	 */
 	private static void startTestar(Settings settings) {
 
+		// A prebuilt protocol jar replaces the compiled protocols
+		String protocolJar = settings.get(ConfigTags.ProtocolJar, "");
+
 		// Compile the Java protocols if AlwaysCompile setting is true
-		if (settings.get(ConfigTags.AlwaysCompile)) {
+		// Protocols that did not change since their last compilation are not compiled again
+		if (protocolJar.isEmpty() && settings.get(ConfigTags.AlwaysCompile)) {
 			compileProtocol(Main.settingsDir, settings.get(ConfigTags.ProtocolClass), settings.get(ConfigTags.ProtocolCompileDirectory));			
 		}
 
@@ -338,7 +342,7 @@ public class Main {
 
 		try {
 		    List<String> cp = new ArrayList<>(settings.get(MyClassPath));
-			cp.add(settings.get(ConfigTags.ProtocolCompileDirectory));
+			cp.add(protocolJar.isEmpty() ? settings.get(ConfigTags.ProtocolCompileDirectory) : protocolJar);
 			URL[] classPath = new URL[cp.size()];
 			for (int i = 0; i < cp.size(); i++) {
 
@@ -127,7 +127,7 @@ public class RecordMode {
 				protocol.stateModelManager.notifyActionExecution(actionStatus.getAction());
 
 				protocol.saveActionInfoInLogs(state, actionStatus.getAction(), "RecordedAction");
-				DefaultProtocol.lastExecutedAction = actionStatus.getAction();
+				DefaultProtocol.setLastExecutedAction(actionStatus.getAction());
 				protocol.actionCount++;
 			}
 
@@ -0,0 +1,175 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.monkey;
+
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.util.Collection;
+
+import org.testar.monkey.alayer.AWTCanvas;
+import org.testar.monkey.alayer.ImageSimilarity;
+import org.testar.monkey.alayer.Rect;
+import org.testar.monkey.alayer.SUT;
+import org.testar.monkey.alayer.Shape;
+import org.testar.monkey.alayer.State;
+import org.testar.monkey.alayer.Tags;
+import org.testar.monkey.alayer.simulator.SimulatedSUT;
+import org.testar.monkey.alayer.webdriver.WdDriver;
+import org.testar.plugin.NativeLinker;
+import org.testar.plugin.OperatingSystems;
+
+/**
+ * Cheap fingerprints of the SUT, with which Spy mode decides whether the state has to be built again.
+ * Web pages count their DOM mutations, a simulated SUT tells its state and desktop SUTs are compared by a
+ * sample of the pixels of their screen area, in which the TESTAR overlay is masked.
+ * A fingerprint of null means that changes cannot be detected and the state has to be built.
+ */
+final class SpyFingerprint {
+
+	/** Only every SAMPLE_STEP-th pixel of every SAMPLE_STEP-th row is sampled. */
+	static final int SAMPLE_STEP = 4;
+
+	private SpyFingerprint() {}
+
+	/**
+	 * @param system the SUT
+	 * @param state the last state that was built, or null
+	 * @param overlay the areas on which TESTAR paints, they are ignored in screen samples
+	 * @return the fingerprint, or null if it is not available. Compare fingerprints with changed().
+	 */
+	static Object of(SUT system, State state, Collection<Rect> overlay) {
+		if (NativeLinker.getPLATFORM_OS().contains(OperatingSystems.SIMULATOR)) {
+			return system instanceof SimulatedSUT ? ((SimulatedSUT) system).getCurrentStateId() : null;
+		}
+		if (NativeLinker.getPLATFORM_OS().contains(OperatingSystems.WEBDRIVER)) {
+			return WdDriver.executeScript("return getChangeFingerprintTestar()");
+		}
+		if (NativeLinker.getPLATFORM_OS().contains(OperatingSystems.ANDROID)
+				|| NativeLinker.getPLATFORM_OS().contains(OperatingSystems.IOS)
+				|| GraphicsEnvironment.isHeadless() || state == null) {
+			return null;
+		}
+		Shape shape = state.get(Tags.Shape, null);
+		if (shape == null || shape.width() < 1 || shape.height() < 1) {
+			return null;
+		}
+		Rect area = Rect.from(shape.x(), shape.y(), shape.width(), shape.height());
+		long windowHandle = state.childCount() > 0 ? state.child(0).get(Tags.HWND, 0L) : 0;
+		try {
+			AWTCanvas screenshot = AWTCanvas.fromScreenshot(area, windowHandle);
+			return sample(screenshot.image(), area, overlay);
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param previous an earlier fingerprint, or null
+	 * @param current the current fingerprint, or null
+	 * @return false only if both fingerprints are known and show the same SUT
+	 */
+	static boolean changed(Object previous, Object current) {
+		if (previous == null || current == null) {
+			return true;
+		}
+		if (previous instanceof ScreenSample && current instanceof ScreenSample) {
+			return ((ScreenSample) previous).differsFrom((ScreenSample) current);
+		}
+		return !previous.equals(current);
+	}
+
+	/**
+	 * Samples the pixels of a screenshot and marks the samples that are covered by the overlay.
+	 * @param image the screenshot, possibly scaled to the display
+	 * @param area the area of the screen in the image
+	 * @param overlay the areas to ignore, in screen coordinates
+	 * @return the sample
+	 */
+	static ScreenSample sample(BufferedImage image, Rect area, Collection<Rect> overlay) {
+		int width = image.getWidth(), height = image.getHeight();
+		int columns = (width + SAMPLE_STEP - 1) / SAMPLE_STEP, rows = (height + SAMPLE_STEP - 1) / SAMPLE_STEP;
+		double scaleX = width / area.width(), scaleY = height / area.height();
+		ScreenSample sample = new ScreenSample(area, columns, rows);
+
+		// mark the masked samples once, instead of testing every sample against every overlay area
+		for (Rect r : overlay) {
+			int c1 = Math.max(0, (int) Math.floor((r.x() - area.x()) * scaleX / SAMPLE_STEP));
+			int r1 = Math.max(0, (int) Math.floor((r.y() - area.y()) * scaleY / SAMPLE_STEP));
+			int c2 = Math.min(columns - 1, (int) Math.ceil((r.x() + r.width() - area.x()) * scaleX / SAMPLE_STEP));
+			int r2 = Math.min(rows - 1, (int) Math.ceil((r.y() + r.height() - area.y()) * scaleY / SAMPLE_STEP));
+			for (int row = r1; row <= r2; row++) {
+				for (int column = c1; column <= c2; column++) {
+					sample.masked[row * columns + column] = true;
+				}
+			}
+		}
+
+		int[] pixels = ImageSimilarity.pixels(image);
+		for (int row = 0; row < rows; row++) {
+			int line = row * SAMPLE_STEP * width;
+			for (int column = 0; column < columns; column++) {
+				sample.pixels[row * columns + column] = pixels[line + column * SAMPLE_STEP];
+			}
+		}
+		return sample;
+	}
+
+	/**
+	 * Sampled pixels of the screen. As the overlay follows the mouse cursor, two samples are compared on the
+	 * pixels that neither of them has masked.
+	 */
+	static final class ScreenSample {
+		private final Rect area;
+		private final int columns, rows;
+		private final int[] pixels;
+		private final boolean[] masked;
+
+		private ScreenSample(Rect area, int columns, int rows) {
+			this.area = area;
+			this.columns = columns;
+			this.rows = rows;
+			pixels = new int[columns * rows];
+			masked = new boolean[columns * rows];
+		}
+
+		boolean differsFrom(ScreenSample other) {
+			if (!area.equals(other.area) || columns != other.columns || rows != other.rows) {
+				return true;
+			}
+			for (int i = 0; i < pixels.length; i++) {
+				if (pixels[i] != other.pixels[i] && !masked[i] && !other.masked[i]) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -30,12 +30,16 @@
 
 package org.testar.monkey;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import org.testar.SutVisualization;
 import org.testar.SystemProcessHandling;
 import org.testar.monkey.RuntimeControlsProtocol.Modes;
 import org.testar.monkey.alayer.Action;
+import org.testar.monkey.alayer.DisplayList;
+import org.testar.monkey.alayer.Rect;
 import org.testar.monkey.alayer.SUT;
 import org.testar.monkey.alayer.State;
 import org.testar.monkey.alayer.android.AndroidProtocolUtil;
@@ -47,6 +51,12 @@ import org.testar.plugin.OperatingSystems;
 
 public class SpyMode {
 
+	/** The interval in which the overlay follows the mouse cursor. */
+	private static final long FRAME_MS = 100;
+
+	/** The number of state checks without change after which the state is built anyway. */
+	private static final int MAX_REUSE = 10;
+
 	/**
 	 * Run TESTAR on Spy Mode.
 	 */
@@ -70,43 +80,78 @@ public class SpyMode {
 			mobileVisualizationIOS = new MobileVisualizationIOS(IOSProtocolUtil.getStateshotSpyMode(state), state);
 		}
 
+		State state = null;
+		Set<Action> actions = null;
+		Object fingerprint = null;
+		int reused = 0;
+		DisplayList frame = null;
+		long nextStateCheck = 0;
+
 		while(protocol.mode() == Modes.Spy && system.isRunning()) {
 
-			State state = protocol.getState(system);
-			protocol.cv.begin();
-			Util.clear(protocol.cv);
+			int msRefresh = (int)(protocol.settings().get(ConfigTags.RefreshSpyCanvas, 0.5) * 1000);
+			long now = System.currentTimeMillis();
+
+			if (now >= nextStateCheck) {
+				// only build the state again if the SUT shows a change, or after a while to catch missed changes
+				Object current = state == null ? null : SpyFingerprint.of(system, state, overlay(frame));
+				boolean changed = SpyFingerprint.changed(fingerprint, current);
+				if (changed || reused >= MAX_REUSE) {
+					state = protocol.getState(system);
+					actions = protocol.deriveActions(system, state);
+					protocol.buildStateActionsIdentifiers(state, actions);
+					// the fingerprint is taken again, as building the state may change what it measures
+					fingerprint = SpyFingerprint.of(system, state, overlay(frame));
+					reused = 0;
+					if (changed) {
+						// the SUT may have cleared the canvas (e.g. a new web page), so the next frame is painted in full
+						frame = null;
+					}
+
+					//TODO: can we work this into sutvisualization/ canvas?
+					if (NativeLinker.getPLATFORM_OS().contains(OperatingSystems.ANDROID)) {
+						assert mobileVisualizationAndroid != null;
+						mobileVisualizationAndroid.updateStateVisualization(state);
+					} else if (NativeLinker.getPLATFORM_OS().contains(OperatingSystems.IOS)) {
+						assert mobileVisualizationIOS != null;
+						mobileVisualizationIOS.updateStateVisualization(state);
+					}
+				} else {
+					reused++;
+				}
+				// a slow SUT is not checked more often than it takes to build its state
+				long end = System.currentTimeMillis();
+				nextStateCheck = end + Math.max(msRefresh, end - now);
+			}
 
-			Set<Action> actions = protocol.deriveActions(system, state);
-			protocol.buildStateActionsIdentifiers(state, actions);
+			if (!NativeLinker.getPLATFORM_OS().contains(OperatingSystems.ANDROID)
+					&& !NativeLinker.getPLATFORM_OS().contains(OperatingSystems.IOS)) {
+				// the widget info under the mouse cursor changes with every frame, so the overlay is recorded
+				// and only the regions that differ from the previous frame are painted again
+				DisplayList next = new DisplayList(protocol.cv);
 
-			//TODO: can we work this into sutvisualization/ canvas?
-			if (NativeLinker.getPLATFORM_OS().contains(OperatingSystems.ANDROID)) {
-				assert mobileVisualizationAndroid != null;
-				mobileVisualizationAndroid.updateStateVisualization(state);
-			} else if (NativeLinker.getPLATFORM_OS().contains(OperatingSystems.IOS)) {
-				assert mobileVisualizationIOS != null;
-				mobileVisualizationIOS.updateStateVisualization(state);
-			}
-			else {
 				//in Spy-mode, always visualize the widget info under the mouse cursor:
 				SutVisualization.visualizeState(protocol.visualizationOn,
 						protocol.markParentWidget,
 						protocol.mouse,
 						protocol.lastPrintParentsOf,
-						protocol.cv,
+						next,
 						state);
 
 				//in Spy-mode, always visualize the green dots:
-				protocol.visualizeActions(protocol.cv, state, actions);
-			}
+				protocol.visualizeActions(next, state, actions);
 
-			protocol.cv.end();
-
-			int msRefresh = (int)(protocol.settings().get(ConfigTags.RefreshSpyCanvas, 0.5) * 1000);
+				if (frame == null) {
+					next.paint();
+				} else {
+					next.paint(frame);
+				}
+				frame = next;
+			}
 
 			synchronized (this) {
 				try {
-					this.wait(msRefresh);
+					this.wait(Math.max(1, Math.min(FRAME_MS, nextStateCheck - System.currentTimeMillis())));
 				} catch (InterruptedException e) {
 					e.printStackTrace();
 				}
@@ -143,4 +188,8 @@ public class SpyMode {
 		//Stop and close the SUT before return to the detectModeLoop
 		protocol.stopSystem(system);
 	}
+
+	private static List<Rect> overlay(DisplayList frame) {
+		return frame == null ? Collections.<Rect>emptyList() : frame.bounds();
+	}
 }
@@ -0,0 +1,583 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.oracles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Matches values (log lines, process output) against several precompiled regular expressions at once.
+ *
+ * For every pattern the literals are extracted of which any match must contain at least one,
+ * for example "xception" and "rror" for <code>.*([Ee]xception|[Ee]rror).*</code>.
+ * All these literals are combined in one Aho-Corasick automaton, so a single scan of a value tells
+ * which patterns can possibly match it. Only those patterns are confirmed with the regular expression.
+ * Patterns without such literals (lookarounds, <code>.*.*</code>, ...) are always confirmed.
+ *
+ * Large lists of values are matched in parallel. Per pattern the number of regular expression
+ * confirmations and hits is counted, together with the total time spent matching.
+ */
+public class MultiPatternMatcher {
+
+    // Lists of values of at least this size are matched in parallel
+    public static final int PARALLEL_THRESHOLD = 4096;
+    // Shorter literals would make almost every value a candidate
+    static final int MIN_LITERAL_LENGTH = 3;
+
+    private final Pattern[] patterns;
+    private final boolean[] prefiltered;
+    private final LiteralAutomaton caseSensitive;
+    private final LiteralAutomaton caseInsensitive;
+
+    private final LongAdder[] confirmations;
+    private final LongAdder[] hits;
+    private final LongAdder values = new LongAdder();
+    private final LongAdder matchNanos = new LongAdder();
+
+    public MultiPatternMatcher(Pattern... patterns) {
+        this(Arrays.asList(patterns));
+    }
+
+    /**
+     * @param patterns the patterns, in order of priority
+     */
+    public MultiPatternMatcher(List<Pattern> patterns) {
+        this.patterns = patterns.toArray(new Pattern[patterns.size()]);
+        this.prefiltered = new boolean[this.patterns.length];
+        this.confirmations = new LongAdder[this.patterns.length];
+        this.hits = new LongAdder[this.patterns.length];
+
+        LiteralAutomaton sensitive = new LiteralAutomaton();
+        LiteralAutomaton insensitive = new LiteralAutomaton();
+        for (int i = 0; i < this.patterns.length; i++) {
+            confirmations[i] = new LongAdder();
+            hits[i] = new LongAdder();
+            Pattern pattern = this.patterns[i];
+            boolean ignoreCase = ignoresCase(pattern);
+            List<String> literals = requiredLiterals(pattern);
+            if (literals != null) {
+                prefiltered[i] = true;
+                for (String literal : literals) {
+                    (ignoreCase ? insensitive : sensitive).add(literal, i);
+                }
+            }
+        }
+        this.caseSensitive = sensitive.isEmpty() ? null : sensitive.build(this.patterns.length);
+        this.caseInsensitive = insensitive.isEmpty() ? null : insensitive.build(this.patterns.length);
+    }
+
+    public int size() {
+        return patterns.length;
+    }
+
+    public Pattern pattern(int index) {
+        return patterns[index];
+    }
+
+    /**
+     * @param index index of a pattern
+     * @return whether values are only confirmed with the pattern if they contain one of its literals
+     */
+    public boolean isPrefiltered(int index) {
+        return prefiltered[index];
+    }
+
+    /**
+     * Returns the first pattern of which the regular expression matches the entire <code>value</code>.
+     *
+     * @param value the value to match
+     * @return index of the first matching pattern, or -1 if no pattern matches
+     */
+    public int firstMatch(String value) {
+        long start = System.nanoTime();
+        int match = match(value);
+        matchNanos.add(System.nanoTime() - start);
+        values.increment();
+        return match;
+    }
+
+    /**
+     * {@link #firstMatch(String)} for every value. Large lists are matched in parallel batches.
+     *
+     * @param values the values to match
+     * @return per value the index of the first matching pattern, or -1 if no pattern matches
+     */
+    public int[] firstMatches(List<String> values) {
+        long start = System.nanoTime();
+        int[] matches = new int[values.size()];
+        IntStream indices = IntStream.range(0, matches.length);
+        if (matches.length >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> matches[i] = match(values.get(i)));
+        matchNanos.add(System.nanoTime() - start);
+        this.values.add(matches.length);
+        return matches;
+    }
+
+    private int match(String value) {
+        boolean[] candidates = null;
+        if (caseSensitive != null || caseInsensitive != null) {
+            candidates = new boolean[patterns.length];
+            if (caseSensitive != null) {
+                caseSensitive.scan(value, candidates);
+            }
+            if (caseInsensitive != null) {
+                caseInsensitive.scan(value.toLowerCase(Locale.ROOT), candidates);
+            }
+        }
+        for (int i = 0; i < patterns.length; i++) {
+            if (prefiltered[i] && !candidates[i]) {
+                continue;
+            }
+            confirmations[i].increment();
+            if (patterns[i].matcher(value).matches()) {
+                hits[i].increment();
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** @return the number of matched values */
+    public long values() {
+        return values.sum();
+    }
+
+    /**
+     * @param index index of a pattern
+     * @return the number of values confirmed with the regular expression of the pattern
+     */
+    public long confirmations(int index) {
+        return confirmations[index].sum();
+    }
+
+    /**
+     * @param index index of a pattern
+     * @return the number of values for which the pattern was the first match
+     */
+    public long hits(int index) {
+        return hits[index].sum();
+    }
+
+    /** @return the total time spent matching, in nanoseconds */
+    public long matchNanos() {
+        return matchNanos.sum();
+    }
+
+    /** @return the average time spent matching a value, in nanoseconds */
+    public double averageMatchNanos() {
+        long values = values();
+        return values == 0 ? 0 : (double) matchNanos() / values;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("MultiPatternMatcher values=%d avgMatchNanos=%.0f", values(), averageMatchNanos()));
+        for (int i = 0; i < patterns.length; i++) {
+            sb.append(String.format(" [%s prefiltered=%b confirmations=%d hits=%d]",
+                    patterns[i].pattern(), prefiltered[i], confirmations(i), hits(i)));
+        }
+        return sb.toString();
+    }
+
+    private static boolean ignoresCase(Pattern pattern) {
+        return (pattern.flags() & Pattern.CASE_INSENSITIVE) != 0 || pattern.pattern().startsWith("(?i)");
+    }
+
+    /**
+     * Extracts literals of which every match of <code>pattern</code> contains at least one.
+     * The literals are lower case if the pattern ignores case.
+     *
+     * @param pattern the regular expression
+     * @return the literals, or null if they could not be determined
+     */
+    static List<String> requiredLiterals(Pattern pattern) {
+        int flags = pattern.flags();
+        if ((flags & (Pattern.COMMENTS | Pattern.CANON_EQ)) != 0) {
+            return null;
+        }
+        String regex = pattern.pattern();
+        boolean ignoreCase = ignoresCase(pattern);
+        if (regex.startsWith("(?i)")) {
+            regex = regex.substring(4);
+        }
+        List<String> literals;
+        if ((flags & Pattern.LITERAL) != 0) {
+            literals = Arrays.asList(regex);
+        }
+        else {
+            try {
+                RegexScanner scanner = new RegexScanner(regex);
+                Set<String> required = scanner.alternation();
+                literals = scanner.atEnd() && required != null ? new ArrayList<>(required) : null;
+            }
+            catch (UnsupportedOperationException e) {
+                return null;
+            }
+        }
+        if (literals == null) {
+            return null;
+        }
+        List<String> result = new ArrayList<>(literals.size());
+        for (String literal : literals) {
+            if (literal.length() < MIN_LITERAL_LENGTH) {
+                return null;
+            }
+            if (ignoreCase) {
+                for (int i = 0; i < literal.length(); i++) {
+                    // Case folding of other characters does not need to be the same as toLowerCase
+                    if (literal.charAt(i) > 127) {
+                        return null;
+                    }
+                }
+                literal = literal.toLowerCase(Locale.ROOT);
+            }
+            result.add(literal);
+        }
+        return result;
+    }
+
+    /**
+     * A conservative recursive descent over the syntax of a regular expression, that determines for
+     * each (sub)expression a set of literals of which any match contains at least one, or null if
+     * there is no such set. Unsupported constructs throw an UnsupportedOperationException.
+     */
+    private static final class RegexScanner {
+        private final String regex;
+        private int pos;
+
+        RegexScanner(String regex) {
+            this.regex = regex;
+        }
+
+        boolean atEnd() {
+            return pos == regex.length();
+        }
+
+        // alternation := sequence ('|' sequence)*
+        Set<String> alternation() {
+            Set<String> result = sequence();
+            while (pos < regex.length() && regex.charAt(pos) == '|') {
+                pos++;
+                Set<String> alternative = sequence();
+                if (result == null || alternative == null) {
+                    result = null;
+                }
+                else {
+                    result.addAll(alternative);
+                }
+            }
+            return result;
+        }
+
+        // sequence := (atom quantifier?)*, the best candidate is the set with the longest shortest literal
+        Set<String> sequence() {
+            Set<String> best = null;
+            StringBuilder run = new StringBuilder();
+            while (pos < regex.length()) {
+                char c = regex.charAt(pos);
+                if (c == '|' || c == ')') {
+                    break;
+                }
+                Set<String> group = null;
+                String literal = null;
+                if (c == '(') {
+                    pos++;
+                    if (regex.startsWith("?:", pos)) {
+                        pos += 2;
+                    }
+                    else if (pos < regex.length() && regex.charAt(pos) == '?') {
+                        // lookarounds, named groups, inline flags
+                        throw new UnsupportedOperationException();
+                    }
+                    group = alternation();
+                    if (pos >= regex.length() || regex.charAt(pos) != ')') {
+                        throw new UnsupportedOperationException();
+                    }
+                    pos++;
+                }
+                else if (c == '[') {
+                    skipCharacterClass();
+                }
+                else if (c == '\\') {
+                    literal = escape();
+                }
+                else if (c == '.' || c == '^' || c == '$') {
+                    pos++;
+                }
+                else if (c == '*' || c == '+' || c == '?' || c == '{') {
+                    throw new UnsupportedOperationException();
+                }
+                else {
+                    literal = String.valueOf(c);
+                    pos++;
+                }
+
+                int quantifier = quantifier();
+                if (quantifier == OPTIONAL) {
+                    best = better(best, flush(run));
+                    continue;
+                }
+                if (literal != null) {
+                    run.append(literal);
+                }
+                else {
+                    best = better(best, flush(run));
+                    best = better(best, group);
+                }
+                if (quantifier == REPEATED) {
+                    best = better(best, flush(run));
+                }
+            }
+            return better(best, flush(run));
+        }
+
+        private static final int ONCE = 0, OPTIONAL = 1, REPEATED = 2;
+
+        private int quantifier() {
+            if (pos >= regex.length()) {
+                return ONCE;
+            }
+            char c = regex.charAt(pos);
+            int result;
+            if (c == '*' || c == '?') {
+                pos++;
+                result = OPTIONAL;
+            }
+            else if (c == '+') {
+                pos++;
+                result = REPEATED;
+            }
+            else if (c == '{') {
+                int end = regex.indexOf('}', pos);
+                if (end < 0) {
+                    throw new UnsupportedOperationException();
+                }
+                String min = regex.substring(pos + 1, end).split(",", -1)[0].trim();
+                pos = end + 1;
+                result = min.isEmpty() || Integer.parseInt(min) == 0 ? OPTIONAL : REPEATED;
+            }
+            else {
+                return ONCE;
+            }
+            // lazy or possessive
+            if (pos < regex.length() && (regex.charAt(pos) == '?' || regex.charAt(pos) == '+')) {
+                pos++;
+            }
+            return result;
+        }
+
+        private String escape() {
+            pos++;
+            if (pos >= regex.length()) {
+                throw new UnsupportedOperationException();
+            }
+            char c = regex.charAt(pos);
+            if (c == 'Q') {
+                int end = regex.indexOf("\\E", pos + 1);
+                String quoted = end < 0 ? regex.substring(pos + 1) : regex.substring(pos + 1, end);
+                pos = end < 0 ? regex.length() : end + 2;
+                return quoted;
+            }
+            pos++;
+            if (Character.isLetterOrDigit(c)) {
+                if (c == 'p' || c == 'P' || c == 'N' || c == 'k') {
+                    skipBraces();
+                }
+                else if (c == 'x' || c == 'u' || c == 'c' || c == '0') {
+                    // character codes are not resolved to literals
+                    throw new UnsupportedOperationException();
+                }
+                return null;
+            }
+            return String.valueOf(c);
+        }
+
+        private void skipBraces() {
+            if (pos < regex.length() && (regex.charAt(pos) == '{' || regex.charAt(pos) == '<')) {
+                int end = regex.indexOf(regex.charAt(pos) == '{' ? '}' : '>', pos);
+                if (end < 0) {
+                    throw new UnsupportedOperationException();
+                }
+                pos = end + 1;
+            }
+            else if (pos < regex.length()) {
+                pos++;
+            }
+        }
+
+        private void skipCharacterClass() {
+            int depth = 0;
+            pos++;
+            // a ']' directly after '[' or '[^' is a literal
+            if (pos < regex.length() && regex.charAt(pos) == '^') {
+                pos++;
+            }
+            if (pos < regex.length() && regex.charAt(pos) == ']') {
+                pos++;
+            }
+            while (pos < regex.length()) {
+                char c = regex.charAt(pos++);
+                if (c == '\\') {
+                    pos++;
+                }
+                else if (c == '[') {
+                    depth++;
+                }
+                else if (c == ']') {
+                    if (depth == 0) {
+                        return;
+                    }
+                    depth--;
+                }
+            }
+            throw new UnsupportedOperationException();
+        }
+
+        private static Set<String> flush(StringBuilder run) {
+            if (run.length() == 0) {
+                return null;
+            }
+            Set<String> result = new LinkedHashSet<>();
+            result.add(run.toString());
+            run.setLength(0);
+            return result;
+        }
+
+        private static Set<String> better(Set<String> a, Set<String> b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            return shortest(b) > shortest(a) ? b : a;
+        }
+
+        private static int shortest(Set<String> literals) {
+            int shortest = Integer.MAX_VALUE;
+            for (String literal : literals) {
+                shortest = Math.min(shortest, literal.length());
+            }
+            return shortest;
+        }
+    }
+
+    /**
+     * Aho-Corasick automaton over the literals of the patterns.
+     */
+    private static final class LiteralAutomaton {
+        private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+        private final List<Set<Integer>> outputs = new ArrayList<>();
+        private int[] fail;
+        private int[][] output;
+
+        LiteralAutomaton() {
+            newNode();
+        }
+
+        boolean isEmpty() {
+            return transitions.size() == 1;
+        }
+
+        private int newNode() {
+            transitions.add(new HashMap<>());
+            outputs.add(new LinkedHashSet<>());
+            return transitions.size() - 1;
+        }
+
+        void add(String literal, int patternIndex) {
+            int node = 0;
+            for (int i = 0; i < literal.length(); i++) {
+                Integer next = transitions.get(node).get(literal.charAt(i));
+                if (next == null) {
+                    next = newNode();
+                    transitions.get(node).put(literal.charAt(i), next);
+                }
+                node = next;
+            }
+            outputs.get(node).add(patternIndex);
+        }
+
+        LiteralAutomaton build(int patterns) {
+            fail = new int[transitions.size()];
+            // breadth first, so the fail node of a node is complete before the node
+            List<Integer> queue = new ArrayList<>();
+            for (int child : transitions.get(0).values()) {
+                queue.add(child);
+            }
+            for (int q = 0; q < queue.size(); q++) {
+                int node = queue.get(q);
+                for (Map.Entry<Character, Integer> edge : transitions.get(node).entrySet()) {
+                    int child = edge.getValue();
+                    int f = fail[node];
+                    while (f != 0 && !transitions.get(f).containsKey(edge.getKey())) {
+                        f = fail[f];
+                    }
+                    Integer target = transitions.get(f).get(edge.getKey());
+                    fail[child] = target != null && target != child ? target : 0;
+                    outputs.get(child).addAll(outputs.get(fail[child]));
+                    queue.add(child);
+                }
+            }
+            output = new int[outputs.size()][];
+            for (int i = 0; i < output.length; i++) {
+                output[i] = outputs.get(i).stream().mapToInt(Integer::intValue).toArray();
+            }
+            return this;
+        }
+
+        void scan(String text, boolean[] candidates) {
+            int node = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                Integer next;
+                while ((next = transitions.get(node).get(c)) == null && node != 0) {
+                    node = fail[node];
+                }
+                node = next == null ? 0 : next;
+                for (int patternIndex : output[node]) {
+                    candidates[patternIndex] = true;
+                }
+            }
+        }
+    }
+}
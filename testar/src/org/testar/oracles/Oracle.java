@@ -53,4 +53,10 @@ public interface Oracle {
      * @return verdict
      */
     public abstract Verdict getVerdict(State state);
+
+    /**
+     * Release the resources of the Oracle, for example files or processes it monitors.
+     */
+    public default void close() {
+    }
 }
@@ -0,0 +1,217 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.oracles;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.testar.monkey.alayer.State;
+import org.testar.monkey.alayer.Verdict;
+import org.testar.monkey.alayer.Widget;
+import org.testar.monkey.alayer.WidgetTraversal;
+
+/**
+ * An ordered registry of independent oracles, that evaluates them concurrently on the
+ * work-stealing common ForkJoinPool.
+ *
+ * The verdicts are combined deterministically: the verdict with the highest severity wins, and of
+ * verdicts with the same severity the one of the oracle registered first. The evaluation time of
+ * every oracle is recorded.
+ */
+public class OracleRegistry {
+
+    // States with at least this number of widgets are scanned in parallel by scanWidgets
+    public static final int PARALLEL_WIDGET_THRESHOLD = 512;
+
+    private final Map<String, Entry> oracles = new LinkedHashMap<>();
+
+    /**
+     * Register an oracle, or replace the oracle that was registered with the same name.
+     * A replaced oracle keeps its position and timing statistics.
+     *
+     * @param name unique name of the oracle
+     * @param oracle the oracle
+     */
+    public synchronized void register(String name, Oracle oracle) {
+        Objects.requireNonNull(oracle);
+        Entry entry = oracles.get(name);
+        if (entry == null) {
+            oracles.put(name, new Entry(name, oracle));
+        }
+        else {
+            entry.oracle = oracle;
+        }
+    }
+
+    /**
+     * @param name name of the oracle
+     * @return the removed oracle, or null if no oracle was registered with that name
+     */
+    public synchronized Oracle unregister(String name) {
+        Entry entry = oracles.remove(name);
+        return entry == null ? null : entry.oracle;
+    }
+
+    public synchronized List<String> names() {
+        return new ArrayList<>(oracles.keySet());
+    }
+
+    /**
+     * Evaluate all registered oracles concurrently and combine their verdicts.
+     *
+     * @param state the state to evaluate
+     * @return the verdict with the highest severity, Verdict.OK if there are no oracles
+     */
+    public Verdict getVerdict(State state) {
+        List<Entry> entries;
+        synchronized (this) {
+            entries = new ArrayList<>(oracles.values());
+        }
+        if (entries.isEmpty()) {
+            return Verdict.OK;
+        }
+
+        // fork all but the first oracle, which is evaluated by the calling thread
+        List<ForkJoinTask<Verdict>> tasks = new ArrayList<>(entries.size() - 1);
+        for (int i = 1; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            tasks.add(ForkJoinTask.adapt(() -> entry.evaluate(state)).fork());
+        }
+        Verdict[] verdicts = new Verdict[entries.size()];
+        verdicts[0] = entries.get(0).evaluate(state);
+        for (int i = 1; i < verdicts.length; i++) {
+            verdicts[i] = tasks.get(i - 1).join();
+        }
+
+        Verdict result = verdicts[0];
+        for (int i = 1; i < verdicts.length; i++) {
+            if (verdicts[i].severity() > result.severity()) {
+                result = verdicts[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param name name of the oracle
+     * @return the time (ns) the last evaluation of the oracle took, -1 if it is unknown
+     */
+    public synchronized long lastNanos(String name) {
+        Entry entry = oracles.get(name);
+        return entry == null ? -1 : entry.lastNanos;
+    }
+
+    /**
+     * @param name name of the oracle
+     * @return the total time (ns) spent evaluating the oracle, -1 if it is unknown
+     */
+    public synchronized long totalNanos(String name) {
+        Entry entry = oracles.get(name);
+        return entry == null ? -1 : entry.totalNanos.sum();
+    }
+
+    /**
+     * @return the evaluation times of the oracles
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("OracleRegistry");
+        for (Entry entry : oracles.values()) {
+            long evaluations = entry.evaluations.sum();
+            sb.append(String.format(" [%s evaluations=%d lastMs=%.3f avgMs=%.3f]", entry.name, evaluations,
+                    entry.lastNanos / 1e6, evaluations == 0 ? 0 : entry.totalNanos.sum() / 1e6 / evaluations));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Checks the widgets of a state in breadth-first order, and returns the verdict of the first widget
+     * that is not OK. If <code>parallel</code> is set, states with many widgets are split over the common
+     * ForkJoinPool, the result is the same as for a sequential scan. Only scan in parallel if the tag values
+     * of the widgets are already materialised: platforms that fetch tag values lazily (UIA, WebDriver,
+     * AT-SPI, Appium) would do native lookups from the pool threads, and <code>check</code> must be safe to
+     * apply to different widgets concurrently.
+     *
+     * @param state the state to scan
+     * @param check the oracle for a single widget
+     * @param parallel whether large states may be scanned by the ForkJoinPool
+     * @return the verdict of the first widget that is not OK, or Verdict.OK
+     */
+    public static Verdict scanWidgets(State state, Function<Widget, Verdict> check, boolean parallel) {
+        WidgetTraversal traversal = state.traversal();
+        if (!parallel || traversal.size() < PARALLEL_WIDGET_THRESHOLD) {
+            for (Widget widget : traversal) {
+                Verdict verdict = check.apply(widget);
+                if (verdict.severity() > Verdict.SEVERITY_OK) {
+                    return verdict;
+                }
+            }
+            return Verdict.OK;
+        }
+        return traversal.parallelStream()
+                .map(check)
+                .filter(verdict -> verdict.severity() > Verdict.SEVERITY_OK)
+                .findFirst()
+                .orElse(Verdict.OK);
+    }
+
+    private static final class Entry {
+        final String name;
+        volatile Oracle oracle;
+        volatile long lastNanos = -1;
+        final LongAdder totalNanos = new LongAdder();
+        final LongAdder evaluations = new LongAdder();
+
+        Entry(String name, Oracle oracle) {
+            this.name = name;
+            this.oracle = oracle;
+        }
+
+        Verdict evaluate(State state) {
+            long start = System.nanoTime();
+            try {
+                Verdict verdict = oracle.getVerdict(state);
+                return verdict == null ? Verdict.OK : verdict;
+            }
+            finally {
+                lastNanos = System.nanoTime() - start;
+                totalNanos.add(lastNanos);
+                evaluations.increment();
+            }
+        }
+    }
+}
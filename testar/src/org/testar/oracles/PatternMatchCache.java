@@ -0,0 +1,244 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.oracles;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded, thread-safe cache of the results of matching a value against a regular expression.
+ * The click filter, the suspicious tag oracle and the web console oracles match the same
+ * values (widget titles, console messages) against the same patterns over and over.
+ * Only the boolean result is cached, the least recently used entries are evicted
+ * once <code>maximumSize</code> is reached.
+ *
+ * Caches of at least <code>STRIPED_MINIMUM_SIZE</code> entries are split by key hash into
+ * <code>STRIPES</code> segments with their own lock, so that concurrent oracles and widget scans
+ * rarely wait for each other. Eviction is then least recently used per segment.
+ */
+public class PatternMatchCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+    static final int STRIPES = 16;
+    static final int STRIPED_MINIMUM_SIZE = 1024;
+
+    private final int maximumSize;
+    private final Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PatternMatchCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param maximumSize maximum number of cached results, 0 disables caching
+     */
+    public PatternMatchCache(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must not be negative: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        int stripes = maximumSize >= STRIPED_MINIMUM_SIZE ? STRIPES : 1;
+        this.segments = new Segment[stripes];
+        for (int i = 0; i < stripes; i++) {
+            // the first segments take the remainder, so that the sizes add up to maximumSize
+            segments[i] = new Segment(maximumSize / stripes + (i < maximumSize % stripes ? 1 : 0));
+        }
+    }
+
+    /**
+     * Whether the entire <code>value</code> matches <code>pattern</code>, see {@link java.util.regex.Matcher#matches()}.
+     * Patterns compiled from the same expression and flags share their cached results.
+     *
+     * @param pattern the regular expression
+     * @param value the value to match
+     * @return true if <code>value</code> matches
+     */
+    public boolean matches(Pattern pattern, String value) {
+        Key key = new Key(pattern, value);
+        Segment segment = segmentFor(key);
+        Boolean result;
+        synchronized (segment) {
+            result = segment.get(key);
+        }
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+        misses.increment();
+        // match outside the lock, a concurrent miss on the same key computes the same result
+        boolean matches = pattern.matcher(value).matches();
+        if (maximumSize > 0) {
+            synchronized (segment) {
+                segment.put(key, matches);
+            }
+        }
+        return matches;
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the ratio of lookups answered from the cache, 1 if there were no lookups
+     */
+    public double hitRate() {
+        long hits = hits();
+        long total = hits + misses();
+        return total == 0 ? 1.0 : (double) hits / total;
+    }
+
+    /**
+     * Removes the cached results of <code>pattern</code>, for instance after the setting it was compiled from changed.
+     *
+     * @param pattern the regular expression
+     */
+    public void invalidate(Pattern pattern) {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                Iterator<Key> it = segment.keySet().iterator();
+                while (it.hasNext()) {
+                    if (it.next().isFor(pattern)) {
+                        it.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PatternMatchCache size=%d/%d hits=%d misses=%d evictions=%d hitRate=%.3f",
+                size(), maximumSize, hits(), misses(), evictions(), hitRate());
+    }
+
+    private Segment segmentFor(Key key) {
+        int h = key.hash;
+        h ^= h >>> 16;
+        return segments[(h & 0x7fffffff) % segments.length];
+    }
+
+    /**
+     * A least recently used map of a part of the keys, guarded by its own monitor.
+     */
+    private final class Segment extends LinkedHashMap<Key, Boolean> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Key {
+        private final String expression;
+        private final int flags;
+        private final String value;
+        private final int hash;
+
+        Key(Pattern pattern, String value) {
+            this.expression = pattern.pattern();
+            this.flags = pattern.flags();
+            this.value = value;
+            this.hash = (expression.hashCode() * 31 + flags) * 31 + value.hashCode();
+        }
+
+        boolean isFor(Pattern pattern) {
+            return flags == pattern.flags() && expression.equals(pattern.pattern());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && flags == other.flags
+                    && value.equals(other.value) && expression.equals(other.expression);
+        }
+    }
+}
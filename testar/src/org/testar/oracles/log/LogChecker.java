@@ -62,6 +62,13 @@ public abstract class LogChecker {
      */
     public abstract List<String> readAndCheck();
 
+    /**
+     * This method should be called by the LogOracle when it is no longer used, so that the LogChecker
+     * can release the files it keeps open and stop the commands it started.
+     */
+    public void close() {
+    }
+
     /**
      * A utility method to get a BufferedReader for a file by its name.
      *
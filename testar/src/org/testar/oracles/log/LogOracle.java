@@ -45,6 +45,7 @@ import org.testar.settings.Settings;
  *  LogOracleRegex: a regular expression that matches suspicious messages
  *  LogOracleFiles: a list of absolute paths of log files to monitor
  *  LogOracleCommands: a list of commands of which standard output should be monitored.
+ *  LogOracleWatchFiles: only examine the log files after the file system reported a change.
  *
  */
 
@@ -56,13 +57,18 @@ public class LogOracle implements Oracle {
         List<String> files = settings.get(ConfigTags.LogOracleFiles);
         List<String> commands = settings.get(ConfigTags.LogOracleCommands);
         LogErrorDetector detector = new RegexLogErrorDetector(settings.get(ConfigTags.LogOracleRegex));
-        checker = new PlainLinebasedLogChecker(commands, files, detector);
+        checker = new TailingLogChecker(commands, files, detector, settings.get(ConfigTags.LogOracleWatchFiles, false));
     }
 
     public void initialize() {
         checker.initialRead();
     }
 
+    @Override
+    public void close() {
+        checker.close();
+    }
+
     public Verdict getVerdict(State state) {
         errorsList.addAll(checker.readAndCheck());
         if ( errorsList.size() == 0  ) {
@@ -34,6 +34,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
 
+import org.testar.oracles.MultiPatternMatcher;
+
 /**
  *  The standard implementation of a LogDetector. It matches every log message with a regular
  *  expression to detect errors.
@@ -41,6 +43,7 @@ import java.util.regex.Pattern;
 
 class RegexLogErrorDetector implements LogErrorDetector {
     protected String regex;
+    protected MultiPatternMatcher matcher;
 
     /**
      *  Create a new RegexLogErrorDetector
@@ -48,6 +51,8 @@ class RegexLogErrorDetector implements LogErrorDetector {
      */
     public RegexLogErrorDetector (String regex) {
         this.regex = regex;
+        // Compiled once, with a literal prefilter and parallel matching of large lists of messages
+        this.matcher = new MultiPatternMatcher(Pattern.compile(regex));
     }
 
     /**
@@ -58,11 +63,20 @@ class RegexLogErrorDetector implements LogErrorDetector {
      */
     public List<String> detectErrors (List<String> messages) {
         List<String> result = new ArrayList<String>();
-        for ( String message : messages) {
-            if ( Pattern.matches (regex, message) ) {
-                result.add("The following log message contained errors: \"" + message + "\"");
+        int[] matches = matcher.firstMatches(messages);
+        for ( int i = 0; i < matches.length; i++ ) {
+            if ( matches[i] >= 0 ) {
+                result.add("The following log message contained errors: \"" + messages.get(i) + "\"");
             }
         }
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the hit counts and match latency of the regular expression
+     */
+    @Override
+    public String toString() {
+        return matcher.toString();
+    }
+}
@@ -0,0 +1,523 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.oracles.log;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ *  A LogChecker that follows log files and command output like <code>tail -f</code>.
+ *  Unlike the PlainLinebasedLogChecker, which reads every file from the first line at every step,
+ *  it keeps an open FileChannel and the byte position per file and only reads the appended bytes.
+ *  A file that is replaced (log rotation, detected by its file key / inode or creation time) is
+ *  read until its end and then followed from the start of the new file. A file that became
+ *  smaller, or of which the first bytes changed (truncation, also when it grew again since the
+ *  last check), is followed from its start.
+ *
+ *  Commands are started once and keep running: every line a command prints after the initial
+ *  read is a new message. Commands that exit (e.g. a command that prints a whole log) are
+ *  started again at the next check, and only the lines beyond the previous output are new, as
+ *  with the PlainLinebasedLogChecker.
+ *
+ *  Optionally a WatchService is used, so files are only examined after the file system reported
+ *  a change in their directory.
+ */
+
+class TailingLogChecker extends LogChecker {
+    // Output of a command that has not been read for this long (ms) is considered to be complete
+    static final long COMMAND_QUIET_TIME = 200;
+    // Upper limit (ms) for waiting until the initial output of a command is complete
+    static final long COMMAND_SETTLE_TIME = 2000;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    // Number of bytes at the start of a file that are compared to detect that it was rewritten
+    private static final int HEAD_SIZE = 256;
+
+    protected List<String> commands, files;
+    protected LogErrorDetector detector;
+    protected int numberEntries;
+
+    private final Map<String, FileTail> fileTails = new LinkedHashMap<>();
+    private final Map<String, CommandTail> commandTails = new LinkedHashMap<>();
+    private final Charset charset = Charset.defaultCharset();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private WatchService watchService;
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * Create a new TailingLogChecker.
+     *
+     * @param commands A list of commands of which the standard output is to be checked
+     * @param files A list of log files to check for newly appended lines.
+     * @param detector a LogErrorDetector to find errors (if any) in new lines
+     * @param watchFiles whether to only examine files after a WatchService reported a change
+     */
+    public TailingLogChecker(List<String> commands, List<String> files, LogErrorDetector detector, boolean watchFiles) {
+        this.commands = commands;
+        this.files = files;
+        this.detector = detector;
+        this.numberEntries = commands.size() + files.size();
+
+        for ( String command : commands ) {
+            commandTails.put(command, new CommandTail(command));
+        }
+        for ( String file : files ) {
+            fileTails.put(file, new FileTail(Paths.get(file).toAbsolutePath()));
+        }
+
+        if ( watchFiles && !files.isEmpty() ) {
+            registerWatchService();
+        }
+    }
+
+    /**
+     *  Records the current end of each log file and starts the commands, discarding their initial output.
+     */
+    @Override
+    public void initialRead() {
+        for ( FileTail tail : fileTails.values() ) {
+            try {
+                tail.skipToEnd();
+            }
+            catch (IOException e) {
+                logger.warn("LogChecker could not read file " + tail.path + ":" + e.toString());
+            }
+        }
+
+        for ( CommandTail tail : commandTails.values() ) {
+            try {
+                tail.start(0);
+                tail.settle();
+                // Discard the output printed so far, e.g. the last lines of a followed log
+                tail.drain();
+            }
+            catch (IOException e) {
+                logger.warn("LogChecker could not run command " + tail.command + ":" + e.toString());
+            }
+        }
+    }
+
+    @Override
+    public List<String> readAndCheck() {
+
+        ArrayList<String> result = new ArrayList<String>();
+
+        for ( CommandTail tail : commandTails.values() ) {
+            try {
+                addErrors(result, "[Command " + tail.command + "] :", tail.readNewLines());
+            }
+            catch (IOException e) {
+                logger.trace("LogChecker could not run command " + tail.command + ":" + e.toString());
+            }
+        }
+
+        Set<Path> changed = changedDirectories();
+        for ( FileTail tail : fileTails.values() ) {
+            if ( changed != null && !changed.contains(tail.path.getParent()) ) {
+                continue;
+            }
+            try {
+                addErrors(result, "[File " + tail.path + "] :", tail.readNewLines());
+            }
+            catch (IOException e) {
+                logger.trace("LogChecker could not read file " + tail.path + ":" + e.toString());
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public void close() {
+        logger.debug("LogChecker detector statistics: " + detector);
+        for ( CommandTail tail : commandTails.values() ) {
+            tail.stop();
+        }
+        for ( FileTail tail : fileTails.values() ) {
+            tail.closeChannel();
+        }
+        if ( watchService != null ) {
+            try {
+                watchService.close();
+            }
+            catch (IOException e) {
+                logger.trace("LogChecker could not close the WatchService: " + e.toString());
+            }
+            watchService = null;
+        }
+    }
+
+    private void addErrors(List<String> result, String prefix, List<String> lines) {
+        if ( lines.isEmpty() ) {
+            return;
+        }
+        // If there is more than one command / log file to monitor, add a prefix
+        // to disambiguate each message.
+        for ( String error : detector.detectErrors(lines) ) {
+            result.add(this.numberEntries > 1 ? prefix + error : error);
+        }
+    }
+
+    private void registerWatchService() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Set<Path> directories = new HashSet<>();
+            for ( FileTail tail : fileTails.values() ) {
+                Path directory = tail.path.getParent();
+                if ( directory != null && directories.add(directory) ) {
+                    directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                }
+            }
+        }
+        catch (IOException e) {
+            logger.warn("LogChecker could not watch the log files, checking them at every step: " + e.toString());
+            watchService = null;
+        }
+    }
+
+    /**
+     * @return the directories with file system events since the last check,
+     *         or null if every file has to be examined
+     */
+    private Set<Path> changedDirectories() {
+        if ( watchService == null ) {
+            return null;
+        }
+        Set<Path> changed = new HashSet<>();
+        try {
+            WatchKey key;
+            while ( (key = watchService.poll()) != null ) {
+                for ( WatchEvent<?> event : key.pollEvents() ) {
+                    if ( event.kind() == StandardWatchEventKinds.OVERFLOW ) {
+                        changed = null;
+                        break;
+                    }
+                }
+                if ( changed != null ) {
+                    changed.add((Path) key.watchable());
+                }
+                key.reset();
+                if ( changed == null ) {
+                    return null;
+                }
+            }
+        }
+        catch (ClosedWatchServiceException e) {
+            return null;
+        }
+        return changed;
+    }
+
+    /**
+     * Splits the bytes of <code>pending</code> and <code>bytes</code> into complete lines.
+     * An incomplete last line stays in <code>pending</code>, until the rest of it has been appended.
+     */
+    private List<String> completeLines(ByteArrayOutputStream pending, ByteBuffer bytes, List<String> lines) {
+        while ( bytes.hasRemaining() ) {
+            byte b = bytes.get();
+            if ( b == '\n' ) {
+                lines.add(decodeLine(pending));
+                pending.reset();
+            }
+            else {
+                pending.write(b);
+            }
+        }
+        return lines;
+    }
+
+    private String decodeLine(ByteArrayOutputStream pending) {
+        String line = new String(pending.toByteArray(), charset);
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    /**
+     * The followed state of one log file.
+     */
+    private class FileTail {
+        final Path path;
+        FileChannel channel;
+        Object fileKey;
+        long creationTime;
+        long position;
+        // The first bytes of the file as read so far, at most HEAD_SIZE
+        byte[] head = new byte[0];
+        final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+        FileTail(Path path) {
+            this.path = path;
+        }
+
+        void skipToEnd() throws IOException {
+            if ( open() ) {
+                position = channel.size();
+                head = readHead();
+            }
+        }
+
+        List<String> readNewLines() throws IOException {
+            List<String> lines = new ArrayList<>();
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            }
+            catch (NoSuchFileException e) {
+                // Rotated away and not created again (yet), read what was still written to the old file
+                if ( channel != null ) {
+                    readToEnd(lines);
+                    closeChannel();
+                }
+                return lines;
+            }
+
+            if ( channel != null && isReplacedBy(attributes) ) {
+                logger.trace("LogChecker detected rotation of " + path);
+                readToEnd(lines);
+                closeChannel();
+            }
+            if ( channel == null ) {
+                if ( !open() ) {
+                    return lines;
+                }
+            }
+            else if ( attributes.size() < position || !Arrays.equals(head, readHead()) ) {
+                logger.trace("LogChecker detected truncation of " + path);
+                position = 0;
+                head = new byte[0];
+                pending.reset();
+            }
+            if ( attributes.size() > position ) {
+                readToEnd(lines);
+            }
+            if ( head.length < HEAD_SIZE && position > head.length ) {
+                head = readHead();
+            }
+            return lines;
+        }
+
+        /**
+         * @return the bytes at the start of the file, as many as were known before (or up to HEAD_SIZE
+         *         if none were), fewer if the file is shorter
+         */
+        private byte[] readHead() throws IOException {
+            int size = (int) Math.min(head.length > 0 ? head.length : HEAD_SIZE, Math.min(position, channel.size()));
+            ByteBuffer bytes = ByteBuffer.allocate(size);
+            while ( bytes.hasRemaining() && channel.read(bytes, bytes.position()) > 0 ) {
+                // read until the buffer is full or the end of the file
+            }
+            return Arrays.copyOf(bytes.array(), bytes.position());
+        }
+
+        private boolean isReplacedBy(BasicFileAttributes attributes) {
+            if ( fileKey != null ) {
+                return !fileKey.equals(attributes.fileKey());
+            }
+            return creationTime != attributes.creationTime().toMillis();
+        }
+
+        private boolean open() throws IOException {
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+            }
+            catch (NoSuchFileException e) {
+                // Not created yet, it will be read from the start once it exists
+                return false;
+            }
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            fileKey = attributes.fileKey();
+            creationTime = attributes.creationTime().toMillis();
+            position = 0;
+            head = new byte[0];
+            pending.reset();
+            return true;
+        }
+
+        private void readToEnd(List<String> lines) throws IOException {
+            readBuffer.clear();
+            int read;
+            while ( (read = channel.read(readBuffer, position)) > 0 ) {
+                position += read;
+                readBuffer.flip();
+                completeLines(pending, readBuffer, lines);
+                readBuffer.clear();
+            }
+        }
+
+        void closeChannel() {
+            if ( channel != null ) {
+                try {
+                    channel.close();
+                }
+                catch (IOException e) {
+                    logger.trace("LogChecker could not close file " + path + ":" + e.toString());
+                }
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * A long-lived process of one command, of which a reader thread queues the lines of standard output.
+     */
+    private class CommandTail {
+        final String command;
+        final ConcurrentLinkedQueue<String> lines = new ConcurrentLinkedQueue<>();
+        Process process;
+        Thread reader;
+        // Number of lines of the previous run, lines up to this number in a new run are not new
+        volatile long skip;
+        volatile long linesInRun;
+        volatile long lastOutput;
+
+        CommandTail(String command) {
+            this.command = command;
+        }
+
+        void start(long skip) throws IOException {
+            this.skip = skip;
+            this.linesInRun = 0;
+            this.lastOutput = System.currentTimeMillis();
+            process = new ProcessBuilder(command.trim().split("\\s+"))
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), charset));
+            reader = new Thread(() -> {
+                try {
+                    String line;
+                    while ( (line = output.readLine()) != null ) {
+                        if ( linesInRun++ >= this.skip ) {
+                            lines.add(line);
+                        }
+                        lastOutput = System.currentTimeMillis();
+                    }
+                }
+                catch (IOException e) {
+                    logger.trace("LogChecker stopped reading command " + command + ":" + e.toString());
+                }
+                finally {
+                    try {
+                        output.close();
+                    }
+                    catch (IOException e) {
+                        logger.trace("LogChecker could not close command " + command + ":" + e.toString());
+                    }
+                }
+            }, "LogChecker " + command);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        /**
+         * Wait until the command exited, or did not print anything for a while.
+         */
+        void settle() {
+            long deadline = System.currentTimeMillis() + COMMAND_SETTLE_TIME;
+            try {
+                while ( reader.isAlive() ) {
+                    long now = System.currentTimeMillis();
+                    if ( now >= deadline || now - lastOutput >= COMMAND_QUIET_TIME ) {
+                        break;
+                    }
+                    reader.join(Math.min(COMMAND_QUIET_TIME, deadline - now));
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        List<String> drain() {
+            List<String> output = new ArrayList<>();
+            String line;
+            while ( (line = lines.poll()) != null ) {
+                output.add(line);
+            }
+            return output;
+        }
+
+        List<String> readNewLines() throws IOException {
+            List<String> output = drain();
+            if ( reader != null && !reader.isAlive() ) {
+                // The command exited, run it again and treat the lines beyond the previous output as new
+                output.addAll(drain());
+                long previousLines = linesInRun;
+                start(previousLines);
+                settle();
+                if ( !reader.isAlive() && linesInRun < previousLines ) {
+                    // The output was replaced (e.g. a rotated log), so all of its lines are new
+                    logger.trace("log command returned fewer lines than before. LogChecker is resetting counter. ");
+                    drain();
+                    start(0);
+                    settle();
+                }
+                output.addAll(drain());
+            }
+            return output;
+        }
+
+        void stop() {
+            if ( process != null ) {
+                process.destroy();
+                process = null;
+            }
+        }
+    }
+}
@@ -34,6 +34,10 @@ import org.testar.monkey.alayer.*;
 import org.testar.monkey.alayer.devices.ProcessHandle;
 import org.testar.monkey.alayer.exceptions.NoSuchTagException;
 import org.testar.monkey.alayer.linux.*;
+import org.testar.monkey.alayer.simulator.DummyCanvas;
+import org.testar.monkey.alayer.simulator.SimulatedModel;
+import org.testar.monkey.alayer.simulator.SimulatedSUT;
+import org.testar.monkey.alayer.simulator.SimulatedStateBuilder;
 import org.testar.monkey.alayer.webdriver.WdCanvas;
 import org.testar.monkey.alayer.webdriver.WdDriver;
 import org.testar.monkey.alayer.webdriver.WdStateBuilder;
@@ -49,6 +53,8 @@ import org.testar.monkey.alayer.ios.IOSCanvas;
 import org.testar.monkey.alayer.ios.IOSStateBuilder;
 import org.testar.monkey.alayer.ios.enums.IOSRoles;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 import static org.testar.monkey.alayer.linux.AtSpiRolesWrapper.*;
@@ -65,6 +71,13 @@ public class NativeLinker {
 
 	private static EnumSet<OperatingSystems> PLATFORM_OS = determinePlatform();
 	private static String osName;
+
+	private static SimulatedModel simulatedModel;
+	private static long simulatorStateLatency;
+	private static long simulatorActionLatency;
+	private static SimulatedModel.Fallback simulatorFallback;
+	// the platform of the recording, if it was added by addSimulatorOS
+	private static OperatingSystems simulatedPlatform;
 	
 	/**
 	 * Determines the platform this executable is currently running on.
@@ -112,6 +125,48 @@ public class NativeLinker {
 		PLATFORM_OS.remove(OperatingSystems.IOS);
 	}
 
+	/**
+	 * Replaces the SUT by a simulated SUT that replays the states of a recording.
+	 * The platform of the recording is added as well, so that its roles and tags can be looked up.
+	 * @param recording a .testar sequence or a folder with .testar sequences
+	 * @param stateLatency the time in ms a state fetch takes
+	 * @param actionLatency the time in ms the input of an action takes
+	 * @param fallback what to do with inputs that were not recorded
+	 * @throws IOException if the recording cannot be read
+	 */
+	public static void addSimulatorOS(String recording, long stateLatency, long actionLatency, SimulatedModel.Fallback fallback) throws IOException {
+		simulatedModel = SimulatedModel.load(new File(recording));
+		simulatorStateLatency = stateLatency;
+		simulatorActionLatency = actionLatency;
+		simulatorFallback = fallback;
+		OperatingSystems platform = recordedPlatform(simulatedModel.getState(simulatedModel.getInitialStateId()));
+		if (platform != null && PLATFORM_OS.add(platform)) {
+			simulatedPlatform = platform;
+		}
+		PLATFORM_OS.add(OperatingSystems.SIMULATOR);
+	}
+
+	public static void cleanSimulatorOS() {
+		PLATFORM_OS.remove(OperatingSystems.SIMULATOR);
+		if (simulatedPlatform != null) {
+			PLATFORM_OS.remove(simulatedPlatform);
+			simulatedPlatform = null;
+		}
+		simulatedModel = null;
+	}
+
+	private static OperatingSystems recordedPlatform(State state) {
+		// the UIA classes are not public, the platform is told by the package of the state
+		String stateClass = state.getClass().getName();
+		if (stateClass.startsWith("org.testar.monkey.alayer.windows."))
+			return OperatingSystems.WINDOWS;
+		if (stateClass.startsWith("org.testar.monkey.alayer.webdriver."))
+			return OperatingSystems.WEBDRIVER;
+		if (stateClass.startsWith("org.testar.monkey.alayer.linux."))
+			return OperatingSystems.UNIX;
+		return null;
+	}
+
 	public static Set<OperatingSystems> getPLATFORM_OS() {
 		return PLATFORM_OS;
 	}
@@ -124,6 +179,9 @@ public class NativeLinker {
 	 * @return A StateBuilder instance.
 	 */
 	public static StateBuilder getNativeStateBuilder(Double timeToFreeze, boolean accessBridgeEnabled, String SUTProcesses) {
+		if (PLATFORM_OS.contains(OperatingSystems.SIMULATOR)) {
+			return new SimulatedStateBuilder(simulatorStateLatency);
+		}
 		if (PLATFORM_OS.contains(OperatingSystems.WEBDRIVER)) {
 			return new WdStateBuilder(timeToFreeze);
 		}
@@ -160,6 +218,8 @@ public class NativeLinker {
 	 * @return A Canvas on which Testar can paint elements in Spy mode.
 	 */
 	public static Canvas getNativeCanvas(Pen pen){
+		if (PLATFORM_OS.contains(OperatingSystems.SIMULATOR))
+			return new DummyCanvas(pen);
 		if (PLATFORM_OS.contains(OperatingSystems.WEBDRIVER))
 			return new WdCanvas(pen);
 		if (PLATFORM_OS.contains(OperatingSystems.ANDROID)) {
@@ -186,6 +246,10 @@ public class NativeLinker {
 	 * @return A handle to the process in a SUT object.
 	 */
 	public static SUT getNativeSUT(String executableCommand, boolean ProcessListenerEnabled, String SUTProcesses) {
+		if (PLATFORM_OS.contains(OperatingSystems.SIMULATOR)) {
+			// the simulated SUT starts in the initial state of the recording, the command is not used
+			return new SimulatedSUT(simulatedModel, simulatorActionLatency, simulatorFallback);
+		}
 		if (PLATFORM_OS.contains(OperatingSystems.WEBDRIVER)) {
 			return WdDriver.fromExecutable(executableCommand);
 		}
@@ -224,7 +288,9 @@ public class NativeLinker {
 	 * @return A list of running processes wrapped in a SUT class.
 	 */
 	public static List<SUT> getNativeProcesses(){
-		if (PLATFORM_OS.contains(OperatingSystems.WEBDRIVER))
+		if (PLATFORM_OS.contains(OperatingSystems.SIMULATOR))
+			return new ArrayList<SUT>();
+		else if (PLATFORM_OS.contains(OperatingSystems.WEBDRIVER))
 			return WdDriver.fromAll();
 		else if (PLATFORM_OS.contains(OperatingSystems.ANDROID)) {
 			return AndroidAppiumFramework.fromAll();
@@ -260,7 +326,7 @@ public class NativeLinker {
 	 * @return Memory usage in KB.
 	 */
 	public static int getMemUsage(SUT nativeSUT){
-		if (PLATFORM_OS.contains(OperatingSystems.WEBDRIVER))
+		if (PLATFORM_OS.contains(OperatingSystems.SIMULATOR) || PLATFORM_OS.contains(OperatingSystems.WEBDRIVER))
 			return 0;
 		if (PLATFORM_OS.contains(OperatingSystems.ANDROID)) {
 			//TODO: Implement Emulator + internal android usage
@@ -283,7 +349,7 @@ public class NativeLinker {
 	 * @return CPU usage in ms: user x system x frame.
 	 */
 	public static long[] getCPUsage(SUT nativeSUT){
-		if (PLATFORM_OS.contains(OperatingSystems.WEBDRIVER)) {
+		if (PLATFORM_OS.contains(OperatingSystems.SIMULATOR) || PLATFORM_OS.contains(OperatingSystems.WEBDRIVER)) {
 			// TODO Make sure 'runTest' doesn't need this anymore
 			return new long[]{0, 0, 0};
 		}
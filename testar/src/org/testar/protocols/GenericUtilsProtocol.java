@@ -51,7 +51,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class GenericUtilsProtocol extends ClickFilterLayerProtocol {
@@ -609,15 +608,10 @@ public class GenericUtilsProtocol extends ClickFilterLayerProtocol {
 
         Boolean isFiltered = false;
 
-        for(String tagToFilter : settings.get(ConfigTags.TagsToFilter)){
-            String tagValue = "";
-            // First finding the Tag that matches the TagsToFilter string, then getting the value of that Tag:
-            for(Tag<?> tag : w.tags()){
-                if(w.get(tag, null) != null && tag.name().equals(tagToFilter)){
-                    tagValue = w.get(tag).toString();
-                    break;
-                }
-            }
+        // The TagsToFilter names are resolved to tags once, so only the configured tags of the widget are fetched
+        TagNameLookup tagsToFilter = tagsToFilter();
+        for(int i = 0; i < tagsToFilter.size(); i++){
+            String tagValue = tagsToFilter.valueString(w, i);
 
             //Check whether the Tag value is empty or null
             //If it is, it is unfiltered
@@ -631,12 +625,7 @@ public class GenericUtilsProtocol extends ClickFilterLayerProtocol {
                 this.clickFilterPattern = Pattern.compile(settings().get(ConfigTags.ClickFilter), Pattern.UNICODE_CHARACTER_CLASS);
 
             //Check whether the title matches any of the clickFilterPatterns
-            Matcher m = this.clickFilterMatchers.get(tagValue);
-            if (m == null){
-                m = this.clickFilterPattern.matcher(tagValue);
-                this.clickFilterMatchers.put(tagValue, m);
-            }
-            isFiltered = m.matches();
+            isFiltered = patternMatchCache().matches(this.clickFilterPattern, tagValue);
             // if filtered, no need to check if it should be filtered multiple times:
             if(isFiltered) return(!isFiltered); //method is for is-UN-filtered
 
@@ -59,7 +59,6 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.logging.Level;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
@@ -88,6 +87,8 @@ public class WebdriverProtocol extends GenericUtilsProtocol {
 
 	// Verdict obtained from messages coming from the web browser console
 	protected Verdict webConsoleVerdict = Verdict.OK;
+	// Compiled web console oracle patterns by regular expression
+	private final Map<String, Pattern> webConsolePatterns = new HashMap<>();
 
 	/**
 	 * Called once during the life time of TESTAR
@@ -282,6 +283,21 @@ public class WebdriverProtocol extends GenericUtilsProtocol {
         return state;
     }
 
+    /**
+     * Compile a web console oracle regular expression once, instead of at every getVerdict.
+     *
+     * @param regex the WebConsoleErrorPattern or WebConsoleWarningPattern setting
+     * @return the compiled pattern
+     */
+    private Pattern webConsolePattern(String regex) {
+    	Pattern pattern = webConsolePatterns.get(regex);
+    	if(pattern == null) {
+    		pattern = Pattern.compile(regex, Pattern.UNICODE_CHARACTER_CLASS);
+    		webConsolePatterns.put(regex, pattern);
+    	}
+    	return pattern;
+    }
+
     /**
      * The getVerdict methods implements the online state oracles that
      * examine the SUT's current state and returns an oracle verdict.
@@ -295,7 +311,7 @@ public class WebdriverProtocol extends GenericUtilsProtocol {
     	// If Web Console Error Oracle is enabled and we have some pattern to match
     	if(settings.get(ConfigTags.WebConsoleErrorOracle, false) && !settings.get(ConfigTags.WebConsoleErrorPattern, "").isEmpty()) {
     		// Load the web console error pattern
-    		Pattern errorPattern = Pattern.compile(settings.get(ConfigTags.WebConsoleErrorPattern), Pattern.UNICODE_CHARACTER_CLASS);
+    		Pattern errorPattern = webConsolePattern(settings.get(ConfigTags.WebConsoleErrorPattern));
     		// Check Severe messages in the WebDriver logs
     		RemoteWebDriver driver = WdDriver.getRemoteWebDriver();
     		LogEntries logEntries = driver.manage().logs().get(LogType.BROWSER);
@@ -303,8 +319,7 @@ public class WebdriverProtocol extends GenericUtilsProtocol {
     			if(logEntry.getLevel().equals(Level.SEVERE)) {
     				// Check if the severe error message matches with the web console error pattern
     				String consoleErrorMsg = logEntry.getMessage();
-    				Matcher matcherError = errorPattern.matcher(consoleErrorMsg);
-    				if(matcherError.matches()) {
+    				if(patternMatchCache().matches(errorPattern, consoleErrorMsg)) {
     					webConsoleVerdict = new Verdict(Verdict.SEVERITY_SUSPICIOUS_TAG, "Web Browser Console Error: " + consoleErrorMsg);
     				}
     			}
@@ -316,7 +331,7 @@ public class WebdriverProtocol extends GenericUtilsProtocol {
     	// If Web Console Warning Oracle is enabled and we have some pattern to match
     	if(settings.get(ConfigTags.WebConsoleWarningOracle, false) && !settings.get(ConfigTags.WebConsoleWarningPattern, "").isEmpty()) {
     		// Load the web console warning pattern
-    		Pattern warningPattern = Pattern.compile(settings.get(ConfigTags.WebConsoleWarningPattern), Pattern.UNICODE_CHARACTER_CLASS);
+    		Pattern warningPattern = webConsolePattern(settings.get(ConfigTags.WebConsoleWarningPattern));
     		// Check Warning messages in the WebDriver logs
     		RemoteWebDriver driver = WdDriver.getRemoteWebDriver();
     		LogEntries logEntries = driver.manage().logs().get(LogType.BROWSER);
@@ -324,8 +339,7 @@ public class WebdriverProtocol extends GenericUtilsProtocol {
     			if(logEntry.getLevel().equals(Level.WARNING)) {
     				// Check if the warning message matches with the web console error pattern
     				String consoleWarningMsg = logEntry.getMessage();
-    				Matcher matcherWarning = warningPattern.matcher(consoleWarningMsg);
-    				if(matcherWarning.matches()) {
+    				if(patternMatchCache().matches(warningPattern, consoleWarningMsg)) {
     					webConsoleVerdict = new Verdict(Verdict.SEVERITY_SUSPICIOUS_TAG, "Web Browser Console Warning: " + consoleWarningMsg);
     				}
     			}
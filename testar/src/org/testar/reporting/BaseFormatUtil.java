@@ -37,13 +37,35 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public abstract class BaseFormatUtil
 {
+    public  static   final  int               DEFAULT_FLUSH_CHARS = 64 * 1024;
+    public  static   final  long              DEFAULT_FLUSH_MILLIS = 1000;
+
+    // flushes the buffered content of all reports once it is flushMillis old, also when nothing is written afterwards
+    private static   final  ScheduledExecutorService FLUSH_TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "report-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private                 File              file;
     protected               ArrayList<String> content = new ArrayList<>();
     private          final  String            FILE_SUFFIX; // lower case, includes period
 
+    // the file stays open between writes, it is closed before the file is renamed, moved or copied
+    private                 Writer            writer;
+    private                 int               flushChars = DEFAULT_FLUSH_CHARS;
+    private                 long              flushMillis = DEFAULT_FLUSH_MILLIS;
+    private                 long              unflushedChars;
+    private                 long              lastFlush = System.currentTimeMillis();
+    private                 ScheduledFuture<?> scheduledFlush;
+
     public File getFile() {
     	return file;
     }
@@ -85,6 +107,7 @@ public abstract class BaseFormatUtil
 
     public void appendToFileName(String appendToName)
     {
+        close();
         try
         {
             Path oldFile = Paths.get(file.getAbsolutePath()); // get full name
@@ -107,6 +130,7 @@ public abstract class BaseFormatUtil
 
     public void renameFile(String newName)
     {
+        close();
         try
         {
             Path path = Paths.get(file.getAbsolutePath()); // get full name
@@ -121,6 +145,7 @@ public abstract class BaseFormatUtil
 
     public void moveFile(String newDirectory)
     {
+        close();
         try
         {
             Path newPath = Paths.get(newDirectory);
@@ -138,6 +163,7 @@ public abstract class BaseFormatUtil
 
     public void duplicateFile(String destinationPath)
     {
+        flush();
         try
         {
             Files.copy(Paths.get(file.getAbsolutePath()), Paths.get(destinationPath), StandardCopyOption.REPLACE_EXISTING);
@@ -153,24 +179,109 @@ public abstract class BaseFormatUtil
         }
     }
 
+    /**
+     * Sets when the content that was buffered with {@link #bufferToFile()} is flushed to the file.
+     *
+     * @param flushChars flush once this many characters are buffered
+     * @param flushMillis flush at most this much time after the content was buffered
+     */
+    public synchronized void setFlushPolicy(int flushChars, long flushMillis)
+    {
+        this.flushChars = flushChars;
+        this.flushMillis = flushMillis;
+    }
+
+    /**
+     * Writes the queued content to the file and flushes it, so the file is complete after this call.
+     */
     public void writeToFile()
+    {
+        bufferToFile();
+        flush();
+    }
+
+    /**
+     * Writes the queued content to the open file, but only flushes it according to the flush policy.
+     * Call {@link #writeToFile()}, {@link #flush()} or {@link #close()} to make sure the content is on disk.
+     */
+    public synchronized void bufferToFile()
     {
         if(!content.isEmpty())
         {
             try
             {
-                PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+                if(writer == null)
+                    writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8), DEFAULT_FLUSH_CHARS);
 
                 for(String str : content)
-                    writer.println(str);
+                {
+                    writer.write(str);
+                    writer.write(System.lineSeparator());
+                    unflushedChars += str.length() + System.lineSeparator().length();
+                }
+                content.clear(); //empty the queue
+
+                if(unflushedChars >= flushChars || System.currentTimeMillis() - lastFlush >= flushMillis)
+                    flush();
+                else if(scheduledFlush == null)
+                    scheduledFlush = FLUSH_TIMER.schedule(this::flush, Math.max(0, lastFlush + flushMillis - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
+            catch(IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Flushes the content that was written to the file so far.
+     */
+    public synchronized void flush()
+    {
+        cancelScheduledFlush();
+        if(writer != null)
+        {
+            try
+            {
+                writer.flush();
+            }
+            catch(IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+        unflushedChars = 0;
+        lastFlush = System.currentTimeMillis();
+    }
 
+    /**
+     * Flushes and closes the file. Content written afterwards reopens the file in append mode.
+     */
+    public synchronized void close()
+    {
+        cancelScheduledFlush();
+        if(writer != null)
+        {
+            try
+            {
                 writer.close();
-                content.clear(); //empty the queue
             }
             catch(IOException e)
             {
                 e.printStackTrace();
             }
+            writer = null;
+        }
+        unflushedChars = 0;
+        lastFlush = System.currentTimeMillis();
+    }
+
+    private void cancelScheduledFlush()
+    {
+        if(scheduledFlush != null)
+        {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
         }
     }
 }
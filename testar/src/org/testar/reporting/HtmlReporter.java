@@ -46,12 +46,24 @@ public class HtmlReporter implements Reporting
 {
     private HtmlFormatUtil htmlReportUtil;
     private int innerLoopCounter = 0;
+    private final boolean compactActions;
     
     private final String openBlockContainer = "<div class='block' style='display:flex;flex-direction:column'>";
     private final String closeBlockContainer = "</div>";
     
     public HtmlReporter(String fileName, boolean replay) //replay or generate mode
     {
+        this(fileName, replay, false);
+    }
+
+    /**
+     * @param fileName
+     * @param replay replay or generate mode
+     * @param compactActions collapse the derived actions into a JSON block that is only rendered when expanded
+     */
+    public HtmlReporter(String fileName, boolean replay, boolean compactActions)
+    {
+        this.compactActions = compactActions;
         htmlReportUtil = new HtmlFormatUtil(fileName);
         
         startReport();
@@ -66,6 +78,17 @@ public class HtmlReporter implements Reporting
         joiner.add("let direction = document.getElementById('main').style.flexDirection;");
         joiner.add("if(direction === 'column') document.getElementById('main').style.flexDirection = " + "'column-reverse';");
         joiner.add("else document.getElementById('main').style.flexDirection = 'column';}");
+        if(compactActions)
+        {
+            // renders the actions of a collapsed block the first time it is expanded
+            joiner.add("function expandActions(details){");
+            joiner.add("if(!details.open || details.dataset.expanded) return;");
+            joiner.add("details.dataset.expanded = 'true';");
+            joiner.add("let list = document.createElement('ul');");
+            joiner.add("for(let item of JSON.parse(details.querySelector('script').textContent)){");
+            joiner.add("let li = document.createElement('li'); li.innerHTML = item; list.appendChild(li);}");
+            joiner.add("details.appendChild(list);}");
+        }
         
         htmlReportUtil.addHeader("TESTAR execution sequence report", joiner.toString());
     }
@@ -101,7 +124,7 @@ public class HtmlReporter implements Reporting
         htmlReportUtil.addContent(closeBlockContainer); // Close state block container
         
         innerLoopCounter++;
-        htmlReportUtil.writeToFile();
+        htmlReportUtil.bufferToFile();
     }
 
     private String prepareScreenshotImagePath(String path)
@@ -142,12 +165,44 @@ public class HtmlReporter implements Reporting
         for(Action action:actions)
             actionStrings.add(getActionString(action));
         
-        htmlReportUtil.addList(false, actionStrings);
+        addActionList(actionStrings);
         htmlReportUtil.addContent(closeBlockContainer); // Close derived actions block container
     
-        htmlReportUtil.writeToFile();
+        htmlReportUtil.bufferToFile();
     }
     
+    private void addActionList(ArrayList<String> actionStrings)
+    {
+        if(!compactActions)
+        {
+            htmlReportUtil.addList(false, actionStrings);
+            return;
+        }
+        // a single line of JSON instead of one list item per action, rendered by expandActions
+        StringJoiner json = new StringJoiner(",", "[", "]");
+        for(String actionString : actionStrings)
+            json.add(toJsonString(actionString));
+        htmlReportUtil.addContent("<details class='actions' ontoggle='expandActions(this)'><summary>" + actionStrings.size() + " actions</summary>");
+        htmlReportUtil.addContent("<script type='application/json'>" + json + "</script>");
+        htmlReportUtil.addContent("</details>");
+    }
+
+    static String toJsonString(String text)
+    {
+        StringBuilder builder = new StringBuilder(text.length() + 2).append('"');
+        for(int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            if(c == '"' || c == '\\')
+                builder.append('\\').append(c);
+            else if(c < 0x20 || c == '<' || c == '>' || c == '&')
+                builder.append(String.format("\\u%04x", (int) c)); // also keeps </script> out of the block
+            else
+                builder.append(c);
+        }
+        return builder.append('"').toString();
+    }
+
     @Override
     public void addActionsAndUnvisitedActions(Set<Action> actions, Set<String> concreteIdsOfUnvisitedActions)
     {
@@ -178,10 +233,10 @@ public class HtmlReporter implements Reporting
                 }
             }
         }
-        htmlReportUtil.addList(false, actionStrings);
+        addActionList(actionStrings);
         htmlReportUtil.addContent(closeBlockContainer); // Close derived actions block container
     
-        htmlReportUtil.writeToFile();
+        htmlReportUtil.bufferToFile();
     }
     
     @Override
@@ -219,7 +274,7 @@ public class HtmlReporter implements Reporting
         htmlReportUtil.addParagraph("<img src=\"" + actionPath + "\" alt=\"" + altText + "\">");
         htmlReportUtil.addContent(closeBlockContainer); // Close executed action block container
     
-        htmlReportUtil.writeToFile();
+        htmlReportUtil.bufferToFile();
     }
     
     @Override
@@ -245,5 +300,6 @@ public class HtmlReporter implements Reporting
         htmlReportUtil.addFooter();
     
         htmlReportUtil.writeToFile();
+        htmlReportUtil.close();
     }
 }
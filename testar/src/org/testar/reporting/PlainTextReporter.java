@@ -85,7 +85,7 @@ public class PlainTextReporter implements Reporting
         plainTextReportUtil.addParagraph("Image: " + imagePath + "\n" + altText);
         
         innerLoopCounter++;
-        plainTextReportUtil.writeToFile();
+        plainTextReportUtil.bufferToFile();
     }
     
     private String prepareScreenshotImagePath(String path)
@@ -127,7 +127,7 @@ public class PlainTextReporter implements Reporting
     
         plainTextReportUtil.addList(false, actionStrings);
     
-        plainTextReportUtil.writeToFile();
+        plainTextReportUtil.bufferToFile();
     }
     
     @Override
@@ -160,7 +160,7 @@ public class PlainTextReporter implements Reporting
         }
         plainTextReportUtil.addList(false, actionStrings);
     
-        plainTextReportUtil.writeToFile();
+        plainTextReportUtil.bufferToFile();
     }
     
     @Override
@@ -197,7 +197,7 @@ public class PlainTextReporter implements Reporting
         plainTextReportUtil.addParagraph("Image: " + actionPath + "\n" + altText);
     
     
-        plainTextReportUtil.writeToFile();
+        plainTextReportUtil.bufferToFile();
     }
     
     @Override
@@ -219,5 +219,6 @@ public class PlainTextReporter implements Reporting
     public void finishReport()
     {
         plainTextReportUtil.writeToFile();
+        plainTextReportUtil.close();
     }
 }
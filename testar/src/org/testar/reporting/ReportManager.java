@@ -31,6 +31,7 @@
 package org.testar.reporting;
 
 import org.testar.OutputStructure;
+import org.testar.metrics.Metrics;
 import org.testar.monkey.ConfigTags;
 import org.testar.monkey.alayer.Action;
 import org.testar.monkey.alayer.State;
@@ -75,7 +76,7 @@ public class ReportManager implements Reporting
             reporters = new ArrayList<>();
     
             if(html)
-                reporters.add(new HtmlReporter(fileName, replay));
+                reporters.add(new HtmlReporter(fileName, replay, settings.get(ConfigTags.ReportCompactActions, false)));
             if(plainText)
                 reporters.add(new PlainTextReporter(fileName, replay));
         }
@@ -83,13 +84,16 @@ public class ReportManager implements Reporting
     
     public void finishReport()
     {
+        long start = Metrics.start();
         if(reportingEnabled)
             for(Reporting reporter : reporters)
                 reporter.finishReport();
+        Metrics.stop(Metrics.REPORTING, start);
     }
     
     public void addState(State state)
     {
+        long start = Metrics.start();
         if(reportingEnabled)
         {
             if(firstStateAdded)
@@ -107,10 +111,12 @@ public class ReportManager implements Reporting
                     reporter.addState(state);
             }
         }
+        Metrics.stop(Metrics.REPORTING, start);
     }
     
     public void addActions(Set<Action> actions)
     {
+        long start = Metrics.start();
         if(reportingEnabled)
         {
             firstActionsAdded = true;
@@ -118,10 +124,12 @@ public class ReportManager implements Reporting
             for(Reporting reporter : reporters)
                 reporter.addActions(actions);
         }
+        Metrics.stop(Metrics.REPORTING, start);
     }
     
     public void addActionsAndUnvisitedActions(Set<Action> actions, Set<String> concreteIdsOfUnvisitedActions)
     {
+        long start = Metrics.start();
         if(reportingEnabled)
         {
             firstActionsAdded = true;
@@ -129,13 +137,16 @@ public class ReportManager implements Reporting
             for(Reporting reporter : reporters)
                 reporter.addActionsAndUnvisitedActions(actions, concreteIdsOfUnvisitedActions);
         }
+        Metrics.stop(Metrics.REPORTING, start);
     }
     
     public void addSelectedAction(State state, Action action)
     {
+        long start = Metrics.start();
         if(reportingEnabled)
             for(Reporting reporter : reporters)
                 reporter.addSelectedAction(state, action);
+        Metrics.stop(Metrics.REPORTING, start);
     }
     
     public void addTestVerdict(Verdict verdict)
@@ -71,6 +71,7 @@ public class SettingsDefaults {
 		defaults.add(Pair.from(CopyFromTo, new ArrayList<Pair<String, String>>()));
 		defaults.add(Pair.from(SuspiciousTags, "(?!x)x"));
 		defaults.add(Pair.from(ClickFilter, "(?!x)x"));
+		defaults.add(Pair.from(PatternMatchCacheSize, 10000));
 		defaults.add(Pair.from(MyClassPath, Arrays.asList(Main.settingsDir)));
 		defaults.add(Pair.from(ProtocolClass, "org.testar.monkey.DefaultProtocol"));
 		defaults.add(Pair.from(ForceForeground, true));
@@ -97,6 +98,8 @@ public class SettingsDefaults {
 		defaults.add(Pair.from(ApplicationVersion, ""));
 		defaults.add(Pair.from(ActionSelectionAlgorithm, "random"));
 		defaults.add(Pair.from(StateModelStoreWidgets, true));
+		defaults.add(Pair.from(SharedStateModelDirectory, ""));
+		defaults.add(Pair.from(SharedStateModelInterval, 10));
 		defaults.add(Pair.from(AlwaysCompile, true));
 		defaults.add(Pair.from(ProcessListenerEnabled, false));
 		defaults.add(Pair.from(SuspiciousProcessOutput, "(?!x)x"));
@@ -106,6 +109,7 @@ public class SettingsDefaults {
 		defaults.add(Pair.from(FormFillingAction, false));
 		defaults.add(Pair.from(ReportInHTML, true));
 		defaults.add(Pair.from(ReportInPlainText, false));
+		defaults.add(Pair.from(ReportCompactActions, false));
 
 		// Oracles for webdriver browser console
 		defaults.add(Pair.from(WebConsoleErrorOracle, false));
@@ -120,6 +124,14 @@ public class SettingsDefaults {
 		defaults.add(Pair.from(ProtocolSpecificSetting_5, ""));
 		defaults.add(Pair.from(FlashFeedback, true));
 		defaults.add(Pair.from(ProtocolCompileDirectory, "./settings"));
+		defaults.add(Pair.from(ProtocolJar, ""));
+		defaults.add(Pair.from(MetricsEnabled, false));
+		defaults.add(Pair.from(MetricsPort, 0));
+		defaults.add(Pair.from(SimulateSUT, false));
+		defaults.add(Pair.from(SimulatorRecording, ""));
+		defaults.add(Pair.from(SimulatorStateLatency, 0));
+		defaults.add(Pair.from(SimulatorActionLatency, 0));
+		defaults.add(Pair.from(SimulatorFallback, "STAY"));
 
 		defaults.add(Pair.from(AbstractStateAttributes, new ArrayList<String>() {
 			{
@@ -185,6 +197,7 @@ public class SettingsDefaults {
 		defaults.add(Pair.from(LogOracleRegex, ".*([Ee]xception|[Ee]rror).*"));
 		defaults.add(Pair.from(LogOracleCommands, new ArrayList<String>()));
 		defaults.add(Pair.from(LogOracleFiles, new ArrayList<String>()));
+		defaults.add(Pair.from(LogOracleWatchFiles, false));
 
 		return defaults;
 	}
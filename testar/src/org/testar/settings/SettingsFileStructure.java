@@ -325,13 +325,26 @@ public class SettingsFileStructure {
 		secondarySettingsList.add(ConfigTags.PathToReplaySequence);
 		secondarySettingsList.add(ConfigTags.RefreshSpyCanvas);
 		secondarySettingsList.add(ConfigTags.FlashFeedback);
+		secondarySettingsList.add(ConfigTags.PatternMatchCacheSize);
+		secondarySettingsList.add(ConfigTags.LogOracleWatchFiles);
+		secondarySettingsList.add(ConfigTags.ReportCompactActions);
 		secondarySettingsList.add(ConfigTags.MaxReward);
 		secondarySettingsList.add(ConfigTags.Discount);
 		secondarySettingsList.add(ConfigTags.CreateWidgetInfoJsonFile);
 		secondarySettingsList.add(ConfigTags.MyClassPath);
 		secondarySettingsList.add(ConfigTags.ProtocolCompileDirectory);
+		secondarySettingsList.add(ConfigTags.ProtocolJar);
 		secondarySettingsList.add(ConfigTags.OutputDir);
 		secondarySettingsList.add(ConfigTags.TempDir);
+		secondarySettingsList.add(ConfigTags.SharedStateModelDirectory);
+		secondarySettingsList.add(ConfigTags.SharedStateModelInterval);
+		secondarySettingsList.add(ConfigTags.MetricsEnabled);
+		secondarySettingsList.add(ConfigTags.MetricsPort);
+		secondarySettingsList.add(ConfigTags.SimulateSUT);
+		secondarySettingsList.add(ConfigTags.SimulatorRecording);
+		secondarySettingsList.add(ConfigTags.SimulatorStateLatency);
+		secondarySettingsList.add(ConfigTags.SimulatorActionLatency);
+		secondarySettingsList.add(ConfigTags.SimulatorFallback);
 
 		StringJoiner secondaryString = new StringJoiner(System.getProperty("line.separator"));
 		for(Tag<?> set : secondarySettingsList) {
@@ -35,6 +35,8 @@ import org.testar.CodingManager;
 import org.testar.StateManagementTags;
 import org.testar.statemodel.analysis.AnalysisManager;
 import org.testar.statemodel.analysis.webserver.JettyServer;
+import org.testar.statemodel.persistence.logstore.LogStoreExporter;
+import org.testar.statemodel.persistence.logstore.LogStoreManagerFactory;
 import org.testar.statemodel.persistence.orientdb.entity.Config;
 
 import com.orientechnologies.orient.core.exception.ODatabaseException;
@@ -382,6 +384,10 @@ public class StateModelPanel extends SettingsPanel {
             config.setUser(dataStoreUserTextfield.getText());
             config.setPassword(getPassword());
             config.setDatabaseDirectory(dataStoreDirectoryField.getText());
+            // models stored in a log store are first exported to the database, so that they can be analysed
+            if (dataStoreTextfield.getText().equalsIgnoreCase("LogStore")) {
+                LogStoreExporter.exportToOrientDB(LogStoreManagerFactory.getStoreDirectory(dataStoreDirectoryField.getText(), dataStoreDBTextfield.getText()), config);
+            }
             AnalysisManager analysisManager = new AnalysisManager(config, outputDir);
             JettyServer jettyServer = new JettyServer();
             jettyServer.start(outputDir, analysisManager);
@@ -37,7 +37,7 @@ import org.testar.monkey.alayer.Tags;
 import java.util.*;
 
 public class GuiStateGraphForQlearning {
-    protected Set<QlearningGuiState> qlearningGuiStates;
+    protected IndexedStateGraph<QlearningGuiState> qlearningGuiStates;
     protected String startingStateAbstractId;
     protected String previousStateAbstractId;
     protected String previousActionAbstractId;
@@ -48,7 +48,7 @@ public class GuiStateGraphForQlearning {
         this.R_MAX = R_MAX;
         this.gammaDiscount=gammaDiscount;
 
-        qlearningGuiStates = new HashSet<QlearningGuiState>();
+        qlearningGuiStates = new IndexedStateGraph<QlearningGuiState>();
     }
 
     /**
@@ -84,12 +84,7 @@ public class GuiStateGraphForQlearning {
      * @return
      */
     protected QlearningGuiState getStateByAbstractId(String abstractStateId){
-        for(QlearningGuiState state: qlearningGuiStates){
-            if(state.getAbstractStateId().equals(abstractStateId)){
-                return state;
-            }
-        }
-        return null;
+        return qlearningGuiStates.getState(abstractStateId);
     }
 
     protected QlearningGuiState createQlearningGuiState(State state, Set<Action> actions){
@@ -101,12 +96,7 @@ public class GuiStateGraphForQlearning {
     }
 
     protected boolean containsStateId(String stateId){
-        for(QlearningGuiState state: qlearningGuiStates){
-            if(state.getAbstractStateId().equals(stateId)){
-                return true;
-            }
-        }
-        return false;
+        return qlearningGuiStates.containsState(stateId);
     }
 
 }
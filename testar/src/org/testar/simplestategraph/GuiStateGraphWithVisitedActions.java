@@ -42,13 +42,13 @@ import java.util.Random;
 import java.util.Set;
 
 public class GuiStateGraphWithVisitedActions implements IActionSelector {
-    protected Set<IdBasedGuiState> idBasedGuiStates;
+    protected IndexedStateGraph<IdBasedGuiState> idBasedGuiStates;
     protected String startingStateAbstractId;
     protected String previousStateAbstractId;
     protected String previousActionAbstractId;
 
     public GuiStateGraphWithVisitedActions() {
-        idBasedGuiStates = new HashSet<IdBasedGuiState>();
+        idBasedGuiStates = new IndexedStateGraph<IdBasedGuiState>();
     }
 
     public Set<String> getAbstractIdsOfUnvisitedActions(State state){
@@ -69,9 +69,9 @@ public class GuiStateGraphWithVisitedActions implements IActionSelector {
             if(previousState==null){
                 System.out.println(this.getClass()+": ERROR: GuiStateGraphWithVisitedActions did not find previous state!");
             }else{
-                idBasedGuiStates.remove(previousState);
-                previousState.addStateTransition(new GuiStateTransition(previousStateAbstractId,state.get(Tags.AbstractID),previousActionAbstractId));
-                idBasedGuiStates.add(previousState);
+                GuiStateTransition transition = new GuiStateTransition(previousStateAbstractId,state.get(Tags.AbstractID),previousActionAbstractId);
+                previousState.addStateTransition(transition);
+                idBasedGuiStates.addTransition(transition);
             }
         }
         Action returnAction = null;
@@ -110,10 +110,10 @@ public class GuiStateGraphWithVisitedActions implements IActionSelector {
             System.out.println(this.getClass()+": selectAction(): no unvisited actions found! Getting purely random action.");
             returnAction = RandomActionSelector.selectRandomAction(actions);
         }
-        //updating the list of states:
-        idBasedGuiStates.remove(currentIdBasedGuiState); // should not be a problem if state not there (new state)?
+        //updating the list of states, the number of unvisited actions orders the state among the successors of other states:
         currentIdBasedGuiState.addVisitedAction(returnAction.get(Tags.AbstractID));
-        idBasedGuiStates.add(currentIdBasedGuiState);
+        idBasedGuiStates.addState(currentIdBasedGuiState.getAbstractStateId(), currentIdBasedGuiState);
+        idBasedGuiStates.setPriority(currentIdBasedGuiState.getAbstractStateId(), currentIdBasedGuiState.getUnvisitedActionIds().size());
         // saving the state and action for state transition after knowing the target state:
         previousActionAbstractId = returnAction.get(Tags.AbstractID);
         previousStateAbstractId = state.get(Tags.AbstractID);
@@ -143,41 +143,15 @@ public class GuiStateGraphWithVisitedActions implements IActionSelector {
         if(currentState==null || currentState.getUnvisitedActionIds()==null){
             System.out.println(this.getClass()+": ERROR, current state or transitions is null!");
         }
-        int numberOfMostUnvisitedActions = 0;
-        String returnActionId = null;
-        for(GuiStateTransition transition:currentState.getStateTransitions()){
-            if(transition==null || transition.getSourceStateAbstractId()==null){
-                System.out.println(this.getClass()+": ERROR, transition or source state id is null!");
-            }
-            if(transition.getSourceStateAbstractId().equals(currentStateId)){
-                //source state is the same as current id, as it should be if no errors
-                if(transition.getTargetStateAbstractId()==null){
-                    System.out.println(this.getClass()+": ERROR, target state ID is null!");
-                }
-                if(currentState.getAbstractStateId().equals(transition.getTargetStateAbstractId())){
-                    // source state id == target state id -> no actual state transition with this action
-                    System.out.println(this.getClass()+": not actually a state transition.");
-                }else{
-                    IdBasedGuiState targetState = getIdBasedGuiState(transition.getTargetStateAbstractId());
-                    if(targetState==null){
-                        System.out.println(this.getClass()+": ERROR, target state is null!");
-                    }
-                    if(targetState.getUnvisitedActionIds().size()>numberOfMostUnvisitedActions){
-                        numberOfMostUnvisitedActions = targetState.getUnvisitedActionIds().size();
-                        System.out.println(this.getClass()+": unvisited actions = "+numberOfMostUnvisitedActions);
-                        returnActionId = transition.getActionAbstractId();
-                    }
-                }
-            }else{
-                System.out.println(this.getClass()+": ERROR in state transitions, source state id NOT same as current state id!");
-            }
-        }
-        if(returnActionId==null){
+        // the successors are ordered by their number of unvisited actions, self transitions are skipped
+        GuiStateTransition transition = idBasedGuiStates.getTransitionToSuccessorWithHighestPriority(currentStateId);
+        if(transition==null){
             System.out.println(this.getClass()+": all actions in all target states have been visited! TODO:implement more depth");
             //TODO implement recursive search for state with unvisited actions
             return "not found, depth=1";
         }
-        return returnActionId;
+        System.out.println(this.getClass()+": unvisited actions = "+idBasedGuiStates.getPriority(transition.getTargetStateAbstractId()));
+        return transition.getActionAbstractId();
     }
 
     /**
@@ -187,12 +161,7 @@ public class GuiStateGraphWithVisitedActions implements IActionSelector {
      * @return
      */
     protected IdBasedGuiState getIdBasedGuiState(String abstractStateId){
-        for(IdBasedGuiState state:idBasedGuiStates){
-            if(state.getAbstractStateId().equals(abstractStateId)){
-                return state;
-            }
-        }
-        return null;
+        return idBasedGuiStates.getState(abstractStateId);
     }
 
     protected IdBasedGuiState createIdBasedGuiState(State state, Set<Action> actions){
@@ -204,12 +173,7 @@ public class GuiStateGraphWithVisitedActions implements IActionSelector {
     }
 
     protected boolean containsStateId(String stateId){
-        for(IdBasedGuiState state:idBasedGuiStates){
-            if(state.getAbstractStateId().equals(stateId)){
-                return true;
-            }
-        }
-        return false;
+        return idBasedGuiStates.containsState(stateId);
     }
 
 }
@@ -30,7 +30,9 @@
 
 package org.testar.simplestategraph;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 public class IdBasedGuiState {
@@ -38,36 +40,33 @@ public class IdBasedGuiState {
     protected Set<String> abstractActionIds;
     protected Set<String> unvisitedActionIds;
     protected Set<GuiStateTransition> stateTransitions;
+    // the target states of the transitions, by action id
+    protected Map<String, Set<String>> targetStateIdsByActionId;
 
     public IdBasedGuiState(String abstractStateId, Set<String> abstractActionIds) {
         this.abstractStateId = abstractStateId;
         this.abstractActionIds = abstractActionIds;
         this.unvisitedActionIds = abstractActionIds; // all are unvisited when creating
         stateTransitions = new HashSet<GuiStateTransition>();
+        targetStateIdsByActionId = new HashMap<String, Set<String>>();
     }
 
     public void addStateTransition(GuiStateTransition newTransition){
-        if(stateTransitions.size()>0){
-            //if existing transitions, checking for identical ones:
-            for(GuiStateTransition guiStateTransition:stateTransitions){
-                if(guiStateTransition.getSourceStateAbstractId().equals(newTransition.getSourceStateAbstractId())){
-                    // the same source state, as it should be:
-                    if(guiStateTransition.getActionAbstractId().equals(newTransition.getActionAbstractId())){
-                        // also the action is the same:
-                        if(guiStateTransition.getTargetStateAbstractId().equals(newTransition.getTargetStateAbstractId())){
-                            // also the target state is the same -> identical transition
-                            System.out.println(this.getClass()+": addStateTransition: identical transition found - no need to save again");
-                            return;
-                        }else{
-                            // same source state and same action, but different target state -> some external factor or the data values affect the behaviour
-                            System.out.println(this.getClass()+": addStateTransition: WARNING: same source state, same action, but different target state!");
-                        }
-                    }
-                }else{
-                    System.out.println(this.getClass()+": ERROR, source state is NOT same as in other state transitions from the same state!");
-                }
-            }
+        if(!abstractStateId.equals(newTransition.getSourceStateAbstractId())){
+            System.out.println(this.getClass()+": ERROR, source state is NOT same as in other state transitions from the same state!");
         }
+        // checking for identical transitions with the target states of the same action:
+        Set<String> targetStateIds = targetStateIdsByActionId.computeIfAbsent(newTransition.getActionAbstractId(), id -> new HashSet<String>());
+        if(targetStateIds.contains(newTransition.getTargetStateAbstractId())){
+            // also the target state is the same -> identical transition
+            System.out.println(this.getClass()+": addStateTransition: identical transition found - no need to save again");
+            return;
+        }
+        if(!targetStateIds.isEmpty()){
+            // same source state and same action, but different target state -> some external factor or the data values affect the behaviour
+            System.out.println(this.getClass()+": addStateTransition: WARNING: same source state, same action, but different target state!");
+        }
+        targetStateIds.add(newTransition.getTargetStateAbstractId());
         // otherwise adding the new state transition:
         stateTransitions.add(newTransition);
     }
@@ -0,0 +1,176 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.simplestategraph;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A state graph of the simple state graph action selectors, indexed by abstract state id.
+ * Besides the states it keeps the sources of every state, and for every state its successors
+ * ordered by a priority, such as the number of unvisited actions of the successor.
+ * Looking up a state is O(1) and finding the successor with the highest priority O(log n).
+ *
+ * @param <S> the type of the states in the graph
+ */
+public class IndexedStateGraph<S> {
+
+    private final Map<String, S> states = new LinkedHashMap<>();
+    // target state id -> the ids of the states with a transition to it
+    private final Map<String, Set<String>> sourcesByTarget = new HashMap<>();
+    // the priority of each state
+    private final Map<String, Integer> priorities = new HashMap<>();
+    // source state id -> target state id -> the successor entry in the ordered set
+    private final Map<String, Map<String, Successor>> successorsBySource = new HashMap<>();
+    private final Map<String, TreeSet<Successor>> orderedSuccessors = new HashMap<>();
+    private long successorSequence;
+
+    public S getState(String abstractStateId) {
+        return states.get(abstractStateId);
+    }
+
+    public boolean containsState(String abstractStateId) {
+        return states.containsKey(abstractStateId);
+    }
+
+    public void addState(String abstractStateId, S state) {
+        states.put(abstractStateId, state);
+    }
+
+    public Collection<S> getStates() {
+        return Collections.unmodifiableCollection(states.values());
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    /**
+     * Adds a transition to the index. Only the first action leading from a source state to a target state
+     * is kept as successor, any other action between the same states leads to a state with the same priority.
+     *
+     * @param transition
+     * @return true if the target state was not yet a successor of the source state
+     */
+    public boolean addTransition(GuiStateTransition transition) {
+        String sourceId = transition.getSourceStateAbstractId();
+        String targetId = transition.getTargetStateAbstractId();
+        Map<String, Successor> successors = successorsBySource.computeIfAbsent(sourceId, id -> new HashMap<>());
+        if (successors.containsKey(targetId)) {
+            return false;
+        }
+        sourcesByTarget.computeIfAbsent(targetId, id -> new HashSet<>()).add(sourceId);
+        Successor successor = new Successor(transition, getPriority(targetId), successorSequence++);
+        successors.put(targetId, successor);
+        orderedSuccessors.computeIfAbsent(sourceId, id -> new TreeSet<>(Successor.ORDER)).add(successor);
+        return true;
+    }
+
+    /**
+     * @param abstractStateId
+     * @return the ids of the states that have a transition to the given state
+     */
+    public Set<String> getSourceStateIds(String abstractStateId) {
+        Set<String> sources = sourcesByTarget.get(abstractStateId);
+        return sources == null ? Collections.emptySet() : Collections.unmodifiableSet(sources);
+    }
+
+    public int getPriority(String abstractStateId) {
+        return priorities.getOrDefault(abstractStateId, 0);
+    }
+
+    /**
+     * Sets the priority of a state and reorders the successors of the states leading to it.
+     *
+     * @param abstractStateId
+     * @param priority
+     */
+    public void setPriority(String abstractStateId, int priority) {
+        Integer previous = priorities.put(abstractStateId, priority);
+        if (previous != null && previous == priority) {
+            return;
+        }
+        for (String sourceId : getSourceStateIds(abstractStateId)) {
+            Map<String, Successor> successors = successorsBySource.get(sourceId);
+            TreeSet<Successor> ordered = orderedSuccessors.get(sourceId);
+            Successor successor = successors.get(abstractStateId);
+            ordered.remove(successor);
+            successor = new Successor(successor.transition, priority, successor.sequence);
+            successors.put(abstractStateId, successor);
+            ordered.add(successor);
+        }
+    }
+
+    /**
+     * Returns the transition to the successor with the highest positive priority, other than the source state itself.
+     * Successors with the same priority are returned in the order they were added.
+     *
+     * @param abstractStateId the id of the source state
+     * @return the transition, or null if no other successor has a positive priority
+     */
+    public GuiStateTransition getTransitionToSuccessorWithHighestPriority(String abstractStateId) {
+        TreeSet<Successor> ordered = orderedSuccessors.get(abstractStateId);
+        if (ordered == null) {
+            return null;
+        }
+        for (Successor successor : ordered) {
+            if (successor.priority <= 0) {
+                return null;
+            }
+            if (!abstractStateId.equals(successor.transition.getTargetStateAbstractId())) {
+                return successor.transition;
+            }
+        }
+        return null;
+    }
+
+    private static final class Successor {
+        static final Comparator<Successor> ORDER = Comparator.<Successor>comparingInt(successor -> -successor.priority)
+                .thenComparingLong(successor -> successor.sequence);
+
+        final GuiStateTransition transition;
+        final int priority;
+        final long sequence;
+
+        Successor(GuiStateTransition transition, int priority, long sequence) {
+            this.transition = transition;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -82,9 +82,9 @@ public class QLearningActionSelector implements IActionSelector {
             if(previousState==null){
                 System.out.println(this.getClass()+": ERROR: GuiStateGraphWithVisitedActions did not find previous state!");
             }else{
-                graph.qlearningGuiStates.remove(previousState);//removing the old version of the state
-                previousState.addStateTransition(new GuiStateTransition(graph.previousStateAbstractId,state.get(Tags.AbstractID),graph.previousActionAbstractId),gammaDiscount,currentQlearningGuiState.getMaxQValueOfTheState(actions));
-                graph.qlearningGuiStates.add(previousState);//adding the updated version of the state
+                GuiStateTransition transition = new GuiStateTransition(graph.previousStateAbstractId,state.get(Tags.AbstractID),graph.previousActionAbstractId);
+                previousState.addStateTransition(transition,gammaDiscount,currentQlearningGuiState.getMaxQValueOfTheState(actions));
+                graph.qlearningGuiStates.addTransition(transition);
             }
         }
         
@@ -108,8 +108,7 @@ public class QLearningActionSelector implements IActionSelector {
             returnAction = RandomActionSelector.selectRandomAction(actions);
         }
         //updating the list of states:
-        graph.qlearningGuiStates.remove(currentQlearningGuiState); // should not be a problem if state not there (new state)?
-        graph.qlearningGuiStates.add(currentQlearningGuiState);
+        graph.qlearningGuiStates.addState(currentQlearningGuiState.getAbstractStateId(), currentQlearningGuiState);
         // saving the state and action for state transition after knowing the target state:
         graph.previousActionAbstractId = returnAction.get(Tags.AbstractID);
         graph.previousStateAbstractId = state.get(Tags.AbstractID);
@@ -125,7 +124,7 @@ public class QLearningActionSelector implements IActionSelector {
         int numberOfActions = 0;
         int numberOfExecutedActions = 0;
         int numberOfExecutionsSum = 0;
-        for(QlearningGuiState state:graph.qlearningGuiStates){
+        for(QlearningGuiState state:graph.qlearningGuiStates.getStates()){
             numberOfActions = numberOfActions+state.abstractActionIdsAndExecutionCounters.size();
             for(int executionCounter:state.abstractActionIdsAndExecutionCounters.values()){
                 if(executionCounter>0){
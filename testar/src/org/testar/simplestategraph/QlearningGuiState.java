@@ -41,19 +41,28 @@ public class QlearningGuiState {
     protected HashMap<String, Double> abstractActionIdsAndRewards;
     protected HashMap<String, Double> abstractActionIdsAndQValues;
     protected HashMap<String, Integer> abstractActionIdsAndExecutionCounters;
+    // the action ids grouped by their Q value, highest Q value first
+    protected TreeMap<Double, Set<String>> actionIdsByQValue;
     protected Set<GuiStateTransition> stateTransitions;
+    // the target states of the transitions, by action id
+    protected Map<String, Set<String>> targetStateIdsByActionId;
 
     public QlearningGuiState(String abstractStateId, HashMap<String, Double> abstractActionIdsAndRewards) {
         this.abstractStateId = abstractStateId;
         this.abstractActionIdsAndRewards = abstractActionIdsAndRewards;
         // all Q values are the same as R Max in the beginning
-        this.abstractActionIdsAndQValues = abstractActionIdsAndRewards;
+        this.abstractActionIdsAndQValues = new HashMap<String, Double>();
+        this.actionIdsByQValue = new TreeMap<Double, Set<String>>(Collections.reverseOrder());
+        for(Map.Entry<String, Double> entry:abstractActionIdsAndRewards.entrySet()){
+            putQValue(entry.getKey(), entry.getValue());
+        }
         //creating execution counters for each action:
         abstractActionIdsAndExecutionCounters = new HashMap<String, Integer>();
         for(String id:abstractActionIdsAndRewards.keySet()){
             abstractActionIdsAndExecutionCounters.put(id,0);
         }
         stateTransitions = new HashSet<GuiStateTransition>();
+        targetStateIdsByActionId = new HashMap<String, Set<String>>();
     }
 
     /**
@@ -62,29 +71,19 @@ public class QlearningGuiState {
      * @return
      */
     public double getMaxQValueOfTheState(Set<Action> actions){
-        double qValue = 0;
-        for(Map.Entry<String, Double> entry:abstractActionIdsAndQValues.entrySet()){
-            if(entry.getValue()>qValue){
-                for(Action action:actions){
-                    if(action.get(Tags.AbstractID).equals(entry.getKey())){
-                        qValue = entry.getValue();
-                    }
-                }
-            }
-        }
-        return qValue;
+        return getMaxQValue(getAbstractIds(actions));
     }
 
     public ArrayList<String> getActionsIdsWithMaxQvalue(Set<Action> actions){
         ArrayList<String> actionIdsWithMaxQvalue = new ArrayList<String>();
-        double maxQValue = getMaxQValueOfTheState(actions);
-        for(String actionId:abstractActionIdsAndQValues.keySet()){
-            if(abstractActionIdsAndQValues.get(actionId).equals(maxQValue)){
+        Set<String> availableActionIds = getAbstractIds(actions);
+        double maxQValue = getMaxQValue(availableActionIds);
+        Set<String> actionIds = actionIdsByQValue.get(maxQValue);
+        if(actionIds!=null){
+            for(String actionId:actionIds){
                 //checking that the actionID from the model is also in the list of available actions of the state:
-                for(Action action:actions){
-                    if(action.get(Tags.AbstractID).equals(actionId)){
-                        actionIdsWithMaxQvalue.add(actionId);
-                    }
+                if(availableActionIds.contains(actionId)){
+                    actionIdsWithMaxQvalue.add(actionId);
                 }
             }
         }
@@ -92,6 +91,45 @@ public class QlearningGuiState {
         return actionIdsWithMaxQvalue;
     }
 
+    /**
+     * Walks the Q values from the highest down until one of them belongs to an available action
+     * @param availableActionIds
+     * @return the highest positive Q value of the available actions, or 0 if there is none
+     */
+    private double getMaxQValue(Set<String> availableActionIds){
+        for(Map.Entry<Double, Set<String>> entry:actionIdsByQValue.entrySet()){
+            if(entry.getKey()<=0){
+                break;
+            }
+            for(String actionId:entry.getValue()){
+                if(availableActionIds.contains(actionId)){
+                    return entry.getKey();
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static Set<String> getAbstractIds(Set<Action> actions){
+        Set<String> actionIds = new HashSet<String>();
+        for(Action action:actions){
+            actionIds.add(action.get(Tags.AbstractID));
+        }
+        return actionIds;
+    }
+
+    private void putQValue(String actionAbstractId, double qValue){
+        Double previousQValue = abstractActionIdsAndQValues.put(actionAbstractId, qValue);
+        if(previousQValue!=null){
+            Set<String> actionIds = actionIdsByQValue.get(previousQValue);
+            actionIds.remove(actionAbstractId);
+            if(actionIds.isEmpty()){
+                actionIdsByQValue.remove(previousQValue);
+            }
+        }
+        actionIdsByQValue.computeIfAbsent(qValue, value -> new LinkedHashSet<String>()).add(actionAbstractId);
+    }
+
     /**
      * For some reason, the actionIDs are changing even if the AbstractID is the same
      * So updating the actionIDs
@@ -102,7 +140,7 @@ public class QlearningGuiState {
             if(abstractActionIdsAndQValues.containsKey(action.get(Tags.AbstractID))){
                 // model contains the action ID
             }else{
-                abstractActionIdsAndQValues.put(action.get(Tags.AbstractID),R_MAX);
+                putQValue(action.get(Tags.AbstractID),R_MAX);
                 abstractActionIdsAndRewards.put(action.get(Tags.AbstractID),R_MAX);
                 abstractActionIdsAndExecutionCounters.put(action.get(Tags.AbstractID),0);
             }
@@ -112,27 +150,21 @@ public class QlearningGuiState {
     public void addStateTransition(GuiStateTransition newTransition, double gammaDiscount, double maxRMaxOfTheNewState){
         //updating reward and Q value for the executed action:
         updateRMaxAndQValues(newTransition.getActionAbstractId(), gammaDiscount, maxRMaxOfTheNewState);
-        if(stateTransitions.size()>0){
-            //if existing transitions, checking for identical ones:
-            for(GuiStateTransition guiStateTransition:stateTransitions){
-                if(guiStateTransition.getSourceStateAbstractId().equals(newTransition.getSourceStateAbstractId())){
-                    // the same source state, as it should be:
-                    if(guiStateTransition.getActionAbstractId().equals(newTransition.getActionAbstractId())){
-                        // also the action is the same:
-                        if(guiStateTransition.getTargetStateAbstractId().equals(newTransition.getTargetStateAbstractId())){
-                            // also the target state is the same -> identical transition
-                            System.out.println(this.getClass()+": addStateTransition: identical transition found - no need to save again");
-                            return;
-                        }else{
-                            // same source state and same action, but different target state -> some external factor or the data values affect the behaviour
-                            System.out.println(this.getClass()+": addStateTransition: WARNING: same source state, same action, but different target state!");
-                        }
-                    }
-                }else{
-                    System.out.println(this.getClass()+": ERROR, source state is NOT same as in other state transitions from the same state!");
-                }
-            }
+        if(!abstractStateId.equals(newTransition.getSourceStateAbstractId())){
+            System.out.println(this.getClass()+": ERROR, source state is NOT same as in other state transitions from the same state!");
+        }
+        // checking for identical transitions with the target states of the same action:
+        Set<String> targetStateIds = targetStateIdsByActionId.computeIfAbsent(newTransition.getActionAbstractId(), id -> new HashSet<String>());
+        if(targetStateIds.contains(newTransition.getTargetStateAbstractId())){
+            // also the target state is the same -> identical transition
+            System.out.println(this.getClass()+": addStateTransition: identical transition found - no need to save again");
+            return;
+        }
+        if(!targetStateIds.isEmpty()){
+            // same source state and same action, but different target state -> some external factor or the data values affect the behaviour
+            System.out.println(this.getClass()+": addStateTransition: WARNING: same source state, same action, but different target state!");
         }
+        targetStateIds.add(newTransition.getTargetStateAbstractId());
         // otherwise adding the new state transition:
 //        System.out.println(this.getClass()+": addStateTransition: adding the new state transition");
         stateTransitions.add(newTransition);
@@ -148,7 +180,7 @@ public class QlearningGuiState {
         abstractActionIdsAndRewards.put(actionAbstractId,reward);
         double qValue = calculateQValue(reward,gammaDiscount,maxQValueOfTheNewState);
         System.out.println("DEBUG: new Q value for action "+actionAbstractId+" is "+qValue);
-        abstractActionIdsAndQValues.put(actionAbstractId,qValue);
+        putQValue(actionAbstractId,qValue);
     }
 
     private double calculateReward(int executionCounter){
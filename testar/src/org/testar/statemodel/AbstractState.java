@@ -110,6 +110,30 @@ public class AbstractState extends AbstractEntity implements Persistable {
         return new HashSet<>(unvisitedActions.values());
     }
 
+    /**
+     * This method returns the number of possible actions in this state
+     * @return
+     */
+    public int getNrOfActions() {
+        return actions.size();
+    }
+
+    /**
+     * This method returns the number of actions that have not yet been visited from this state
+     * @return
+     */
+    public int getNrOfUnvisitedActions() {
+        return unvisitedActions.size();
+    }
+
+    /**
+     * This method returns true if there are actions that have not yet been visited from this state
+     * @return
+     */
+    public boolean hasUnvisitedActions() {
+        return !unvisitedActions.isEmpty();
+    }
+
     /**
      * This method returns all the actions for this abstract state that have been visited
      * @return
@@ -45,6 +45,21 @@ public class AbstractStateModel {
     // are we emitting events or not?
     private boolean emitEvents = true;
 
+    // the number of nested suspensions of the events by callers of this model
+    private int suspendedEvents = 0;
+
+    // distances to the nearest unvisited actions, created on first use
+    private UnvisitedDistanceMap unvisitedDistanceMap;
+
+    // the number of actions and unvisited actions last counted for each state, and their totals
+    private Map<String, int[]> countedActions = new HashMap<>();
+    private long nrOfActions;
+    private long nrOfUnvisitedActions;
+    private int nrOfNondeterministicActions;
+
+    // incremented when a state or transition is added or the number of (unvisited) actions of a state changes
+    private long modificationCount;
+
     /**
      * constructor
      * @param modelIdentifier
@@ -76,7 +91,42 @@ public class AbstractStateModel {
      */
     private void initStateModel() {
         // add code here to initialize the model, such as loading a model from disk/database/external storage
-        emitEvent(new StateModelEvent(StateModelEventType.ABSTRACT_STATE_MODEL_INITIALIZED, this));
+        // the listeners load the stored model when they receive this event. The states and transitions they add
+        // are not new, so the events are suspended while they do, and only the initialization event itself is sent
+        StateModelEvent event = new StateModelEvent(StateModelEventType.ABSTRACT_STATE_MODEL_INITIALIZED, this);
+        if (!emitEvents) return;
+        suspendEvents();
+        try {
+            for (StateModelEventListener eventListener: eventListeners) {
+                eventListener.eventReceived(event);
+            }
+        }
+        finally {
+            resumeEvents();
+        }
+    }
+
+    /**
+     * This method presizes the collections of an empty model for the expected number of states and transitions,
+     * so that loading a stored model does not have to grow them over and over.
+     * @param expectedNrOfStates
+     * @param expectedNrOfTransitions
+     */
+    public void ensureCapacity(int expectedNrOfStates, int expectedNrOfTransitions) {
+        if (!states.isEmpty() || !stateTransitions.isEmpty()) {
+            return;
+        }
+        int stateCapacity = getHashCapacity(expectedNrOfStates);
+        states = new HashMap<>(stateCapacity);
+        countedActions = new HashMap<>(stateCapacity);
+        stateTransitionsBySource = new HashMap<>(stateCapacity);
+        stateTransitionsByTarget = new HashMap<>(stateCapacity);
+        stateTransitions = new HashSet<>(getHashCapacity(expectedNrOfTransitions));
+    }
+
+    // the capacity a hash map needs to hold the given number of entries without resizing
+    private static int getHashCapacity(int expectedSize) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(16L, (long) Math.ceil(expectedSize / 0.75)));
     }
 
     /**
@@ -91,17 +141,32 @@ public class AbstractStateModel {
         checkStateId(targetState.getStateId());
 
         // check if the transition already exists
+        int nrOfOtherTargets = 0;
         if (stateTransitionsBySource.containsKey(sourceState.getStateId())) {
             // loop through all the transitions that have the same source state and check for matches
             for(AbstractStateTransition stateTransition : stateTransitionsBySource.get(sourceState.getStateId())) {
-                if (targetState.getStateId().equals(stateTransition.getTargetStateId()) && executedAction.getActionId().equals(stateTransition.getActionId())) {
+                if (!executedAction.getActionId().equals(stateTransition.getActionId())) {
+                    continue;
+                }
+                if (targetState.getStateId().equals(stateTransition.getTargetStateId())) {
                     // the transition already exists. We send an update event to deal with changes in the states and actions
                     // now we notify our listeners of the possible update
                     emitEvent(new StateModelEvent(StateModelEventType.ABSTRACT_STATE_TRANSITION_CHANGED, stateTransition));
+                    countActions(sourceState.getStateId());
+                    countActions(targetState.getStateId());
+                    if (unvisitedDistanceMap != null) {
+                        unvisitedDistanceMap.stateChanged(sourceState.getStateId());
+                        unvisitedDistanceMap.stateChanged(targetState.getStateId());
+                    }
                     return;
                 }
+                nrOfOtherTargets++;
             }
         }
+        // the action becomes non-deterministic when it leads to a second target state
+        if (nrOfOtherTargets == 1) {
+            nrOfNondeterministicActions++;
+        }
 
         // we set the action to visited for the source state
         sourceState.addVisitedAction(executedAction);
@@ -114,6 +179,9 @@ public class AbstractStateModel {
         addTransition(newStateTransition);
         addState(sourceState);
         addState(targetState);
+        if (unvisitedDistanceMap != null) {
+            unvisitedDistanceMap.transitionAdded(newStateTransition);
+        }
 
         activateEvents();
         emitEvent(new StateModelEvent(StateModelEventType.ABSTRACT_STATE_TRANSITION_ADDED, newStateTransition));
@@ -124,6 +192,7 @@ public class AbstractStateModel {
      * @param newTransition
      */
     private void addTransition(AbstractStateTransition newTransition) {
+        modificationCount++;
         stateTransitions.add(newTransition);
         // add the transitions to the source map
         if (!stateTransitionsBySource.containsKey(newTransition.getSourceStateId())) {
@@ -153,6 +222,7 @@ public class AbstractStateModel {
                 newState.addEventListener(eventListener);
             }
             this.states.put(newState.getStateId(), newState);
+            modificationCount++;
             emitEvent(new StateModelEvent(StateModelEventType.ABSTRACT_STATE_ADDED, newState));
         }
         else {
@@ -163,6 +233,51 @@ public class AbstractStateModel {
         if (newState.isInitial()) {
             addInitialState(newState);
         }
+        countActions(newState.getStateId());
+
+        if (unvisitedDistanceMap != null) {
+            unvisitedDistanceMap.stateChanged(newState.getStateId());
+        }
+    }
+
+    /**
+     * Helper method to update the action counters with the current actions of a state in the model
+     * @param stateId
+     */
+    private void countActions(String stateId) {
+        AbstractState state = states.get(stateId);
+        if (state == null) {
+            return;
+        }
+        int[] counted = countedActions.computeIfAbsent(stateId, id -> new int[2]);
+        int actions = state.getNrOfActions();
+        int unvisitedActions = state.getNrOfUnvisitedActions();
+        if (actions != counted[0] || unvisitedActions != counted[1]) {
+            modificationCount++;
+        }
+        nrOfActions += actions - counted[0];
+        nrOfUnvisitedActions += unvisitedActions - counted[1];
+        counted[0] = actions;
+        counted[1] = unvisitedActions;
+    }
+
+    /**
+     * This method returns a snapshot of the counters of this model.
+     * The counters are updated as states and transitions are added, so this does not scan the model.
+     * Actions that were added to a state after it was last passed to the model are counted on its next update.
+     * @return
+     */
+    public StateModelStatistics getStatistics() {
+        return new StateModelStatistics(states.size(), initialStates.size(), stateTransitions.size(),
+                nrOfActions, nrOfUnvisitedActions, nrOfNondeterministicActions);
+    }
+
+    /**
+     * This method returns the number of abstract states in the model
+     * @return
+     */
+    public int getNrOfStates() {
+        return states.size();
     }
 
     /**
@@ -219,6 +334,28 @@ public class AbstractStateModel {
         }
     }
 
+    /**
+     * This method returns a counter that changes whenever the model changes in a way that can change the paths to
+     * unvisited actions: a state or transition is added, or the number of (unvisited) actions of a state changed.
+     * Repeated transitions through an explored part of the model do not change it.
+     * @return
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * This method returns the distances from the states in this model to the nearest unvisited actions.
+     * The map is built on the first call and kept up to date as states and transitions are added.
+     * @return
+     */
+    public synchronized UnvisitedDistanceMap getUnvisitedDistanceMap() {
+        if (unvisitedDistanceMap == null) {
+            unvisitedDistanceMap = new UnvisitedDistanceMap(this);
+        }
+        return unvisitedDistanceMap;
+    }
+
     /**
      * This method returns all the outgoing transitions for a given state.
      * @param stateId
@@ -250,7 +387,7 @@ public class AbstractStateModel {
      * @param event
      */
     private void emitEvent(StateModelEvent event) {
-        if (!emitEvents) return;
+        if (!emitEvents || suspendedEvents > 0) return;
         for (StateModelEventListener eventListener: eventListeners) {
             eventListener.eventReceived(event);
         }
@@ -286,6 +423,24 @@ public class AbstractStateModel {
         emitEvents = true;
     }
 
+    /**
+     * This method stops the model from emitting events until resumeEvents is called, for changes that the
+     * listeners should not process, such as changes that were made by another worker and are already stored.
+     * Suspensions can be nested.
+     */
+    public void suspendEvents() {
+        suspendedEvents++;
+    }
+
+    /**
+     * This method ends a suspension of the events that was started with suspendEvents.
+     */
+    public void resumeEvents() {
+        if (suspendedEvents > 0) {
+            suspendedEvents--;
+        }
+    }
+
     /**
      * This method returns the name of the application that is being modelled.
      * @return
@@ -25,6 +25,14 @@ public class ConcreteState extends Widget implements Persistable {
         this.abstractState = abstractState;
     }
 
+    /**
+     * Returns the tags that were used in creating the concrete state id.
+     * @return
+     */
+    public Set<Tag<?>> getTags() {
+        return tags;
+    }
+
     /**
      * Retrieves the screenshot data for this state.
      * @return
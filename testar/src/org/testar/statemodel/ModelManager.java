@@ -106,12 +106,9 @@ public class ModelManager implements StateModelManager {
      * Initialization logic needs to go here
      */
     private void init() {
-        // check if the model is deterministic
-        boolean modelIsDeterministic = persistenceManager.modelIsDeterministic(abstractStateModel);
-        System.out.println("Model is deterministic: " + persistenceManager.modelIsDeterministic(abstractStateModel));
-        if (!modelIsDeterministic) {
-            nrOfNonDeterministicActions = persistenceManager.getNrOfNondeterministicActions(abstractStateModel);
-        }
+        // check if the model is deterministic, the model also counted the actions of a stored model when it was loaded
+        nrOfNonDeterministicActions = abstractStateModel.getStatistics().getNrOfNondeterministicActions();
+        System.out.println("Model is deterministic: " + (nrOfNonDeterministicActions == 0));
     }
 
     /**
@@ -187,7 +184,7 @@ public class ModelManager implements StateModelManager {
         }
 
         // check if non-determinism was introduced into the model
-        int currentNrOfNonDeterministicActions = persistenceManager.getNrOfNondeterministicActions(abstractStateModel);
+        int currentNrOfNonDeterministicActions = abstractStateModel.getStatistics().getNrOfNondeterministicActions();
         if (currentNrOfNonDeterministicActions > nrOfNonDeterministicActions) {
             System.out.println("Non-deterministic action was executed!");
             sequenceManager.notifyStateReached(newConcreteState, concreteActionUnderExecution, SequenceError.NON_DETERMINISTIC_ACTION);
@@ -200,13 +197,10 @@ public class ModelManager implements StateModelManager {
         currentConcreteState = newConcreteState;
         concreteActionUnderExecution = null;
 
-        // temporarily output the nr of states in the model
-        System.out.println(abstractStateModel.getStates().size() + " abstract states in the model");
-
-        // temporarily output the number of unvisited actions still left
-        System.out.println(abstractStateModel.getStates().stream().map(AbstractState::getUnvisitedActions).flatMap(
-                Collection::stream
-        ).count() + " unvisited actions left");
+        // temporarily output the nr of states in the model and the number of unvisited actions still left
+        StateModelStatistics statistics = abstractStateModel.getStatistics();
+        System.out.println(statistics.getNrOfStates() + " abstract states in the model");
+        System.out.println(statistics.getNrOfUnvisitedActions() + " unvisited actions left");
         System.out.println("----------------------------");
         System.out.println();
     }
@@ -240,6 +234,11 @@ public class ModelManager implements StateModelManager {
         }
     }
 
+    @Override
+    public StateModelStatistics getStatistics() {
+        return abstractStateModel.getStatistics();
+    }
+
     @Override
     public void notifyTestingEnded() {
         persistenceManager.shutdown();
@@ -3,6 +3,9 @@ package org.testar.statemodel;
 import org.testar.CodingManager;
 import org.testar.statemodel.actionselector.ActionSelector;
 import org.testar.statemodel.actionselector.CompoundFactory;
+import org.testar.statemodel.distributed.DirectoryDeltaStore;
+import org.testar.statemodel.distributed.SharedModelManager;
+import org.testar.statemodel.distributed.SharedModelSynchronizer;
 import org.testar.statemodel.event.StateModelEventListener;
 import org.testar.statemodel.persistence.PersistenceManager;
 import org.testar.statemodel.persistence.PersistenceManagerFactory;
@@ -12,9 +15,13 @@ import org.testar.monkey.alayer.Tag;
 import org.testar.monkey.ConfigTags;
 import org.testar.settings.Settings;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 public class StateModelManagerFactory {
@@ -55,17 +62,33 @@ public class StateModelManagerFactory {
         eventListeners.add((StateModelEventListener) persistenceManager);
         SequenceManager sequenceManager = new SequenceManager(eventListeners, modelIdentifier);
 
+        // when several workers test the same application, they merge their models through a shared directory
+        List<StateModelEventListener> modelListeners = new ArrayList<>();
+        if (persistenceManager instanceof StateModelEventListener) {
+            modelListeners.add((StateModelEventListener) persistenceManager);
+        }
+        SharedModelSynchronizer synchronizer = null;
+        String sharedDirectory = settings.get(ConfigTags.SharedStateModelDirectory, "");
+        if (!sharedDirectory.isEmpty()) {
+            synchronizer = new SharedModelSynchronizer(new DirectoryDeltaStore(new File(sharedDirectory, modelIdentifier), UUID.randomUUID().toString()),
+                    settings.get(ConfigTags.SharedStateModelInterval, 10) * 1000L);
+            modelListeners.add(synchronizer);
+        }
+
         // create the abstract state model and then the state model manager
         AbstractStateModel abstractStateModel = new AbstractStateModel(modelIdentifier,
                 settings.get(ConfigTags.ApplicationName),
                 settings.get(ConfigTags.ApplicationVersion),
                 abstractTags,
-                persistenceManager instanceof StateModelEventListener ? (StateModelEventListener) persistenceManager : null);
+                modelListeners.toArray(new StateModelEventListener[0]));
         ActionSelector actionSelector = CompoundFactory.getCompoundActionSelector(settings);
 
         // should we store widgets?
         boolean storeWidgets = settings.get(ConfigTags.StateModelStoreWidgets);
 
+        if (synchronizer != null) {
+            return new SharedModelManager(abstractStateModel, actionSelector, persistenceManager, concreteStateTags, sequenceManager, storeWidgets, synchronizer);
+        }
         return new ModelManager(abstractStateModel, actionSelector, persistenceManager, concreteStateTags, sequenceManager, storeWidgets);
     }
 
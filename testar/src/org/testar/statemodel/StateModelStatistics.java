@@ -0,0 +1,72 @@
+package org.testar.statemodel;
+
+/**
+ * A read-only snapshot of the counters that are kept by an abstract state model.
+ */
+public final class StateModelStatistics {
+
+    public static final StateModelStatistics EMPTY = new StateModelStatistics(0, 0, 0, 0, 0, 0);
+
+    private final int nrOfStates;
+    private final int nrOfInitialStates;
+    private final int nrOfTransitions;
+    private final long nrOfActions;
+    private final long nrOfUnvisitedActions;
+    private final int nrOfNondeterministicActions;
+
+    /**
+     * Constructor
+     * @param nrOfStates the number of abstract states
+     * @param nrOfInitialStates the number of initial abstract states
+     * @param nrOfTransitions the number of abstract state transitions
+     * @param nrOfActions the number of abstract actions over all the states
+     * @param nrOfUnvisitedActions the number of abstract actions that have not yet been executed
+     * @param nrOfNondeterministicActions the number of actions that led to more than one target state
+     */
+    public StateModelStatistics(int nrOfStates, int nrOfInitialStates, int nrOfTransitions, long nrOfActions,
+                                long nrOfUnvisitedActions, int nrOfNondeterministicActions) {
+        this.nrOfStates = nrOfStates;
+        this.nrOfInitialStates = nrOfInitialStates;
+        this.nrOfTransitions = nrOfTransitions;
+        this.nrOfActions = nrOfActions;
+        this.nrOfUnvisitedActions = nrOfUnvisitedActions;
+        this.nrOfNondeterministicActions = nrOfNondeterministicActions;
+    }
+
+    public int getNrOfStates() {
+        return nrOfStates;
+    }
+
+    public int getNrOfInitialStates() {
+        return nrOfInitialStates;
+    }
+
+    public int getNrOfTransitions() {
+        return nrOfTransitions;
+    }
+
+    public long getNrOfActions() {
+        return nrOfActions;
+    }
+
+    public long getNrOfVisitedActions() {
+        return nrOfActions - nrOfUnvisitedActions;
+    }
+
+    public long getNrOfUnvisitedActions() {
+        return nrOfUnvisitedActions;
+    }
+
+    public int getNrOfNondeterministicActions() {
+        return nrOfNondeterministicActions;
+    }
+
+    @Override
+    public String toString() {
+        return nrOfStates + " abstract states (" + nrOfInitialStates + " initial), "
+                + nrOfTransitions + " transitions, "
+                + nrOfActions + " actions ("
+                + getNrOfVisitedActions() + " visited, " + nrOfUnvisitedActions + " unvisited), "
+                + nrOfNondeterministicActions + " non-deterministic actions";
+    }
+}
@@ -0,0 +1,266 @@
+package org.testar.statemodel;
+
+import org.testar.statemodel.exceptions.StateModelException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * A reverse breadth first search distance map over the abstract state model. For every state it records the
+ * number of transitions to the nearest state that still has unvisited actions, and the first transition on
+ * such a shortest path. The map is updated incrementally when transitions are added and when states gain or
+ * lose unvisited actions, so finding the next hop toward the nearest unvisited action is a single lookup.
+ *
+ * The map is kept up to date by the abstract state model it belongs to, see {@link AbstractStateModel#getUnvisitedDistanceMap()}.
+ */
+public class UnvisitedDistanceMap {
+
+    private final AbstractStateModel abstractStateModel;
+
+    // distance to the nearest state with unvisited actions, absent if there is no path to such a state
+    private final Map<String, Integer> distances = new HashMap<>();
+    // the first transition on a shortest path, absent for states with unvisited actions
+    private final Map<String, AbstractStateTransition> nextHops = new HashMap<>();
+    // for every state, the states of which the next hop leads to it
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+    // the states that had unvisited actions the last time they were checked
+    private final Set<String> unvisitedStates = new HashSet<>();
+
+    /**
+     * Constructor
+     * @param abstractStateModel the model to compute the distances for
+     */
+    UnvisitedDistanceMap(AbstractStateModel abstractStateModel) {
+        this.abstractStateModel = abstractStateModel;
+        rebuild();
+    }
+
+    /**
+     * Recompute all distances with a multi source reverse breadth first search.
+     */
+    public synchronized void rebuild() {
+        distances.clear();
+        nextHops.clear();
+        dependents.clear();
+        unvisitedStates.clear();
+
+        Deque<String> queue = new ArrayDeque<>();
+        for (AbstractState state : abstractStateModel.getStates()) {
+            if (state.hasUnvisitedActions()) {
+                unvisitedStates.add(state.getStateId());
+                distances.put(state.getStateId(), 0);
+                queue.add(state.getStateId());
+            }
+        }
+        relaxIncoming(queue);
+    }
+
+    /**
+     * @param stateId the id of a state
+     * @return the number of transitions to the nearest state with unvisited actions, or -1 if there is no path
+     */
+    public synchronized int getDistance(String stateId) {
+        Integer distance = distances.get(stateId);
+        return distance == null ? -1 : distance;
+    }
+
+    /**
+     * @param stateId the id of a state
+     * @return the first transition toward the nearest state with unvisited actions,
+     *         or null if the state has unvisited actions itself or there is no path
+     */
+    public synchronized AbstractStateTransition getNextHop(String stateId) {
+        return nextHops.get(stateId);
+    }
+
+    /**
+     * Returns the transitions of a shortest path from a state to the nearest state with unvisited actions.
+     * @param stateId the id of the start state
+     * @return the transitions, empty if the state has unvisited actions itself, or null if there is no path
+     */
+    public synchronized LinkedList<AbstractStateTransition> getPath(String stateId) {
+        Integer distance = distances.get(stateId);
+        if (distance == null) {
+            return null;
+        }
+        LinkedList<AbstractStateTransition> path = new LinkedList<>();
+        String current = stateId;
+        for (int i = 0; i < distance; i++) {
+            AbstractStateTransition transition = nextHops.get(current);
+            path.add(transition);
+            current = transition.getTargetStateId();
+        }
+        return path;
+    }
+
+    /**
+     * Check whether a state gained or lost its unvisited actions and update the distances accordingly.
+     * @param stateId the id of the state that may have changed
+     */
+    public synchronized void stateChanged(String stateId) {
+        if (!abstractStateModel.containsState(stateId)) {
+            return;
+        }
+        boolean unvisited;
+        try {
+            unvisited = abstractStateModel.getState(stateId).hasUnvisitedActions();
+        } catch (StateModelException e) {
+            return;
+        }
+        if (unvisited == unvisitedStates.contains(stateId)) {
+            return;
+        }
+        if (unvisited) {
+            unvisitedStates.add(stateId);
+            setDistance(stateId, 0, null);
+            relaxIncoming(new ArrayDeque<>(Collections.singleton(stateId)));
+        }
+        else {
+            unvisitedStates.remove(stateId);
+            increase(stateId);
+        }
+    }
+
+    /**
+     * Update the distances for a new transition.
+     * @param transition the transition that was added to the model
+     */
+    synchronized void transitionAdded(AbstractStateTransition transition) {
+        stateChanged(transition.getSourceStateId());
+        stateChanged(transition.getTargetStateId());
+        String source = transition.getSourceStateId();
+        Integer targetDistance = distances.get(transition.getTargetStateId());
+        Integer sourceDistance = distances.get(source);
+        if (targetDistance != null && (sourceDistance == null || targetDistance + 1 < sourceDistance)) {
+            setDistance(source, targetDistance + 1, transition);
+            relaxIncoming(new ArrayDeque<>(Collections.singleton(source)));
+        }
+    }
+
+    /**
+     * Breadth first search over the incoming transitions of the queued states, lowering the distances of their sources.
+     */
+    private void relaxIncoming(Deque<String> queue) {
+        while (!queue.isEmpty()) {
+            String stateId = queue.poll();
+            int distance = distances.get(stateId);
+            Set<AbstractStateTransition> incoming = abstractStateModel.getIncomingTransitionsForState(stateId);
+            if (incoming == null) {
+                continue;
+            }
+            for (AbstractStateTransition transition : incoming) {
+                String source = transition.getSourceStateId();
+                Integer sourceDistance = distances.get(source);
+                if (sourceDistance == null || distance + 1 < sourceDistance) {
+                    setDistance(source, distance + 1, transition);
+                    queue.add(source);
+                }
+            }
+        }
+    }
+
+    /**
+     * A state lost its unvisited actions: the distances of the state and of all the states of which the shortest
+     * path leads through it are recomputed, from the distances of the states around them.
+     */
+    private void increase(String stateId) {
+        // collect the affected states by following the next hops backwards
+        List<String> affected = new ArrayList<>();
+        Set<String> affectedSet = new HashSet<>();
+        affected.add(stateId);
+        affectedSet.add(stateId);
+        for (int i = 0; i < affected.size(); i++) {
+            Set<String> states = dependents.get(affected.get(i));
+            if (states != null) {
+                for (String dependent : states) {
+                    if (affectedSet.add(dependent)) {
+                        affected.add(dependent);
+                    }
+                }
+            }
+        }
+        for (String affectedState : affected) {
+            setDistance(affectedState, null, null);
+        }
+
+        // tentative distances through the unaffected states, then a dijkstra search within the affected states
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        for (String affectedState : affected) {
+            if (unvisitedStates.contains(affectedState)) {
+                queue.add(new Candidate(affectedState, 0, null));
+                continue;
+            }
+            Set<AbstractStateTransition> outgoing = abstractStateModel.getOutgoingTransitionsForState(affectedState);
+            if (outgoing == null) {
+                continue;
+            }
+            for (AbstractStateTransition transition : outgoing) {
+                Integer targetDistance = distances.get(transition.getTargetStateId());
+                if (targetDistance != null) {
+                    queue.add(new Candidate(affectedState, targetDistance + 1, transition));
+                }
+            }
+        }
+        while (!queue.isEmpty()) {
+            Candidate candidate = queue.poll();
+            if (distances.containsKey(candidate.stateId)) {
+                continue;
+            }
+            setDistance(candidate.stateId, candidate.distance, candidate.nextHop);
+            Set<AbstractStateTransition> incoming = abstractStateModel.getIncomingTransitionsForState(candidate.stateId);
+            if (incoming == null) {
+                continue;
+            }
+            for (AbstractStateTransition transition : incoming) {
+                if (affectedSet.contains(transition.getSourceStateId()) && !distances.containsKey(transition.getSourceStateId())) {
+                    queue.add(new Candidate(transition.getSourceStateId(), candidate.distance + 1, transition));
+                }
+            }
+        }
+    }
+
+    private void setDistance(String stateId, Integer distance, AbstractStateTransition nextHop) {
+        AbstractStateTransition previous = nextHops.remove(stateId);
+        if (previous != null) {
+            Set<String> states = dependents.get(previous.getTargetStateId());
+            if (states != null) {
+                states.remove(stateId);
+            }
+        }
+        if (distance == null) {
+            distances.remove(stateId);
+            return;
+        }
+        distances.put(stateId, distance);
+        if (nextHop != null) {
+            nextHops.put(stateId, nextHop);
+            dependents.computeIfAbsent(nextHop.getTargetStateId(), id -> new HashSet<>()).add(stateId);
+        }
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        final String stateId;
+        final int distance;
+        final AbstractStateTransition nextHop;
+
+        Candidate(String stateId, int distance, AbstractStateTransition nextHop) {
+            this.stateId = stateId;
+            this.distance = distance;
+            this.nextHop = nextHop;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            return Integer.compare(distance, other.distance);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package org.testar.statemodel;
 
+import org.testar.statemodel.util.HydrationHelper;
 import org.testar.monkey.alayer.Tag;
 import org.testar.monkey.alayer.TaggableBase;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.TreeMap;
 
 public class Widget {
 
@@ -24,6 +26,9 @@ public class Widget {
     // each time we need to access it
     ConcreteState rootWidget;
 
+    // hash of the id, the attributes and the subtree of this widget. It is calculated when it is first requested.
+    private String contentHash;
+
     public Widget(String id) {
         this.id = id;
         attributes = new TaggableBase();
@@ -46,6 +51,7 @@ public class Widget {
     public void addAttribute(Tag attribute, Object value) {
         try {
             attributes.set(attribute, value);
+            clearContentHash();
         } catch (Exception e) {//TODO what kind of exception?
             System.out.println("Problem adding value for tag " + attribute.name() + " to abstract state");
         }
@@ -66,6 +72,38 @@ public class Widget {
     public void addChild(Widget child) {
         children.add(child);
         child.setParent(this);
+        clearContentHash();
+    }
+
+    /**
+     * This method returns a hash of the widget id, the attribute values and the content hashes of the children.
+     * Two widgets with the same content hash have the same attributes and the same subtree, so a subtree that
+     * appears in many concrete states only has to be stored once.
+     * @return
+     */
+    public String getContentHash() {
+        if (contentHash == null) {
+            // the attributes are sorted by name, so the hash does not depend on the order in which they were added
+            TreeMap<String, Object> sortedAttributes = new TreeMap<>();
+            for (Tag<?> tag : attributes.tags()) {
+                sortedAttributes.put(tag.name(), attributes.get(tag, null));
+            }
+            StringBuilder content = new StringBuilder(id).append(sortedAttributes);
+            for (Widget child : children) {
+                content.append('|').append(child.getContentHash());
+            }
+            contentHash = HydrationHelper.lowCollisionID(content.toString());
+        }
+        return contentHash;
+    }
+
+    /**
+     * Helper method to invalidate the content hash of this widget and of the widgets above it.
+     */
+    private void clearContentHash() {
+        for (Widget widget = this; widget != null && widget.contentHash != null; widget = widget.parent) {
+            widget.contentHash = null;
+        }
     }
 
     /**
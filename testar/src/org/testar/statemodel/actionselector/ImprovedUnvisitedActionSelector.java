@@ -3,13 +3,12 @@ package org.testar.statemodel.actionselector;
 import org.testar.statemodel.AbstractAction;
 import org.testar.statemodel.AbstractState;
 import org.testar.statemodel.AbstractStateModel;
-import org.testar.statemodel.actionselector.model.SelectorNode;
-import org.testar.statemodel.actionselector.model.SelectorTree;
+import org.testar.statemodel.AbstractStateTransition;
+import org.testar.statemodel.UnvisitedDistanceMap;
 import org.testar.statemodel.exceptions.ActionNotFoundException;
 
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class ImprovedUnvisitedActionSelector implements ActionSelector {
 
@@ -28,6 +27,13 @@ public class ImprovedUnvisitedActionSelector implements ActionSelector {
      */
     private int nrOfFlowAlterations;
 
+    /**
+     * The modification count of the model when the distances were last rebuilt.
+     */
+    private long rebuiltAtModificationCount = -1;
+
+    private final Random random = new Random(System.currentTimeMillis());
+
     /**
      * Constructor
      */
@@ -69,9 +75,7 @@ public class ImprovedUnvisitedActionSelector implements ActionSelector {
         }
 
         // retrieve a new execution path
-        SelectorNode rootNode = new SelectorNode(currentState, null, 0, null);
-        SelectorTree tree = new SelectorTree(rootNode);
-        executionPath = retrieveUnvisitedActions(tree, abstractStateModel, new HashSet<>());
+        executionPath = retrieveUnvisitedActions(currentState, abstractStateModel);
 
         if (executionPath.isEmpty()) {
             throw new ActionNotFoundException();
@@ -82,73 +86,56 @@ public class ImprovedUnvisitedActionSelector implements ActionSelector {
     }
 
     /**
-     * This recursive function will perform a breadth first search of the selection tree that will be generated from the current abstract action.
-     * @param tree
+     * This method follows the next hops of the model's unvisited distance map from the current state to the nearest
+     * abstract state with unvisited actions and appends a random unvisited action of that state.
+     * @param currentState
      * @param abstractStateModel
-     * @param visitedStateIds
-     * @return
+     * @return the actions to execute, empty if no unvisited action can be reached
      */
-    private LinkedList<AbstractAction> retrieveUnvisitedActions(SelectorTree tree, AbstractStateModel abstractStateModel, Set<String> visitedStateIds) {
-
-        // check if one of the tree's leaves currently has unvisited abstract actions
-        // if so, we want to retrieve the entire path of actions that has to be taken to arrive at that unvisited abstract action
-        List<LinkedList<SelectorNode>> nodePaths = tree.getLeafNodes().stream().filter(node -> node.getAbstractState() != null && !node.getAbstractState().getUnvisitedActions().isEmpty())
-                .map(SelectorNode::getNodePath).collect(Collectors.toList());
-
-        if (!nodePaths.isEmpty()) {
-            // we have found some paths to abstract states with unvisited abstract actions
-            // order them by the amount of unvisited actions they have, with the highest amount of actions first
-            nodePaths.sort((listA, listB) -> {
-                int sizeOfA = listA.getLast().getAbstractState().getUnvisitedActions().size();
-                int sizeOfB = listB.getLast().getAbstractState().getUnvisitedActions().size();
-                return sizeOfB - sizeOfA;
-            });
-
-            LinkedList<SelectorNode> nodePath = nodePaths.get(0);
-            // collect a random unvisited action and append it to the path we need to traverse to get to the state where
-            // it is executable
-            Stream<AbstractAction> actionStream = nodePath.stream().map(SelectorNode::getAbstractAction).filter(Objects::nonNull);
-
-            // get a random unvisited action from the last node
-            long graphTime = System.currentTimeMillis();
-            Random rnd = new Random(graphTime);
-            List<AbstractAction> unvisitedActions = new ArrayList<>(nodePath.getLast().getAbstractState().getUnvisitedActions());
-            AbstractAction unvisitedAction  = unvisitedActions.get(rnd.nextInt(unvisitedActions.size()));
-
-            // now merge the two streams and return the linkedlist
-            return Stream.concat(actionStream, Stream.of(unvisitedAction)).collect(Collectors.toCollection(LinkedList::new));
+    private LinkedList<AbstractAction> retrieveUnvisitedActions(AbstractState currentState, AbstractStateModel abstractStateModel) {
+        if (currentState.hasUnvisitedActions()) {
+            LinkedList<AbstractAction> path = new LinkedList<>();
+            path.add(randomUnvisitedAction(currentState));
+            return path;
+        }
+
+        UnvisitedDistanceMap distanceMap = abstractStateModel.getUnvisitedDistanceMap();
+        distanceMap.stateChanged(currentState.getStateId());
+        LinkedList<AbstractAction> path = followNextHops(currentState, abstractStateModel, distanceMap);
+        // when no unvisited actions are reachable, which is normal for an explored model, the distances are only
+        // rebuilt if the model changed since the last rebuild, in case states were changed outside of the model
+        if (path == null && abstractStateModel.getModificationCount() != rebuiltAtModificationCount) {
+            distanceMap.rebuild();
+            rebuiltAtModificationCount = abstractStateModel.getModificationCount();
+            path = followNextHops(currentState, abstractStateModel, distanceMap);
         }
+        return path == null ? new LinkedList<>() : path;
+    }
 
-        // if we made it here, this means the states in the current leaves of our selector tree did not contain
-        // anymore unvisited actions. This means we have to follow all the abstract actions from those states
-        // to get to the next ring in our breadth first search
-
-        // add the state ids that we have visited to our list
-        tree.getLeafNodes().forEach(node -> visitedStateIds.add(node.getAbstractState().getStateId()));
-        // check the current depth of the tree
-        int currentTreeDepth = tree.getMaxTreeDepth();
-
-        tree.getLeafNodes().forEach(node -> { // fetch all the outgoing transitions from this state
-            abstractStateModel.getOutgoingTransitionsForState(node.getAbstractState().getStateId()).forEach(
-                    transition -> { // for each transition, check if we have not yet visited the target state
-                        if  (!visitedStateIds.contains(transition.getTargetStateId())) {
-                            visitedStateIds.add(transition.getTargetStateId());
-
-                            // create a new node and add it
-                            SelectorNode childNode = new SelectorNode(transition.getTargetState(), transition.getAction(), node.getDepth() + 1, node);
-                            node.addChild(childNode);
-                            childNode.setTree(node.getTree());
-                        }
-                    }
-            );
-        });
-
-        if (tree.getMaxTreeDepth() == currentTreeDepth) {
-            // no more new leaves were added. Return an empty list
-            return new LinkedList<>();
+    /**
+     * @return the actions to execute, or null if no unvisited actions are reachable
+     */
+    private LinkedList<AbstractAction> followNextHops(AbstractState currentState, AbstractStateModel abstractStateModel, UnvisitedDistanceMap distanceMap) {
+        // a path can only end in a state that lost its unvisited actions outside of the model a limited number of times
+        for (int attempt = 0; attempt <= abstractStateModel.getNrOfStates(); attempt++) {
+            LinkedList<AbstractStateTransition> transitions = distanceMap.getPath(currentState.getStateId());
+            if (transitions == null || transitions.isEmpty()) {
+                return null;
+            }
+            AbstractState target = transitions.getLast().getTargetState();
+            if (target.hasUnvisitedActions()) {
+                LinkedList<AbstractAction> path = transitions.stream().map(AbstractStateTransition::getAction).collect(Collectors.toCollection(LinkedList::new));
+                path.add(randomUnvisitedAction(target));
+                return path;
+            }
+            // the target was visited outside of the model, the distances through it are updated
+            distanceMap.stateChanged(target.getStateId());
         }
+        return null;
+    }
 
-        // we were able to gain a new level in our selector tree, so let's try again
-        return retrieveUnvisitedActions(tree, abstractStateModel, visitedStateIds);
+    private AbstractAction randomUnvisitedAction(AbstractState abstractState) {
+        List<AbstractAction> unvisitedActions = new ArrayList<>(abstractState.getUnvisitedActions());
+        return unvisitedActions.get(random.nextInt(unvisitedActions.size()));
     }
 }
@@ -1,13 +1,13 @@
 package org.testar.statemodel.analysis;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.orientechnologies.orient.core.db.ODatabaseSession;
 import com.orientechnologies.orient.core.db.OrientDB;
 import com.orientechnologies.orient.core.db.OrientDBConfig;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.ODirection;
 import com.orientechnologies.orient.core.record.OEdge;
+import com.orientechnologies.orient.core.record.OElement;
 import com.orientechnologies.orient.core.record.OVertex;
 import com.orientechnologies.orient.core.record.impl.ORecordBytes;
 import com.orientechnologies.orient.core.record.impl.OVertexDocument;
@@ -15,21 +15,29 @@ import com.orientechnologies.orient.core.sql.executor.OResult;
 import com.orientechnologies.orient.core.sql.executor.OResultSet;
 import org.testar.statemodel.analysis.jsonformat.Edge;
 import org.testar.statemodel.analysis.jsonformat.Element;
+import org.testar.statemodel.analysis.jsonformat.ElementStream;
 import org.testar.statemodel.analysis.jsonformat.Vertex;
 import org.testar.statemodel.analysis.representation.AbstractStateModel;
 import org.testar.statemodel.analysis.representation.ActionViz;
 import org.testar.statemodel.analysis.representation.TestSequence;
+import org.testar.statemodel.exceptions.StaleModelVersionException;
 import org.testar.statemodel.persistence.orientdb.entity.Config;
 import org.testar.statemodel.sequence.SequenceVerdict;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.DateFormat;
-import java.time.Instant;
 import java.util.*;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class AnalysisManager {
 
+    // the model version tag that is part of the names of cached exports
+    private static final Pattern VERSION_PATTERN = Pattern.compile("_v\\d+-\\d+_");
+
     // orient db instance that will create database sessions
     private OrientDB orientDB;
 
@@ -305,6 +313,8 @@ public class AnalysisManager {
 
     /**
      * This model generates graph data for a given abstract state model and writes it to a json file.
+     * The elements are streamed to the file while the result sets are read, and the file name contains the version
+     * of the model, so an earlier export is reused for as long as no new sequences were recorded for the model.
      * @param modelIdentifier the abstract state model identifier
      * @param abstractLayerRequired true if the abstract state layer needs to be exported
      * @param concreteLayerRequired true if the concrete state layer needs to be exported
@@ -313,57 +323,154 @@ public class AnalysisManager {
      */
     public String fetchGraphForModel(String modelIdentifier, boolean abstractLayerRequired, boolean concreteLayerRequired, boolean sequenceLayerRequired, boolean showCompoundGraph) {
         startUp();
-        ArrayList<Element> elements = new ArrayList<>();
-        if (abstractLayerRequired || concreteLayerRequired || sequenceLayerRequired) {
-            try (ODatabaseSession db = orientDB.open(dbConfig.getDatabase(), dbConfig.getUser(), dbConfig.getPassword())) {
-                if (abstractLayerRequired) {
-                    elements.addAll(fetchAbstractLayer(modelIdentifier, db, showCompoundGraph));
-                }
+        try (ODatabaseSession db = orientDB.open(dbConfig.getDatabase(), dbConfig.getUser(), dbConfig.getPassword())) {
+            StringBuilder builder = new StringBuilder(modelIdentifier);
+            builder.append("_");
+            builder.append(getLayerKey(abstractLayerRequired, concreteLayerRequired, sequenceLayerRequired, showCompoundGraph));
+            builder.append("_");
+            builder.append(fetchModelVersion(modelIdentifier, db));
+            builder.append("_elements.json");
+            String filename = builder.toString();
 
-                if (concreteLayerRequired) {
-                    elements.addAll(fetchConcreteLayer(modelIdentifier, db, showCompoundGraph));
+            writeCachedJson(modelIdentifier, filename, null, outputStream -> {
+                try (ElementStream stream = new ElementStream(outputStream)) {
+                    fetchGraph(modelIdentifier, abstractLayerRequired, concreteLayerRequired, sequenceLayerRequired, showCompoundGraph, db, stream);
                 }
+            });
+            return filename;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return "";
+        } finally {
+            checkShutDown();
+        }
+    }
 
-                if (sequenceLayerRequired) {
-                    elements.addAll(fetchSequenceLayer(modelIdentifier, db, showCompoundGraph));
-                }
+    /**
+     * This method streams one page of the graph data for a given abstract state model to an output stream.
+     * Pages are cached per model version.
+     * @param modelIdentifier the abstract state model identifier
+     * @param abstractLayerRequired true if the abstract state layer needs to be exported
+     * @param concreteLayerRequired true if the concrete state layer needs to be exported
+     * @param sequenceLayerRequired true if the sequence layer needs to be exported
+     * @param modelVersion the version of the model, see {@link #fetchModelVersion(String)}
+     * @param offset the number of elements to skip
+     * @param limit the maximum number of elements in the page
+     * @param outputStream
+     * @throws IOException
+     * @throws StaleModelVersionException if the page is not cached and the model version is not the current one
+     */
+    public void streamGraphForModel(String modelIdentifier, boolean abstractLayerRequired, boolean concreteLayerRequired, boolean sequenceLayerRequired, boolean showCompoundGraph,
+                                    String modelVersion, long offset, long limit, OutputStream outputStream) throws IOException, StaleModelVersionException {
+        String key = getLayerKey(abstractLayerRequired, concreteLayerRequired, sequenceLayerRequired, showCompoundGraph);
+        streamPage(modelIdentifier, key, modelVersion, offset, limit, outputStream, (db, stream) ->
+                fetchGraph(modelIdentifier, abstractLayerRequired, concreteLayerRequired, sequenceLayerRequired, showCompoundGraph, db, stream));
+    }
 
-                if (abstractLayerRequired && concreteLayerRequired) {
-                    elements.addAll(fetchAbstractConcreteConnectors(modelIdentifier, db));
-                }
+    /**
+     * This method streams one page of the subgraph that lies within a given number of steps from a node.
+     * Only the edges of the requested layers are followed.
+     * @param modelIdentifier the abstract state model identifier
+     * @param nodeId the frontend id of the node to start from
+     * @param depth the maximum number of edges between the start node and the returned nodes
+     * @param abstractLayerRequired true if the abstract state layer needs to be exported
+     * @param concreteLayerRequired true if the concrete state layer needs to be exported
+     * @param sequenceLayerRequired true if the sequence layer needs to be exported
+     * @param modelVersion the version of the model, see {@link #fetchModelVersion(String)}
+     * @param offset the number of elements to skip
+     * @param limit the maximum number of elements in the page
+     * @param outputStream
+     * @throws IOException
+     * @throws StaleModelVersionException if the page is not cached and the model version is not the current one
+     */
+    public void streamNeighbourhood(String modelIdentifier, String nodeId, int depth, boolean abstractLayerRequired, boolean concreteLayerRequired, boolean sequenceLayerRequired,
+                                    boolean showCompoundGraph, String modelVersion, long offset, long limit, OutputStream outputStream) throws IOException, StaleModelVersionException {
+        String key = getLayerKey(abstractLayerRequired, concreteLayerRequired, sequenceLayerRequired, showCompoundGraph) + "_" + nodeId + "d" + depth;
+        streamPage(modelIdentifier, key, modelVersion, offset, limit, outputStream, (db, stream) ->
+                fetchNeighbourhood(modelIdentifier, nodeId, depth, abstractLayerRequired, concreteLayerRequired, sequenceLayerRequired, showCompoundGraph, db, stream));
+    }
+
+    /**
+     * This method fetches the version of an abstract state model, which names the cached exports of the model.
+     * Fetching it counts the sequence nodes of the model, so it is fetched once per export and passed to every page.
+     * @param modelIdentifier the abstract state model identifier
+     * @return
+     */
+    public String fetchModelVersion(String modelIdentifier) {
+        startUp();
+        try (ODatabaseSession db = orientDB.open(dbConfig.getDatabase(), dbConfig.getUser(), dbConfig.getPassword())) {
+            return fetchModelVersion(modelIdentifier, db);
+        } finally {
+            checkShutDown();
+        }
+    }
 
-                if (concreteLayerRequired && sequenceLayerRequired) {
-                    elements.addAll(fetchConcreteSequenceConnectors(modelIdentifier, db));
+    // streams a page of elements and caches it under a name that contains the given version of the model
+    private void streamPage(String modelIdentifier, String key, String modelVersion, long offset, long limit, OutputStream outputStream, GraphExport export)
+            throws IOException, StaleModelVersionException {
+        startUp();
+        try (ODatabaseSession db = orientDB.open(dbConfig.getDatabase(), dbConfig.getUser(), dbConfig.getPassword())) {
+            String filename = modelIdentifier + "_" + key + "_" + modelVersion + "_" + offset + "-" + limit + "_page.json";
+            // a page is only exported for the current version of the model, so that the version sent by a client
+            // never labels newer content and never causes the pages of the current version to be deleted
+            if (!new File(outputDir + modelIdentifier, filename).isFile()) {
+                String currentVersion = fetchModelVersion(modelIdentifier, db);
+                if (!currentVersion.equals(modelVersion)) {
+                    throw new StaleModelVersionException(currentVersion);
                 }
             }
+            writeCachedJson(modelIdentifier, filename, outputStream, target -> {
+                try (ElementStream stream = new ElementStream(target, offset, limit)) {
+                    export.export(db, stream);
+                }
+            });
+        } finally {
+            checkShutDown();
         }
+    }
 
-        StringBuilder builder = new StringBuilder(modelIdentifier);
-        builder.append("_");
-        if (abstractLayerRequired) builder.append("A");
-        if (concreteLayerRequired) builder.append("C");
-        if (sequenceLayerRequired) builder.append("S");
-        builder.append("_");
-        builder.append(Instant.now().toEpochMilli());
-        builder.append("_elements.json");
-        String filename = builder.toString();
-        checkShutDown();
-        return writeJson(elements, filename, modelIdentifier);
+    /**
+     * This method streams the requested layers of an abstract state model. It stops querying as soon as the stream
+     * has received a full page.
+     * @param modelIdentifier
+     * @param db
+     * @param stream
+     * @throws IOException
+     */
+    private void fetchGraph(String modelIdentifier, boolean abstractLayerRequired, boolean concreteLayerRequired, boolean sequenceLayerRequired, boolean showCompoundGraph,
+                            ODatabaseSession db, ElementStream stream) throws IOException {
+        if (abstractLayerRequired && !stream.hasMore()) {
+            fetchAbstractLayer(modelIdentifier, db, showCompoundGraph, stream);
+        }
+
+        if (concreteLayerRequired && !stream.hasMore()) {
+            fetchConcreteLayer(modelIdentifier, db, showCompoundGraph, stream);
+        }
+
+        if (sequenceLayerRequired && !stream.hasMore()) {
+            fetchSequenceLayer(modelIdentifier, db, showCompoundGraph, stream);
+        }
+
+        if (abstractLayerRequired && concreteLayerRequired && !stream.hasMore()) {
+            fetchAbstractConcreteConnectors(modelIdentifier, db, stream);
+        }
+
+        if (concreteLayerRequired && sequenceLayerRequired && !stream.hasMore()) {
+            fetchConcreteSequenceConnectors(modelIdentifier, db, stream);
+        }
     }
 
     /**
      * This method fetches the elements in the abstract state layer for a given abstract state model.
      * @param modelIdentifier
      * @param db
-     * @return
+     * @param stream
+     * @throws IOException
      */
-    private List<Element> fetchAbstractLayer(String modelIdentifier, ODatabaseSession db, boolean showCompoundGraph) {
-        ArrayList<Element> elements = new ArrayList<>();
-
+    private void fetchAbstractLayer(String modelIdentifier, ODatabaseSession db, boolean showCompoundGraph, ElementStream stream) throws IOException {
         // optionally add a parent node for the abstract layer
         if (showCompoundGraph) {
-            Vertex abstractStateParent = new Vertex("AbstractLayer");
-            elements.add(new Element(Element.GROUP_NODES, abstractStateParent, "Parent"));
+            writeParent("AbstractLayer", stream);
         }
 
         // abstract states
@@ -371,44 +478,40 @@ public class AnalysisManager {
         Map<String, Object> params = new HashMap<>();
         params.put("identifier", modelIdentifier);
         OResultSet resultSet = db.query(stmt, params);
-        elements.addAll(fetchNodes(resultSet, "AbstractState", showCompoundGraph ? "AbstractLayer" : null, modelIdentifier));
+        fetchNodes(resultSet, "AbstractState", showCompoundGraph ? "AbstractLayer" : null, modelIdentifier, stream);
         resultSet.close();
 
         // abstract actions
         stmt = "SELECT FROM AbstractAction WHERE modelIdentifier = :identifier";
         resultSet = db.query(stmt, params);
-        elements.addAll(fetchEdges(resultSet, "AbstractAction"));
+        fetchEdges(resultSet, "AbstractAction", stream);
         resultSet.close();
 
         // Black hole class
         stmt = "SELECT FROM (TRAVERSE out() FROM  (SELECT FROM AbstractState WHERE modelIdentifier = :identifier)) WHERE @class = 'BlackHole'";
         resultSet = db.query(stmt, params);
-        elements.addAll(fetchNodes(resultSet, "BlackHole", showCompoundGraph ? "AbstractLayer" : null, modelIdentifier));
+        fetchNodes(resultSet, "BlackHole", showCompoundGraph ? "AbstractLayer" : null, modelIdentifier, stream);
         resultSet.close();
 
 
         // unvisited abstract actions
         stmt = "SELECT FROM UnvisitedAbstractAction WHERE modelIdentifier = :identifier";
         resultSet = db.query(stmt, params);
-        elements.addAll(fetchEdges(resultSet, "UnvisitedAbstractAction"));
+        fetchEdges(resultSet, "UnvisitedAbstractAction", stream);
         resultSet.close();
-
-        return elements;
     }
 
     /**
      * This method fetches the elements in the concrete state layer for a given abstract state model.
      * @param modelIdentifier
      * @param db
-     * @return
+     * @param stream
+     * @throws IOException
      */
-    private List<Element> fetchConcreteLayer(String modelIdentifier, ODatabaseSession db, boolean showCompoundGraph) {
-        ArrayList<Element> elements = new ArrayList<>();
-
+    private void fetchConcreteLayer(String modelIdentifier, ODatabaseSession db, boolean showCompoundGraph, ElementStream stream) throws IOException {
         // optionally add a parent node for the concrete layer
         if (showCompoundGraph) {
-            Vertex concreteStateParent = new Vertex("ConcreteLayer");
-            elements.add(new Element(Element.GROUP_NODES, concreteStateParent, "Parent"));
+            writeParent("ConcreteLayer", stream);
         }
 
         // concrete states
@@ -416,31 +519,27 @@ public class AnalysisManager {
         Map<String, Object> params = new HashMap<>();
         params.put("identifier", modelIdentifier);
         OResultSet resultSet = db.query(stmt, params);
-        elements.addAll(fetchNodes(resultSet, "ConcreteState", showCompoundGraph ? "ConcreteLayer" : null, modelIdentifier));
+        fetchNodes(resultSet, "ConcreteState", showCompoundGraph ? "ConcreteLayer" : null, modelIdentifier, stream);
         resultSet.close();
 
         // concrete actions
         stmt = "SELECT FROM (TRAVERSE in('isAbstractedBy').outE('ConcreteAction') FROM (SELECT FROM AbstractState WHERE modelIdentifier = :identifier)) WHERE @class = 'ConcreteAction'";
         resultSet = db.query(stmt, params);
-        elements.addAll(fetchEdges(resultSet, "ConcreteAction"));
+        fetchEdges(resultSet, "ConcreteAction", stream);
         resultSet.close();
-
-        return elements;
     }
 
     /**
      * This method fetches the elements in the sequence layer for a given abstract state model.
      * @param modelIdentifier
      * @param db
-     * @return
+     * @param stream
+     * @throws IOException
      */
-    private List<Element> fetchSequenceLayer(String modelIdentifier, ODatabaseSession db, boolean showCompoundGraph) {
-        ArrayList<Element> elements = new ArrayList<>();
-
+    private void fetchSequenceLayer(String modelIdentifier, ODatabaseSession db, boolean showCompoundGraph, ElementStream stream) throws IOException {
         // optionally add a parent node for the sequence layer
         if (showCompoundGraph) {
-            Vertex sequenceParent = new Vertex("SequenceLayer");
-            elements.add(new Element(Element.GROUP_NODES, sequenceParent, "Parent"));
+            writeParent("SequenceLayer", stream);
         }
 
         // test sequence
@@ -448,181 +547,318 @@ public class AnalysisManager {
         Map<String, Object> params = new HashMap<>();
         params.put("identifier", modelIdentifier);
         OResultSet resultSet = db.query(stmt, params);
-        elements.addAll(fetchNodes(resultSet, "TestSequence", showCompoundGraph ? "SequenceLayer" : null, modelIdentifier));
+        fetchNodes(resultSet, "TestSequence", showCompoundGraph ? "SequenceLayer" : null, modelIdentifier, stream);
         resultSet.close();
 
         // sequence nodes
         stmt = "SELECT FROM (TRAVERSE in('isAbstractedBy').in('Accessed') FROM (SELECT FROM AbstractState WHERE modelIdentifier = :identifier)) WHERE @class = 'SequenceNode'";
         resultSet = db.query(stmt, params);
-        elements.addAll(fetchNodes(resultSet, "SequenceNode", showCompoundGraph ? "SequenceLayer" : null, modelIdentifier));
+        fetchNodes(resultSet, "SequenceNode", showCompoundGraph ? "SequenceLayer" : null, modelIdentifier, stream);
         resultSet.close();
 
         // sequence steps
         stmt = "SELECT FROM (TRAVERSE in('isAbstractedBy').in('Accessed').outE('SequenceStep') FROM (SELECT FROM AbstractState WHERE modelIdentifier = :identifier)) WHERE @class = 'SequenceStep'";
         resultSet = db.query(stmt, params);
-        elements.addAll(fetchEdges(resultSet, "SequenceStep"));
+        fetchEdges(resultSet, "SequenceStep", stream);
         resultSet.close();
 
         // first node
         stmt = "SELECT FROM (TRAVERSE outE('FirstNode') FROM (SELECT FROM TestSequence WHERE modelIdentifier = :identifier)) WHERE @class = 'FirstNode'";
         resultSet = db.query(stmt, params);
-        elements.addAll(fetchEdges(resultSet, "FirstNode"));
+        fetchEdges(resultSet, "FirstNode", stream);
         resultSet.close();
-
-        return elements;
     }
 
     /**
      * This method fetches the edges between the abstract and concrete layers.
      * @param modelIdentifier
      * @param db
-     * @return
+     * @param stream
+     * @throws IOException
      */
-    private List<Element> fetchAbstractConcreteConnectors(String modelIdentifier, ODatabaseSession db) {
-        ArrayList<Element> elements = new ArrayList<>();
-
+    private void fetchAbstractConcreteConnectors(String modelIdentifier, ODatabaseSession db, ElementStream stream) throws IOException {
         // abstractedBy relation
         String stmt = "SELECT FROM (TRAVERSE inE() FROM (SELECT FROM AbstractState WHERE modelIdentifier = :identifier)) WHERE @class = 'isAbstractedBy'";
         Map<String, Object> params = new HashMap<>();
         params.put("identifier", modelIdentifier);
         OResultSet resultSet = db.query(stmt, params);
-        elements.addAll(fetchEdges(resultSet, "isAbstractedBy"));
-
-        return elements;
+        fetchEdges(resultSet, "isAbstractedBy", stream);
+        resultSet.close();
     }
 
     /**
      * This method fetches the edges between the concrete and sequence layers.
      * @param modelIdentifier
      * @param db
-     * @return
+     * @param stream
+     * @throws IOException
      */
-    private List<Element> fetchConcreteSequenceConnectors(String modelIdentifier, ODatabaseSession db) {
-        ArrayList<Element> elements = new ArrayList<>();
-
+    private void fetchConcreteSequenceConnectors(String modelIdentifier, ODatabaseSession db, ElementStream stream) throws IOException {
         // accessed relation
         String stmt = "SELECT FROM (TRAVERSE in('isAbstractedBy').inE('Accessed') FROM (SELECT FROM AbstractState WHERE modelIdentifier = :identifier)) WHERE @class = 'Accessed'";
         Map<String, Object> params = new HashMap<>();
         params.put("identifier", modelIdentifier);
         OResultSet resultSet = db.query(stmt, params);
-        elements.addAll(fetchEdges(resultSet, "Accessed"));
+        fetchEdges(resultSet, "Accessed", stream);
         resultSet.close();
+    }
+
+    /**
+     * This method fetches the nodes and edges that can be reached from a given node in at most depth steps.
+     * @param modelIdentifier
+     * @param nodeId
+     * @param depth
+     * @param db
+     * @param stream
+     * @throws IOException
+     */
+    private void fetchNeighbourhood(String modelIdentifier, String nodeId, int depth, boolean abstractLayerRequired, boolean concreteLayerRequired, boolean sequenceLayerRequired,
+                                    boolean showCompoundGraph, ODatabaseSession db, ElementStream stream) throws IOException {
+        // only follow the edges that belong to the requested layers
+        List<String> edgeClasses = new ArrayList<>();
+        if (abstractLayerRequired) {
+            edgeClasses.add("AbstractAction");
+            edgeClasses.add("UnvisitedAbstractAction");
+        }
+        if (concreteLayerRequired) {
+            edgeClasses.add("ConcreteAction");
+        }
+        if (sequenceLayerRequired) {
+            edgeClasses.add("SequenceStep");
+            edgeClasses.add("FirstNode");
+        }
+        if (abstractLayerRequired && concreteLayerRequired) {
+            edgeClasses.add("isAbstractedBy");
+        }
+        if (concreteLayerRequired && sequenceLayerRequired) {
+            edgeClasses.add("Accessed");
+        }
+        if (edgeClasses.isEmpty()) {
+            return;
+        }
 
-        return elements;
+        if (showCompoundGraph) {
+            if (abstractLayerRequired) writeParent("AbstractLayer", stream);
+            if (concreteLayerRequired) writeParent("ConcreteLayer", stream);
+            if (sequenceLayerRequired) writeParent("SequenceLayer", stream);
+        }
+
+        // each step away from the start node passes an edge and then a vertex, so the traversal depth is doubled
+        StringJoiner edgeList = new StringJoiner(", ");
+        edgeClasses.forEach(edgeClass -> edgeList.add("'" + edgeClass + "'"));
+        String stmt = "TRAVERSE bothE(" + edgeList + "), bothV() FROM (SELECT FROM V WHERE @RID = :rid) MAXDEPTH " + (2 * depth);
+        Map<String, Object> params = new HashMap<>();
+        params.put("rid", unformatId(nodeId));
+        OResultSet resultSet = db.query(stmt, params);
+        while (resultSet.hasNext() && !stream.hasMore()) {
+            OResult result = resultSet.next();
+            if (result.isVertex()) {
+                Optional<OVertex> op = result.getVertex();
+                if (!op.isPresent() || !stream.accept()) continue;
+                String className = getClassName(op.get());
+                stream.write(createNode(op.get(), className, showCompoundGraph ? getLayerParent(className) : null, modelIdentifier));
+            }
+            else if (result.isEdge()) {
+                Optional<OEdge> op = result.getEdge();
+                if (!op.isPresent() || !stream.accept()) continue;
+                stream.write(createEdge(op.get(), getClassName(op.get())));
+            }
+        }
+        resultSet.close();
     }
 
     /**
      * This method fetches a complete widget tree for a given concrete state id.
+     * A stored widget tree does not change, so the json file is only written once.
      * @param concreteStateIdentifier
      * @return
      */
     public String fetchWidgetTree(String concreteStateIdentifier) {
         startUp();
         try (ODatabaseSession db = orientDB.open(dbConfig.getDatabase(), dbConfig.getUser(), dbConfig.getPassword())) {
-            ArrayList<Element> elements = new ArrayList<>();
-
             // convert the concrete state identifier to an internal id if needed
             String internalId = concreteStateIdentifier.indexOf("n") == 0 ? unformatId(concreteStateIdentifier) : concreteStateIdentifier;
-
-            // first get all the widgets
-            String stmt = "SELECT FROM (TRAVERSE IN('isChildOf') FROM (SELECT FROM Widget WHERE @RID = :rid))";
             Map<String, Object> params = new HashMap<>();
             params.put("rid", internalId);
-            OResultSet resultSet = db.query(stmt, params);
-            elements.addAll(fetchNodes(resultSet, "Widget", null, concreteStateIdentifier));
-            resultSet.close();
-
-            // then get the parent/child relationship between the widgets
-            stmt = "SELECT FROM isChildOf WHERE in IN(SELECT @RID FROM (TRAVERSE in('isChildOf') FROM (SELECT FROM Widget WHERE @RID = :rid)))";
-            resultSet = db.query(stmt, params);
-            elements.addAll(fetchEdges(resultSet, "isChildOf"));
-            resultSet.close();
 
-            // create a filename
-            StringBuilder builder = new StringBuilder(concreteStateIdentifier);
-            builder.append("_");
-            builder.append(Instant.now().toEpochMilli());
-            builder.append("_elements.json");
-            String filename = builder.toString();
+            String filename = concreteStateIdentifier + "_elements.json";
+            writeCachedJson(concreteStateIdentifier, filename, null, outputStream -> {
+                try (ElementStream stream = new ElementStream(outputStream)) {
+                    // first get all the widgets
+                    String stmt = "SELECT FROM (TRAVERSE IN('isChildOf') FROM (SELECT FROM Widget WHERE @RID = :rid))";
+                    OResultSet resultSet = db.query(stmt, params);
+                    fetchNodes(resultSet, "Widget", null, concreteStateIdentifier, stream);
+                    resultSet.close();
+
+                    // then get the parent/child relationship between the widgets
+                    stmt = "SELECT FROM isChildOf WHERE in IN(SELECT @RID FROM (TRAVERSE in('isChildOf') FROM (SELECT FROM Widget WHERE @RID = :rid)))";
+                    resultSet = db.query(stmt, params);
+                    fetchEdges(resultSet, "isChildOf", stream);
+                    resultSet.close();
+                }
+            });
+            return filename;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return "";
+        } finally {
             checkShutDown();
-            return writeJson(elements, filename, concreteStateIdentifier);
         }
     }
 
     /**
-     * This method transforms a resultset of nodes into elements.
+     * This method writes a resultset of nodes to an element stream.
      * @param resultSet
      * @param className
-     * @return
+     * @param stream
+     * @throws IOException
      */
-    private ArrayList<Element> fetchNodes(OResultSet resultSet, String className, String parent, String modelIdentifier) {
-        ArrayList<Element> elements = new ArrayList<>();
-
-        while (resultSet.hasNext()) {
+    private void fetchNodes(OResultSet resultSet, String className, String parent, String modelIdentifier, ElementStream stream) throws IOException {
+        while (resultSet.hasNext() && !stream.hasMore()) {
             OResult result = resultSet.next();
             // we're expecting a vertex
             if (result.isVertex()) {
                 Optional<OVertex> op = result.getVertex();
-                if (!op.isPresent()) continue;
-                OVertex stateVertex = op.get();
-                Vertex jsonVertex = new Vertex("n" + formatId(stateVertex.getIdentity().toString()));
-                for (String propertyName : stateVertex.getPropertyNames()) {
-                    if (propertyName.contains("in_") || propertyName.contains("out_")) {
-                        // these are edge indicators. Ignore
-                        continue;
-                    }
-                    if (propertyName.equals("screenshot")) {
-                        // process the screenshot separately
-                        processScreenShot(stateVertex.getProperty("screenshot"), "n" + formatId(stateVertex.getIdentity().toString()), modelIdentifier);
-                        continue;
-                    }
-                    jsonVertex.addProperty(propertyName, stateVertex.getProperty(propertyName).toString());
-                }
-                // optionally add a parent
-                if (parent != null) {
-                    jsonVertex.addProperty("parent", parent);
-                }
-                Element element = new Element(Element.GROUP_NODES, jsonVertex, className);
-                if(stateVertex.getPropertyNames().contains("isInitial")) {
-                    if ((Boolean)getConvertedValue(OType.BOOLEAN, stateVertex.getProperty("isInitial"))) {
-                        element.addClass("isInitial");
-                    }
-                }
-                elements.add(element);
+                if (!op.isPresent() || !stream.accept()) continue;
+                stream.write(createNode(op.get(), className, parent, modelIdentifier));
             }
         }
-        return elements;
     }
 
     /**
-     * This method transforms a resultset of edges into elements.
+     * This method writes a resultset of edges to an element stream.
      * @param resultSet
      * @param className
-     * @return
+     * @param stream
+     * @throws IOException
      */
-    private ArrayList<Element> fetchEdges(OResultSet resultSet, String className) {
-        ArrayList<Element> elements = new ArrayList<>();
-        while (resultSet.hasNext()) {
+    private void fetchEdges(OResultSet resultSet, String className, ElementStream stream) throws IOException {
+        while (resultSet.hasNext() && !stream.hasMore()) {
             OResult result = resultSet.next();
-            // we're expecting a vertex
+            // we're expecting an edge
             if (result.isEdge()) {
                 Optional<OEdge> op = result.getEdge();
-                if (!op.isPresent()) continue;
-                OEdge actionEdge = op.get();
-                OVertexDocument source = actionEdge.getProperty("out");
-                OVertexDocument target = actionEdge.getProperty("in");
-                Edge jsonEdge = new Edge("e" + formatId(actionEdge.getIdentity().toString()), "n" + formatId(source.getIdentity().toString()), "n" + formatId(target.getIdentity().toString()));
-                for (String propertyName : actionEdge.getPropertyNames()) {
-                    if (propertyName.contains("in") || propertyName.contains("out")) {
-                        // these are edge indicators. Ignore
-                        continue;
-                    }
-                    jsonEdge.addProperty(propertyName, actionEdge.getProperty(propertyName).toString());
-                }
-                elements.add(new Element(Element.GROUP_EDGES, jsonEdge, className));
+                if (!op.isPresent() || !stream.accept()) continue;
+                stream.write(createEdge(op.get(), className));
+            }
+        }
+    }
+
+    /**
+     * This method transforms a vertex into an element.
+     * @param stateVertex
+     * @param className
+     * @return
+     */
+    private Element createNode(OVertex stateVertex, String className, String parent, String modelIdentifier) {
+        Vertex jsonVertex = new Vertex("n" + formatId(stateVertex.getIdentity().toString()));
+        for (String propertyName : stateVertex.getPropertyNames()) {
+            if (propertyName.contains("in_") || propertyName.contains("out_")) {
+                // these are edge indicators. Ignore
+                continue;
+            }
+            if (propertyName.equals("screenshot")) {
+                // process the screenshot separately
+                processScreenShot(stateVertex.getProperty("screenshot"), "n" + formatId(stateVertex.getIdentity().toString()), modelIdentifier);
+                continue;
+            }
+            jsonVertex.addProperty(propertyName, stateVertex.getProperty(propertyName).toString());
+        }
+        // optionally add a parent
+        if (parent != null) {
+            jsonVertex.addProperty("parent", parent);
+        }
+        Element element = new Element(Element.GROUP_NODES, jsonVertex, className);
+        if(stateVertex.getPropertyNames().contains("isInitial")) {
+            if ((Boolean)getConvertedValue(OType.BOOLEAN, stateVertex.getProperty("isInitial"))) {
+                element.addClass("isInitial");
+            }
+        }
+        return element;
+    }
+
+    /**
+     * This method transforms an edge into an element.
+     * @param actionEdge
+     * @param className
+     * @return
+     */
+    private Element createEdge(OEdge actionEdge, String className) {
+        OVertexDocument source = actionEdge.getProperty("out");
+        OVertexDocument target = actionEdge.getProperty("in");
+        Edge jsonEdge = new Edge("e" + formatId(actionEdge.getIdentity().toString()), "n" + formatId(source.getIdentity().toString()), "n" + formatId(target.getIdentity().toString()));
+        for (String propertyName : actionEdge.getPropertyNames()) {
+            if (propertyName.contains("in") || propertyName.contains("out")) {
+                // these are edge indicators. Ignore
+                continue;
             }
+            jsonEdge.addProperty(propertyName, actionEdge.getProperty(propertyName).toString());
+        }
+        return new Element(Element.GROUP_EDGES, jsonEdge, className);
+    }
+
+    // writes the parent node of a layer in a compound graph
+    private void writeParent(String layerName, ElementStream stream) throws IOException {
+        if (stream.accept()) {
+            stream.write(new Element(Element.GROUP_NODES, new Vertex(layerName), "Parent"));
+        }
+    }
+
+    // returns the parent node of the layer that a node class is shown in
+    private String getLayerParent(String className) {
+        switch (className) {
+            case "AbstractState":
+            case "BlackHole":
+                return "AbstractLayer";
+            case "ConcreteState":
+                return "ConcreteLayer";
+            case "TestSequence":
+            case "SequenceNode":
+                return "SequenceLayer";
+            default:
+                return null;
+        }
+    }
+
+    private String getClassName(OElement element) {
+        return element.getSchemaType().map(OClass::getName).orElse(null);
+    }
+
+    // encodes the requested layers for use in a file name
+    private String getLayerKey(boolean abstractLayerRequired, boolean concreteLayerRequired, boolean sequenceLayerRequired, boolean showCompoundGraph) {
+        StringBuilder builder = new StringBuilder();
+        if (abstractLayerRequired) builder.append("A");
+        if (concreteLayerRequired) builder.append("C");
+        if (sequenceLayerRequired) builder.append("S");
+        if (showCompoundGraph) builder.append("P");
+        return builder.toString();
+    }
+
+    /**
+     * This method returns a version tag for the data that is stored for a model.
+     * A model only changes while a sequence is being executed, and every step of a sequence stores a sequence node,
+     * so the number of sequences and sequence nodes changes whenever the model does.
+     * @param modelIdentifier
+     * @param db
+     * @return
+     */
+    private String fetchModelVersion(String modelIdentifier, ODatabaseSession db) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("identifier", modelIdentifier);
+        long nrOfSequences = fetchCount("SELECT COUNT(*) as nr FROM TestSequence WHERE modelIdentifier = :identifier", params, db);
+        long nrOfNodes = fetchCount("SELECT COUNT(*) as nr FROM (TRAVERSE out(\"FirstNode\"), out(\"SequenceStep\") FROM (SELECT FROM TestSequence WHERE modelIdentifier = :identifier)) WHERE @class = \"SequenceNode\"", params, db);
+        return "v" + nrOfSequences + "-" + nrOfNodes;
+    }
+
+    private long fetchCount(String stmt, Map<String, Object> params, ODatabaseSession db) {
+        long count = 0;
+        OResultSet resultSet = db.query(stmt, params);
+        if (resultSet.hasNext()) {
+            Object value = resultSet.next().getProperty("nr");
+            count = value instanceof Number ? ((Number) value).longValue() : 0;
         }
-        return elements;
+        resultSet.close();
+        return count;
     }
 
     /**
@@ -710,30 +946,110 @@ public class AnalysisManager {
         return  convertedValue;
     }
 
-    // this helper method will write elements to a file in json format
-    private String writeJson(ArrayList<Element> elements, String filename, String subFolderName) {
+    /**
+     * Functional interface for an export that writes json to an output stream.
+     */
+    @FunctionalInterface
+    private interface JsonExport {
+        void write(OutputStream outputStream) throws IOException;
+    }
+
+    /**
+     * Functional interface for an export that streams elements from the database.
+     */
+    @FunctionalInterface
+    private interface GraphExport {
+        void export(ODatabaseSession db, ElementStream stream) throws IOException;
+    }
+
+    // this helper method writes an export to a file in the given subfolder, and at the same time to the output stream
+    // if one is given. If the file already exists, the export is not run again and the file is copied instead.
+    private void writeCachedJson(String subFolderName, String filename, OutputStream outputStream, JsonExport export) throws IOException {
         // check if the subfolder already exists
         File subFolder = new File(outputDir + subFolderName);
         if (!subFolder.isDirectory() && !subFolder.mkdir()) {
-            return "";
+            throw new IOException("Unable to create directory " + subFolder.getAbsolutePath());
         }
 
         File output = new File(subFolder, filename);
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            String result = mapper.writeValueAsString(elements);
-            // let's write the resulting json to a file
-            if (output.exists() || output.createNewFile()) {
-                BufferedWriter writer = new BufferedWriter(new FileWriter(output.getAbsolutePath()));
-                writer.write(result);
-                writer.close();
+        if (output.isFile()) {
+            if (outputStream != null) {
+                Files.copy(output.toPath(), outputStream);
+                outputStream.flush();
             }
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
+            return;
         }
-        catch (IOException e) {
-            e.printStackTrace();
+
+        // write to a temporary file first, so an interrupted export never ends up in the cache
+        File temporary = File.createTempFile("export", ".tmp", subFolder);
+        try (OutputStream fileStream = new BufferedOutputStream(new FileOutputStream(temporary))) {
+            export.write(outputStream == null ? fileStream : new TeeOutputStream(fileStream, outputStream));
+        } catch (IOException | RuntimeException e) {
+            temporary.delete();
+            throw e;
+        }
+        Files.move(temporary.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        deleteOutdatedVersions(subFolder, filename);
+    }
+
+    // removes the cached exports of earlier versions of a model
+    private void deleteOutdatedVersions(File subFolder, String filename) {
+        Matcher matcher = VERSION_PATTERN.matcher(filename);
+        if (!matcher.find()) {
+            return;
+        }
+        String version = matcher.group();
+        File[] cachedFiles = subFolder.listFiles((dir, name) -> name.endsWith(".json"));
+        if (cachedFiles == null) {
+            return;
+        }
+        for (File cachedFile : cachedFiles) {
+            Matcher cachedMatcher = VERSION_PATTERN.matcher(cachedFile.getName());
+            if (cachedMatcher.find() && !cachedMatcher.group().equals(version)) {
+                cachedFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Output stream that writes to two output streams. Closing it closes both streams.
+     */
+    private static class TeeOutputStream extends OutputStream {
+
+        private final OutputStream first;
+
+        private final OutputStream second;
+
+        TeeOutputStream(OutputStream first, OutputStream second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            first.write(b);
+            second.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            first.write(b, off, len);
+            second.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            first.flush();
+            second.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                first.close();
+            } finally {
+                second.close();
+            }
         }
-        return filename;
     }
 }
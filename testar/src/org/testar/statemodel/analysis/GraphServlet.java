@@ -6,10 +6,124 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import org.testar.statemodel.exceptions.StaleModelVersionException;
 import java.io.IOException;
 
 public class GraphServlet  extends HttpServlet {
 
+    // the number of elements in a page when the client does not ask for a specific page size
+    private static final long DEFAULT_PAGE_SIZE = 5000;
+
+    private static final long MAX_PAGE_SIZE = 50000;
+
+    private static final int MAX_DEPTH = 10;
+
+    // response header with the model version of a page, to be passed as the version parameter for the next pages
+    private static final String VERSION_HEADER = "X-Model-Version";
+
+    /**
+     * Streams a page of graph elements as json. Request parameters:
+     * modelIdentifier, abstractoption, concreteoption, sequenceoption and compoundoption as for the graph page,
+     * offset and limit to select the page, and optionally node and depth to only return the neighbourhood of a node.
+     * The version parameter takes the model version returned in the X-Model-Version header of the first page,
+     * so the version is only determined once per export.
+     */
+    protected void doGet(
+            HttpServletRequest request,
+            HttpServletResponse response)
+            throws ServletException, IOException {
+
+        boolean abstractLayerRequired = request.getParameter("abstractoption") != null;
+        boolean concreteLayerRequired = request.getParameter("concreteoption") != null;
+        boolean sequenceLayerRequired = request.getParameter("sequenceoption") != null;
+        boolean showCompoundGraph = request.getParameter("compoundoption") != null;
+        String modelIdentifier = request.getParameter("modelIdentifier");
+        String nodeId = request.getParameter("node");
+
+        if (modelIdentifier == null || !(abstractLayerRequired || concreteLayerRequired || sequenceLayerRequired)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "A model identifier and at least one layer are required");
+            return;
+        }
+        if (nodeId != null && !nodeId.matches("n\\d+_\\d+")) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid node id " + nodeId);
+            return;
+        }
+
+        long offset, limit;
+        int depth;
+        try {
+            offset = getNumber(request, "offset", 0);
+            limit = getNumber(request, "limit", DEFAULT_PAGE_SIZE);
+            depth = (int) getNumber(request, "depth", 1);
+        } catch (NumberFormatException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid number: " + e.getMessage());
+            return;
+        }
+        if (offset < 0 || limit < 1 || limit > MAX_PAGE_SIZE || depth < 1 || depth > MAX_DEPTH) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Page or depth out of range");
+            return;
+        }
+
+        String modelVersion = request.getParameter("version");
+        if (modelVersion != null && !modelVersion.matches("v\\d+-\\d+")) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid model version " + modelVersion);
+            return;
+        }
+
+        AnalysisManager analysisManager = getAnalysisManager(response);
+        if (analysisManager == null) {
+            return;
+        }
+
+        try {
+            if (modelVersion == null) {
+                modelVersion = analysisManager.fetchModelVersion(modelIdentifier);
+            }
+            response.setHeader(VERSION_HEADER, modelVersion);
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            if (nodeId == null) {
+                analysisManager.streamGraphForModel(modelIdentifier, abstractLayerRequired, concreteLayerRequired, sequenceLayerRequired, showCompoundGraph,
+                        modelVersion, offset, limit, response.getOutputStream());
+            }
+            else {
+                analysisManager.streamNeighbourhood(modelIdentifier, nodeId, depth, abstractLayerRequired, concreteLayerRequired, sequenceLayerRequired, showCompoundGraph,
+                        modelVersion, offset, limit, response.getOutputStream());
+            }
+        } catch (StaleModelVersionException e) {
+            // the client has to start again with the pages of the current version
+            response.setHeader(VERSION_HEADER, e.getCurrentVersion());
+            response.sendError(HttpServletResponse.SC_CONFLICT, "Model version " + modelVersion + " is outdated, the current version is " + e.getCurrentVersion());
+        } catch (IOException | RuntimeException e) {
+            sendServerError(response, "Unable to export the graph of model " + modelIdentifier, e);
+        }
+    }
+
+    // the analysis manager is put in the servlet context when the analysis server starts, answers 503 if it is missing
+    private AnalysisManager getAnalysisManager(HttpServletResponse response) throws IOException {
+        Object analysisManager = getServletContext().getAttribute("analysisManager");
+        if (!(analysisManager instanceof AnalysisManager)) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "The state model analysis is not available");
+            return null;
+        }
+        return (AnalysisManager) analysisManager;
+    }
+
+    // answers 500, or aborts the response if part of it was sent already
+    private void sendServerError(HttpServletResponse response, String message, Exception e) throws IOException, ServletException {
+        log(message, e);
+        if (response.isCommitted()) {
+            throw new ServletException(message, e);
+        }
+        response.reset();
+        response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, message);
+    }
+
+    private long getNumber(HttpServletRequest request, String parameterName, long defaultValue) {
+        String value = request.getParameter(parameterName);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
     protected void doPost(
             HttpServletRequest request,
             HttpServletResponse response)
@@ -25,8 +139,10 @@ public class GraphServlet  extends HttpServlet {
 
         // fetch the analysismanager from the servlet context
         ServletContext servletContext = getServletContext();
-        // todo: this needs proper error handling
-        AnalysisManager analysisManager = (AnalysisManager)servletContext.getAttribute("analysisManager");
+        AnalysisManager analysisManager = getAnalysisManager(response);
+        if (analysisManager == null) {
+            return;
+        }
 
         if (modelIdentifier != null) {
             // this is the controller logic for the overall model graph
@@ -34,21 +150,20 @@ public class GraphServlet  extends HttpServlet {
             // check if there were any layers requested
             if (!(abstractLayerRequired || concreteLayerRequired || sequenceLayerRequired)) {
                 response.sendRedirect("/models");
+                return;
             }
 
             // fetch the model
             String jsonFileName = analysisManager.fetchGraphForModel(modelIdentifier, abstractLayerRequired, concreteLayerRequired, sequenceLayerRequired, showCompoundGraph);
-
-            try {
-                request.setAttribute("graphContentFile", jsonFileName);
-                request.setAttribute("contentFolder", modelIdentifier);
-                RequestDispatcher dispatcher = servletContext.getRequestDispatcher("/graph.jsp");
-                dispatcher.forward(request, response);
-            } catch (ServletException e) {
-                e.printStackTrace();
-            } catch (IOException e) {
-                e.printStackTrace();
+            if (jsonFileName.isEmpty()) {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Unable to export the graph of model " + modelIdentifier);
+                return;
             }
+
+            request.setAttribute("graphContentFile", jsonFileName);
+            request.setAttribute("contentFolder", modelIdentifier);
+            RequestDispatcher dispatcher = servletContext.getRequestDispatcher("/graph.jsp");
+            dispatcher.forward(request, response);
         }
         else if (concreteStateIdentifier != null) {
             // this is the controller logic for the widget tree graph.
@@ -56,27 +171,19 @@ public class GraphServlet  extends HttpServlet {
 
             // fetch the model
             String jsonFileName = analysisManager.fetchWidgetTree(concreteStateIdentifier);
-
-            try {
-                request.setAttribute("graphContentFile", jsonFileName);
-                request.setAttribute("contentFolder", concreteStateIdentifier);
-                RequestDispatcher dispatcher = servletContext.getRequestDispatcher("/graph.jsp");
-                dispatcher.forward(request, response);
-            } catch (ServletException e) {
-                e.printStackTrace();
-            } catch (IOException e) {
-                e.printStackTrace();
+            if (jsonFileName.isEmpty()) {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Unable to export the widget tree of state " + concreteStateIdentifier);
+                return;
             }
+
+            request.setAttribute("graphContentFile", jsonFileName);
+            request.setAttribute("contentFolder", concreteStateIdentifier);
+            RequestDispatcher dispatcher = servletContext.getRequestDispatcher("/graph.jsp");
+            dispatcher.forward(request, response);
         }
         else {
             response.sendRedirect("/models");
         }
-
-
-
-
-
-
     }
 
 }
@@ -0,0 +1,112 @@
+package org.testar.statemodel.analysis.jsonformat;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes graph elements to a json array one at a time, so that an export never has to hold the complete graph in memory.
+ * A paged stream only writes the elements in the window [offset, offset + limit) and wraps them in an object
+ * that tells the client whether more elements are available:
+ * {"elements": [...], "offset": 0, "count": 500, "hasMore": true}
+ */
+public class ElementStream implements Closeable {
+
+    private final JsonGenerator generator;
+
+    private final boolean paged;
+
+    private final long offset;
+
+    private final long limit;
+
+    // the number of elements that were passed over before the start of the page
+    private long skipped = 0;
+
+    private long written = 0;
+
+    private boolean hasMore = false;
+
+    /**
+     * Creates an unpaged stream that writes a plain json array.
+     * @param outputStream
+     * @throws IOException
+     */
+    public ElementStream(OutputStream outputStream) throws IOException {
+        this(outputStream, false, 0, -1);
+    }
+
+    /**
+     * Creates a paged stream.
+     * @param outputStream
+     * @param offset the number of elements to skip
+     * @param limit the maximum number of elements to write, or a negative number for no limit
+     * @throws IOException
+     */
+    public ElementStream(OutputStream outputStream, long offset, long limit) throws IOException {
+        this(outputStream, true, offset, limit);
+    }
+
+    private ElementStream(OutputStream outputStream, boolean paged, long offset, long limit) throws IOException {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset cannot be negative");
+        }
+        this.paged = paged;
+        this.offset = offset;
+        this.limit = limit;
+        generator = new ObjectMapper().getFactory().createGenerator(outputStream, JsonEncoding.UTF8);
+        if (paged) {
+            generator.writeStartObject();
+            generator.writeFieldName("elements");
+        }
+        generator.writeStartArray();
+    }
+
+    /**
+     * Call this method before building the next element.
+     * @return true if the element falls within the page and should be written, false if it has to be skipped
+     */
+    public boolean accept() {
+        if (limit >= 0 && written >= limit) {
+            hasMore = true;
+            return false;
+        }
+        if (skipped < offset) {
+            skipped++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true once an element was offered after the page was filled. The producer can stop querying.
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public void write(Element element) throws IOException {
+        generator.writeObject(element);
+        written++;
+    }
+
+    public long getCount() {
+        return written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.writeEndArray();
+        if (paged) {
+            generator.writeNumberField("offset", offset);
+            generator.writeNumberField("count", written);
+            generator.writeBooleanField("hasMore", hasMore);
+            generator.writeEndObject();
+        }
+        generator.close();
+    }
+}
@@ -0,0 +1,26 @@
+package org.testar.statemodel.distributed;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A store through which the workers that explore the same state model exchange their model deltas.
+ */
+public interface DeltaStore extends Closeable {
+
+    /**
+     * This method makes a delta of this worker available to the other workers.
+     * @param delta
+     * @throws IOException
+     */
+    void publish(byte[] delta) throws IOException;
+
+    /**
+     * This method returns the deltas that other workers published since the last call.
+     * @return
+     * @throws IOException
+     */
+    List<byte[]> fetch() throws IOException;
+
+}
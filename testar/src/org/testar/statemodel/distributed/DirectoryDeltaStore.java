@@ -0,0 +1,205 @@
+package org.testar.statemodel.distributed;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import org.testar.statemodel.exceptions.StateModelException;
+
+/**
+ * A delta store in a directory that all workers can reach, such as a shared volume.
+ * Every worker appends its deltas to its own file, so there is never more than one writer for a file.
+ * The other workers read each file from where they stopped reading the last time. A record that is not completely
+ * written yet, or whose checksum does not match, is left for the next fetch.
+ *
+ * A worker marks its file as finished when it closes the store. The files of the finished workers are then merged
+ * into a single file and deleted, so that the directory does not grow with every run. The files of the workers
+ * that are still running are never touched. Merging deltas is idempotent, so a worker that already read the merged
+ * deltas simply reads them once more.
+ *
+ * Record format: [int length][payload][int crc32 of the payload]
+ */
+public class DirectoryDeltaStore implements DeltaStore {
+
+    private static final String EXTENSION = ".deltas";
+
+    private static final String FINISHED_EXTENSION = ".done";
+
+    private final File directory;
+
+    private final String workerId;
+
+    private FileChannel output;
+
+    // the number of bytes of each file of the other workers that have been read
+    private final Map<String, Long> readPositions = new HashMap<>();
+
+    /**
+     * Constructor
+     * @param directory the shared directory for a single state model
+     * @param workerId a unique identifier for this worker
+     */
+    public DirectoryDeltaStore(File directory, String workerId) {
+        this.directory = directory;
+        this.workerId = workerId;
+    }
+
+    @Override
+    public void publish(byte[] delta) throws IOException {
+        if (output == null) {
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                throw new IOException("Unable to create directory " + directory.getAbsolutePath());
+            }
+            output = FileChannel.open(new File(directory, workerId + EXTENSION).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        writeRecord(output, delta);
+    }
+
+    private static void writeRecord(FileChannel output, byte[] delta) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(delta);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + delta.length);
+        buffer.putInt(delta.length).put(delta).putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+        output.force(false);
+    }
+
+    @Override
+    public List<byte[]> fetch() throws IOException {
+        List<byte[]> deltas = new ArrayList<>();
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION) && !name.equals(workerId + EXTENSION));
+        if (files == null) {
+            return deltas;
+        }
+        Set<String> fileNames = new HashSet<>();
+        for (File file : files) {
+            fileNames.add(file.getName());
+            long position = readPositions.getOrDefault(file.getName(), 0L);
+            if (file.length() <= position) {
+                continue;
+            }
+            try (FileChannel input = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                position = readRecords(input, position, deltas);
+            }
+            catch (NoSuchFileException ex) {
+                // the file was merged in the meantime, its deltas are in the merged file
+                continue;
+            }
+            readPositions.put(file.getName(), position);
+        }
+        // forget the files that were merged and deleted
+        readPositions.keySet().retainAll(fileNames);
+        return deltas;
+    }
+
+    // reads the complete records after the position and returns the position after the last one
+    private static long readRecords(FileChannel input, long position, List<byte[]> deltas) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        while (true) {
+            header.clear();
+            if (!readFully(input, header, position)) {
+                return position;
+            }
+            int length = header.getInt(0);
+            if (length < 0 || position + 8 + length > input.size()) {
+                return position;
+            }
+            ByteBuffer record = ByteBuffer.allocate(length + 4);
+            if (!readFully(input, record, position + 4)) {
+                return position;
+            }
+            byte[] delta = new byte[length];
+            record.flip();
+            record.get(delta);
+            CRC32 crc = new CRC32();
+            crc.update(delta);
+            if (record.getInt() != (int) crc.getValue()) {
+                return position;
+            }
+            deltas.add(delta);
+            position += 8 + length;
+        }
+    }
+
+    private static boolean readFully(FileChannel input, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = input.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (output == null) {
+            return;
+        }
+        output.close();
+        output = null;
+        Files.write(new File(directory, workerId + FINISHED_EXTENSION).toPath(), new byte[0]);
+        mergeFinishedFiles();
+    }
+
+    // merges the files of the workers that finished into a new finished file and deletes them
+    private void mergeFinishedFiles() throws IOException {
+        File[] markers = directory.listFiles((dir, name) -> name.endsWith(FINISHED_EXTENSION));
+        if (markers == null || markers.length < 2) {
+            return;
+        }
+        List<byte[]> deltas = new ArrayList<>();
+        List<File> mergedFiles = new ArrayList<>();
+        for (File marker : markers) {
+            String id = marker.getName().substring(0, marker.getName().length() - FINISHED_EXTENSION.length());
+            File file = new File(directory, id + EXTENSION);
+            try (FileChannel input = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                readRecords(input, 0, deltas);
+            }
+            catch (NoSuchFileException ex) {
+                // another worker merged this file at the same time
+                Files.deleteIfExists(marker.toPath());
+                continue;
+            }
+            mergedFiles.add(file);
+            mergedFiles.add(marker);
+        }
+
+        byte[] mergedDelta;
+        try {
+            mergedDelta = ModelDelta.merge(deltas);
+        }
+        catch (StateModelException | RuntimeException ex) {
+            throw new IOException("Unable to merge the deltas of the finished workers", ex);
+        }
+
+        // the merged file only becomes visible to the readers when it is complete
+        String mergedId = UUID.randomUUID().toString();
+        File temporaryFile = new File(directory, mergedId + ".tmp");
+        try (FileChannel mergedOutput = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            writeRecord(mergedOutput, mergedDelta);
+        }
+        Files.move(temporaryFile.toPath(), new File(directory, mergedId + EXTENSION).toPath(), StandardCopyOption.ATOMIC_MOVE);
+        Files.write(new File(directory, mergedId + FINISHED_EXTENSION).toPath(), new byte[0]);
+
+        for (File file : mergedFiles) {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.testar.statemodel.distributed;
+
+import org.testar.statemodel.AbstractAction;
+import org.testar.statemodel.AbstractState;
+import org.testar.statemodel.AbstractStateModel;
+import org.testar.statemodel.AbstractStateTransition;
+import org.testar.statemodel.exceptions.ActionNotFoundException;
+import org.testar.statemodel.exceptions.StateModelException;
+import org.testar.statemodel.persistence.logstore.RecordReader;
+import org.testar.statemodel.persistence.logstore.RecordWriter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The abstract states and transitions that a worker discovered or changed since it last published.
+ *
+ * A delta only ever adds to a model: states, their actions and transitions are never removed, and an action
+ * becomes visited as soon as a transition for it is known. Merging is therefore a set union. Deltas can be merged
+ * in any order and more than once, and every worker ends up with the same model.
+ */
+public class ModelDelta {
+
+    private final List<AbstractState> states = new ArrayList<>();
+
+    private final List<String[]> transitions = new ArrayList<>();
+
+    private ModelDelta() {
+    }
+
+    /**
+     * This method encodes the current content of the given states and transitions.
+     * @param states
+     * @param transitions
+     * @return
+     */
+    public static byte[] encode(Collection<AbstractState> states, Collection<AbstractStateTransition> transitions) {
+        RecordWriter writer = new RecordWriter();
+        writer.writeInt(states.size());
+        for (AbstractState state : states) {
+            List<String> actionIds = new ArrayList<>();
+            for (AbstractAction action : state.getActions()) {
+                actionIds.add(action.getActionId());
+            }
+            writer.writeString(state.getStateId())
+                    .writeBoolean(state.isInitial())
+                    .writeAttributes(state.getAttributes())
+                    .writeStrings(actionIds);
+        }
+        writer.writeInt(transitions.size());
+        for (AbstractStateTransition transition : transitions) {
+            writer.writeString(transition.getSourceStateId())
+                    .writeString(transition.getActionId())
+                    .writeString(transition.getTargetStateId());
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * This method decodes a delta that was encoded by another worker.
+     * @param delta
+     * @return
+     */
+    public static ModelDelta decode(byte[] delta) {
+        RecordReader reader = new RecordReader(ByteBuffer.wrap(delta));
+        ModelDelta modelDelta = new ModelDelta();
+        int nrOfStates = reader.readInt();
+        for (int i = 0; i < nrOfStates; i++) {
+            AbstractState state = new AbstractState(reader.readString(), null);
+            state.setInitial(reader.readBoolean());
+            reader.readAttributes(state.getAttributes());
+            for (String actionId : reader.readStrings()) {
+                state.addNewAction(new AbstractAction(actionId));
+            }
+            modelDelta.states.add(state);
+        }
+        int nrOfTransitions = reader.readInt();
+        for (int i = 0; i < nrOfTransitions; i++) {
+            modelDelta.transitions.add(new String[] {reader.readString(), reader.readString(), reader.readString()});
+        }
+        return modelDelta;
+    }
+
+    /**
+     * This method combines several deltas into a single one that holds the union of their states and transitions.
+     * @param deltas
+     * @return
+     * @throws StateModelException
+     */
+    public static byte[] merge(List<byte[]> deltas) throws StateModelException {
+        AbstractStateModel union = new AbstractStateModel("", "", "", Collections.emptySet());
+        for (byte[] delta : deltas) {
+            decode(delta).mergeInto(union);
+        }
+        List<AbstractStateTransition> transitions = new ArrayList<>();
+        for (AbstractState state : union.getStates()) {
+            Set<AbstractStateTransition> outgoingTransitions = union.getOutgoingTransitionsForState(state.getStateId());
+            if (outgoingTransitions != null) {
+                transitions.addAll(outgoingTransitions);
+            }
+        }
+        return encode(union.getStates(), transitions);
+    }
+
+    /**
+     * This method merges the delta into a model, without notifying the listeners of the model.
+     * @param abstractStateModel
+     * @throws StateModelException
+     */
+    public void mergeInto(AbstractStateModel abstractStateModel) throws StateModelException {
+        abstractStateModel.suspendEvents();
+        try {
+            for (AbstractState state : states) {
+                if (!abstractStateModel.containsState(state.getStateId())) {
+                    abstractStateModel.addState(state);
+                    continue;
+                }
+                AbstractState localState = abstractStateModel.getState(state.getStateId());
+                for (AbstractAction action : state.getActions()) {
+                    localState.addNewAction(new AbstractAction(action.getActionId()));
+                }
+                if (state.isInitial()) {
+                    localState.setInitial(true);
+                }
+                // passing the state again updates the counters of the model
+                abstractStateModel.addState(localState);
+            }
+
+            for (String[] transition : transitions) {
+                if (!abstractStateModel.containsState(transition[0]) || !abstractStateModel.containsState(transition[2])) {
+                    continue;
+                }
+                AbstractState sourceState = abstractStateModel.getState(transition[0]);
+                AbstractAction action;
+                try {
+                    action = sourceState.getAction(transition[1]);
+                }
+                catch (ActionNotFoundException ex) {
+                    action = new AbstractAction(transition[1]);
+                    sourceState.addNewAction(action);
+                }
+                abstractStateModel.addTransition(sourceState, abstractStateModel.getState(transition[2]), action);
+            }
+        }
+        finally {
+            abstractStateModel.resumeEvents();
+        }
+    }
+
+    public int getNrOfStates() {
+        return states.size();
+    }
+
+    public int getNrOfTransitions() {
+        return transitions.size();
+    }
+}
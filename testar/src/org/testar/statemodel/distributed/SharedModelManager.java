@@ -0,0 +1,56 @@
+package org.testar.statemodel.distributed;
+
+import org.testar.statemodel.AbstractStateModel;
+import org.testar.statemodel.ModelManager;
+import org.testar.statemodel.actionselector.ActionSelector;
+import org.testar.statemodel.persistence.PersistenceManager;
+import org.testar.statemodel.sequence.SequenceManager;
+import org.testar.monkey.alayer.Action;
+import org.testar.monkey.alayer.State;
+import org.testar.monkey.alayer.Tag;
+
+import java.util.Set;
+
+/**
+ * A model manager for one of several workers that explore the same application in parallel.
+ * The model is synchronized with the other workers as new states are reached, and at the end of each sequence.
+ */
+public class SharedModelManager extends ModelManager {
+
+    private final SharedModelSynchronizer synchronizer;
+
+    /**
+     * Constructor
+     * @param abstractStateModel
+     * @param actionSelector
+     * @param persistenceManager
+     * @param concreteStateTags
+     * @param sequenceManager
+     * @param storeWidgets
+     * @param synchronizer the synchronizer that listens to the events of the abstract state model
+     */
+    public SharedModelManager(AbstractStateModel abstractStateModel, ActionSelector actionSelector, PersistenceManager persistenceManager,
+                              Set<Tag<?>> concreteStateTags, SequenceManager sequenceManager, boolean storeWidgets,
+                              SharedModelSynchronizer synchronizer) {
+        super(abstractStateModel, actionSelector, persistenceManager, concreteStateTags, sequenceManager, storeWidgets);
+        this.synchronizer = synchronizer;
+    }
+
+    @Override
+    public void notifyNewStateReached(State newState, Set<Action> actions) {
+        super.notifyNewStateReached(newState, actions);
+        synchronizer.synchronizeIfDue();
+    }
+
+    @Override
+    public void notifyTestSequenceStopped() {
+        super.notifyTestSequenceStopped();
+        synchronizer.synchronize();
+    }
+
+    @Override
+    public void notifyTestingEnded() {
+        synchronizer.close();
+        super.notifyTestingEnded();
+    }
+}
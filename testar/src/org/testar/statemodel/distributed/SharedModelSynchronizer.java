@@ -0,0 +1,139 @@
+package org.testar.statemodel.distributed;
+
+import org.testar.statemodel.AbstractState;
+import org.testar.statemodel.AbstractStateModel;
+import org.testar.statemodel.AbstractStateTransition;
+import org.testar.statemodel.event.StateModelEvent;
+import org.testar.statemodel.event.StateModelEventListener;
+import org.testar.statemodel.exceptions.StateModelException;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the abstract state model of this worker in sync with the models of the other workers that test the same
+ * application. The abstract states and transitions that change locally are collected from the model events and
+ * published as a single delta. The deltas of the other workers are merged into the local model, so that the action
+ * selectors see the actions that were already visited elsewhere and steer towards the globally unvisited ones.
+ *
+ * Merged changes do not emit events. Each worker only persists what it discovered itself, and it does not publish
+ * the changes of other workers again.
+ */
+public class SharedModelSynchronizer implements StateModelEventListener {
+
+    private final DeltaStore deltaStore;
+
+    // the minimum time between two synchronizations in milliseconds
+    private final long interval;
+
+    private AbstractStateModel abstractStateModel;
+
+    // the states and transitions that changed since the last publication. They are encoded when they are published.
+    private final Map<String, AbstractState> pendingStates = new LinkedHashMap<>();
+
+    private final Map<String, AbstractStateTransition> pendingTransitions = new LinkedHashMap<>();
+
+    private long lastSynchronization = 0;
+
+    private boolean listening = true;
+
+    /**
+     * Constructor
+     * @param deltaStore the store that is shared with the other workers
+     * @param interval the minimum time between two synchronizations in milliseconds
+     */
+    public SharedModelSynchronizer(DeltaStore deltaStore, long interval) {
+        this.deltaStore = deltaStore;
+        this.interval = interval;
+    }
+
+    @Override
+    public void eventReceived(StateModelEvent event) {
+        if (!listening) return;
+
+        switch (event.getEventType()) {
+            case ABSTRACT_STATE_ADDED:
+            case ABSTRACT_STATE_CHANGED:
+                AbstractState state = (AbstractState) event.getPayload();
+                pendingStates.put(state.getStateId(), state);
+                break;
+
+            case ABSTRACT_STATE_TRANSITION_ADDED:
+            case ABSTRACT_STATE_TRANSITION_CHANGED:
+                AbstractStateTransition transition = (AbstractStateTransition) event.getPayload();
+                pendingTransitions.put(transition.getSourceStateId() + "-" + transition.getActionId() + "-" + transition.getTargetStateId(), transition);
+                // the states of a new transition are added without an event of their own
+                pendingStates.put(transition.getSourceStateId(), transition.getSourceState());
+                pendingStates.put(transition.getTargetStateId(), transition.getTargetState());
+                break;
+
+            case ABSTRACT_STATE_MODEL_INITIALIZED:
+                abstractStateModel = (AbstractStateModel) event.getPayload();
+                break;
+
+            default:
+        }
+    }
+
+    @Override
+    public void setListening(boolean listening) {
+        this.listening = listening;
+    }
+
+    /**
+     * This method synchronizes the model when the interval since the last synchronization has passed.
+     */
+    public void synchronizeIfDue() {
+        if (System.currentTimeMillis() - lastSynchronization >= interval) {
+            synchronize();
+        }
+    }
+
+    /**
+     * This method publishes the local changes and then merges the changes of the other workers into the model.
+     * Synchronization problems are reported but do not stop the test: the worker will then simply explore on its own.
+     */
+    public void synchronize() {
+        lastSynchronization = System.currentTimeMillis();
+        try {
+            publish();
+            if (abstractStateModel == null) {
+                return;
+            }
+            for (byte[] delta : deltaStore.fetch()) {
+                ModelDelta.decode(delta).mergeInto(abstractStateModel);
+            }
+        }
+        catch (IOException | StateModelException | RuntimeException ex) {
+            System.out.println("Unable to synchronize the shared state model: " + ex.getMessage());
+        }
+    }
+
+    private void publish() throws IOException {
+        if (pendingStates.isEmpty() && pendingTransitions.isEmpty()) {
+            return;
+        }
+        deltaStore.publish(ModelDelta.encode(pendingStates.values(), pendingTransitions.values()));
+        pendingStates.clear();
+        pendingTransitions.clear();
+    }
+
+    /**
+     * This method publishes the remaining local changes and closes the delta store.
+     */
+    public void close() {
+        try {
+            publish();
+        }
+        catch (IOException ex) {
+            System.out.println("Unable to publish the last changes to the shared state model: " + ex.getMessage());
+        }
+        try {
+            deltaStore.close();
+        }
+        catch (IOException ex) {
+            System.out.println("Unable to close the shared state model store: " + ex.getMessage());
+        }
+    }
+}
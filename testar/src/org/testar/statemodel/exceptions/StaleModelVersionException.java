@@ -0,0 +1,17 @@
+package org.testar.statemodel.exceptions;
+
+/**
+ * Thrown when an export is requested for a version of a model that is no longer its current version.
+ */
+public class StaleModelVersionException extends StateModelException {
+
+    private final String currentVersion;
+
+    public StaleModelVersionException(String currentVersion) {
+        this.currentVersion = currentVersion;
+    }
+
+    public String getCurrentVersion() {
+        return currentVersion;
+    }
+}
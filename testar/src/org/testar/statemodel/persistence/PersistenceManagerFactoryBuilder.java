@@ -1,5 +1,6 @@
 package org.testar.statemodel.persistence;
 
+import org.testar.statemodel.persistence.logstore.LogStoreManagerFactory;
 import org.testar.statemodel.persistence.orientdb.OrientDBManagerFactory;
 
 /**
@@ -7,7 +8,7 @@ import org.testar.statemodel.persistence.orientdb.OrientDBManagerFactory;
  */
 public abstract class PersistenceManagerFactoryBuilder {
 
-    public enum ManagerType {ORIENTDB, DUMMY}
+    public enum ManagerType {ORIENTDB, LOGSTORE, DUMMY}
 
     /**
      * This method returns a concrete implementation of the abstract PersistManagerFactory class/interface.
@@ -19,6 +20,9 @@ public abstract class PersistenceManagerFactoryBuilder {
             case ORIENTDB:
                 return new OrientDBManagerFactory();
 
+            case LOGSTORE:
+                return new LogStoreManagerFactory();
+
             case DUMMY:
             default:
                 return new DummyManagerFactory();
@@ -9,6 +9,7 @@ import org.testar.statemodel.sequence.SequenceNode;
 import org.testar.statemodel.sequence.SequenceStep;
 import org.testar.statemodel.util.EventHelper;
 import org.testar.statemodel.*;
+import org.testar.metrics.Metrics;
 
 import java.util.ArrayDeque;
 
@@ -49,6 +50,7 @@ public class QueueManager implements PersistenceManager, StateModelEventListener
     private void processRequest(Runnable runnable, Persistable persistable) {
         if (!hybridMode || persistable.canBeDelayed()) {
             queue.add(runnable);
+            Metrics.gauge(Metrics.PERSISTENCE_QUEUE_DEPTH, queue.size());
         }
         else {
             runnable.run();
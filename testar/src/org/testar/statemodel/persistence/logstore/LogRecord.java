@@ -0,0 +1,70 @@
+package org.testar.statemodel.persistence.logstore;
+
+/**
+ * The position of a record in a model log. Each payload starts with the strings that identify the stored entity,
+ * so that a later record with the same type and key supersedes an earlier one.
+ */
+class LogRecord {
+
+    static final byte MODEL = 1;
+    static final byte ABSTRACT_STATE = 2;
+    static final byte ABSTRACT_STATE_TRANSITION = 3;
+    static final byte CONCRETE_STATE = 4;
+    static final byte CONCRETE_STATE_TRANSITION = 5;
+    static final byte SEQUENCE = 6;
+    static final byte SEQUENCE_NODE = 7;
+    static final byte SEQUENCE_STEP = 8;
+
+    private final byte type;
+
+    private final String key;
+
+    private final long offset;
+
+    private final int length;
+
+    LogRecord(byte type, String key, long offset, int length) {
+        this.type = type;
+        this.key = key;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Returns the number of leading payload strings that identify the entity of a record type.
+     */
+    static int getNrOfKeyStrings(byte type) {
+        switch (type) {
+            case MODEL:
+                return 0;
+            case ABSTRACT_STATE_TRANSITION:
+            case CONCRETE_STATE_TRANSITION:
+                // source, action and target
+                return 3;
+            case SEQUENCE_STEP:
+                // source and target node
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    byte getType() {
+        return type;
+    }
+
+    /**
+     * The type and entity key, unique for each live record in a log.
+     */
+    String getKey() {
+        return key;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    int getLength() {
+        return length;
+    }
+}
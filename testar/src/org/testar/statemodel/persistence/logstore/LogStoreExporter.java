@@ -0,0 +1,260 @@
+package org.testar.statemodel.persistence.logstore;
+
+import org.testar.statemodel.AbstractAction;
+import org.testar.statemodel.AbstractState;
+import org.testar.statemodel.AbstractStateModel;
+import org.testar.statemodel.AbstractStateTransition;
+import org.testar.statemodel.ConcreteAction;
+import org.testar.statemodel.ConcreteState;
+import org.testar.statemodel.ConcreteStateTransition;
+import org.testar.statemodel.Widget;
+import org.testar.statemodel.exceptions.ActionNotFoundException;
+import org.testar.statemodel.persistence.PersistenceManager;
+import org.testar.statemodel.persistence.orientdb.OrientDBManager;
+import org.testar.statemodel.persistence.orientdb.entity.Config;
+import org.testar.statemodel.persistence.orientdb.entity.EntityManager;
+import org.testar.statemodel.sequence.Sequence;
+import org.testar.statemodel.sequence.SequenceNode;
+import org.testar.statemodel.sequence.SequenceStep;
+import org.testar.statemodel.sequence.SequenceVerdict;
+import org.testar.statemodel.util.EventHelper;
+import org.testar.monkey.alayer.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays the state model logs of a log store into another persistence manager, usually an OrientDB database,
+ * so that the models can be analysed and visualized.
+ */
+public class LogStoreExporter {
+
+    private static final Pattern LOG_FILE_PATTERN = Pattern.compile("(.+)-\\d+\\.log");
+
+    /**
+     * Exports all the models in a log store directory to an OrientDB database.
+     * @param storeDirectory
+     * @param config the OrientDB connection info
+     * @throws IOException
+     */
+    public static void exportToOrientDB(File storeDirectory, Config config) throws IOException {
+        OrientDBManager orientDBManager = new OrientDBManager(new EventHelper(), new EntityManager(config));
+        try {
+            for (String modelIdentifier : getModelIdentifiers(storeDirectory)) {
+                export(storeDirectory, modelIdentifier, orientDBManager);
+            }
+        }
+        finally {
+            orientDBManager.shutdown();
+        }
+    }
+
+    /**
+     * Returns the identifiers of the models that have a log in the store directory.
+     * @param storeDirectory
+     * @return
+     */
+    public static Set<String> getModelIdentifiers(File storeDirectory) {
+        Set<String> modelIdentifiers = new TreeSet<>();
+        File[] files = storeDirectory.listFiles();
+        for (File file : files == null ? new File[0] : files) {
+            Matcher matcher = LOG_FILE_PATTERN.matcher(file.getName());
+            if (matcher.matches()) {
+                modelIdentifiers.add(matcher.group(1));
+            }
+        }
+        return modelIdentifiers;
+    }
+
+    /**
+     * Exports the log of a single model.
+     * @param storeDirectory
+     * @param modelIdentifier
+     * @param target the persistence manager that will receive the model
+     * @throws IOException
+     */
+    public static void export(File storeDirectory, String modelIdentifier, PersistenceManager target) throws IOException {
+        Map<Byte, List<LogRecord>> recordsByType = new HashMap<>();
+        ModelLog log = new ModelLog(storeDirectory, modelIdentifier);
+        try {
+            for (LogRecord logRecord : log.readLiveRecords().values()) {
+                recordsByType.computeIfAbsent(logRecord.getType(), type -> new ArrayList<>()).add(logRecord);
+            }
+            if (!recordsByType.containsKey(LogRecord.MODEL)) {
+                System.out.println("State model log " + modelIdentifier + " does not contain a model record");
+                return;
+            }
+
+            // the model itself
+            RecordReader reader = new RecordReader(log.getPayload(recordsByType.get(LogRecord.MODEL).get(0)));
+            String applicationName = reader.readString();
+            String applicationVersion = reader.readString();
+            Set<Tag<?>> tags = readTags(reader);
+            AbstractStateModel abstractStateModel = new AbstractStateModel(modelIdentifier, applicationName, applicationVersion, tags);
+            target.initAbstractStateModel(abstractStateModel);
+
+            // the abstract layer
+            Map<String, AbstractState> abstractStates = new HashMap<>();
+            for (LogRecord logRecord : recordsByType.getOrDefault(LogRecord.ABSTRACT_STATE, new ArrayList<>())) {
+                AbstractState abstractState = LogStoreManager.readAbstractState(new RecordReader(log.getPayload(logRecord)));
+                abstractState.setModelIdentifier(modelIdentifier);
+                abstractStates.put(abstractState.getStateId(), abstractState);
+                target.persistAbstractState(abstractState);
+            }
+            for (LogRecord logRecord : recordsByType.getOrDefault(LogRecord.ABSTRACT_STATE_TRANSITION, new ArrayList<>())) {
+                reader = new RecordReader(log.getPayload(logRecord));
+                AbstractState sourceState = abstractStates.get(reader.readString());
+                String actionId = reader.readString();
+                AbstractState targetState = abstractStates.get(reader.readString());
+                if (sourceState == null || targetState == null) {
+                    continue;
+                }
+                target.persistAbstractStateTransition(new AbstractStateTransition(sourceState, targetState, getAction(sourceState, actionId)));
+            }
+
+            // the concrete layer
+            Map<String, ConcreteState> concreteStates = new HashMap<>();
+            for (LogRecord logRecord : recordsByType.getOrDefault(LogRecord.CONCRETE_STATE, new ArrayList<>())) {
+                reader = new RecordReader(log.getPayload(logRecord));
+                String concreteStateId = reader.readString();
+                AbstractState abstractState = abstractStates.get(reader.readString());
+                if (abstractState == null) {
+                    // a concrete state cannot be stored without its abstract state
+                    continue;
+                }
+                ConcreteState concreteState = new ConcreteState(concreteStateId, readTags(reader), abstractState);
+                concreteState.setScreenshot(reader.readBytes());
+                reader.readAttributes(concreteState.getAttributes());
+                readChildren(reader, concreteState, concreteState);
+                concreteStates.put(concreteStateId, concreteState);
+                target.persistConcreteState(concreteState);
+            }
+            for (LogRecord logRecord : recordsByType.getOrDefault(LogRecord.CONCRETE_STATE_TRANSITION, new ArrayList<>())) {
+                reader = new RecordReader(log.getPayload(logRecord));
+                ConcreteState sourceState = concreteStates.get(reader.readString());
+                String actionId = reader.readString();
+                ConcreteState targetState = concreteStates.get(reader.readString());
+                ConcreteAction concreteAction = readConcreteAction(reader, actionId, sourceState);
+                if (sourceState == null || targetState == null) {
+                    continue;
+                }
+                target.persistConcreteStateTransition(new ConcreteStateTransition(sourceState, targetState, concreteAction));
+            }
+
+            // the sequence layer
+            Map<String, Sequence> sequences = new HashMap<>();
+            for (LogRecord logRecord : recordsByType.getOrDefault(LogRecord.SEQUENCE, new ArrayList<>())) {
+                reader = new RecordReader(log.getPayload(logRecord));
+                String sequenceId = reader.readString();
+                int sequenceNr = reader.readInt();
+                String sequenceModelIdentifier = reader.readString();
+                long startDateTime = reader.readLong();
+                SequenceVerdict verdict = SequenceVerdict.valueOf(reader.readString());
+                Sequence sequence = new Sequence(sequenceId, sequenceNr, sequenceModelIdentifier,
+                        startDateTime < 0 ? null : Instant.ofEpochMilli(startDateTime), verdict, reader.readString());
+                sequences.put(sequenceId, sequence);
+                target.persistSequence(sequence);
+            }
+            Map<String, SequenceNode> sequenceNodes = new HashMap<>();
+            for (LogRecord logRecord : recordsByType.getOrDefault(LogRecord.SEQUENCE_NODE, new ArrayList<>())) {
+                reader = new RecordReader(log.getPayload(logRecord));
+                String nodeId = reader.readString();
+                String sequenceId = reader.readString();
+                int nodeNr = reader.readInt();
+                Instant timestamp = Instant.ofEpochMilli(reader.readLong());
+                ConcreteState concreteState = concreteStates.get(reader.readString());
+                String errorMessage = reader.readString();
+                if (concreteState == null) {
+                    continue;
+                }
+                // like during testing, only the first node is connected to its sequence
+                SequenceNode sequenceNode = new SequenceNode(sequenceId, nodeNr, timestamp, concreteState, nodeNr == 1 ? sequences.get(sequenceId) : null);
+                if (errorMessage != null && !errorMessage.isEmpty()) {
+                    sequenceNode.addErrorMessage(errorMessage);
+                }
+                sequenceNodes.put(nodeId, sequenceNode);
+                target.persistSequenceNode(sequenceNode);
+            }
+            for (LogRecord logRecord : recordsByType.getOrDefault(LogRecord.SEQUENCE_STEP, new ArrayList<>())) {
+                reader = new RecordReader(log.getPayload(logRecord));
+                SequenceNode sourceNode = sequenceNodes.get(reader.readString());
+                SequenceNode targetNode = sequenceNodes.get(reader.readString());
+                String actionId = reader.readString();
+                if (sourceNode == null || targetNode == null) {
+                    continue;
+                }
+                ConcreteAction concreteAction = readConcreteAction(reader, actionId, sourceNode.getConcreteState());
+                String actionDescription = reader.readString();
+                Instant timestamp = Instant.ofEpochMilli(reader.readLong());
+                SequenceStep sequenceStep = new SequenceStep(concreteAction, sourceNode, targetNode, actionDescription, timestamp);
+                sequenceStep.setNonDeterministic(reader.readBoolean());
+                target.persistSequenceStep(sequenceStep);
+            }
+            System.out.println("Exported state model log " + modelIdentifier + ": " + abstractStates.size() + " abstract states, "
+                    + concreteStates.size() + " concrete states and " + sequences.size() + " sequences");
+        }
+        finally {
+            log.close();
+        }
+    }
+
+    private static Set<Tag<?>> readTags(RecordReader reader) {
+        List<String> tagNames = reader.readStrings();
+        List<String> tagTypes = reader.readStrings();
+        Set<Tag<?>> tags = new HashSet<>();
+        for (int i = 0; i < tagNames.size(); i++) {
+            Class<?> tagType;
+            try {
+                tagType = Class.forName(tagTypes.get(i));
+            }
+            catch (ClassNotFoundException e) {
+                tagType = String.class;
+            }
+            tags.add(Tag.from(tagNames.get(i), tagType));
+        }
+        return tags;
+    }
+
+    private static void readChildren(RecordReader reader, Widget parent, ConcreteState rootWidget) {
+        int nrOfChildren = reader.readInt();
+        for (int i = 0; i < nrOfChildren; i++) {
+            Widget child = new Widget(reader.readString());
+            child.setRootWidget(rootWidget);
+            reader.readAttributes(child.getAttributes());
+            parent.addChild(child);
+            readChildren(reader, child, rootWidget);
+        }
+    }
+
+    private static ConcreteAction readConcreteAction(RecordReader reader, String actionId, ConcreteState sourceState) {
+        String abstractActionId = reader.readString();
+        AbstractAction abstractAction = null;
+        if (abstractActionId != null && sourceState != null) {
+            abstractAction = getAction(sourceState.getAbstractState(), abstractActionId);
+        }
+        ConcreteAction concreteAction = new ConcreteAction(actionId, abstractAction);
+        reader.readAttributes(concreteAction.getAttributes());
+        return concreteAction;
+    }
+
+    private static AbstractAction getAction(AbstractState abstractState, String actionId) {
+        try {
+            return abstractState.getAction(actionId);
+        }
+        catch (ActionNotFoundException e) {
+            AbstractAction action = new AbstractAction(actionId);
+            abstractState.addNewAction(action);
+            return action;
+        }
+    }
+}
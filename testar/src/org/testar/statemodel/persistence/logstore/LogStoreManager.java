@@ -0,0 +1,558 @@
+package org.testar.statemodel.persistence.logstore;
+
+import org.testar.statemodel.AbstractAction;
+import org.testar.statemodel.AbstractState;
+import org.testar.statemodel.AbstractStateModel;
+import org.testar.statemodel.AbstractStateTransition;
+import org.testar.statemodel.ConcreteState;
+import org.testar.statemodel.ConcreteStateTransition;
+import org.testar.statemodel.Widget;
+import org.testar.statemodel.event.StateModelEvent;
+import org.testar.statemodel.event.StateModelEventListener;
+import org.testar.statemodel.exceptions.ActionNotFoundException;
+import org.testar.statemodel.exceptions.InvalidEventException;
+import org.testar.statemodel.exceptions.StateModelException;
+import org.testar.statemodel.persistence.PersistenceManager;
+import org.testar.statemodel.sequence.Sequence;
+import org.testar.statemodel.sequence.SequenceManager;
+import org.testar.statemodel.sequence.SequenceNode;
+import org.testar.statemodel.sequence.SequenceStep;
+import org.testar.statemodel.sequence.SequenceVerdict;
+import org.testar.statemodel.util.EventHelper;
+import org.testar.monkey.alayer.Tag;
+import org.testar.metrics.Metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A persistence manager that appends the state model to a binary log file per model instead of storing it in a
+ * database. Records are encoded on the calling thread and appended by a single background writer, so the test loop
+ * never waits for the disk. When the model is initialized, the latest version of every abstract state and transition
+ * is read back from the log.
+ *
+ * The log can be exported to OrientDB with the {@link LogStoreExporter} for analysis and visualization.
+ */
+public class LogStoreManager implements PersistenceManager, StateModelEventListener {
+
+    // compact the log on start and shutdown when it holds more than this factor of superseded records
+    private static final int COMPACTION_FACTOR = 2;
+
+    private static final int MIN_RECORDS_FOR_COMPACTION = 1000;
+
+    private final EventHelper eventHelper;
+
+    private final File directory;
+
+    /**
+     * Single thread that owns the log file
+     */
+    private final ExecutorService writer;
+
+    /**
+     * The number of tasks that were submitted to the writer but have not yet been run
+     */
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+
+    /**
+     * The log of the model that is currently being tested, opened when the model is initialized
+     */
+    private ModelLog log;
+
+    /**
+     * Is the manager listening to events?
+     */
+    private boolean listening = true;
+
+    /**
+     * SHA-256 digests of the last payload written for each entity, used to skip writing unchanged entities again
+     */
+    private final Map<String, byte[]> lastWritten = new HashMap<>();
+
+    /**
+     * The concrete states that are present in the log
+     */
+    private final Set<String> concreteStateIds = new HashSet<>();
+
+    /**
+     * The target states reached for each combination of source state and action
+     */
+    private final Map<String, Set<String>> transitionTargets = new HashMap<>();
+
+    /**
+     * The number of transitions that share their source state and action with another transition
+     */
+    private int nrOfNondeterministicActions = 0;
+
+    /**
+     * Constructor
+     * @param eventHelper
+     * @param directory the directory in which the model logs are stored
+     */
+    public LogStoreManager(EventHelper eventHelper, File directory) {
+        this.eventHelper = eventHelper;
+        this.directory = directory;
+        writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "StateModelLogWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void shutdown() {
+        if (writer.isShutdown()) {
+            return;
+        }
+        submit(() -> {
+            if (log == null) {
+                return;
+            }
+            try {
+                compactIfNeeded(log.readLiveRecords());
+            }
+            finally {
+                log.close();
+                log = null;
+            }
+        });
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void persistAbstractState(AbstractState abstractState) {
+        RecordWriter record = new RecordWriter()
+                .writeString(abstractState.getStateId())
+                .writeBoolean(abstractState.isInitial())
+                .writeAttributes(abstractState.getAttributes())
+                .writeStrings(abstractState.getConcreteStateIds());
+        Set<AbstractAction> visitedActions = abstractState.getVisitedActions();
+        record.writeInt(abstractState.getActions().size());
+        for (AbstractAction action : abstractState.getActions()) {
+            record.writeString(action.getActionId())
+                    .writeBoolean(visitedActions.contains(action))
+                    .writeAttributes(action.getAttributes())
+                    .writeStrings(action.getConcreteActionIds());
+        }
+        append(LogRecord.ABSTRACT_STATE, abstractState.getStateId(), record);
+    }
+
+    @Override
+    public void persistAbstractAction(AbstractAction abstractAction) {
+        // abstract actions are stored as part of their source state
+    }
+
+    @Override
+    public void persistAbstractStateTransition(AbstractStateTransition abstractStateTransition) {
+        if (abstractStateTransition.getSourceState() == null || abstractStateTransition.getTargetState() == null || abstractStateTransition.getAction() == null) {
+            System.out.println("Objects missing in abstract state transition");
+            return;
+        }
+
+        // the states hold the actions and their visited status
+        persistAbstractState(abstractStateTransition.getSourceState());
+        persistAbstractState(abstractStateTransition.getTargetState());
+
+        String sourceStateId = abstractStateTransition.getSourceStateId();
+        String actionId = abstractStateTransition.getActionId();
+        String targetStateId = abstractStateTransition.getTargetStateId();
+        if (addTransitionTarget(sourceStateId, actionId, targetStateId)) {
+            RecordWriter record = new RecordWriter()
+                    .writeString(sourceStateId)
+                    .writeString(actionId)
+                    .writeString(targetStateId);
+            append(LogRecord.ABSTRACT_STATE_TRANSITION, sourceStateId + '\u0000' + actionId + '\u0000' + targetStateId, record);
+        }
+    }
+
+    @Override
+    public void persistConcreteState(ConcreteState concreteState) {
+        // concrete states are identified by their attributes, so they do not change once they are stored
+        if (!concreteStateIds.add(concreteState.getId())) {
+            return;
+        }
+
+        RecordWriter record = new RecordWriter()
+                .writeString(concreteState.getId())
+                .writeString(concreteState.getAbstractState() == null ? null : concreteState.getAbstractState().getStateId());
+        List<String> tagNames = new ArrayList<>();
+        List<String> tagTypes = new ArrayList<>();
+        if (concreteState.getTags() != null) {
+            for (Tag<?> tag : concreteState.getTags()) {
+                tagNames.add(tag.name());
+                tagTypes.add(tag.type().getName());
+            }
+        }
+        record.writeStrings(tagNames)
+                .writeStrings(tagTypes)
+                .writeBytes(concreteState.getScreenshot())
+                .writeAttributes(concreteState.getAttributes());
+        writeChildren(record, concreteState);
+        append(LogRecord.CONCRETE_STATE, concreteState.getId(), record);
+    }
+
+    private static void writeChildren(RecordWriter record, Widget widget) {
+        record.writeInt(widget.getChildren().size());
+        for (Widget child : widget.getChildren()) {
+            record.writeString(child.getId()).writeAttributes(child.getAttributes());
+            writeChildren(record, child);
+        }
+    }
+
+    @Override
+    public void persistConcreteStateTransition(ConcreteStateTransition concreteStateTransition) {
+        if (concreteStateTransition.getSourceState() == null || concreteStateTransition.getTargetState() == null || concreteStateTransition.getAction() == null) {
+            System.out.println("Objects missing in concrete state transition");
+            return;
+        }
+
+        persistConcreteState(concreteStateTransition.getSourceState());
+        persistConcreteState(concreteStateTransition.getTargetState());
+
+        String sourceStateId = concreteStateTransition.getSourceStateId();
+        String actionId = concreteStateTransition.getActionId();
+        String targetStateId = concreteStateTransition.getTargetStateId();
+        AbstractAction abstractAction = concreteStateTransition.getAction().getAbstractAction();
+        RecordWriter record = new RecordWriter()
+                .writeString(sourceStateId)
+                .writeString(actionId)
+                .writeString(targetStateId)
+                .writeString(abstractAction == null ? null : abstractAction.getActionId())
+                .writeAttributes(concreteStateTransition.getAction().getAttributes());
+        append(LogRecord.CONCRETE_STATE_TRANSITION, sourceStateId + '\u0000' + actionId + '\u0000' + targetStateId, record);
+    }
+
+    @Override
+    public void initAbstractStateModel(AbstractStateModel abstractStateModel) {
+        // we do not want to process the events resulting from adding the stored states to the model
+        setListening(false);
+        try {
+            submit(() -> load(abstractStateModel)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Unable to open the state model log in " + directory.getAbsolutePath(), e.getCause());
+        }
+        finally {
+            setListening(true);
+        }
+    }
+
+    // runs on the writer thread, while the calling thread waits for it to finish
+    private void load(AbstractStateModel abstractStateModel) throws IOException, StateModelException {
+        if (log != null) {
+            log.close();
+        }
+        log = new ModelLog(directory, abstractStateModel.getModelIdentifier());
+        Map<String, LogRecord> liveRecords = log.readLiveRecords();
+
+        // first the states with their actions, then the transitions between them
+        int nrOfTransitions = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            for (LogRecord logRecord : liveRecords.values()) {
+                ByteBuffer payload = log.getPayload(logRecord);
+                if (pass == 0) {
+                    lastWritten.put(logRecord.getKey(), digest(payload.duplicate()));
+                }
+                if (pass == 0 && logRecord.getType() == LogRecord.ABSTRACT_STATE) {
+                    AbstractState abstractState = readAbstractState(new RecordReader(payload));
+                    abstractState.setModelIdentifier(abstractStateModel.getModelIdentifier());
+                    abstractStateModel.addState(abstractState);
+                }
+                else if (pass == 0 && logRecord.getType() == LogRecord.CONCRETE_STATE) {
+                    concreteStateIds.add(new RecordReader(payload).readString());
+                }
+                else if (pass == 1 && logRecord.getType() == LogRecord.ABSTRACT_STATE_TRANSITION) {
+                    RecordReader reader = new RecordReader(payload);
+                    String sourceStateId = reader.readString();
+                    String actionId = reader.readString();
+                    String targetStateId = reader.readString();
+                    if (!abstractStateModel.containsState(sourceStateId) || !abstractStateModel.containsState(targetStateId)) {
+                        continue;
+                    }
+                    AbstractState sourceState = abstractStateModel.getState(sourceStateId);
+                    AbstractAction action;
+                    try {
+                        action = sourceState.getAction(actionId);
+                    }
+                    catch (ActionNotFoundException e) {
+                        action = new AbstractAction(actionId);
+                        sourceState.addNewAction(action);
+                    }
+                    abstractStateModel.addTransition(sourceState, abstractStateModel.getState(targetStateId), action);
+                    addTransitionTarget(sourceStateId, actionId, targetStateId);
+                    nrOfTransitions++;
+                }
+            }
+        }
+        if (!abstractStateModel.getStates().isEmpty()) {
+            System.out.println("Loaded " + abstractStateModel.getNrOfStates() + " abstract states and " + nrOfTransitions + " transitions from the state model log");
+        }
+
+        // the model record holds the information the exporter needs to recreate the model
+        List<String> tagNames = new ArrayList<>();
+        List<String> tagTypes = new ArrayList<>();
+        for (Tag<?> tag : abstractStateModel.getTags()) {
+            tagNames.add(tag.name());
+            tagTypes.add(tag.type().getName());
+        }
+        RecordWriter record = new RecordWriter()
+                .writeString(abstractStateModel.getApplicationName())
+                .writeString(abstractStateModel.getApplicationVersion())
+                .writeStrings(tagNames)
+                .writeStrings(tagTypes);
+        byte[] payload = record.toByteArray();
+        byte[] digest = digest(ByteBuffer.wrap(payload));
+        if (!Arrays.equals(digest, lastWritten.get(LogRecord.MODEL + ""))) {
+            LogRecord modelRecord = log.append(LogRecord.MODEL, payload);
+            lastWritten.put(modelRecord.getKey(), digest);
+            // the new model record replaces the old one, also when the log is compacted
+            liveRecords.remove(modelRecord.getKey());
+            liveRecords.put(modelRecord.getKey(), modelRecord);
+        }
+        log.sync();
+
+        compactIfNeeded(liveRecords);
+    }
+
+    static AbstractState readAbstractState(RecordReader reader) {
+        String stateId = reader.readString();
+        boolean isInitial = reader.readBoolean();
+        AbstractState abstractState = new AbstractState(stateId, null);
+        abstractState.setInitial(isInitial);
+        reader.readAttributes(abstractState.getAttributes());
+        for (String concreteStateId : reader.readStrings()) {
+            abstractState.addConcreteStateId(concreteStateId);
+        }
+        int nrOfActions = reader.readInt();
+        for (int i = 0; i < nrOfActions; i++) {
+            AbstractAction action = new AbstractAction(reader.readString());
+            boolean visited = reader.readBoolean();
+            reader.readAttributes(action.getAttributes());
+            for (String concreteActionId : reader.readStrings()) {
+                action.addConcreteActionId(concreteActionId);
+            }
+            abstractState.addNewAction(action);
+            if (visited) {
+                abstractState.addVisitedAction(action);
+            }
+        }
+        return abstractState;
+    }
+
+    private void compactIfNeeded(Map<String, LogRecord> liveRecords) throws IOException {
+        if (log.getNrOfRecords() > MIN_RECORDS_FOR_COMPACTION && log.getNrOfRecords() > liveRecords.size() * COMPACTION_FACTOR) {
+            int nrOfRecords = log.getNrOfRecords();
+            log.compact(liveRecords.values());
+            System.out.println("Compacted state model log from " + nrOfRecords + " to " + log.getNrOfRecords() + " records");
+        }
+    }
+
+    @Override
+    public void persistSequence(Sequence sequence) {
+        RecordWriter record = new RecordWriter()
+                .writeString(sequence.getCurrentSequenceId())
+                .writeInt(sequence.getCurrentSequenceNr())
+                .writeString(sequence.getModelIdentifier())
+                .writeLong(sequence.getStartDateTime() == null ? -1 : sequence.getStartDateTime().toEpochMilli())
+                .writeString(sequence.getSequenceVerdict().name())
+                .writeString(sequence.getTerminationMessage());
+        append(LogRecord.SEQUENCE, sequence.getCurrentSequenceId(), record);
+
+        // make sure a finished sequence survives a crash of the next one
+        if (sequence.getSequenceVerdict() != SequenceVerdict.CURRENTLY_EXECUTING) {
+            submit(() -> {
+                if (log != null) {
+                    log.sync();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void initSequenceManager(SequenceManager sequenceManager) {
+    }
+
+    @Override
+    public void persistSequenceNode(SequenceNode sequenceNode) {
+        persistConcreteState(sequenceNode.getConcreteState());
+
+        RecordWriter record = new RecordWriter()
+                .writeString(sequenceNode.getNodeId())
+                .writeString(sequenceNode.getSequenceId())
+                .writeInt(sequenceNode.getNodeNr())
+                .writeLong(sequenceNode.getTimestamp().toEpochMilli())
+                .writeString(sequenceNode.getConcreteState().getId())
+                .writeString(sequenceNode.getErrorMessage());
+        append(LogRecord.SEQUENCE_NODE, sequenceNode.getNodeId(), record);
+    }
+
+    @Override
+    public void persistSequenceStep(SequenceStep sequenceStep) {
+        // the source node has already been saved
+        persistSequenceNode(sequenceStep.getTargetNode());
+
+        String sourceNodeId = sequenceStep.getSourceNode().getNodeId();
+        String targetNodeId = sequenceStep.getTargetNode().getNodeId();
+        AbstractAction abstractAction = sequenceStep.getConcreteAction().getAbstractAction();
+        RecordWriter record = new RecordWriter()
+                .writeString(sourceNodeId)
+                .writeString(targetNodeId)
+                .writeString(sequenceStep.getConcreteAction().getActionId())
+                .writeString(abstractAction == null ? null : abstractAction.getActionId())
+                .writeAttributes(sequenceStep.getConcreteAction().getAttributes())
+                .writeString(sequenceStep.getActionDescription())
+                .writeLong(sequenceStep.getTimestamp().toEpochMilli())
+                .writeBoolean(sequenceStep.isNonDeterministic());
+        append(LogRecord.SEQUENCE_STEP, sourceNodeId + '\u0000' + targetNodeId, record);
+    }
+
+    @Override
+    public boolean modelIsDeterministic(AbstractStateModel abstractStateModel) {
+        return nrOfNondeterministicActions == 0;
+    }
+
+    @Override
+    public int getNrOfNondeterministicActions(AbstractStateModel abstractStateModel) {
+        return nrOfNondeterministicActions;
+    }
+
+    /**
+     * Adds a transition target for the source state and action.
+     * @return true if the transition is new
+     */
+    private boolean addTransitionTarget(String sourceStateId, String actionId, String targetStateId) {
+        Set<String> targets = transitionTargets.computeIfAbsent(sourceStateId + '\u0000' + actionId, key -> new HashSet<>());
+        if (!targets.add(targetStateId)) {
+            return false;
+        }
+        // like the orientdb query, we count all the transitions of an action that has more than one target
+        if (targets.size() == 2) {
+            nrOfNondeterministicActions += 2;
+        }
+        else if (targets.size() > 2) {
+            nrOfNondeterministicActions++;
+        }
+        return true;
+    }
+
+    private void append(byte type, String key, RecordWriter record) {
+        byte[] payload = record.toByteArray();
+        String recordKey = type + (key.isEmpty() ? "" : '\u0000' + key);
+        byte[] digest = digest(ByteBuffer.wrap(payload));
+        if (Arrays.equals(digest, lastWritten.put(recordKey, digest))) {
+            // the entity did not change since it was last written
+            return;
+        }
+        submit(() -> {
+            if (log == null) {
+                System.out.println("Unable to store record of type " + type + ": the state model log has not been initialized");
+                return;
+            }
+            log.append(type, payload);
+        });
+    }
+
+    private static byte[] digest(ByteBuffer payload) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(payload);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Future<?> submit(LogTask task) {
+        Metrics.gauge(Metrics.PERSISTENCE_QUEUE_DEPTH, pendingTasks.incrementAndGet());
+        return writer.submit(() -> {
+            try {
+                task.run();
+            } catch (IOException | StateModelException e) {
+                e.printStackTrace();
+                throw new RuntimeException(e);
+            } finally {
+                pendingTasks.decrementAndGet();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void eventReceived(StateModelEvent event) {
+        if (!listening) return;
+
+        try {
+            eventHelper.validateEvent(event);
+        } catch (InvalidEventException e) {
+            // There is something wrong with the event. we do nothing and exit
+            System.out.println("Received wrong payload for event: " + event.getPayload().getClass().toString());
+            return;
+        }
+
+        switch (event.getEventType()) {
+            case ABSTRACT_STATE_ADDED:
+            case ABSTRACT_STATE_CHANGED:
+                persistAbstractState((AbstractState) (event.getPayload()));
+                break;
+
+            case ABSTRACT_STATE_TRANSITION_ADDED:
+            case ABSTRACT_STATE_TRANSITION_CHANGED:
+                persistAbstractStateTransition((AbstractStateTransition) (event.getPayload()));
+                break;
+
+            case ABSTRACT_STATE_MODEL_INITIALIZED:
+                initAbstractStateModel((AbstractStateModel) (event.getPayload()));
+                break;
+
+            case SEQUENCE_STARTED:
+            case SEQUENCE_ENDED:
+                persistSequence((Sequence) event.getPayload());
+                break;
+
+            case SEQUENCE_MANAGER_INITIALIZED:
+                initSequenceManager((SequenceManager) event.getPayload());
+                break;
+
+            case SEQUENCE_NODE_ADDED:
+            case SEQUENCE_NODE_UPDATED:
+                persistSequenceNode((SequenceNode) event.getPayload());
+                break;
+
+            case SEQUENCE_STEP_ADDED:
+                persistSequenceStep((SequenceStep) event.getPayload());
+
+        }
+    }
+
+    @Override
+    public void setListening(boolean listening) {
+        this.listening = listening;
+    }
+
+    private interface LogTask {
+        void run() throws IOException, StateModelException;
+    }
+}
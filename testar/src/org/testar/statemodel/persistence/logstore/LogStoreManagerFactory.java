@@ -0,0 +1,54 @@
+package org.testar.statemodel.persistence.logstore;
+
+import org.testar.statemodel.persistence.PersistenceManager;
+import org.testar.statemodel.persistence.PersistenceManagerFactory;
+import org.testar.statemodel.persistence.QueueManager;
+import org.testar.statemodel.util.EventHelper;
+import org.testar.monkey.ConfigTags;
+import org.testar.settings.Settings;
+
+import java.io.File;
+
+public class LogStoreManagerFactory implements PersistenceManagerFactory {
+
+    @Override
+    public PersistenceManager getPersistenceManager(Settings settings) {
+        File directory = getStoreDirectory(settings.get(ConfigTags.DataStoreDirectory), settings.get(ConfigTags.DataStoreDB));
+        if (settings.get(ConfigTags.ResetDataStore)) {
+            File[] logFiles = directory.listFiles((dir, name) -> name.endsWith(".log"));
+            if (logFiles != null) {
+                for (File logFile : logFiles) {
+                    logFile.delete();
+                }
+            }
+        }
+
+        // check if the data needs to be stored instantaneously or delayed (after sequence).
+        PersistenceManager persistenceManager;
+        switch (settings.get(ConfigTags.DataStoreMode)) {
+            case PersistenceManager.DATA_STORE_MODE_DELAYED:
+                persistenceManager = new QueueManager(new LogStoreManager(new EventHelper(), directory), new EventHelper(), false);
+                break;
+
+            case PersistenceManager.DATA_STORE_MODE_HYBRID:
+                persistenceManager = new QueueManager(new LogStoreManager(new EventHelper(), directory), new EventHelper(), true);
+                break;
+
+            case PersistenceManager.DATA_STORE_MODE_INSTANT:
+            default:
+                persistenceManager = new LogStoreManager(new EventHelper(), directory);
+
+        }
+        return persistenceManager;
+    }
+
+    /**
+     * Returns the directory that holds the model logs for a data store.
+     * @param dataStoreDirectory
+     * @param dataStoreDB
+     * @return
+     */
+    public static File getStoreDirectory(String dataStoreDirectory, String dataStoreDB) {
+        return new File(dataStoreDirectory, (dataStoreDB.isEmpty() ? "statemodel" : dataStoreDB) + ".logstore");
+    }
+}
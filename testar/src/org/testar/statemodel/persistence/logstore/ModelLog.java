@@ -0,0 +1,299 @@
+package org.testar.statemodel.persistence.logstore;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only binary log holding the records of one state model.
+ *
+ * The file starts with a magic number and a format version, followed by records of the form
+ * [int payload length][byte record type][payload][int crc32 of type and payload].
+ * Records are only ever appended. On opening, the log is read through a memory mapping and everything after the
+ * last complete record with a valid checksum is cut off, so a crash while writing loses at most the records that
+ * were not yet written completely.
+ *
+ * Compaction writes the live records (the last record for every entity) to a new generation of the file.
+ * The new generation only replaces the old one once it was completely written and synced to disk.
+ */
+class ModelLog implements Closeable {
+
+    private static final int MAGIC = 0x544C4F47;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 8;
+
+    // payload length, record type and checksum
+    private static final int RECORD_OVERHEAD = 9;
+
+    private final File directory;
+
+    private final String name;
+
+    private final Pattern fileNamePattern;
+
+    private int generation;
+
+    private FileChannel channel;
+
+    // the end of the last valid record
+    private long size;
+
+    // the file as far as it was mapped last, payloads are views of this mapping
+    private MappedByteBuffer mapping;
+
+    private int nrOfRecords;
+
+    ModelLog(File directory, String name) throws IOException {
+        this.directory = directory;
+        this.name = name;
+        fileNamePattern = Pattern.compile(Pattern.quote(name) + "-(\\d+)\\.log(\\.tmp)?");
+        open();
+    }
+
+    private void open() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory.getAbsolutePath());
+        }
+
+        // use the newest complete generation and remove older generations and unfinished compactions
+        generation = 0;
+        List<File> obsoleteFiles = new ArrayList<>();
+        File[] files = directory.listFiles();
+        for (File file : files == null ? new File[0] : files) {
+            Matcher matcher = fileNamePattern.matcher(file.getName());
+            if (!matcher.matches()) {
+                continue;
+            }
+            obsoleteFiles.add(file);
+            if (matcher.group(2) == null) {
+                generation = Math.max(generation, Integer.parseInt(matcher.group(1)));
+            }
+        }
+        for (File file : obsoleteFiles) {
+            if (!file.equals(getFile(generation))) {
+                // this can fail while an older mapping is still open, in which case we try again next time
+                file.delete();
+            }
+        }
+
+        channel = FileChannel.open(getFile(generation).toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION);
+            header.flip();
+            writeFully(header, 0);
+            channel.force(true);
+            size = HEADER_SIZE;
+            nrOfRecords = 0;
+            map();
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+            channel.close();
+            throw new IOException("File " + getFile(generation).getAbsolutePath() + " is not a state model log");
+        }
+
+        // find the end of the last valid record
+        size = channel.size();
+        nrOfRecords = 0;
+        long validSize = scan(null);
+        if (validSize < channel.size()) {
+            System.out.println("Recovered state model log " + getFile(generation).getName() + ": discarded " + (channel.size() - validSize) + " bytes after the last complete record");
+            try {
+                channel.truncate(validSize);
+            }
+            catch (IOException e) {
+                // the file can still be mapped on some platforms. New records will overwrite the damaged part.
+            }
+        }
+        size = validSize;
+    }
+
+    File getFile(int generation) {
+        return new File(directory, name + "-" + generation + ".log");
+    }
+
+    /**
+     * Appends a record to the end of the log.
+     * @param type
+     * @param payload
+     * @return the appended record, which replaces the live record of the same entity
+     * @throws IOException
+     */
+    LogRecord append(byte type, byte[] payload) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_OVERHEAD + payload.length);
+        buffer.putInt(payload.length).put(type).put(payload).putInt(checksum(type, ByteBuffer.wrap(payload)));
+        buffer.flip();
+        writeFully(buffer, size);
+        LogRecord record = new LogRecord(type, type + getKey(type, ByteBuffer.wrap(payload)), size + 5, payload.length);
+        size += buffer.limit();
+        nrOfRecords++;
+        return record;
+    }
+
+    /**
+     * Forces the appended records to the storage device.
+     * @throws IOException
+     */
+    void sync() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Reads all records and returns the live record for each entity, in the order in which the entities were first
+     * recorded.
+     * @return
+     * @throws IOException
+     */
+    Map<String, LogRecord> readLiveRecords() throws IOException {
+        Map<String, LogRecord> liveRecords = new LinkedHashMap<>();
+        scan(liveRecords);
+        return liveRecords;
+    }
+
+    /**
+     * Returns the payload of a record, as a view of the mapped file. The buffer stays valid after the log is closed
+     * or compacted.
+     * @param record
+     * @return
+     * @throws IOException
+     */
+    ByteBuffer getPayload(LogRecord record) throws IOException {
+        if (record.getOffset() + record.getLength() > mapping.limit()) {
+            // the record was appended after the file was mapped
+            map();
+        }
+        return slice(mapping, (int) record.getOffset(), record.getLength());
+    }
+
+    private void map() throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("State model log " + getFile(generation).getName() + " is larger than 2GB");
+        }
+        mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    // walks the records, optionally collecting the live records. returns the end of the last valid record
+    private long scan(Map<String, LogRecord> liveRecords) throws IOException {
+        map();
+        MappedByteBuffer buffer = mapping;
+        int position = HEADER_SIZE;
+        int count = 0;
+        while (buffer.limit() - position >= RECORD_OVERHEAD) {
+            int length = buffer.getInt(position);
+            if (length < 0 || length > buffer.limit() - position - RECORD_OVERHEAD) {
+                break;
+            }
+            byte type = buffer.get(position + 4);
+            ByteBuffer payload = slice(buffer, position + 5, length);
+            if (checksum(type, payload.duplicate()) != buffer.getInt(position + 5 + length)) {
+                break;
+            }
+            if (liveRecords != null) {
+                String key = type + getKey(type, payload);
+                // remove first, so the map is ordered by the last record for each entity
+                liveRecords.remove(key);
+                liveRecords.put(key, new LogRecord(type, key, position + 5, length));
+            }
+            position += RECORD_OVERHEAD + length;
+            count++;
+        }
+        nrOfRecords = count;
+        return position;
+    }
+
+    private static String getKey(byte type, ByteBuffer payload) {
+        RecordReader reader = new RecordReader(payload);
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < LogRecord.getNrOfKeyStrings(type); i++) {
+            key.append('\u0000').append(reader.readString());
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns the total number of records in the log, including superseded records.
+     * @return
+     */
+    int getNrOfRecords() {
+        return nrOfRecords;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Rewrites the log so that it only holds the given records.
+     * @param records live records of this log
+     * @throws IOException
+     */
+    void compact(Collection<LogRecord> records) throws IOException {
+        File temporaryFile = new File(directory, getFile(generation + 1).getName() + ".tmp");
+        try (FileChannel target = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION);
+            header.flip();
+            while (header.hasRemaining()) {
+                target.write(header);
+            }
+            for (LogRecord record : records) {
+                // copy the complete record, including its length, type and checksum
+                long start = record.getOffset() - 5;
+                long count = record.getLength() + RECORD_OVERHEAD;
+                long transferred = 0;
+                while (transferred < count) {
+                    transferred += channel.transferTo(start + transferred, count - transferred, target);
+                }
+            }
+            target.force(true);
+        }
+        Files.move(temporaryFile.toPath(), getFile(generation + 1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        channel.close();
+        open();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(offset);
+        slice.limit(offset + length);
+        return slice.slice();
+    }
+
+    private static int checksum(byte type, ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,109 @@
+package org.testar.statemodel.persistence.logstore;
+
+import org.testar.monkey.alayer.Tag;
+import org.testar.monkey.alayer.TaggableBase;
+import org.testar.monkey.alayer.Verdict;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the payload of a log record that was written by a {@link RecordWriter}.
+ */
+public class RecordReader {
+
+    private final ByteBuffer buffer;
+
+    public RecordReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public int readInt() {
+        return buffer.getInt();
+    }
+
+    public long readLong() {
+        return buffer.getLong();
+    }
+
+    public boolean readBoolean() {
+        return buffer.get() != 0;
+    }
+
+    public byte readByte() {
+        return buffer.get();
+    }
+
+    public byte[] readBytes() {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return value;
+    }
+
+    public String readString() {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        }
+        else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    public List<String> readStrings() {
+        int count = buffer.getInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString());
+        }
+        return values;
+    }
+
+    /**
+     * Reads attributes into a taggable. Tags are looked up by name and the type of the stored value.
+     */
+    public void readAttributes(TaggableBase attributes) {
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            String name = readString();
+            byte valueType = buffer.get();
+            switch (valueType) {
+                case RecordWriter.VALUE_BOOLEAN:
+                    attributes.set(Tag.from(name, Boolean.class), readBoolean());
+                    break;
+                case RecordWriter.VALUE_INTEGER:
+                    attributes.set(Tag.from(name, Integer.class), readInt());
+                    break;
+                case RecordWriter.VALUE_LONG:
+                    attributes.set(Tag.from(name, Long.class), readLong());
+                    break;
+                case RecordWriter.VALUE_DOUBLE:
+                    attributes.set(Tag.from(name, Double.class), Double.longBitsToDouble(readLong()));
+                    break;
+                case RecordWriter.VALUE_FLOAT:
+                    attributes.set(Tag.from(name, Float.class), Float.intBitsToFloat(readInt()));
+                    break;
+                case RecordWriter.VALUE_VERDICT:
+                    double severity = Double.longBitsToDouble(readLong());
+                    attributes.set(Tag.from(name, Verdict.class), new Verdict(severity, readString()));
+                    break;
+                default:
+                    attributes.set(Tag.from(name, String.class), readString());
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.testar.statemodel.persistence.logstore;
+
+import org.testar.monkey.alayer.Tag;
+import org.testar.monkey.alayer.TaggableBase;
+import org.testar.monkey.alayer.Verdict;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Encodes the payload of a log record or a shared model delta. All numbers are written big-endian, strings as length-prefixed UTF-8.
+ */
+public class RecordWriter {
+
+    // type codes for attribute values. Values of other types are stored as their string representation
+    static final byte VALUE_STRING = 1;
+    static final byte VALUE_BOOLEAN = 2;
+    static final byte VALUE_INTEGER = 3;
+    static final byte VALUE_LONG = 4;
+    static final byte VALUE_DOUBLE = 5;
+    static final byte VALUE_FLOAT = 6;
+    static final byte VALUE_VERDICT = 7;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+    public RecordWriter writeInt(int value) {
+        bytes.write(value >>> 24);
+        bytes.write(value >>> 16);
+        bytes.write(value >>> 8);
+        bytes.write(value);
+        return this;
+    }
+
+    public RecordWriter writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        return writeInt((int) value);
+    }
+
+    public RecordWriter writeBoolean(boolean value) {
+        bytes.write(value ? 1 : 0);
+        return this;
+    }
+
+    public RecordWriter writeByte(byte value) {
+        bytes.write(value);
+        return this;
+    }
+
+    /**
+     * Writes a byte array, a null array is written as length -1.
+     */
+    public RecordWriter writeBytes(byte[] value) {
+        if (value == null) {
+            return writeInt(-1);
+        }
+        writeInt(value.length);
+        bytes.write(value, 0, value.length);
+        return this;
+    }
+
+    public RecordWriter writeString(String value) {
+        return writeBytes(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public RecordWriter writeStrings(Collection<String> values) {
+        writeInt(values.size());
+        for (String value : values) {
+            writeString(value);
+        }
+        return this;
+    }
+
+    public RecordWriter writeAttributes(TaggableBase attributes) {
+        List<Tag<?>> tags = new ArrayList<>();
+        attributes.tags().forEach(tags::add);
+        writeInt(tags.size());
+        for (Tag<?> tag : tags) {
+            Object value = attributes.get(tag, null);
+            writeString(tag.name());
+            if (value instanceof Boolean) {
+                writeByte(VALUE_BOOLEAN).writeBoolean((Boolean) value);
+            }
+            else if (value instanceof Integer) {
+                writeByte(VALUE_INTEGER).writeInt((Integer) value);
+            }
+            else if (value instanceof Long) {
+                writeByte(VALUE_LONG).writeLong((Long) value);
+            }
+            else if (value instanceof Double) {
+                writeByte(VALUE_DOUBLE).writeLong(Double.doubleToRawLongBits((Double) value));
+            }
+            else if (value instanceof Float) {
+                writeByte(VALUE_FLOAT).writeInt(Float.floatToRawIntBits((Float) value));
+            }
+            else if (value instanceof Verdict) {
+                // the oracle verdict code of a concrete state is derived from the severity
+                writeByte(VALUE_VERDICT).writeLong(Double.doubleToRawLongBits(((Verdict) value).severity()));
+                writeString(((Verdict) value).info());
+            }
+            else {
+                writeByte(VALUE_STRING).writeString(value.toString());
+            }
+        }
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        return bytes.toByteArray();
+    }
+}
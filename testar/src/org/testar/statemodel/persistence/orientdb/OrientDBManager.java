@@ -47,6 +47,37 @@ public class OrientDBManager implements PersistenceManager, StateModelEventListe
      */
     private boolean listening = true;
 
+    /**
+     * The number of entities that are read from the database at once when a stored model is loaded
+     */
+    private static final int LOAD_PAGE_SIZE = 500;
+
+    /**
+     * The number of threads that read and extract the pages of a stored model
+     */
+    private static final int LOAD_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * The maximum number of content hashes of stored widgets that are remembered
+     */
+    private static final int STORED_WIDGETS_CACHE_SIZE = 100000;
+
+    /**
+     * The content hashes of the widgets that were stored, together with their subtrees, during this run.
+     * A widget that is found here only needs a new edge to its parent.
+     */
+    private final Map<String, Boolean> storedWidgets = new LinkedHashMap<String, Boolean>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > STORED_WIDGETS_CACHE_SIZE;
+        }
+    };
+
+    // counters for the widgets that were written and the widgets that were referenced, and the time spent on both
+    private long nrOfStoredWidgets = 0;
+    private long nrOfReferencedWidgets = 0;
+    private long widgetPersistenceTime = 0;
+
     /**
      * A set of orientdb classes that this class needs to operate
      */
@@ -95,8 +126,28 @@ public class OrientDBManager implements PersistenceManager, StateModelEventListe
         }
     }
 
+    /**
+     * Returns the number of widget vertices that were written during this run.
+     * @return
+     */
+    public long getNrOfStoredWidgets() {
+        return nrOfStoredWidgets;
+    }
+
+    /**
+     * Returns the number of widgets that referred to a vertex that was already written, instead of writing one.
+     * @return
+     */
+    public long getNrOfReferencedWidgets() {
+        return nrOfReferencedWidgets;
+    }
+
     @Override
     public void shutdown() {
+        if (nrOfStoredWidgets + nrOfReferencedWidgets > 0) {
+            System.out.println("Widgets: " + nrOfStoredWidgets + " stored, " + nrOfReferencedWidgets + " referenced in "
+                    + widgetPersistenceTime / 1000000 + " ms");
+        }
         // tell the entity manager to release its connections
         entityManager.releaseConnection();
         entityManager = null;
@@ -209,7 +260,9 @@ public class OrientDBManager implements PersistenceManager, StateModelEventListe
         entityManager.saveEntity(concreteStateEntity);
 
         // store the widgettree attached to this concrete state
+        long startTime = System.nanoTime();
         persistWidgetTree(concreteState, concreteStateEntity);
+        widgetPersistenceTime += System.nanoTime() - startTime;
 
         // optional: if an abstract state is provided, we connect the concrete state to it using an isAbstractedBy relation
         if (concreteState.getAbstractState() == null) {
@@ -248,17 +301,21 @@ public class OrientDBManager implements PersistenceManager, StateModelEventListe
 
     /**
      * This method will store a widget tree to the orient database.
+     * Widgets are stored by content, so a subtree that was already stored for another concrete state is not
+     * written again: the new parent simply gets an edge to it.
      * @param widget
+     * @return true if the complete subtree was stored, only then its widgets may be referenced by later states
      */
-    private void persistWidgetTree(Widget widget, VertexEntity widgetEntity) {
+    private boolean persistWidgetTree(Widget widget, VertexEntity widgetEntity) {
         widgetEntity.enableUpdate(false);
         // we assume the root widget of the tree has already been stored, as this will be the concrete state
         // we loop through the child widgets and for each widget, store the widget and then store the needed edges between them
         for (Widget childWidget : widget.getChildren()) {
-            VertexEntity childWidgetEntity = persistWidget(childWidget);
+            boolean stored = storedWidgets.containsKey(childWidget.getContentHash());
+            VertexEntity childWidgetEntity = persistWidget(childWidget, !stored);
             if (childWidgetEntity == null) {
                 System.out.println("Encountered an error persisting the widget with id " + childWidget.getId());
-                return;
+                return false;
             }
             childWidgetEntity.enableUpdate(false);
 
@@ -275,21 +332,31 @@ public class OrientDBManager implements PersistenceManager, StateModelEventListe
             catch (HydrationException e) {
                 e.printStackTrace();
                 System.out.println("Encountered a problem while saving the inter-widget relation to the orient database");
-                return;
+                return false;
             }
             entityManager.saveEntity(isChildEntity);
 
-            // go down the widget tree and do it again
-            persistWidgetTree(childWidget, childWidgetEntity);
+            if (stored) {
+                nrOfReferencedWidgets++;
+                continue;
+            }
+            // go down the widget tree and do it again. The widget is only marked as stored once its vertex,
+            // its edges and its complete subtree were saved, otherwise the next state stores it again
+            if (!persistWidgetTree(childWidget, childWidgetEntity)) {
+                return false;
+            }
+            storedWidgets.put(childWidget.getContentHash(), Boolean.TRUE);
         }
+        return true;
     }
 
     /**
      * This method will persist a single widget to the OrientDB data store.
      * @param widget
+     * @param save false if the widget is already stored and the entity is only needed to refer to it
      * @return
      */
-    private VertexEntity persistWidget(Widget widget) {
+    private VertexEntity persistWidget(Widget widget, boolean save) {
         // create an entity to persist to the database
         EntityClass entityClass = EntityClassFactory.createEntityClass(EntityClassFactory.EntityClassName.Widget);
         VertexEntity vertexEntity = new VertexEntity(entityClass);
@@ -307,7 +374,10 @@ public class OrientDBManager implements PersistenceManager, StateModelEventListe
         }
 
         // save the widget
-        entityManager.saveEntity(vertexEntity);
+        if (save) {
+            entityManager.saveEntity(vertexEntity);
+            nrOfStoredWidgets++;
+        }
         return vertexEntity;
     }
 
@@ -457,6 +527,8 @@ public class OrientDBManager implements PersistenceManager, StateModelEventListe
         // step 2: see if there are abstract states present in the data store that are tied to this abstract state model
         EntityClass abstractStateClass = EntityClassFactory.createEntityClass(EntityClassFactory.EntityClassName.AbstractState);
         if (abstractStateClass == null) throw new RuntimeException("Error occurred: could not retrieve an abstract state entity class.");
+        EntityClass abstractActionClass = EntityClassFactory.createEntityClass(EntityClassFactory.EntityClassName.AbstractAction);
+        if (abstractActionClass == null) throw new RuntimeException("Error occurred: could not retrieve an abstract action entity class");
 
         // in order to retrieve the abstract states, we need to provide the abstract state model identifier to the query
         Map<String, PropertyValue> entityProperties = new HashMap<>();
@@ -464,41 +536,63 @@ public class OrientDBManager implements PersistenceManager, StateModelEventListe
         if (stateModelClassIdentifier == null) throw new RuntimeException("Error occurred: abstract state model does not have an id property set.");
         entityProperties.put("modelIdentifier", stateModelEntity.getPropertyValue(stateModelClassIdentifier.getPropertyName()));
 
-        Set<DocumentEntity> retrievedDocuments = entityManager.retrieveAllOfClass(abstractStateClass, entityProperties);
-        if (retrievedDocuments.isEmpty()) {
+        long nrOfStates = entityManager.countAllOfClass(abstractStateClass, entityProperties);
+        if (nrOfStates == 0) {
             System.out.println("Could not find abstract states in the model");
+            setListening(true);
+            return;
         }
-        else {
-            // we need to create the abstract states from the returned document entities
-            try {
-                EntityExtractor<AbstractState> abstractStateExtractor = ExtractorFactory.getExtractor(ExtractorFactory.EXTRACTOR_ABSTRACT_STATE);
-                for (DocumentEntity documentEntity : retrievedDocuments) {
-                    AbstractState abstractState = abstractStateExtractor.extract(documentEntity, abstractStateModel);
-                    abstractStateModel.addState(abstractState);
-                }
-            } catch (ExtractionException | StateModelException e) {
-                e.printStackTrace();
-            }
+        long nrOfTransitions = entityManager.countAllOfClass(abstractActionClass, entityProperties);
+        abstractStateModel.ensureCapacity((int) Math.min(Integer.MAX_VALUE, nrOfStates), (int) Math.min(Integer.MAX_VALUE, nrOfTransitions));
+
+        // the states are read and extracted page by page on a pool of workers and added to the model on this thread.
+        // The extractors are fetched here, as the extractor factory is not thread safe
+        try {
+            EntityExtractor<AbstractState> abstractStateExtractor = ExtractorFactory.getExtractor(ExtractorFactory.EXTRACTOR_ABSTRACT_STATE);
+            entityManager.retrieveAllOfClass(abstractStateClass, entityProperties, LOAD_PAGE_SIZE, LOAD_THREADS,
+                    documentEntity -> {
+                        try {
+                            return abstractStateExtractor.extract(documentEntity, abstractStateModel);
+                        } catch (ExtractionException e) {
+                            e.printStackTrace();
+                            return null;
+                        }
+                    },
+                    abstractStates -> {
+                        try {
+                            for (AbstractState abstractState : abstractStates) {
+                                abstractStateModel.addState(abstractState);
+                            }
+                        } catch (StateModelException e) {
+                            e.printStackTrace();
+                        }
+                    });
+        } catch (ExtractionException e) {
+            e.printStackTrace();
         }
 
         // step 3: fetch the transitions from the database
-        EntityClass abstractActionClass = EntityClassFactory.createEntityClass(EntityClassFactory.EntityClassName.AbstractAction);
-        if (abstractActionClass == null) throw new RuntimeException("Error occurred: could not retrieve an abstract action entity class");
-
-        retrievedDocuments = entityManager.retrieveAllOfClass(abstractActionClass, entityProperties);
-        if (retrievedDocuments.isEmpty()) {
+        if (nrOfTransitions == 0) {
             System.out.println("Could not find abstract actions in the model");
         }
         else {
-            System.out.println(retrievedDocuments.size() + " number of abstract actions were returned");
-            // we need to create the transitions from the returned document entities
+            System.out.println(nrOfTransitions + " number of abstract actions were returned");
+            // the transition extractor looks up the states in the model, so the extraction takes place on this thread
             try {
                 EntityExtractor<AbstractStateTransition> abstractStateTransitionEntityExtractor = ExtractorFactory.getExtractor(ExtractorFactory.EXTRACTOR_ABSTRACT_STATE_TRANSITION);
-                for (DocumentEntity documentEntity : retrievedDocuments) {
-                    AbstractStateTransition abstractStateTransition = abstractStateTransitionEntityExtractor.extract(documentEntity, abstractStateModel);
-                    abstractStateModel.addTransition( abstractStateTransition.getSourceState(), abstractStateTransition.getTargetState(), abstractStateTransition.getAction());
-                }
-            } catch (ExtractionException | StateModelException e) {
+                entityManager.retrieveAllOfClass(abstractActionClass, entityProperties, LOAD_PAGE_SIZE, LOAD_THREADS,
+                        documentEntity -> documentEntity,
+                        documentEntities -> {
+                            try {
+                                for (DocumentEntity documentEntity : documentEntities) {
+                                    AbstractStateTransition abstractStateTransition = abstractStateTransitionEntityExtractor.extract(documentEntity, abstractStateModel);
+                                    abstractStateModel.addTransition(abstractStateTransition.getSourceState(), abstractStateTransition.getTargetState(), abstractStateTransition.getAction());
+                                }
+                            } catch (ExtractionException | StateModelException e) {
+                                e.printStackTrace();
+                            }
+                        });
+            } catch (ExtractionException e) {
                 e.printStackTrace();
             }
         }
@@ -3,6 +3,8 @@ package org.testar.statemodel.persistence.orientdb.entity;
 import com.orientechnologies.orient.core.db.ODatabaseSession;
 import com.orientechnologies.orient.core.db.OrientDB;
 import com.orientechnologies.orient.core.db.OrientDBConfig;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OProperty;
 import com.orientechnologies.orient.core.metadata.schema.OSchema;
@@ -21,6 +23,12 @@ import org.testar.statemodel.persistence.orientdb.util.DependencyHelper;
 import org.testar.monkey.alayer.Visualizer;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class EntityManager {
@@ -651,6 +659,141 @@ public class EntityManager {
         return documents;
     }
 
+    /**
+     * This method counts the stored instances of a given class.
+     * @param entityClass
+     * @param entityProperties a map containing property values to use in selection, with the property name used as a key
+     * @return
+     */
+    public long countAllOfClass(EntityClass entityClass, Map<String, PropertyValue> entityProperties) {
+        Map<String, Object> params = new HashMap<>();
+        String stmt = "SELECT COUNT(*) AS nr FROM " + entityClass.getClassName() + getWhereClause(entityProperties, params, false);
+        try (ODatabaseSession db = connection.getDatabaseSession(); OResultSet rs = db.query(stmt, params)) {
+            if (!rs.hasNext()) {
+                return 0;
+            }
+            Number nr = rs.next().getProperty("nr");
+            return nr == null ? 0 : nr.longValue();
+        }
+    }
+
+    /**
+     * This method retrieves all stored instances of a given class, one page at a time, so that the complete result
+     * never has to be held in memory. The record ids of a page are read on the calling thread. The records themselves
+     * are read and converted by a pool of worker threads, each using its own database session.
+     * The converted pages are handed to the consumer on the calling thread, in the order of the record ids.
+     * @param entityClass
+     * @param entityProperties a map containing property values to use in selection, with the property name used as a key
+     * @param pageSize the maximum number of records in a page
+     * @param nrOfThreads the number of worker threads
+     * @param converter converts a retrieved entity on a worker thread. Entities converted to null are skipped.
+     * @param consumer receives the converted entities of each page
+     * @param <T>
+     */
+    public <T> void retrieveAllOfClass(EntityClass entityClass, Map<String, PropertyValue> entityProperties, int pageSize, int nrOfThreads,
+                                       Function<DocumentEntity, T> converter, Consumer<List<T>> consumer) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, nrOfThreads), runnable -> {
+            Thread thread = new Thread(runnable, "OrientDBPageReader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // we only read ahead a few pages, to limit the memory in use
+        Deque<Future<List<T>>> pages = new ArrayDeque<>();
+        int maxPagesAhead = Math.max(1, nrOfThreads) * 2;
+        try (ODatabaseSession db = connection.getDatabaseSession()) {
+            Map<String, Object> params = new HashMap<>();
+            String firstPage = "SELECT @rid AS rid FROM " + entityClass.getClassName() + getWhereClause(entityProperties, params, false) + " ORDER BY @rid ASC LIMIT " + pageSize;
+            String nextPage = "SELECT @rid AS rid FROM " + entityClass.getClassName() + getWhereClause(entityProperties, params, true) + " ORDER BY @rid ASC LIMIT " + pageSize;
+
+            ORID lastRid = null;
+            while (true) {
+                List<ORID> rids = new ArrayList<>(pageSize);
+                OResultSet rs;
+                if (lastRid == null) {
+                    rs = db.query(firstPage, params);
+                }
+                else {
+                    params.put("lastRid", lastRid);
+                    rs = db.query(nextPage, params);
+                }
+                while (rs.hasNext()) {
+                    OIdentifiable rid = rs.next().getProperty("rid");
+                    rids.add(rid.getIdentity());
+                }
+                rs.close();
+                if (rids.isEmpty()) {
+                    break;
+                }
+                lastRid = rids.get(rids.size() - 1);
+
+                if (pages.size() >= maxPagesAhead) {
+                    consumer.accept(getPage(pages.removeFirst()));
+                }
+                pages.addLast(executor.submit(() -> retrievePage(entityClass, rids, converter)));
+                if (rids.size() < pageSize) {
+                    break;
+                }
+            }
+            while (!pages.isEmpty()) {
+                consumer.accept(getPage(pages.removeFirst()));
+            }
+        }
+        finally {
+            pages.forEach(page -> page.cancel(true));
+            executor.shutdownNow();
+        }
+    }
+
+    // reads and converts the records of a page. Runs on a worker thread
+    private <T> List<T> retrievePage(EntityClass entityClass, List<ORID> rids, Function<DocumentEntity, T> converter) {
+        StringJoiner ridList = new StringJoiner(",", "[", "]");
+        rids.forEach(rid -> ridList.add(rid.toString()));
+        List<T> page = new ArrayList<>(rids.size());
+        try (ODatabaseSession db = connection.getDatabaseSession(); OResultSet rs = db.query("SELECT FROM " + ridList)) {
+            while (rs.hasNext()) {
+                OResult result = rs.next();
+                DocumentEntity entity = null;
+                if (result.isVertex()) {
+                    entity = extractVertexEntity(result, entityClass);
+                }
+                else if (result.isEdge()) {
+                    entity = extractEdgeEntity(result);
+                }
+                T converted = entity == null ? null : converter.apply(entity);
+                if (converted != null) {
+                    page.add(converted);
+                }
+            }
+        }
+        return page;
+    }
+
+    private static <T> List<T> getPage(Future<List<T>> page) {
+        try {
+            return page.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrieving entities", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error occurred while retrieving entities", e.getCause());
+        }
+    }
+
+    // builds the where clause for a selection on property values, optionally continuing after the last record id
+    private String getWhereClause(Map<String, PropertyValue> entityProperties, Map<String, Object> params, boolean afterLastRid) {
+        StringJoiner stringJoiner = new StringJoiner(" AND ");
+        if (entityProperties != null) {
+            for (String propertyName : entityProperties.keySet()) {
+                stringJoiner.add(propertyName + " = :" + propertyName);
+                params.put(propertyName, getConvertedValue(entityProperties.get(propertyName).getType(), entityProperties.get(propertyName).getValue()));
+            }
+        }
+        if (afterLastRid) {
+            stringJoiner.add("@rid > :lastRid");
+        }
+        return stringJoiner.length() == 0 ? "" : " WHERE " + stringJoiner;
+    }
+
     /**
      * THis method retrieves an entity of a given entity class from the data store, for a given id value.
      * @param entityClass
@@ -38,11 +38,10 @@ public class WidgetHydrator implements EntityHydrator<VertexEntity> {
             throw new HydrationException("No abstract state is connected to the concrete state with id " + concreteState.getId());
         }
 
-        // we are going to combine the identifier for the concrete state and the concrete widget id into one joint identifier.
-        String stateId = concreteState.getId();
-        String widgetId = ((Widget) source).getId();
+        // widgets are stored by content: the content hash covers the widget id, its attributes and its subtree.
+        // identical widgets in different concrete states of a model therefore share a single vertex
         String modelIdentifier = abstractState.getModelIdentifier();
-        String uniqueId = modelIdentifier + "-" + stateId + "-" + widgetId;
+        String uniqueId = modelIdentifier + "-" + ((Widget) source).getContentHash();
 
         // make sure the java and orientdb property types are compatible
         OType identifierType = TypeConvertor.getInstance().getOrientDBType(uniqueId.getClass());
@@ -11,6 +11,7 @@ import org.testar.monkey.alayer.Tags;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -84,6 +85,20 @@ public class Sequence implements Persistable {
         nodes = new ArrayList<>();
     }
 
+    /**
+     * Recreates a sequence that was read back from a data store.
+     */
+    public Sequence(String sequenceId, int sequenceNr, String modelIdentifier, Instant startDateTime, SequenceVerdict verdict, String terminationMessage) {
+        currentSequenceId = sequenceId;
+        eventListeners = new HashSet<>();
+        currentSequenceNr = sequenceNr;
+        this.modelIdentifier = modelIdentifier;
+        this.startDateTime = startDateTime;
+        this.verdict = verdict;
+        this.terminationMessage = terminationMessage;
+        nodes = new ArrayList<>();
+    }
+
     /**
      * Start the sequence.
      */
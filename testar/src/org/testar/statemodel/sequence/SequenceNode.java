@@ -7,6 +7,7 @@ import org.testar.statemodel.event.StateModelEventType;
 import org.testar.statemodel.persistence.Persistable;
 
 import java.time.Instant;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.StringJoiner;
 
@@ -63,6 +64,14 @@ public class SequenceNode implements Persistable {
         this.eventListeners = eventListeners;
     }
 
+    /**
+     * Recreates a sequence node that was read back from a data store.
+     */
+    public SequenceNode(String sequenceId, int nodeNr, Instant timestamp, ConcreteState concreteState, Sequence sequence) {
+        this(sequenceId, nodeNr, concreteState, sequence, new HashSet<>());
+        this.timestamp = timestamp;
+    }
+
     public Instant getTimestamp() {
         return timestamp;
     }
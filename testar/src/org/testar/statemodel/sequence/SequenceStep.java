@@ -46,6 +46,14 @@ public class SequenceStep implements Persistable {
         nonDeterministic = false;
     }
 
+    /**
+     * Recreates a sequence step that was read back from a data store.
+     */
+    public SequenceStep(ConcreteAction concreteAction, SequenceNode sourceNode, SequenceNode targetNode, String actionDescription, Instant timestamp) {
+        this(concreteAction, sourceNode, targetNode, actionDescription);
+        this.timestamp = timestamp;
+    }
+
     public ConcreteAction getConcreteAction() {
         return concreteAction;
     }
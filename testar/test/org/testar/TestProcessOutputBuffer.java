@@ -0,0 +1,78 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestProcessOutputBuffer {
+
+	@Test
+	public void drainsInOrder() {
+		ProcessOutputBuffer buffer = new ProcessOutputBuffer(4);
+		Assert.assertTrue(buffer.add("a", 10, "action1"));
+		Assert.assertFalse(buffer.add("b", 11, "action1"));
+		buffer.add("c", 12, "action2");
+
+		List<String> lines = new ArrayList<>();
+		List<Long> times = new ArrayList<>();
+		List<String> actions = new ArrayList<>();
+		Assert.assertEquals(2, buffer.drainTo(lines, times, actions, 2, 20));
+		Assert.assertEquals(Arrays.asList("a", "b"), lines);
+		Assert.assertEquals(Arrays.asList(10L, 11L), times);
+		Assert.assertEquals(Arrays.asList("action1", "action1"), actions);
+		Assert.assertEquals(10, buffer.maxLagMillis());
+
+		Assert.assertEquals(1, buffer.drainTo(lines, times, actions, 10, 20));
+		Assert.assertEquals("c", lines.get(2));
+		Assert.assertEquals(0, buffer.size());
+		Assert.assertTrue(buffer.add("d", 21, "action2"));
+	}
+
+	@Test
+	public void dropsOldestWhenFull() {
+		ProcessOutputBuffer buffer = new ProcessOutputBuffer(3);
+		for (int i = 0; i < 5; i++) {
+			buffer.add("line" + i, i, "unknown");
+		}
+		Assert.assertEquals(3, buffer.size());
+		Assert.assertEquals(5, buffer.added());
+		Assert.assertEquals(2, buffer.dropped());
+
+		List<String> lines = new ArrayList<>();
+		buffer.drainTo(lines, new ArrayList<>(), new ArrayList<>(), 10, 5);
+		Assert.assertEquals(Arrays.asList("line2", "line3", "line4"), lines);
+	}
+}
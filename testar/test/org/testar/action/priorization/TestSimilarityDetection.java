@@ -0,0 +1,98 @@
+package org.testar.action.priorization;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.testar.monkey.alayer.Action;
+import org.testar.monkey.alayer.Tags;
+import org.testar.monkey.alayer.actions.NOP;
+import org.testar.stub.StateStub;
+import org.testar.stub.WidgetStub;
+
+public class TestSimilarityDetection {
+
+	private final StateStub state = new StateStub();
+
+	private static Action action(String widgetAbstractId) {
+		WidgetStub widget = new WidgetStub();
+		widget.set(Tags.AbstractID, widgetAbstractId);
+		widget.set(Tags.Desc, widgetAbstractId);
+		NOP action = new NOP();
+		action.set(Tags.OriginWidget, widget);
+		return action;
+	}
+
+	private static Set<Action> actions(Action... actions) {
+		Set<Action> set = new HashSet<>();
+		Collections.addAll(set, actions);
+		return set;
+	}
+
+	@Test
+	public void test_similarity_values_of_static_widgets() {
+		Action initial = action("static");
+		SimilarityDetection similarityDetection = new SimilarityDetection(actions(initial), 3);
+
+		// the static widget existed before, the new one did not
+		Action staticAction = action("static");
+		Action newAction = action("new");
+		Action selected = similarityDetection.selectAction(state, actions(staticAction, newAction));
+		Assert.assertNotNull(selected);
+		Assert.assertEquals(Integer.valueOf(1), staticAction.get(ActionTags.SimilarityValue));
+		Assert.assertEquals(Integer.valueOf(1), newAction.get(ActionTags.SimilarityValue));
+
+		// executing the new widget makes it more similar than the static one in the next state
+		similarityDetection.executeAction(newAction);
+		Action staticAgain = action("static");
+		Action newAgain = action("new");
+		similarityDetection.selectAction(state, actions(staticAgain, newAgain));
+		Assert.assertEquals(Integer.valueOf(2), staticAgain.get(ActionTags.SimilarityValue));
+		Assert.assertEquals(Integer.valueOf(3), newAgain.get(ActionTags.SimilarityValue));
+		Assert.assertEquals(0.5, similarityDetection.getWeight(staticAgain), 0);
+
+		// the similarity value does not exceed the maximum
+		similarityDetection.executeAction(newAgain);
+		Action newOnceMore = action("new");
+		similarityDetection.selectAction(state, actions(newOnceMore));
+		Assert.assertEquals(Integer.valueOf(3), newOnceMore.get(ActionTags.SimilarityValue));
+	}
+
+	@Test
+	public void test_actions_without_origin_widget() {
+		SimilarityDetection similarityDetection = new SimilarityDetection(new HashSet<>(), 5);
+		Action action = new NOP();
+		Assert.assertSame(action, similarityDetection.selectAction(state, actions(action)));
+		similarityDetection.executeAction(action);
+		Assert.assertEquals(Integer.valueOf(1), action.get(ActionTags.SimilarityValue));
+	}
+
+	@Test
+	public void test_reports_changed_similarity_values() {
+		SimilarityDetection similarityDetection = new SimilarityDetection(new HashSet<>(), 2);
+		Set<Action> changed = new HashSet<>();
+		Assert.assertTrue(similarityDetection.setWeightListener(changed::add));
+
+		// new widgets are reported
+		Action first = action("first");
+		similarityDetection.prepare(state, actions(first));
+		Assert.assertEquals(actions(first), changed);
+
+		// a static widget is reported while its similarity value increases
+		changed.clear();
+		Action second = action("first");
+		Action other = action("other");
+		similarityDetection.prepare(state, actions(second, other));
+		Assert.assertEquals(actions(second, other), changed);
+
+		// executing it does not change the weight until the next state, where it is at the maximum already
+		similarityDetection.executeAction(second);
+		changed.clear();
+		Action third = action("first");
+		Action otherAgain = action("other");
+		similarityDetection.prepare(state, actions(third, otherAgain));
+		Assert.assertEquals(actions(otherAgain), changed);
+	}
+}
@@ -0,0 +1,134 @@
+package org.testar.action.priorization;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.testar.monkey.alayer.Action;
+import org.testar.monkey.alayer.Tags;
+import org.testar.monkey.alayer.actions.NOP;
+import org.testar.stub.StateStub;
+
+public class TestWeightedActionSelector {
+
+	/**
+	 * Weights by action ConcreteID, counting how often a weight is asked for.
+	 */
+	private static class MapWeighting implements ActionWeighting {
+		private final Map<String, Double> weights = new HashMap<>();
+		private final boolean reportsChanges;
+		private WeightListener listener;
+		private int weightCalls;
+
+		MapWeighting(boolean reportsChanges) {
+			this.reportsChanges = reportsChanges;
+		}
+
+		@Override
+		public boolean setWeightListener(WeightListener listener) {
+			this.listener = listener;
+			return reportsChanges;
+		}
+
+		@Override
+		public double getWeight(Action action) {
+			weightCalls++;
+			return weights.getOrDefault(action.get(Tags.ConcreteID), 1.0);
+		}
+
+		void setWeight(Action action, double weight) {
+			weights.put(action.get(Tags.ConcreteID), weight);
+			if (reportsChanges) {
+				listener.weightChanged(action);
+			}
+		}
+	}
+
+	private static StateStub state(String concreteId) {
+		StateStub state = new StateStub();
+		state.set(Tags.ConcreteID, concreteId);
+		return state;
+	}
+
+	private static Action action(String concreteId) {
+		NOP action = new NOP();
+		action.set(Tags.ConcreteID, concreteId);
+		return action;
+	}
+
+	// the same actions as derived again in a next step
+	private static Set<Action> actions(String... concreteIds) {
+		Set<Action> actions = new LinkedHashSet<>();
+		for (String concreteId : concreteIds) {
+			actions.add(action(concreteId));
+		}
+		return actions;
+	}
+
+	private static Action find(Set<Action> actions, String concreteId) {
+		for (Action action : actions) {
+			if (concreteId.equals(action.get(Tags.ConcreteID))) {
+				return action;
+			}
+		}
+		throw new IllegalArgumentException(concreteId);
+	}
+
+	@Test
+	public void test_only_reported_weights_are_updated() {
+		MapWeighting weighting = new MapWeighting(true);
+		WeightedActionSelector selector = new WeightedActionSelector(weighting, new Random(1));
+		StateStub state = state("state");
+
+		selector.selectAction(state, actions("a", "b", "c"));
+		Assert.assertEquals(3, weighting.weightCalls);
+
+		// the same state again, only the weight of a changed
+		Set<Action> actions = actions("a", "b", "c");
+		weighting.setWeight(find(actions, "a"), 0);
+		weighting.setWeight(find(actions, "b"), 0);
+		weighting.weightCalls = 0;
+		for (int i = 0; i < 20; i++) {
+			Assert.assertSame(find(actions, "c"), selector.selectAction(state, actions));
+		}
+		Assert.assertEquals(2, weighting.weightCalls);
+	}
+
+	@Test
+	public void test_unreported_weights_are_asked_for_again() {
+		MapWeighting weighting = new MapWeighting(false);
+		WeightedActionSelector selector = new WeightedActionSelector(weighting, new Random(1));
+		StateStub state = state("state");
+
+		selector.selectAction(state, actions("a", "b"));
+		Set<Action> actions = actions("a", "b");
+		weighting.setWeight(find(actions, "a"), 0);
+		for (int i = 0; i < 20; i++) {
+			Assert.assertSame(find(actions, "b"), selector.selectAction(state, actions));
+		}
+	}
+
+	@Test
+	public void test_rebuild_for_other_state_or_actions() {
+		MapWeighting weighting = new MapWeighting(true);
+		WeightedActionSelector selector = new WeightedActionSelector(weighting, new Random(1));
+
+		selector.selectAction(state("first"), actions("a", "b"));
+
+		// a new state asks for all weights
+		weighting.weightCalls = 0;
+		Set<Action> actions = actions("a", "b");
+		Assert.assertTrue(actions.contains(selector.selectAction(state("second"), actions)));
+		Assert.assertEquals(2, weighting.weightCalls);
+
+		// so do other actions in the same state
+		weighting.weightCalls = 0;
+		actions = actions("a", "c");
+		Assert.assertTrue(actions.contains(selector.selectAction(state("second"), actions)));
+		Assert.assertEquals(2, weighting.weightCalls);
+	}
+}
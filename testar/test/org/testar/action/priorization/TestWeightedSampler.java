@@ -0,0 +1,63 @@
+package org.testar.action.priorization;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestWeightedSampler {
+
+	@Test
+	public void test_empty_sampler() {
+		WeightedSampler<String> sampler = new WeightedSampler<>();
+		Assert.assertNull(sampler.sample(new Random(1)));
+		sampler.add("zero", 0);
+		Assert.assertNull(sampler.sample(new Random(1)));
+		Assert.assertEquals(-1, sampler.sampleIndex(new Random(1)));
+	}
+
+	@Test
+	public void test_samples_follow_the_weights() {
+		WeightedSampler<String> sampler = new WeightedSampler<>();
+		sampler.add("a", 1);
+		sampler.add("b", 0);
+		sampler.add("c", 3);
+		Random random = new Random(7);
+		int[] counts = new int[3];
+		for (int i = 0; i < 40000; i++) {
+			counts[sampler.sampleIndex(random)]++;
+		}
+		Assert.assertEquals(0, counts[1]);
+		Assert.assertEquals(0.25, counts[0] / 40000.0, 0.02);
+		Assert.assertEquals(0.75, counts[2] / 40000.0, 0.02);
+	}
+
+	@Test
+	public void test_incremental_weight_updates() {
+		WeightedSampler<Integer> sampler = new WeightedSampler<>();
+		// grow beyond the initial capacity
+		for (int i = 0; i < 100; i++) {
+			sampler.add(i, 1);
+		}
+		Assert.assertEquals(100, sampler.getTotalWeight(), 1e-9);
+		for (int i = 0; i < 100; i++) {
+			if (i != 42) {
+				sampler.setWeight(i, 0);
+			}
+		}
+		Assert.assertEquals(1, sampler.getTotalWeight(), 1e-9);
+		Random random = new Random(3);
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals(Integer.valueOf(42), sampler.sample(random));
+		}
+		sampler.setWeight(42, 0);
+		sampler.setWeight(99, 2.5);
+		Assert.assertEquals(Integer.valueOf(99), sampler.sample(random));
+		Assert.assertEquals(2.5, sampler.getWeight(99), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_negative_weight() {
+		new WeightedSampler<String>().add("negative", -1);
+	}
+}
@@ -0,0 +1,67 @@
+package org.testar.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestHistogram {
+
+	@Test
+	public void testBucketsCoverTheValues() {
+		for (long value : new long[] {0, 1, 31, 32, 33, 1000, 123456789, Long.MAX_VALUE / 3}) {
+			int bucket = Histogram.bucketOf(value);
+			Assert.assertTrue(value >= Histogram.lowestValueOf(bucket));
+			Assert.assertTrue(value - Histogram.lowestValueOf(bucket) < Histogram.bucketWidthOf(bucket));
+		}
+		// small values are recorded exactly
+		Assert.assertEquals(1, Histogram.bucketWidthOf(Histogram.bucketOf(31)));
+	}
+
+	@Test
+	public void testQuantilesAreWithinTheBucketPrecision() {
+		Histogram histogram = new Histogram();
+		for (long i = 1; i <= 10000; i++) {
+			histogram.record(i * 1000);
+		}
+		Assert.assertEquals(10000, histogram.getCount());
+		Assert.assertEquals(1000, histogram.getMin());
+		Assert.assertEquals(10000000, histogram.getMax());
+		Assert.assertEquals(5000500.0, histogram.getMean(), 0.001);
+		assertClose(5000000, histogram.getValueAtQuantile(0.5));
+		assertClose(9000000, histogram.getValueAtQuantile(0.9));
+		assertClose(9900000, histogram.getValueAtQuantile(0.99));
+		Assert.assertEquals(10000000, histogram.getValueAtQuantile(1.0));
+
+		histogram.reset();
+		Assert.assertEquals(0, histogram.getCount());
+		Assert.assertEquals(0, histogram.getValueAtQuantile(0.5));
+	}
+
+	@Test
+	public void testSequenceMetricsAreResetPerSequence() throws IOException {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.recordPhase("derive_actions", 2000000);
+		registry.increment("actions_executed", 1);
+		registry.gauge("actions_per_state", 12);
+
+		registry.startSequence();
+		registry.recordPhase("derive_actions", 4000000);
+		registry.increment("actions_executed", 1);
+		Assert.assertEquals(1, registry.getSequencePhase("derive_actions").getCount());
+		Assert.assertEquals(1, registry.getSequenceCounter("actions_executed"));
+
+		// the Prometheus endpoint covers the complete run
+		StringWriter writer = new StringWriter();
+		registry.writePrometheus(writer);
+		String text = writer.toString();
+		Assert.assertTrue(text.contains("testar_phase_duration_seconds_count{phase=\"derive_actions\"} 2\n"));
+		Assert.assertTrue(text.contains("testar_actions_executed_total 2\n"));
+		Assert.assertTrue(text.contains("testar_actions_per_state 12\n"));
+	}
+
+	private static void assertClose(long expected, long actual) {
+		Assert.assertEquals(expected, actual, expected / 32.0);
+	}
+}
@@ -0,0 +1,110 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.oracles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestMultiPatternMatcher {
+
+	@Test
+	public void extractsRequiredLiterals() {
+		Assert.assertEquals(Arrays.asList("xception", "rror"), literals(".*([Ee]xception|[Ee]rror).*"));
+		Assert.assertEquals(Arrays.asList("failed"), literals("^\\d+ ERR.*(?:failed|failed)\\s*$"));
+		Assert.assertEquals(Arrays.asList("error"), literals("(?i).*ERROR.*"));
+		Assert.assertEquals(Arrays.asList("a.b"), literals("\\Qa.b\\E"));
+		Assert.assertEquals(Arrays.asList("unknown"), literals("x?unknown+ hosts?"));
+		// no literal is required by every match
+		Assert.assertNull(literals(".*.*"));
+		Assert.assertNull(literals("(?!x)x"));
+		Assert.assertNull(literals(".*(error|).*"));
+		Assert.assertNull(literals(".*(error)?.*"));
+		Assert.assertNull(literals("ab"));
+	}
+
+	@Test
+	public void matchesLikeTheRegularExpressions() {
+		List<Pattern> patterns = Arrays.asList(
+				Pattern.compile(".*([Ee]xception|[Ee]rror).*"),
+				Pattern.compile(".*fatal.*", Pattern.CASE_INSENSITIVE),
+				Pattern.compile("(?!x)x"),
+				Pattern.compile("WARN.*"));
+		MultiPatternMatcher matcher = new MultiPatternMatcher(patterns);
+		Assert.assertTrue(matcher.isPrefiltered(0));
+		Assert.assertTrue(matcher.isPrefiltered(1));
+		Assert.assertFalse(matcher.isPrefiltered(2));
+
+		List<String> lines = Arrays.asList("Exception in thread main", "all fine", "FATAL crash",
+				"WARN disk almost full", "WARN an error", "xception", "", "err or", "rror");
+		for (String line : lines) {
+			Assert.assertEquals(line, expectedFirstMatch(patterns, line), matcher.firstMatch(line));
+		}
+		Assert.assertEquals(lines.size(), matcher.values());
+		Assert.assertEquals(2, matcher.hits(0));
+		Assert.assertEquals(1, matcher.hits(1));
+		Assert.assertEquals(1, matcher.hits(3));
+		// lines without literals of the first pattern were not confirmed with its regular expression
+		Assert.assertEquals(4, matcher.confirmations(0));
+	}
+
+	@Test
+	public void matchesLargeListsInParallel() {
+		List<Pattern> patterns = Arrays.asList(Pattern.compile(".*([Ee]xception|[Ee]rror).*"), Pattern.compile(".*7"));
+		MultiPatternMatcher matcher = new MultiPatternMatcher(patterns);
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < MultiPatternMatcher.PARALLEL_THRESHOLD * 3; i++) {
+			lines.add(i % 101 == 0 ? "line " + i + " Error" : "line " + i);
+		}
+		int[] matches = matcher.firstMatches(lines);
+		for (int i = 0; i < lines.size(); i++) {
+			Assert.assertEquals(expectedFirstMatch(patterns, lines.get(i)), matches[i]);
+		}
+		Assert.assertEquals(lines.size(), matcher.values());
+	}
+
+	private static List<String> literals(String regex) {
+		return MultiPatternMatcher.requiredLiterals(Pattern.compile(regex));
+	}
+
+	private static int expectedFirstMatch(List<Pattern> patterns, String line) {
+		for (int i = 0; i < patterns.size(); i++) {
+			if (patterns.get(i).matcher(line).matches()) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
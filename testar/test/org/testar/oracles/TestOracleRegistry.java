@@ -0,0 +1,131 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.oracles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.testar.monkey.alayer.State;
+import org.testar.monkey.alayer.Verdict;
+import org.testar.monkey.alayer.Widget;
+import org.testar.monkey.alayer.WidgetTraversal;
+
+public class TestOracleRegistry {
+
+	private static Oracle oracle(Verdict verdict) {
+		return new Oracle() {
+			@Override
+			public void initialize() {
+			}
+
+			@Override
+			public Verdict getVerdict(State state) {
+				return verdict;
+			}
+		};
+	}
+
+	@Test
+	public void combinesVerdictsBySeverityAndOrder() {
+		OracleRegistry registry = new OracleRegistry();
+		Assert.assertEquals(Verdict.OK, registry.getVerdict(null));
+
+		Verdict firstTag = new Verdict(Verdict.SEVERITY_SUSPICIOUS_TAG, "first");
+		Verdict secondTag = new Verdict(Verdict.SEVERITY_SUSPICIOUS_TAG, "second");
+		Verdict log = new Verdict(Verdict.SEVERITY_SUSPICIOUS_LOG, "log");
+		registry.register("ok", oracle(Verdict.OK));
+		registry.register("firstTag", oracle(firstTag));
+		registry.register("secondTag", oracle(secondTag));
+		Assert.assertSame(firstTag, registry.getVerdict(null));
+
+		registry.register("log", oracle(log));
+		Assert.assertSame(log, registry.getVerdict(null));
+
+		// replacing keeps the position
+		registry.register("firstTag", oracle(Verdict.OK));
+		registry.unregister("log");
+		Assert.assertEquals(Arrays.asList("ok", "firstTag", "secondTag"), registry.names());
+		Assert.assertSame(secondTag, registry.getVerdict(null));
+	}
+
+	@Test
+	public void recordsEvaluationTime() {
+		OracleRegistry registry = new OracleRegistry();
+		registry.register("slow", new Oracle() {
+			@Override
+			public void initialize() {
+			}
+
+			@Override
+			public Verdict getVerdict(State state) {
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return Verdict.OK;
+			}
+		});
+		registry.getVerdict(null);
+		Assert.assertTrue(registry.lastNanos("slow") >= 5000000L);
+		Assert.assertEquals(-1, registry.lastNanos("unknown"));
+	}
+
+	@Test
+	public void scansWidgetsInOrder() {
+		for (int size : new int[] {10, OracleRegistry.PARALLEL_WIDGET_THRESHOLD * 4}) {
+			List<Widget> widgets = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				widgets.add(Mockito.mock(Widget.class));
+			}
+			State state = Mockito.mock(State.class);
+			Mockito.when(state.childCount()).thenReturn(size);
+			Mockito.when(state.child(Mockito.anyInt())).thenAnswer(invocation -> widgets.get(invocation.<Integer>getArgument(0)));
+			WidgetTraversal traversal = WidgetTraversal.of(state);
+			Mockito.when(state.traversal()).thenReturn(traversal);
+
+			for (boolean parallel : new boolean[] {false, true}) {
+				Assert.assertEquals(Verdict.OK, OracleRegistry.scanWidgets(state, w -> Verdict.OK, parallel));
+
+				// the first suspicious widget in breadth-first order determines the verdict
+				Verdict verdict = OracleRegistry.scanWidgets(state, w -> {
+					int index = widgets.indexOf(w);
+					return index % 7 == 3 ? new Verdict(Verdict.SEVERITY_SUSPICIOUS_TAG, "widget " + index) : Verdict.OK;
+				}, parallel);
+				Assert.assertEquals("widget 3", verdict.info());
+			}
+		}
+	}
+}
@@ -0,0 +1,127 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.oracles;
+
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPatternMatchCache {
+
+	@Test
+	public void cachesMatchResults() {
+		PatternMatchCache cache = new PatternMatchCache(10);
+		Pattern pattern = Pattern.compile(".*[eE]rror.*", Pattern.UNICODE_CHARACTER_CLASS);
+
+		Assert.assertTrue(cache.matches(pattern, "Fatal error"));
+		Assert.assertFalse(cache.matches(pattern, "Everything fine"));
+		Assert.assertTrue(cache.matches(pattern, "Fatal error"));
+		Assert.assertEquals(1, cache.hits());
+		Assert.assertEquals(2, cache.misses());
+		Assert.assertEquals(2, cache.size());
+
+		// A pattern compiled again from the same expression shares the results
+		Pattern recompiled = Pattern.compile(".*[eE]rror.*", Pattern.UNICODE_CHARACTER_CLASS);
+		Assert.assertFalse(cache.matches(recompiled, "Everything fine"));
+		Assert.assertEquals(2, cache.hits());
+
+		// Other flags are a different pattern
+		Assert.assertFalse(cache.matches(Pattern.compile(".*[eE]rror.*"), "Everything fine"));
+		Assert.assertEquals(3, cache.misses());
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		PatternMatchCache cache = new PatternMatchCache(2);
+		Pattern pattern = Pattern.compile("a+");
+
+		cache.matches(pattern, "a");
+		cache.matches(pattern, "aa");
+		cache.matches(pattern, "a");
+		cache.matches(pattern, "b");
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(1, cache.evictions());
+
+		// "aa" was the least recently used
+		long misses = cache.misses();
+		Assert.assertTrue(cache.matches(pattern, "a"));
+		Assert.assertEquals(misses, cache.misses());
+		Assert.assertTrue(cache.matches(pattern, "aa"));
+		Assert.assertEquals(misses + 1, cache.misses());
+	}
+
+	@Test
+	public void invalidatesPattern() {
+		PatternMatchCache cache = new PatternMatchCache();
+		Pattern first = Pattern.compile("x");
+		Pattern second = Pattern.compile("y");
+		cache.matches(first, "x");
+		cache.matches(second, "x");
+
+		cache.invalidate(first);
+		Assert.assertEquals(1, cache.size());
+		cache.clear();
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void disabledWithZeroSize() {
+		PatternMatchCache cache = new PatternMatchCache(0);
+		Pattern pattern = Pattern.compile("x");
+		Assert.assertTrue(cache.matches(pattern, "x"));
+		Assert.assertTrue(cache.matches(pattern, "x"));
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(2, cache.misses());
+	}
+
+	@Test
+	public void stripedCacheIsBounded() throws InterruptedException {
+		PatternMatchCache cache = new PatternMatchCache(PatternMatchCache.STRIPED_MINIMUM_SIZE);
+		Pattern pattern = Pattern.compile("[0-9]+");
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			int offset = t;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 4 * PatternMatchCache.STRIPED_MINIMUM_SIZE; i++) {
+					Assert.assertTrue(cache.matches(pattern, Integer.toString(i * threads.length + offset)));
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertTrue(cache.size() <= PatternMatchCache.STRIPED_MINIMUM_SIZE);
+		Assert.assertEquals(16L * PatternMatchCache.STRIPED_MINIMUM_SIZE, cache.misses() + cache.hits());
+		Assert.assertEquals(cache.misses() - cache.size(), cache.evictions());
+	}
+}
@@ -0,0 +1,165 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2024 Open Universiteit - www.ou.nl
+ * Copyright (c) 2024 Universitat Politecnica de Valencia - www.upv.es
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package org.testar.oracles.log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestTailingLogChecker {
+
+	private static final LogErrorDetector detector = new RegexLogErrorDetector(".*([Ee]xception|[Ee]rror).*");
+
+	private File logFile;
+	private TailingLogChecker checker;
+
+	@Before
+	public void createLogFile() throws IOException {
+		logFile = File.createTempFile("test_tailing", ".log");
+		logFile.deleteOnExit();
+		append("initial error, present before testing");
+		checker = new TailingLogChecker(new ArrayList<String>(), Arrays.asList(logFile.getPath()),
+				detector, false);
+		checker.initialRead();
+	}
+
+	@After
+	public void closeChecker() {
+		checker.close();
+	}
+
+	@Test
+	public void readsOnlyAppendedLines() throws IOException {
+		Assert.assertTrue(checker.readAndCheck().isEmpty());
+
+		append("valid message");
+		append("runtime error 1");
+		Assert.assertEquals(errors("runtime error 1"), checker.readAndCheck());
+		Assert.assertTrue(checker.readAndCheck().isEmpty());
+
+		append("runtime error 2");
+		Assert.assertEquals(errors("runtime error 2"), checker.readAndCheck());
+	}
+
+	@Test
+	public void waitsForCompleteLines() throws IOException {
+		write("partial err", false);
+		Assert.assertTrue(checker.readAndCheck().isEmpty());
+
+		append("or completed");
+		Assert.assertEquals(errors("partial error completed"), checker.readAndCheck());
+	}
+
+	@Test
+	public void followsTruncatedFile() throws IOException {
+		write("", true);
+		append("error after truncation");
+		Assert.assertEquals(errors("error after truncation"), checker.readAndCheck());
+	}
+
+	@Test
+	public void followsTruncatedFileThatGrewAgain() throws IOException {
+		append("valid message");
+		Assert.assertTrue(checker.readAndCheck().isEmpty());
+
+		// rewritten between two checks, longer than before
+		write("a new error after truncation, longer than the file was" + System.lineSeparator(), true);
+		Assert.assertEquals(errors("a new error after truncation, longer than the file was"), checker.readAndCheck());
+	}
+
+	@Test
+	public void followsRotatedFile() throws IOException {
+		append("error before rotation");
+
+		File rotated = File.createTempFile("test_tailing_new", ".log");
+		rotated.deleteOnExit();
+		try (FileOutputStream fos = new FileOutputStream(rotated)) {
+			fos.write(("error in new file" + System.lineSeparator()).getBytes(Charset.defaultCharset()));
+		}
+		Files.move(rotated.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+		Assert.assertEquals(errors("error before rotation", "error in new file"), checker.readAndCheck());
+	}
+
+	@Test
+	public void reportsNewOutputOfRepeatedCommand() throws IOException {
+		checker.close();
+		String command = File.separatorChar == '\\' ? "cmd /c type " + logFile.getPath() : "cat " + logFile.getPath();
+		checker = new TailingLogChecker(Arrays.asList(command), new ArrayList<String>(),
+				detector, false);
+		checker.initialRead();
+		Assert.assertTrue(checker.readAndCheck().isEmpty());
+
+		append("error printed by command");
+		Assert.assertEquals(errors("error printed by command"), checker.readAndCheck());
+	}
+
+	@Test
+	public void reportsAllOutputOfShorterCommandRun() throws IOException {
+		append("valid message 1");
+		append("valid message 2");
+		checker.close();
+		String command = File.separatorChar == '\\' ? "cmd /c type " + logFile.getPath() : "cat " + logFile.getPath();
+		checker = new TailingLogChecker(Arrays.asList(command), new ArrayList<String>(),
+				detector, false);
+		checker.initialRead();
+
+		// the command prints a new, shorter log
+		write("error in new log" + System.lineSeparator(), true);
+		Assert.assertEquals(errors("error in new log"), checker.readAndCheck());
+		Assert.assertTrue(checker.readAndCheck().isEmpty());
+	}
+
+	private static List<String> errors(String... lines) {
+		return detector.detectErrors(Arrays.asList(lines));
+	}
+
+	private void append(String line) throws IOException {
+		write(line + System.lineSeparator(), false);
+	}
+
+	private void write(String text, boolean truncate) throws IOException {
+		try (FileOutputStream fos = new FileOutputStream(logFile, !truncate)) {
+			fos.write(text.getBytes(Charset.defaultCharset()));
+		}
+	}
+}
@@ -62,6 +62,23 @@ public class TestHtmlFormat
 		}
 	}
 
+	@Test
+	public void testBufferedContentIsFlushedWithoutFurtherWrites() throws InterruptedException
+	{
+		htmlReporter.setFlushPolicy(BaseFormatUtil.DEFAULT_FLUSH_CHARS, 200);
+		htmlReporter.flush();
+		htmlReporter.addContent("Line 1");
+		htmlReporter.bufferToFile();
+		assertEquals(0, htmlReporter.getFile().length());
+
+		// nothing else is written, the timer flushes the buffered line
+		long deadline = System.currentTimeMillis() + 5000;
+		while(htmlReporter.getFile().length() == 0 && System.currentTimeMillis() < deadline)
+			Thread.sleep(20);
+		assertTrue(htmlReporter.getFile().length() > 0);
+		htmlReporter.close();
+	}
+
 	@Test
 	public void testRenameFile()
 	{
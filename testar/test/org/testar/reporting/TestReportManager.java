@@ -190,6 +190,43 @@ public class TestReportManager {
 		Assert.assertTrue(fileContains("<img src=\"NoScreenshotPathAvailable", htmlReportFile));
 	}
 
+	@Test
+	public void testHtmlReportCompactActions() {
+		// Prepare settings to create an HTML report with collapsed action lists
+		List<Pair<?, ?>> tags = new ArrayList<Pair<?, ?>>();
+		tags.add(Pair.from(ConfigTags.ReportInHTML, true));
+		tags.add(Pair.from(ConfigTags.ReportInPlainText, false));
+		tags.add(Pair.from(ConfigTags.ReportCompactActions, true));
+		Settings settings = new Settings(tags, new Properties());
+
+		OutputStructure.screenshotsOutputDir = "screenshots";
+		OutputStructure.htmlOutputDir = tempFolder.getRoot().getAbsolutePath();
+		OutputStructure.startInnerLoopDateString = "Date";
+		OutputStructure.executedSUTname = "testHtmlReportCompact";
+		OutputStructure.sequenceInnerLoopCount = 1;
+
+		ReportManager reportManager = createReportManager(settings);
+
+		File htmlReportFile = new File(reportManager.getReportFileName().concat("_OK.html"));
+		Assert.assertTrue(htmlReportFile.exists());
+
+		// The derived actions are embedded as JSON and only expanded in the browser
+		Assert.assertTrue(fileContains("function expandActions(details){", htmlReportFile));
+		Assert.assertTrue(fileContains("<summary>2 actions</summary>", htmlReportFile));
+		Assert.assertTrue(fileContains("<script type='application/json'>", htmlReportFile));
+		Assert.assertTrue(fileContains("typeActionDescription", htmlReportFile));
+		Assert.assertTrue(!fileContains("<b>pasteActionDescription</b>", htmlReportFile));
+		// Selected action and verdict are still written as plain HTML
+		Assert.assertTrue(fileContains("<h4>ConcreteID=typeActionConcreteID || typeActionDescription</h4>", htmlReportFile));
+		Assert.assertTrue(fileContains("<h2>Test verdict for this sequence: No problem detected.</h2>", htmlReportFile));
+	}
+
+	@Test
+	public void testJsonStringEscaping() {
+		Assert.assertEquals("\"a\\\"b\\\\c\"", HtmlReporter.toJsonString("a\"b\\c"));
+		Assert.assertEquals("\"\\u003c/script\\u003e\\u000a\"", HtmlReporter.toJsonString("</script>\n"));
+	}
+
 	private ReportManager createReportManager(Settings settings) {
 		ReportManager reportManager = new ReportManager(false, settings);
 		reportManager.addState(state);
@@ -0,0 +1,68 @@
+package org.testar.simplestategraph;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestIndexedStateGraph {
+
+	private IndexedStateGraph<String> graph;
+
+	@Before
+	public void setup() {
+		graph = new IndexedStateGraph<>();
+		graph.addState("s1", "first");
+		graph.addState("s2", "second");
+		graph.addState("s3", "third");
+	}
+
+	@Test
+	public void test_state_lookup() {
+		Assert.assertEquals("second", graph.getState("s2"));
+		Assert.assertNull(graph.getState("s4"));
+		Assert.assertTrue(graph.containsState("s3"));
+		Assert.assertEquals(3, graph.size());
+	}
+
+	@Test
+	public void test_transitions_are_indexed_once() {
+		Assert.assertTrue(graph.addTransition(new GuiStateTransition("s1", "s2", "a1")));
+		Assert.assertFalse(graph.addTransition(new GuiStateTransition("s1", "s2", "a2")));
+		Assert.assertTrue(graph.addTransition(new GuiStateTransition("s3", "s2", "a3")));
+		Assert.assertEquals(2, graph.getSourceStateIds("s2").size());
+		Assert.assertTrue(graph.getSourceStateIds("s1").isEmpty());
+	}
+
+	@Test
+	public void test_successor_with_highest_priority() {
+		graph.addTransition(new GuiStateTransition("s1", "s1", "self"));
+		graph.addTransition(new GuiStateTransition("s1", "s2", "a1"));
+		graph.addTransition(new GuiStateTransition("s1", "s3", "a2"));
+		// no successor with unvisited actions
+		Assert.assertNull(graph.getTransitionToSuccessorWithHighestPriority("s1"));
+
+		graph.setPriority("s2", 2);
+		graph.setPriority("s3", 5);
+		Assert.assertEquals("a2", graph.getTransitionToSuccessorWithHighestPriority("s1").getActionAbstractId());
+
+		graph.setPriority("s3", 1);
+		Assert.assertEquals("a1", graph.getTransitionToSuccessorWithHighestPriority("s1").getActionAbstractId());
+
+		// a transition to the state itself is never returned
+		graph.setPriority("s1", 10);
+		Assert.assertEquals("a1", graph.getTransitionToSuccessorWithHighestPriority("s1").getActionAbstractId());
+
+		// successors with the same priority are returned in the order they were added
+		graph.setPriority("s3", 2);
+		Assert.assertEquals("a1", graph.getTransitionToSuccessorWithHighestPriority("s1").getActionAbstractId());
+		Assert.assertNull(graph.getTransitionToSuccessorWithHighestPriority("s2"));
+	}
+
+	@Test
+	public void test_priority_of_new_successor() {
+		graph.setPriority("s2", 3);
+		graph.addTransition(new GuiStateTransition("s1", "s2", "a1"));
+		Assert.assertEquals(3, graph.getPriority("s2"));
+		Assert.assertEquals("a1", graph.getTransitionToSuccessorWithHighestPriority("s1").getActionAbstractId());
+	}
+}
@@ -0,0 +1,78 @@
+package org.testar.simplestategraph;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.testar.IActionSelector;
+import org.testar.monkey.alayer.Action;
+import org.testar.monkey.alayer.Tags;
+import org.testar.monkey.alayer.actions.NOP;
+import org.testar.stub.StateStub;
+
+/**
+ * The simple state graph action selectors on a small simulated SUT, in which every action leads to the same target state.
+ */
+public class TestStateGraphSelectors {
+
+	private final Map<String, StateStub> states = new HashMap<>();
+	private final Map<String, Set<Action>> actionsOfStates = new HashMap<>();
+	private final Map<String, String> targetOfActions = new HashMap<>();
+
+	private void addState(String stateId, String... actionsAndTargets) {
+		StateStub state = new StateStub();
+		state.set(Tags.AbstractID, stateId);
+		states.put(stateId, state);
+		Set<Action> actions = new HashSet<>();
+		for (int i = 0; i < actionsAndTargets.length; i += 2) {
+			NOP action = new NOP();
+			action.set(Tags.AbstractID, actionsAndTargets[i]);
+			action.set(Tags.Desc, actionsAndTargets[i]);
+			actions.add(action);
+			targetOfActions.put(actionsAndTargets[i], actionsAndTargets[i + 1]);
+		}
+		actionsOfStates.put(stateId, actions);
+	}
+
+	// walks from s0 and returns the executed actions
+	private Set<String> walk(IActionSelector selector, int steps) {
+		Set<String> executed = new HashSet<>();
+		String current = "s0";
+		for (int step = 0; step < steps; step++) {
+			Action action = selector.selectAction(states.get(current), actionsOfStates.get(current));
+			Assert.assertTrue(actionsOfStates.get(current).contains(action));
+			executed.add(action.get(Tags.AbstractID));
+			current = targetOfActions.get(action.get(Tags.AbstractID));
+		}
+		return executed;
+	}
+
+	@Test
+	public void test_visited_actions_are_not_repeated_before_all_are_visited() {
+		addState("s0", "a1", "s0", "a2", "s0", "a3", "s0", "a4", "s0", "a5", "s0");
+		GuiStateGraphWithVisitedActions selector = new GuiStateGraphWithVisitedActions();
+		Assert.assertEquals(5, walk(selector, 5).size());
+		Assert.assertTrue(selector.getAbstractIdsOfUnvisitedActions(states.get("s0")).isEmpty());
+	}
+
+	@Test
+	public void test_visited_actions_lead_to_state_with_unvisited_actions() {
+		// once the actions of s0 are visited, only a leads to the remaining unvisited actions of s1
+		addState("s0", "a", "s1", "b", "s0");
+		addState("s1", "c", "s0", "d", "s0");
+		GuiStateGraphWithVisitedActions selector = new GuiStateGraphWithVisitedActions();
+		Assert.assertEquals(targetOfActions.keySet(), walk(selector, 8));
+		Assert.assertTrue(selector.getAbstractIdsOfUnvisitedActions(states.get("s0")).isEmpty());
+		Assert.assertTrue(selector.getAbstractIdsOfUnvisitedActions(states.get("s1")).isEmpty());
+	}
+
+	@Test
+	public void test_qlearning_prefers_unexecuted_actions() {
+		addState("s0", "a1", "s0", "a2", "s0", "a3", "s0", "a4", "s0", "a5", "s0");
+		QLearningActionSelector selector = new QLearningActionSelector(99, 0.5);
+		Assert.assertEquals(5, walk(selector, 5).size());
+	}
+}
@@ -0,0 +1,97 @@
+package org.testar.statemodel;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.testar.monkey.alayer.Tags;
+import org.testar.statemodel.exceptions.StateModelException;
+
+public class TestStateModelStatistics {
+
+	private AbstractAction firstAction = new AbstractAction("firstAction");
+	private AbstractAction secondAction = new AbstractAction("secondAction");
+	private AbstractAction thirdAction = new AbstractAction("thirdAction");
+
+	private AbstractState firstState = new AbstractState("firstState", new HashSet<>(Arrays.asList(firstAction, secondAction)));
+	private AbstractState secondState = new AbstractState("secondState", Collections.singleton(thirdAction));
+	private AbstractState thirdState = new AbstractState("thirdState", Collections.emptySet());
+
+	private AbstractStateModel abstractStateModel;
+
+	@Before
+	public void initialStateModel() {
+		abstractStateModel = new AbstractStateModel("statisticsModel", "", "", Collections.singleton(Tags.AbstractID));
+	}
+
+	@Test
+	public void test_empty_state_model() {
+		StateModelStatistics statistics = abstractStateModel.getStatistics();
+		Assert.assertEquals(0, statistics.getNrOfStates());
+		Assert.assertEquals(0, statistics.getNrOfTransitions());
+		Assert.assertEquals(0, statistics.getNrOfActions());
+		Assert.assertEquals(0, statistics.getNrOfUnvisitedActions());
+	}
+
+	@Test
+	public void test_counters_follow_the_model() throws StateModelException {
+		firstState.setInitial(true);
+		abstractStateModel.addState(firstState);
+		StateModelStatistics statistics = abstractStateModel.getStatistics();
+		Assert.assertEquals(1, statistics.getNrOfStates());
+		Assert.assertEquals(1, statistics.getNrOfInitialStates());
+		Assert.assertEquals(2, statistics.getNrOfActions());
+		Assert.assertEquals(2, statistics.getNrOfUnvisitedActions());
+
+		// S1 -> A1 -> S2
+		abstractStateModel.addTransition(firstState, secondState, firstAction);
+		statistics = abstractStateModel.getStatistics();
+		Assert.assertEquals(2, statistics.getNrOfStates());
+		Assert.assertEquals(1, statistics.getNrOfTransitions());
+		Assert.assertEquals(3, statistics.getNrOfActions());
+		Assert.assertEquals(1, statistics.getNrOfVisitedActions());
+		Assert.assertEquals(2, statistics.getNrOfUnvisitedActions());
+
+		// executing the same transition again does not change the counters
+		abstractStateModel.addTransition(firstState, secondState, firstAction);
+		Assert.assertEquals(statistics.toString(), abstractStateModel.getStatistics().toString());
+
+		// a new action is counted when the state is passed to the model again
+		secondState.addNewAction(new AbstractAction("newAction"));
+		abstractStateModel.addState(secondState);
+		Assert.assertEquals(4, abstractStateModel.getStatistics().getNrOfActions());
+		Assert.assertEquals(3, abstractStateModel.getStatistics().getNrOfUnvisitedActions());
+	}
+
+	@Test
+	public void test_non_deterministic_actions() throws StateModelException {
+		// S1 -> A1 -> S2, S1 -> A1 -> S3, S1 -> A1 -> S1
+		abstractStateModel.addTransition(firstState, secondState, firstAction);
+		Assert.assertEquals(0, abstractStateModel.getStatistics().getNrOfNondeterministicActions());
+		abstractStateModel.addTransition(firstState, thirdState, firstAction);
+		Assert.assertEquals(1, abstractStateModel.getStatistics().getNrOfNondeterministicActions());
+		abstractStateModel.addTransition(firstState, firstState, firstAction);
+		Assert.assertEquals(1, abstractStateModel.getStatistics().getNrOfNondeterministicActions());
+		// a different action from the same state is deterministic
+		abstractStateModel.addTransition(firstState, secondState, secondAction);
+		Assert.assertEquals(1, abstractStateModel.getStatistics().getNrOfNondeterministicActions());
+		Assert.assertEquals(4, abstractStateModel.getStatistics().getNrOfTransitions());
+	}
+
+	@Test
+	public void test_presized_model() throws StateModelException {
+		abstractStateModel.ensureCapacity(1000, 5000);
+		abstractStateModel.addTransition(firstState, secondState, firstAction);
+		Assert.assertEquals(2, abstractStateModel.getStatistics().getNrOfStates());
+		Assert.assertEquals(1, abstractStateModel.getStatistics().getNrOfTransitions());
+
+		// a model that is in use keeps its contents
+		abstractStateModel.ensureCapacity(10, 10);
+		Assert.assertTrue(abstractStateModel.containsState("secondState"));
+		Assert.assertEquals(1, abstractStateModel.getOutgoingTransitionsForState("firstState").size());
+		Assert.assertEquals(3, abstractStateModel.getStatistics().getNrOfActions());
+	}
+}
@@ -0,0 +1,99 @@
+package org.testar.statemodel;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.testar.monkey.alayer.Tags;
+import org.testar.statemodel.exceptions.StateModelException;
+
+public class TestUnvisitedDistanceMap {
+
+	private AbstractStateModel abstractStateModel;
+
+	@Before
+	public void initialStateModel() {
+		abstractStateModel = new AbstractStateModel("distanceModel", "", "", Collections.singleton(Tags.AbstractID));
+	}
+
+	private static AbstractState state(String stateId, AbstractAction... actions) {
+		return new AbstractState(stateId, new HashSet<>(Arrays.asList(actions)));
+	}
+
+	@Test
+	public void test_distances_along_a_path() throws StateModelException {
+		// S1 -> A1 -> S2 -> A2 -> S3, only S3 has an unvisited action
+		AbstractAction a1 = new AbstractAction("a1");
+		AbstractAction a2 = new AbstractAction("a2");
+		AbstractState s1 = state("s1", a1);
+		AbstractState s2 = state("s2", a2);
+		AbstractState s3 = state("s3", new AbstractAction("a3"));
+		abstractStateModel.addTransition(s1, s2, a1);
+		abstractStateModel.addTransition(s2, s3, a2);
+
+		UnvisitedDistanceMap distanceMap = abstractStateModel.getUnvisitedDistanceMap();
+		Assert.assertEquals(2, distanceMap.getDistance("s1"));
+		Assert.assertEquals(1, distanceMap.getDistance("s2"));
+		Assert.assertEquals(0, distanceMap.getDistance("s3"));
+		Assert.assertEquals("a1", distanceMap.getNextHop("s1").getActionId());
+		Assert.assertNull(distanceMap.getNextHop("s3"));
+		Assert.assertEquals(2, distanceMap.getPath("s1").size());
+	}
+
+	@Test
+	public void test_incremental_updates() throws StateModelException {
+		// S1 -> A1 -> S2 -> A2 -> S3 -> A3 -> S4, with a shortcut S1 -> B1 -> S3 added later
+		AbstractAction a1 = new AbstractAction("a1");
+		AbstractAction b1 = new AbstractAction("b1");
+		AbstractAction a2 = new AbstractAction("a2");
+		AbstractAction a3 = new AbstractAction("a3");
+		AbstractState s1 = state("s1", a1, b1);
+		AbstractState s2 = state("s2", a2);
+		AbstractState s3 = state("s3", a3);
+		AbstractState s4 = state("s4", new AbstractAction("a4"));
+
+		UnvisitedDistanceMap distanceMap = abstractStateModel.getUnvisitedDistanceMap();
+		abstractStateModel.addTransition(s1, s2, a1);
+		Assert.assertEquals(0, distanceMap.getDistance("s1"));
+		Assert.assertEquals(0, distanceMap.getDistance("s2"));
+
+		abstractStateModel.addTransition(s2, s3, a2);
+		Assert.assertEquals(1, distanceMap.getDistance("s2"));
+
+		abstractStateModel.addTransition(s3, s4, a3);
+		Assert.assertEquals(2, distanceMap.getDistance("s2"));
+		Assert.assertEquals(1, distanceMap.getDistance("s3"));
+		// s1 still has the unvisited action b1
+		Assert.assertEquals(0, distanceMap.getDistance("s1"));
+
+		abstractStateModel.addTransition(s1, s3, b1);
+		Assert.assertEquals(2, distanceMap.getDistance("s1"));
+		Assert.assertEquals("b1", distanceMap.getNextHop("s1").getActionId());
+
+		// a new action in s2 is picked up once the model is told about the changed state
+		s2.addNewAction(new AbstractAction("c2"));
+		abstractStateModel.addState(s2);
+		Assert.assertEquals(1, distanceMap.getDistance("s1"));
+		Assert.assertEquals("a1", distanceMap.getNextHop("s1").getActionId());
+	}
+
+	@Test
+	public void test_unreachable_states() throws StateModelException {
+		// S1 -> A1 -> S2 -> A2 -> S1, all actions visited
+		AbstractAction a1 = new AbstractAction("a1");
+		AbstractAction a2 = new AbstractAction("a2");
+		AbstractState s1 = state("s1", a1);
+		AbstractState s2 = state("s2", a2);
+		abstractStateModel.addTransition(s1, s2, a1);
+		abstractStateModel.addTransition(s2, s1, a2);
+
+		UnvisitedDistanceMap distanceMap = abstractStateModel.getUnvisitedDistanceMap();
+		Assert.assertEquals(-1, distanceMap.getDistance("s1"));
+		Assert.assertEquals(-1, distanceMap.getDistance("s2"));
+		Assert.assertNull(distanceMap.getNextHop("s1"));
+		Assert.assertNull(distanceMap.getPath("s1"));
+	}
+}
@@ -0,0 +1,51 @@
+package org.testar.statemodel;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.testar.monkey.alayer.Tags;
+
+public class TestWidgetContentHash {
+
+	@Test
+	public void test_identical_subtrees_have_the_same_hash() {
+		Widget first = tree("button", "OK");
+		Widget second = tree("button", "OK");
+		Assert.assertEquals(first.getContentHash(), second.getContentHash());
+	}
+
+	@Test
+	public void test_attribute_order_does_not_matter() {
+		Widget first = new Widget("widget");
+		first.addAttribute(Tags.Title, "title");
+		first.addAttribute(Tags.Desc, "description");
+		Widget second = new Widget("widget");
+		second.addAttribute(Tags.Desc, "description");
+		second.addAttribute(Tags.Title, "title");
+		Assert.assertEquals(first.getContentHash(), second.getContentHash());
+	}
+
+	@Test
+	public void test_changes_in_the_subtree_change_the_hash() {
+		Widget first = tree("button", "OK");
+		Widget second = tree("button", "Cancel");
+		Assert.assertNotEquals(first.getContentHash(), second.getContentHash());
+
+		// a widget that is changed after its hash was calculated, also changes the hash of its ancestors
+		String hash = first.getContentHash();
+		first.getChildren().get(0).getChildren().get(0).addAttribute(Tags.Enabled, false);
+		Assert.assertNotEquals(hash, first.getContentHash());
+		first.getChildren().get(0).addChild(new Widget("label"));
+		Assert.assertNotEquals(hash, first.getContentHash());
+	}
+
+	private static Widget tree(String id, String title) {
+		Widget root = new Widget("window");
+		root.addAttribute(Tags.Title, "window");
+		Widget panel = new Widget("panel");
+		root.addChild(panel);
+		Widget leaf = new Widget(id);
+		leaf.addAttribute(Tags.Title, title);
+		panel.addChild(leaf);
+		return root;
+	}
+}
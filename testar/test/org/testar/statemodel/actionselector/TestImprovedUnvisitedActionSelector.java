@@ -1,6 +1,7 @@
 package org.testar.statemodel.actionselector;
 
 import java.lang.reflect.Field;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -143,6 +144,68 @@ public class TestImprovedUnvisitedActionSelector {
 		Assert.assertTrue(exception instanceof ActionNotFoundException);
 	}
 
+	@Test
+	public void test_rebuild_when_unreachable() throws ActionNotFoundException, StateModelException {
+		// Fake a circular model with all actions executed
+		// S1 -> A1 -> S2 -> A2 -> S1
+		try {
+			abstractStateModel.addTransition(firstState, secondState, firstAction);
+			abstractStateModel.addTransition(secondState, firstState, secondAction);
+		} catch (StateModelException e) {
+			e.printStackTrace();
+			Assert.assertTrue(false);
+		}
+
+		// The distance map knows that no unvisited action can be reached
+		Assert.assertNull(abstractStateModel.getUnvisitedDistanceMap().getPath(firstState.getStateId()));
+		assertNoActionFound(firstState);
+
+		// An action is added to the second state outside of the model, the distances are outdated
+		secondState.addNewAction(thirdAction);
+
+		// The model did not change since the distances were last rebuilt, so they are not rebuilt on every selection
+		assertNoActionFound(firstState);
+
+		// A change of the model lets the selector rebuild the distances, which finds the path to the new action
+		abstractStateModel.addState(new AbstractState("fourthState", Collections.singleton(new AbstractAction("fourthAction"))));
+		Assert.assertEquals(firstAction, actionSelector.selectAction(firstState, abstractStateModel));
+		Assert.assertEquals(thirdAction, actionSelector.selectAction(secondState, abstractStateModel));
+	}
+
+	private void assertNoActionFound(AbstractState state) {
+		try {
+			actionSelector.selectAction(state, abstractStateModel);
+			Assert.fail("No unvisited action should be found");
+		} catch (ActionNotFoundException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void test_path_to_state_visited_outside_of_model() throws ActionNotFoundException, StateModelException {
+		// S1 -> A -> T1, S1 -> B -> M -> C -> T2
+		AbstractAction actionA = new AbstractAction("actionA");
+		AbstractAction actionB = new AbstractAction("actionB");
+		AbstractAction actionC = new AbstractAction("actionC");
+		AbstractAction actionT1 = new AbstractAction("actionT1");
+		AbstractAction actionT2 = new AbstractAction("actionT2");
+		AbstractState s1 = new AbstractState("s1", new HashSet<>(Arrays.asList(actionA, actionB)));
+		AbstractState t1 = new AbstractState("t1", Collections.singleton(actionT1));
+		AbstractState m = new AbstractState("m", Collections.singleton(actionC));
+		AbstractState t2 = new AbstractState("t2", Collections.singleton(actionT2));
+		abstractStateModel.addTransition(s1, t1, actionA);
+		abstractStateModel.addTransition(s1, m, actionB);
+		abstractStateModel.addTransition(m, t2, actionC);
+		Assert.assertEquals(1, abstractStateModel.getUnvisitedDistanceMap().getDistance(s1.getStateId()));
+
+		// The nearest state is visited outside of the model, the selector takes the path to the other one
+		t1.addVisitedAction(actionT1);
+		Assert.assertEquals(actionB, actionSelector.selectAction(s1, abstractStateModel));
+		Assert.assertEquals(actionC, actionSelector.selectAction(m, abstractStateModel));
+		Assert.assertEquals(actionT2, actionSelector.selectAction(t2, abstractStateModel));
+		Assert.assertEquals(2, abstractStateModel.getUnvisitedDistanceMap().getDistance(s1.getStateId()));
+	}
+
 	@Test
 	public void test_new_system_sequence() {
 		// Fake that two transition exists
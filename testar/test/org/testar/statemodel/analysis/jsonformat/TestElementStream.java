@@ -0,0 +1,75 @@
+package org.testar.statemodel.analysis.jsonformat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestElementStream {
+
+	@Test
+	public void testUnpagedStreamWritesPlainArray() throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (ElementStream stream = new ElementStream(outputStream)) {
+			for (int i = 0; i < 3; i++) {
+				Assert.assertTrue(stream.accept());
+				stream.write(node(i));
+			}
+			Assert.assertFalse(stream.hasMore());
+		}
+
+		String json = outputStream.toString(StandardCharsets.UTF_8.name());
+		Assert.assertEquals("[" + nodeJson(0) + "," + nodeJson(1) + "," + nodeJson(2) + "]", json);
+	}
+
+	@Test
+	public void testPagedStreamSkipsAndLimits() throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		int offered = 0;
+		try (ElementStream stream = new ElementStream(outputStream, 2, 2)) {
+			for (int i = 0; i < 10 && !stream.hasMore(); i++) {
+				offered++;
+				if (stream.accept()) {
+					stream.write(node(i));
+				}
+			}
+			Assert.assertEquals(2, stream.getCount());
+			Assert.assertTrue(stream.hasMore());
+		}
+
+		// the producer stops as soon as the first element after the page was offered
+		Assert.assertEquals(5, offered);
+		String json = outputStream.toString(StandardCharsets.UTF_8.name());
+		Assert.assertEquals("{\"elements\":[" + nodeJson(2) + "," + nodeJson(3) + "],\"offset\":2,\"count\":2,\"hasMore\":true}", json);
+	}
+
+	@Test
+	public void testLastPageHasNoMore() throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (ElementStream stream = new ElementStream(outputStream, 2, 5)) {
+			for (int i = 0; i < 4 && !stream.hasMore(); i++) {
+				if (stream.accept()) {
+					stream.write(node(i));
+				}
+			}
+		}
+
+		String json = outputStream.toString(StandardCharsets.UTF_8.name());
+		Assert.assertEquals("{\"elements\":[" + nodeJson(2) + "," + nodeJson(3) + "],\"offset\":2,\"count\":2,\"hasMore\":false}", json);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeOffset() throws IOException {
+		new ElementStream(new ByteArrayOutputStream(), -1, 10);
+	}
+
+	private static Element node(int i) {
+		return new Element(Element.GROUP_NODES, new Vertex("n" + i), "AbstractState");
+	}
+
+	private static String nodeJson(int i) {
+		return "{\"group\":\"nodes\",\"data\":{\"id\":\"n" + i + "\"},\"classes\":[\"AbstractState\"]}";
+	}
+}
@@ -0,0 +1,227 @@
+package org.testar.statemodel.distributed;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.testar.monkey.alayer.Tags;
+import org.testar.statemodel.AbstractAction;
+import org.testar.statemodel.AbstractState;
+import org.testar.statemodel.AbstractStateModel;
+import org.testar.statemodel.event.StateModelEvent;
+import org.testar.statemodel.event.StateModelEventListener;
+import org.testar.statemodel.event.StateModelEventType;
+import org.testar.statemodel.exceptions.StateModelException;
+
+public class TestSharedModelSynchronizer {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private RecordingDeltaStore storeA;
+	private RecordingDeltaStore storeB;
+	private SharedModelSynchronizer synchronizerA;
+	private SharedModelSynchronizer synchronizerB;
+	private AbstractStateModel modelA;
+	private AbstractStateModel modelB;
+
+	@Before
+	public void createWorkers() {
+		File directory = new File(folder.getRoot(), "model");
+		storeA = new RecordingDeltaStore(new DirectoryDeltaStore(directory, "workerA"));
+		storeB = new RecordingDeltaStore(new DirectoryDeltaStore(directory, "workerB"));
+		synchronizerA = new SharedModelSynchronizer(storeA, 0);
+		synchronizerB = new SharedModelSynchronizer(storeB, 0);
+		modelA = new AbstractStateModel("sharedModel", "", "", Collections.singleton(Tags.AbstractID), synchronizerA);
+		modelB = new AbstractStateModel("sharedModel", "", "", Collections.singleton(Tags.AbstractID), synchronizerB);
+	}
+
+	@Test
+	public void test_discoveries_reach_the_other_worker() throws StateModelException {
+		// worker A executes A1 in S1 and reaches S2
+		AbstractAction firstAction = new AbstractAction("firstAction");
+		AbstractState firstState = new AbstractState("firstState", new HashSet<>(Arrays.asList(firstAction, new AbstractAction("secondAction"))));
+		firstState.setInitial(true);
+		modelA.addState(firstState);
+		modelA.addTransition(firstState, new AbstractState("secondState", Collections.singleton(new AbstractAction("thirdAction"))), firstAction);
+		synchronizerA.synchronize();
+
+		synchronizerB.synchronize();
+		Assert.assertEquals(2, modelB.getNrOfStates());
+		Assert.assertTrue(modelB.getState("firstState").isInitial());
+		Assert.assertEquals(1, modelB.getOutgoingTransitionsForState("firstState").size());
+		// the action that worker A executed is no longer unvisited for worker B
+		Assert.assertEquals(1, modelB.getState("firstState").getNrOfUnvisitedActions());
+		Assert.assertEquals(modelA.getStatistics().toString(), modelB.getStatistics().toString());
+
+		// worker B does not publish the merged changes again
+		synchronizerB.synchronize();
+		Assert.assertEquals(0, storeB.published);
+	}
+
+	@Test
+	public void test_merging_is_idempotent() throws StateModelException {
+		AbstractAction firstAction = new AbstractAction("firstAction");
+		AbstractState firstState = new AbstractState("firstState", Collections.singleton(firstAction));
+		modelA.addTransition(firstState, new AbstractState("secondState", Collections.emptySet()), firstAction);
+		synchronizerA.synchronize();
+		List<byte[]> deltas = storeA.lastPublished;
+		Assert.assertEquals(1, deltas.size());
+
+		ModelDelta.decode(deltas.get(0)).mergeInto(modelB);
+		String statistics = modelB.getStatistics().toString();
+		ModelDelta.decode(deltas.get(0)).mergeInto(modelB);
+		Assert.assertEquals(statistics, modelB.getStatistics().toString());
+		Assert.assertEquals(modelA.getStatistics().toString(), statistics);
+	}
+
+	@Test
+	public void test_both_workers_converge() throws StateModelException {
+		AbstractAction firstAction = new AbstractAction("firstAction");
+		AbstractAction secondAction = new AbstractAction("secondAction");
+		AbstractState stateA = new AbstractState("firstState", new HashSet<>(Arrays.asList(firstAction, secondAction)));
+		modelA.addTransition(stateA, new AbstractState("secondState", Collections.emptySet()), firstAction);
+
+		AbstractAction otherSecondAction = new AbstractAction("secondAction");
+		AbstractState stateB = new AbstractState("firstState", new HashSet<>(Arrays.asList(new AbstractAction("firstAction"), otherSecondAction)));
+		modelB.addTransition(stateB, new AbstractState("thirdState", Collections.emptySet()), otherSecondAction);
+
+		synchronizerA.synchronize();
+		synchronizerB.synchronize();
+		synchronizerA.synchronize();
+
+		Assert.assertEquals(3, modelA.getNrOfStates());
+		Assert.assertEquals(3, modelB.getNrOfStates());
+		Assert.assertFalse(modelA.getState("firstState").hasUnvisitedActions());
+		Assert.assertFalse(modelB.getState("firstState").hasUnvisitedActions());
+		Assert.assertEquals(modelA.getStatistics().toString(), modelB.getStatistics().toString());
+	}
+
+	@Test
+	public void test_incomplete_delta_is_not_read() throws IOException {
+		File directory = folder.newFolder("torn");
+		DirectoryDeltaStore writer = new DirectoryDeltaStore(directory, "writer");
+		DirectoryDeltaStore reader = new DirectoryDeltaStore(directory, "reader");
+		writer.publish(new byte[] {1, 2, 3});
+		writer.publish(new byte[] {4, 5, 6, 7});
+		writer.close();
+
+		// cut the second delta in half, as if the writer is still busy writing it
+		File file = new File(directory, "writer.deltas");
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.setLength(file.length() - 5);
+		}
+		List<byte[]> deltas = reader.fetch();
+		Assert.assertEquals(1, deltas.size());
+		Assert.assertArrayEquals(new byte[] {1, 2, 3}, deltas.get(0));
+		Assert.assertTrue(reader.fetch().isEmpty());
+		reader.close();
+	}
+
+	@Test
+	public void test_loaded_model_is_not_published() throws StateModelException {
+		// a persistence manager loads the stored model when the model is initialized
+		StateModelEventListener loader = new StateModelEventListener() {
+			@Override
+			public void eventReceived(StateModelEvent event) {
+				if (event.getEventType() != StateModelEventType.ABSTRACT_STATE_MODEL_INITIALIZED) return;
+				AbstractStateModel model = (AbstractStateModel) event.getPayload();
+				AbstractAction storedAction = new AbstractAction("storedAction");
+				try {
+					model.addTransition(new AbstractState("storedState", Collections.singleton(storedAction)), new AbstractState("otherStoredState", Collections.emptySet()), storedAction);
+				} catch (StateModelException ex) {
+					throw new IllegalStateException(ex);
+				}
+			}
+
+			@Override
+			public void setListening(boolean listening) {
+			}
+		};
+		RecordingDeltaStore store = new RecordingDeltaStore(new DirectoryDeltaStore(new File(folder.getRoot(), "loaded"), "worker"));
+		SharedModelSynchronizer synchronizer = new SharedModelSynchronizer(store, 0);
+		AbstractStateModel model = new AbstractStateModel("loadedModel", "", "", Collections.singleton(Tags.AbstractID), loader, synchronizer);
+		Assert.assertEquals(2, model.getNrOfStates());
+		synchronizer.synchronize();
+		Assert.assertEquals(0, store.published);
+
+		// the changes after the initialization are published
+		model.addState(new AbstractState("newState", Collections.emptySet()));
+		synchronizer.synchronize();
+		Assert.assertEquals(1, store.published);
+		Assert.assertEquals(1, ModelDelta.decode(store.lastPublished.get(0)).getNrOfStates());
+	}
+
+	@Test
+	public void test_finished_workers_are_merged() throws StateModelException, IOException {
+		AbstractAction firstAction = new AbstractAction("firstAction");
+		modelA.addTransition(new AbstractState("firstState", Collections.singleton(firstAction)), new AbstractState("secondState", Collections.emptySet()), firstAction);
+		synchronizerA.synchronize();
+		modelA.addState(new AbstractState("thirdState", Collections.emptySet()));
+		synchronizerA.synchronize();
+		modelB.addState(new AbstractState("fourthState", Collections.emptySet()));
+		synchronizerB.synchronize();
+		Assert.assertEquals(2, storeA.published);
+		Assert.assertEquals(1, storeB.published);
+
+		// a worker that is still running is not merged
+		synchronizerA.close();
+		File directory = new File(folder.getRoot(), "model");
+		Assert.assertTrue(new File(directory, "workerA.deltas").isFile());
+		Assert.assertTrue(new File(directory, "workerB.deltas").isFile());
+
+		synchronizerB.close();
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(".deltas"));
+		Assert.assertEquals(1, files.length);
+		Assert.assertFalse(new File(directory, "workerA.deltas").exists());
+		Assert.assertFalse(new File(directory, "workerB.deltas").exists());
+
+		// a worker that starts later finds the states of both workers in a single delta
+		DirectoryDeltaStore laterStore = new DirectoryDeltaStore(directory, "workerC");
+		List<byte[]> deltas = laterStore.fetch();
+		Assert.assertEquals(1, deltas.size());
+		AbstractStateModel laterModel = new AbstractStateModel("sharedModel", "", "", Collections.singleton(Tags.AbstractID));
+		ModelDelta.decode(deltas.get(0)).mergeInto(laterModel);
+		Assert.assertEquals(4, laterModel.getNrOfStates());
+		Assert.assertEquals(1, laterModel.getOutgoingTransitionsForState("firstState").size());
+		Assert.assertTrue(laterStore.fetch().isEmpty());
+		laterStore.close();
+	}
+
+	private static class RecordingDeltaStore implements DeltaStore {
+
+		private final DeltaStore deltaStore;
+		private int published = 0;
+		private List<byte[]> lastPublished;
+
+		RecordingDeltaStore(DeltaStore deltaStore) {
+			this.deltaStore = deltaStore;
+		}
+
+		@Override
+		public void publish(byte[] delta) throws IOException {
+			published++;
+			lastPublished = Collections.singletonList(delta);
+			deltaStore.publish(delta);
+		}
+
+		@Override
+		public List<byte[]> fetch() throws IOException {
+			return deltaStore.fetch();
+		}
+
+		@Override
+		public void close() throws IOException {
+			deltaStore.close();
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package org.testar.statemodel.persistence.logstore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.testar.monkey.alayer.Tags;
+import org.testar.monkey.alayer.Verdict;
+import org.testar.statemodel.AbstractAction;
+import org.testar.statemodel.AbstractState;
+import org.testar.statemodel.AbstractStateModel;
+import org.testar.statemodel.AbstractStateTransition;
+import org.testar.statemodel.ConcreteAction;
+import org.testar.statemodel.ConcreteState;
+import org.testar.statemodel.ConcreteStateTransition;
+import org.testar.statemodel.Widget;
+import org.testar.statemodel.exceptions.StateModelException;
+import org.testar.statemodel.persistence.DummyManager;
+import org.testar.statemodel.util.EventHelper;
+
+public class TestLogStoreManager {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testModelIsLoadedFromLog() throws StateModelException {
+		File directory = folder.getRoot();
+
+		LogStoreManager manager = new LogStoreManager(new EventHelper(), directory);
+		AbstractStateModel model = createModel(manager);
+		AbstractAction firstAction = new AbstractAction("firstAction");
+		AbstractAction secondAction = new AbstractAction("secondAction");
+		AbstractState firstState = new AbstractState("firstState", new HashSet<>(Arrays.asList(firstAction, secondAction)));
+		firstState.setInitial(true);
+		firstState.addConcreteStateId("firstConcreteState");
+		firstState.getAttributes().set(Tags.Title, "first");
+		AbstractState secondState = new AbstractState("secondState", Collections.emptySet());
+		AbstractState thirdState = new AbstractState("thirdState", Collections.emptySet());
+		model.addState(firstState);
+		model.addTransition(firstState, secondState, firstAction);
+		model.addTransition(firstState, thirdState, firstAction);
+		Assert.assertEquals(2, manager.getNrOfNondeterministicActions(model));
+		manager.shutdown();
+
+		LogStoreManager reopenedManager = new LogStoreManager(new EventHelper(), directory);
+		AbstractStateModel reopenedModel = createModel(reopenedManager);
+		Assert.assertEquals(3, reopenedModel.getNrOfStates());
+		Assert.assertEquals(2, reopenedModel.getStatistics().getNrOfTransitions());
+		Assert.assertEquals(2, reopenedManager.getNrOfNondeterministicActions(reopenedModel));
+		Assert.assertFalse(reopenedManager.modelIsDeterministic(reopenedModel));
+
+		AbstractState loadedState = reopenedModel.getState("firstState");
+		Assert.assertTrue(loadedState.isInitial());
+		Assert.assertEquals("first", loadedState.getAttributes().get(Tags.Title));
+		Assert.assertEquals(Collections.singleton("firstConcreteState"), loadedState.getConcreteStateIds());
+		Assert.assertEquals(1, loadedState.getNrOfUnvisitedActions());
+		reopenedManager.shutdown();
+	}
+
+	@Test
+	public void testExportReplaysModel() throws StateModelException, IOException {
+		File directory = folder.getRoot();
+
+		LogStoreManager manager = new LogStoreManager(new EventHelper(), directory);
+		AbstractStateModel model = createModel(manager);
+		AbstractAction action = new AbstractAction("action");
+		AbstractState firstState = new AbstractState("firstState", Collections.singleton(action));
+		AbstractState secondState = new AbstractState("secondState", Collections.emptySet());
+		model.addTransition(firstState, secondState, action);
+		ConcreteState firstConcreteState = new ConcreteState("firstConcreteState", Collections.singleton(Tags.ConcreteID), firstState);
+		firstConcreteState.getAttributes().set(Tags.OracleVerdict, new Verdict(Verdict.SEVERITY_MAX, "failure"));
+		ConcreteState secondConcreteState = new ConcreteState("secondConcreteState", Collections.singleton(Tags.ConcreteID), secondState);
+		secondConcreteState.addChild(new Widget("childWidget"));
+		manager.persistConcreteStateTransition(new ConcreteStateTransition(firstConcreteState, secondConcreteState, new ConcreteAction("concreteAction", action)));
+		manager.shutdown();
+
+		Map<String, Object> persisted = new HashMap<>();
+		LogStoreExporter.export(directory, "model", new DummyManager() {
+			@Override
+			public void persistAbstractStateTransition(AbstractStateTransition abstractStateTransition) {
+				persisted.put(abstractStateTransition.getSourceStateId() + "-" + abstractStateTransition.getTargetStateId(), abstractStateTransition);
+			}
+
+			@Override
+			public void persistConcreteState(ConcreteState concreteState) {
+				persisted.put(concreteState.getId(), concreteState);
+			}
+		});
+
+		Assert.assertEquals(new HashSet<>(Arrays.asList("firstState-secondState", "firstConcreteState", "secondConcreteState")), persisted.keySet());
+		ConcreteState exportedState = (ConcreteState) persisted.get("firstConcreteState");
+		Assert.assertEquals("firstState", exportedState.getAbstractState().getStateId());
+		Assert.assertEquals(Verdict.SEVERITY_MAX, exportedState.getAttributes().get(Tags.OracleVerdict).severity(), 0);
+		Assert.assertEquals("childWidget", ((ConcreteState) persisted.get("secondConcreteState")).getChildren().get(0).getId());
+	}
+
+	@Test
+	public void testTornRecordIsDiscarded() throws IOException {
+		File directory = folder.getRoot();
+		ModelLog log = new ModelLog(directory, "model");
+		log.append(LogRecord.ABSTRACT_STATE, new RecordWriter().writeString("firstState").toByteArray());
+		log.append(LogRecord.ABSTRACT_STATE, new RecordWriter().writeString("secondState").toByteArray());
+		long validSize = log.getSize();
+		log.close();
+
+		// simulate a crash halfway through writing a record
+		try (RandomAccessFile file = new RandomAccessFile(log.getFile(0), "rw")) {
+			file.seek(validSize);
+			file.writeInt(100);
+			file.write(new byte[] {LogRecord.ABSTRACT_STATE, 0, 0, 0});
+		}
+
+		log = new ModelLog(directory, "model");
+		Assert.assertEquals(validSize, log.getSize());
+		Assert.assertEquals(2, log.readLiveRecords().size());
+
+		log.append(LogRecord.ABSTRACT_STATE, new RecordWriter().writeString("thirdState").toByteArray());
+		log.close();
+		log = new ModelLog(directory, "model");
+		Assert.assertEquals(3, log.readLiveRecords().size());
+		log.close();
+	}
+
+	@Test
+	public void testCompactionKeepsLatestRecords() throws IOException {
+		File directory = folder.getRoot();
+		ModelLog log = new ModelLog(directory, "model");
+		for (int i = 0; i < 10; i++) {
+			log.append(LogRecord.ABSTRACT_STATE, new RecordWriter().writeString("firstState").writeInt(i).toByteArray());
+			log.append(LogRecord.ABSTRACT_STATE, new RecordWriter().writeString("secondState").writeInt(i).toByteArray());
+		}
+		Map<String, LogRecord> liveRecords = log.readLiveRecords();
+		Assert.assertEquals(20, log.getNrOfRecords());
+		Assert.assertEquals(2, liveRecords.size());
+
+		log.compact(liveRecords.values());
+		Assert.assertEquals(2, log.getNrOfRecords());
+		for (LogRecord record : log.readLiveRecords().values()) {
+			RecordReader reader = new RecordReader(log.getPayload(record));
+			reader.readString();
+			Assert.assertEquals(9, reader.readInt());
+		}
+		log.close();
+
+		// the next generation replaces the compacted log
+		Assert.assertTrue(log.getFile(1).exists());
+		log = new ModelLog(directory, "model");
+		Assert.assertEquals(2, log.getNrOfRecords());
+		log.close();
+	}
+
+	@Test
+	public void testNewModelRecordSurvivesCompaction() throws IOException, StateModelException {
+		File directory = folder.getRoot();
+		ModelLog log = new ModelLog(directory, "model");
+		log.append(LogRecord.MODEL, new RecordWriter().writeString("application").writeString("0.9")
+				.writeStrings(Collections.emptyList()).writeStrings(Collections.emptyList()).toByteArray());
+		// enough superseded records to compact the log when the model is loaded
+		for (int i = 0; i < 1100; i++) {
+			log.append(LogRecord.SEQUENCE, new RecordWriter().writeString("sequence").writeInt(i).toByteArray());
+		}
+		log.close();
+
+		LogStoreManager manager = new LogStoreManager(new EventHelper(), directory);
+		createModel(manager);
+		manager.shutdown();
+
+		log = new ModelLog(directory, "model");
+		Map<String, LogRecord> liveRecords = log.readLiveRecords();
+		Assert.assertEquals(2, log.getNrOfRecords());
+		RecordReader reader = new RecordReader(log.getPayload(liveRecords.get(LogRecord.MODEL + "")));
+		Assert.assertEquals("application", reader.readString());
+		Assert.assertEquals("1.0", reader.readString());
+		log.close();
+	}
+
+	@Test
+	public void testPayloadOfAppendedRecord() throws IOException {
+		File directory = folder.getRoot();
+		ModelLog log = new ModelLog(directory, "model");
+		log.readLiveRecords();
+		LogRecord record = log.append(LogRecord.ABSTRACT_STATE, new RecordWriter().writeString("firstState").writeInt(1).toByteArray());
+		RecordReader reader = new RecordReader(log.getPayload(record));
+		Assert.assertEquals("firstState", reader.readString());
+		Assert.assertEquals(1, reader.readInt());
+		log.close();
+	}
+
+	private static AbstractStateModel createModel(LogStoreManager manager) {
+		return new AbstractStateModel("model", "application", "1.0", Collections.singleton(Tags.AbstractID), manager);
+	}
+}
@@ -408,3 +408,30 @@ function getAttributeMapTestar(element) {
         return map;
     }, {});
 }
+
+/*
+ * Get a fingerprint of the page that changes whenever the DOM changes, so that Spy mode
+ * can keep the state of the page while nothing happens. The mutations of the TESTAR canvas are ignored.
+ * @return {string} the page instance, url, mutation count, scroll position and viewport size
+ */
+function getChangeFingerprintTestar() {
+    if (typeof testarMutations !== 'number') {
+        testarMutations = 0;
+        testarPageId = Math.random().toString(36).substring(2);
+        new MutationObserver(function (records) {
+            var canvas = document.getElementById('testar_canvas');
+            for (var i = 0; i < records.length; i++) {
+                var record = records[i];
+                var canvasOnly = record.target === canvas ||
+                    (record.addedNodes.length + record.removedNodes.length === 1 &&
+                        (record.addedNodes[0] === canvas || record.removedNodes[0] === canvas));
+                if (!canvasOnly) {
+                    testarMutations++;
+                    return;
+                }
+            }
+        }).observe(document, {attributes: true, childList: true, characterData: true, subtree: true});
+    }
+    return [testarPageId, location.href, testarMutations, window.scrollX, window.scrollY,
+        window.innerWidth, window.innerHeight].join('|');
+}
@@ -269,6 +269,15 @@ public class WdElement extends TaggableBase implements Serializable {
     return rect != null && rect.contains(x - scrollLeft, y - scrollHeight);
   }
 
+  Rect hitBounds() {
+    if (rect == null) {
+      return null;
+    }
+    int scrollLeft = (root == null) ? 0 : (int) root.scrollLeft;
+    int scrollHeight = (root == null) ? 0 : (int) root.scrollHeight;
+    return Rect.from(rect.x() + scrollLeft, rect.y() + scrollHeight, rect.width(), rect.height());
+  }
+
   public boolean visibleAt(double x, double y, boolean obscuredByChildFeature) {
     return visibleAt(x, y);
   }
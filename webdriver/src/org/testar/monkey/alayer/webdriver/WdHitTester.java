@@ -31,6 +31,7 @@
 package org.testar.monkey.alayer.webdriver;
 
 import org.testar.monkey.alayer.HitTester;
+import org.testar.monkey.alayer.Rect;
 
 import java.io.Serializable;
 
@@ -66,6 +67,16 @@ public class WdHitTester implements HitTester, Serializable {
     return element.visibleAt(x, y, obscuredByChildFeature);
   }
 
+  /**
+   * The element's rectangle, shifted by the scroll offsets that visibleAt() takes into account.
+   *
+   * @return The area outside of which the element can never be hit
+   */
+  @Override
+  public Rect bounds() {
+    return element.hitBounds();
+  }
+
   public String toString() {
     return "WdHitTester";
   }
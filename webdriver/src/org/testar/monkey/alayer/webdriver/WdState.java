@@ -46,13 +46,16 @@ import java.util.Set;
 public final class WdState extends WdWidget implements State {
 	private static final long serialVersionUID = 661696260972010052L;
 
+	// computed on first use, discarded whenever the widget tree changes
+	private transient WidgetTraversal traversal;
+
 	public WdState(WdElement root) {
 		super(null, null, root);
 		this.root = this;
 	}
 
 	public Iterator<Widget> iterator() {
-		Iterator<Widget> iterator = new WidgetIterator(this);
+		Iterator<Widget> iterator = traversal().iterator();
 
 		// If root element is null, disable iterating
 		if (this.element == null) {
@@ -62,10 +65,20 @@ public final class WdState extends WdWidget implements State {
 		return iterator;
 	}
 
+	public WidgetTraversal traversal() {
+		WidgetTraversal ret = traversal;
+		if (ret == null) {
+			ret = WidgetTraversal.of(this);
+			traversal = ret;
+		}
+		return ret;
+	}
+
 	public void remove(WdWidget w) {
 		Assert.isTrue(this != w, "You cannot remove the root!");
 		assert (w.parent != null);
 		w.parent.children.remove(w);
+		traversal = null;
 		invalidate(w);
 	}
 
@@ -92,6 +105,7 @@ public final class WdState extends WdWidget implements State {
 		w.parent.children.remove(w);
 		webParent.children.add(idx, w);
 		w.parent = webParent;
+		traversal = null;
 	}
 
 	WdWidget addChild(WdWidget parent, WdElement element) {
@@ -101,6 +115,7 @@ public final class WdState extends WdWidget implements State {
 
 	void connect(WdWidget parent, WdWidget child) {
 		parent.children.add(child);
+		traversal = null;
 	}
 
 	public <T> T get(WdWidget w, Tag<T> t) {
@@ -30,11 +30,10 @@
 
 package org.testar.monkey.alayer.webdriver;
 
-import org.testar.monkey.Util;
 import org.testar.monkey.alayer.Roles;
 import org.testar.monkey.alayer.SUT;
 import org.testar.monkey.alayer.Tags;
-import org.testar.monkey.alayer.Widget;
+import org.testar.monkey.alayer.WidgetTraversal;
 import org.testar.monkey.alayer.exceptions.StateBuildException;
 
 import java.util.HashMap;
@@ -130,9 +129,8 @@ public class WdStateFetcher implements Callable<WdState> {
     root.set(Tags.Role, Roles.Process);
     root.set(Tags.NotResponding, false);
 
-    for (Widget w : root) {
-      w.set(Tags.Path, Util.indexString(w));
-    }
+    WidgetTraversal traversal = root.traversal();
+    traversal.forEachPreOrder((w, index, depth) -> w.set(Tags.Path, traversal.indexString(index)));
 
     return root;
   }
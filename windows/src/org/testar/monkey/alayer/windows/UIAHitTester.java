@@ -34,6 +34,7 @@
 package org.testar.monkey.alayer.windows;
 
 import org.testar.monkey.alayer.HitTester;
+import org.testar.monkey.alayer.Rect;
 
 public final class UIAHitTester implements HitTester {
 	private static final long serialVersionUID = 1134479951851719957L;
@@ -50,5 +51,8 @@ public final class UIAHitTester implements HitTester {
 	}
 	
 	// end by urueda
+
+	@Override
+	public Rect bounds() { return el.rect; }
 	
 }
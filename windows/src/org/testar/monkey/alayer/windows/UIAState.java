@@ -47,23 +47,36 @@ import org.testar.monkey.alayer.State;
 import org.testar.monkey.alayer.Tag;
 import org.testar.monkey.alayer.Tags;
 import org.testar.monkey.alayer.Widget;
-import org.testar.monkey.alayer.WidgetIterator;
+import org.testar.monkey.alayer.WidgetTraversal;
 import org.testar.monkey.alayer.exceptions.NoSuchTagException;
 
 final class UIAState extends UIAWidget implements State {
 	private static final long serialVersionUID = 7823095941981151363L;
 
+	// computed on first use, discarded whenever the widget tree changes
+	private transient WidgetTraversal traversal;
+
 	public UIAState(UIAElement root){
 		super(null, null, root);
 		this.root = this;
 	}
 
-	public Iterator<Widget> iterator() { return new WidgetIterator(this); }
+	public Iterator<Widget> iterator() { return traversal().iterator(); }
+
+	public WidgetTraversal traversal(){
+		WidgetTraversal ret = traversal;
+		if(ret == null){
+			ret = WidgetTraversal.of(this);
+			traversal = ret;
+		}
+		return ret;
+	}
 
 	void remove(UIAWidget w){
 		Assert.isTrue(this != w, "You cannot remove the root!");
 		assert(w.parent != null);
 		w.parent.children.remove(w);
+		traversal = null;
 		invalidate(w);
 	}
 
@@ -88,6 +101,7 @@ final class UIAState extends UIAWidget implements State {
 		w.parent.children.remove(w);
 		uiaParent.children.add(idx, w);
 		w.parent = uiaParent;
+		traversal = null;
 	}
 
 	UIAWidget addChild(UIAWidget parent, UIAElement element){
@@ -97,6 +111,7 @@ final class UIAState extends UIAWidget implements State {
 
 	void connect(UIAWidget parent, UIAWidget child){
 		parent.children.add(child);
+		traversal = null;
 	}
 
 	<T> T get(UIAWidget w, Tag<T> t){